@@ -0,0 +1,98 @@
+package com.oops.wallsandwarriors.benchmarks;
+
+import com.oops.wallsandwarriors.SolutionManager;
+import com.oops.wallsandwarriors.definitions.GridDefinitions;
+import com.oops.wallsandwarriors.model.ChallengeData;
+import com.oops.wallsandwarriors.model.Coordinate;
+import com.oops.wallsandwarriors.model.HighTowerData;
+import com.oops.wallsandwarriors.model.KnightData;
+import com.oops.wallsandwarriors.util.LazyChallengeList;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * A class to provide the challenges used by the benchmarks. The challenges are
+ * the solved campaign challenges, moved onto the grid of the requested size.
+ */
+public class BenchmarkChallenges {
+
+    private static final String CAMPAIGN_CHALLENGES_PATH =
+            "/com/oops/wallsandwarriors/resources/challenges/campaign_challenges.dat";
+
+    // The campaign challenge with the most knights
+    public static final int DEFAULT_INDEX = 12;
+
+    private static LazyChallengeList campaignChallenges;
+
+    /**
+     * A method to get the campaign challenges.
+     * @return the campaign challenges with their solutions
+     */
+    public static synchronized List<ChallengeData> getCampaignChallenges() {
+        if (campaignChallenges == null) {
+            InputStream inputStream = BenchmarkChallenges.class.getResourceAsStream(
+                    CAMPAIGN_CHALLENGES_PATH);
+            if (inputStream == null) {
+                throw new IllegalStateException("Campaign challenges are not on the classpath");
+            }
+            try {
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                for (int read; (read = inputStream.read(buffer)) != -1;) {
+                    content.write(buffer, 0, read);
+                }
+                inputStream.close();
+                campaignChallenges = new LazyChallengeList(content.toByteArray());
+            } catch (IOException e) {
+                throw new IllegalStateException("Campaign challenges can not be read", e);
+            }
+        }
+        return campaignChallenges;
+    }
+
+    /**
+     * A method to get the blocks of a grid by its name in GridDefinitions.
+     * @param grid SMALL, MEDIUM or LARGE
+     * @return the blocks of the grid
+     */
+    public static List<Coordinate> getGrid(String grid) {
+        if ("SMALL".equals(grid)) {
+            return GridDefinitions.SMALL;
+        } else if ("MEDIUM".equals(grid)) {
+            return GridDefinitions.MEDIUM;
+        } else if ("LARGE".equals(grid)) {
+            return GridDefinitions.LARGE;
+        }
+        throw new IllegalArgumentException("Unknown grid " + grid);
+    }
+
+    /**
+     * A method to get a solved campaign challenge on the given grid. Every block
+     * of the small grid is a block of the larger grids, so the walls, knights
+     * and high towers keep their positions and the solution stays correct.
+     * @param grid SMALL, MEDIUM or LARGE
+     * @param index index of the campaign challenge
+     * @return a new solved challenge on the grid
+     */
+    public static ChallengeData getSolvedChallenge(String grid, int index) {
+        ChallengeData campaignChallenge = getCampaignChallenges().get(index);
+        ChallengeData challenge = new ChallengeData(getGrid(grid), campaignChallenge.walls);
+        challenge.setName(campaignChallenge.getName());
+        challenge.setDescription(campaignChallenge.getDescription());
+        challenge.setCreator(campaignChallenge.getCreator());
+        for (KnightData knight : campaignChallenge.knights) {
+            challenge.addPiece(knight.createCopy());
+        }
+        for (HighTowerData highTower : campaignChallenge.highTowers) {
+            challenge.addPiece(highTower.createCopy());
+        }
+        List<KnightData> incorrectKnights = new SolutionManager().checkSolution(challenge);
+        if (incorrectKnights == null || !incorrectKnights.isEmpty()) {
+            throw new IllegalStateException("Challenge " + index + " is not solved on " + grid);
+        }
+        return challenge;
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.oops.wallsandwarriors.benchmarks;
+
+import com.oops.wallsandwarriors.model.ChallengeData;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A class to benchmark copying a challenge, as done when a challenge is started.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CopyBenchmark {
+
+    @Param({"true", "false"})
+    public boolean reset;
+
+    private ChallengeData challenge;
+
+    @Setup
+    public void setUp() {
+        challenge = BenchmarkChallenges.getSolvedChallenge("SMALL", BenchmarkChallenges.DEFAULT_INDEX);
+    }
+
+    @Benchmark
+    public ChallengeData createCopy() {
+        return challenge.createCopy(reset);
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.oops.wallsandwarriors.benchmarks;
+
+import com.oops.wallsandwarriors.model.ChallengeData;
+import com.oops.wallsandwarriors.util.EncodeUtils;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A class to benchmark encoding a challenge into a code and decoding it back.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodeBenchmark {
+
+    private ChallengeData challenge;
+    private String code;
+
+    @Setup
+    public void setUp() throws IOException {
+        challenge = BenchmarkChallenges.getCampaignChallenges().get(BenchmarkChallenges.DEFAULT_INDEX);
+        code = EncodeUtils.encode(challenge);
+    }
+
+    @Benchmark
+    public String encode() throws IOException {
+        return EncodeUtils.encode(challenge);
+    }
+
+    @Benchmark
+    public ChallengeData decode() throws IOException, ClassNotFoundException {
+        return EncodeUtils.decode(code);
+    }
+
+}
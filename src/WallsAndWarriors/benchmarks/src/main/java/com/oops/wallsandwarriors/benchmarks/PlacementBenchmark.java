@@ -0,0 +1,77 @@
+package com.oops.wallsandwarriors.benchmarks;
+
+import com.oops.wallsandwarriors.GridManager;
+import com.oops.wallsandwarriors.model.ChallengeData;
+import com.oops.wallsandwarriors.model.Coordinate;
+import com.oops.wallsandwarriors.model.GridPiece;
+import com.oops.wallsandwarriors.model.HighTowerData;
+import com.oops.wallsandwarriors.model.KnightData;
+import com.oops.wallsandwarriors.model.WallData;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A class to benchmark checking the placement of each piece type on every
+ * block of a large grid, with all but the last wall of the solution placed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlacementBenchmark {
+
+    private static final int BLOCK_NO = 38;
+
+    @Param({"WALL", "KNIGHT", "HIGH_TOWER"})
+    public String pieceType;
+
+    private GridManager gridManager;
+    private ChallengeData challenge;
+    private Coordinate[] blocks;
+    private GridPiece piece;
+
+    @Setup
+    public void setUp() {
+        gridManager = new GridManager();
+        challenge = BenchmarkChallenges.getSolvedChallenge("LARGE", BenchmarkChallenges.DEFAULT_INDEX);
+        blocks = challenge.blocks.toArray(new Coordinate[0]);
+        if (blocks.length != BLOCK_NO) {
+            throw new IllegalStateException("Large grid has " + blocks.length + " blocks");
+        }
+        if ("WALL".equals(pieceType)) {
+            WallData wall = challenge.walls.get(challenge.walls.size() - 1);
+            wall.setPosition(null);
+            piece = wall;
+        } else if ("KNIGHT".equals(pieceType)) {
+            piece = new KnightData(null, false);
+        } else {
+            piece = new HighTowerData(null, null);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK_NO)
+    public int isPiecePlacable() {
+        int placable = 0;
+        for (Coordinate block : blocks) {
+            if (gridManager.isPiecePlacable(challenge, block, piece)) {
+                placable++;
+            }
+        }
+        return placable;
+    }
+
+}
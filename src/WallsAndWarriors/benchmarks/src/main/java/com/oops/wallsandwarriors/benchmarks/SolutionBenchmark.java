@@ -0,0 +1,72 @@
+package com.oops.wallsandwarriors.benchmarks;
+
+import com.oops.wallsandwarriors.SolutionManager;
+import com.oops.wallsandwarriors.model.ChallengeData;
+import com.oops.wallsandwarriors.model.Coordinate;
+import com.oops.wallsandwarriors.model.KnightData;
+import com.oops.wallsandwarriors.model.WallData;
+import com.oops.wallsandwarriors.solver.TranspositionTable;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A class to benchmark checking a solved challenge on each grid size, with and
+ * without a cache of the verdicts, and checking it again after a wall is taken
+ * back or placed again.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolutionBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public String grid;
+
+    private SolutionManager solutionManager;
+    private SolutionManager cachingSolutionManager;
+    private ChallengeData challenge;
+    private WallData wall;
+    private Coordinate position;
+    private boolean taken;
+
+    @Setup
+    public void setUp() {
+        solutionManager = new SolutionManager();
+        cachingSolutionManager = new SolutionManager(new TranspositionTable(1024));
+        challenge = BenchmarkChallenges.getSolvedChallenge(grid, BenchmarkChallenges.DEFAULT_INDEX);
+        wall = challenge.walls.get(challenge.walls.size() - 1);
+        position = wall.getPosition();
+    }
+
+    @Benchmark
+    public List<KnightData> checkSolution() {
+        return solutionManager.checkSolution(challenge);
+    }
+
+    @Benchmark
+    public List<KnightData> checkSolutionCached() {
+        return cachingSolutionManager.checkSolution(challenge);
+    }
+
+    @Benchmark
+    public List<KnightData> checkSolutionAfterMove() {
+        taken = !taken;
+        wall.setPosition(taken ? null : position);
+        return solutionManager.checkSolution(challenge);
+    }
+
+}
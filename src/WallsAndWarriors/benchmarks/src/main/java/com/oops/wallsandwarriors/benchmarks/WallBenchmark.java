@@ -0,0 +1,68 @@
+package com.oops.wallsandwarriors.benchmarks;
+
+import com.oops.wallsandwarriors.definitions.WallDefinitions;
+import com.oops.wallsandwarriors.model.Coordinate;
+import com.oops.wallsandwarriors.model.WallData;
+import com.oops.wallsandwarriors.util.Point;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A class to benchmark rotating a wall, computing the border points it
+ * occupies and comparing its shape with another wall.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WallBenchmark {
+
+    @Param({"0", "1", "2", "3"})
+    public int wallIndex;
+
+    private WallData wall;
+    private WallData rotatedWall;
+    private Coordinate[] positions;
+    private int position;
+
+    @Setup
+    public void setUp() {
+        wall = WallDefinitions.STANDARD.get(wallIndex).createCopy();
+        rotatedWall = wall.createCopy();
+        rotatedWall.rotate();
+        positions = new Coordinate[] {new Coordinate(1, 1), new Coordinate(2, 1),
+            new Coordinate(1, 2), new Coordinate(2, 2)};
+    }
+
+    @Benchmark
+    public WallData rotate() {
+        wall.rotate();
+        return wall;
+    }
+
+    @Benchmark
+    public List<Point> occupies() {
+        // Alternate the positions so that the last result is not reused
+        position = (position + 1) & 3;
+        return wall.occupies(positions[position]);
+    }
+
+    @Benchmark
+    public boolean isPieceEqual() {
+        return wall.isPieceEqual(rotatedWall);
+    }
+
+}
@@ -0,0 +1,258 @@
+package com.oops.wallsandwarriors;
+
+import com.oops.wallsandwarriors.definitions.GridDefinitions;
+import com.oops.wallsandwarriors.model.ChallengeData;
+import com.oops.wallsandwarriors.model.Coordinate;
+import com.oops.wallsandwarriors.solver.ChallengeGenerator;
+import com.oops.wallsandwarriors.solver.ChallengeGenerator.GeneratedChallenge;
+import com.oops.wallsandwarriors.solver.ChallengeSolver;
+import com.oops.wallsandwarriors.util.EncodeUtils;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A headless launcher to generate challenges with exactly one solution,
+ * without starting JavaFX. The challenges are generated by the
+ * ChallengeGenerator on every core and printed as challenge codes, one code
+ * per line in the order of their numbers, so the output can be read as a file
+ * of custom challenges or checked with the BatchVerifier. Every challenge is
+ * generated from its own seed, and every thread searches on a pool of its own
+ * with a single worker, so that a search stopped at a limit always finds the
+ * same solutions. The same seed gives the same challenges whatever the number
+ * of threads is. The number of challenges of each difficulty and the
+ * throughput are printed at the end.
+ * Usage: BatchGenerator [-count n] [-threads n] [-seed s]
+ * [-grid small|medium|large] [(file | -)]
+ */
+public class BatchGenerator {
+
+    private static final int CHUNK_SIZE = 16;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int MAX_ATTEMPTS = 1000;
+    private static final long SEED_STEP = 0x9E3779B97F4A7C15L;
+
+    private final int threadNo;
+    private final long seed;
+    private final List<Coordinate> grid;
+    private final ThreadLocal<ChallengeGenerator> generators;
+    private final long[] counts;
+    private long attempts;
+
+    /**
+     * A constructor that initializes a BatchGenerator.
+     * @param threadNo number of the threads to generate the challenges on
+     * @param seed the seed of the first challenge
+     * @param grid the grid of the challenges, or null to sample a grid for each challenge
+     */
+    public BatchGenerator(int threadNo, long seed, List<Coordinate> grid) {
+        this.threadNo = threadNo;
+        this.seed = seed;
+        this.grid = grid;
+        this.generators = new ThreadLocal<ChallengeGenerator>() {
+            @Override
+            protected ChallengeGenerator initialValue() {
+                return new ChallengeGenerator(new ChallengeSolver(new ForkJoinPool(1)));
+            }
+        };
+        this.counts = new long[ChallengeGenerator.DIFFICULTY_NO + 1];
+    }
+
+    /**
+     * Generates challenges and prints their codes.
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        int count = 100;
+        int threadNo = Runtime.getRuntime().availableProcessors();
+        long seed = System.nanoTime();
+        List<Coordinate> grid = null;
+        String path = "-";
+        boolean valid = true;
+        for (int i = 0; i < args.length && valid; i++) {
+            if ("-count".equals(args[i]) && i + 1 < args.length) {
+                count = Integer.parseInt(args[++i]);
+            } else if ("-threads".equals(args[i]) && i + 1 < args.length) {
+                threadNo = Math.max(1, Integer.parseInt(args[++i]));
+            } else if ("-seed".equals(args[i]) && i + 1 < args.length) {
+                seed = Long.parseLong(args[++i]);
+            } else if ("-grid".equals(args[i]) && i + 1 < args.length) {
+                grid = getGrid(args[++i]);
+                valid = grid != null;
+            } else if (!args[i].startsWith("-") || "-".equals(args[i])) {
+                path = args[i];
+            } else {
+                valid = false;
+            }
+        }
+        if (!valid || count < 0) {
+            System.err.println("Usage: BatchGenerator [-count n] [-threads n] [-seed s] "
+                    + "[-grid small|medium|large] [(file | -)]");
+            System.exit(2);
+        }
+
+        BatchGenerator batchGenerator = new BatchGenerator(threadNo, seed, grid);
+        try {
+            PrintStream out = "-".equals(path) ? System.out :
+                    new PrintStream(new FileOutputStream(path), false, "US-ASCII");
+            try {
+                long startTime = System.nanoTime();
+                batchGenerator.generate(count, out);
+                double seconds = (System.nanoTime() - startTime) / 1000000000.0;
+                batchGenerator.printSummary(System.err, seconds);
+            } finally {
+                if (out != System.out) {
+                    out.close();
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(2);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * A method to get a grid definition by its name.
+     * @param name name of the grid
+     * @return the blocks of the grid, or null if there is no grid with the name
+     */
+    private static List<Coordinate> getGrid(String name) {
+        if ("small".equals(name)) {
+            return GridDefinitions.SMALL;
+        } else if ("medium".equals(name)) {
+            return GridDefinitions.MEDIUM;
+        } else if ("large".equals(name)) {
+            return GridDefinitions.LARGE;
+        }
+        return null;
+    }
+
+    /**
+     * A method to generate challenges and print their codes in their order.
+     * At most a few chunks per thread are kept in memory.
+     * @param count number of the challenges to generate
+     * @param out stream to print the codes to
+     * @throws IOException if a challenge could not be generated
+     */
+    public void generate(int count, PrintStream out) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threadNo, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "batch-generator");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        ArrayDeque<Future<List<String>>> pending = new ArrayDeque<Future<List<String>>>();
+        try {
+            for (int first = 0; first < count; first += CHUNK_SIZE) {
+                pending.add(executor.submit(createChunk(first, Math.min(count, first + CHUNK_SIZE))));
+                if (pending.size() >= threadNo * CHUNKS_PER_THREAD) {
+                    printChunk(pending.poll(), out);
+                }
+            }
+            while (!pending.isEmpty()) {
+                printChunk(pending.poll(), out);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        out.flush();
+    }
+
+    /**
+     * A method to create the task generating a chunk of challenges.
+     * @param first number of the first challenge of the chunk
+     * @param end number after the last challenge of the chunk
+     * @return the task returning the codes of the chunk
+     */
+    private Callable<List<String>> createChunk(final int first, final int end) {
+        return new Callable<List<String>>() {
+            @Override
+            public List<String> call() throws IOException {
+                long[] chunkCounts = new long[counts.length];
+                long chunkAttempts = 0;
+                List<String> codes = new ArrayList<String>();
+                ChallengeGenerator generator = generators.get();
+                for (int number = first; number < end; number++) {
+                    Random random = new Random(seed + number * SEED_STEP);
+                    GeneratedChallenge generated = null;
+                    for (int attempt = 0; generated == null; attempt++) {
+                        if (attempt == MAX_ATTEMPTS) {
+                            throw new IOException("Challenge " + (number + 1)
+                                    + " could not be generated");
+                        }
+                        chunkAttempts++;
+                        generated = grid == null ? generator.generate(random) :
+                                generator.generate(grid, random);
+                    }
+                    int difficulty = generated.getDifficulty();
+                    ChallengeData challenge = generated.getChallenge();
+                    challenge.setName("Generated " + (number + 1));
+                    challenge.setDescription("Difficulty " + difficulty + "/"
+                            + ChallengeGenerator.DIFFICULTY_NO);
+                    challenge.setCreator("BatchGenerator");
+                    codes.add(EncodeUtils.encode(challenge));
+                    chunkCounts[difficulty]++;
+                }
+                synchronized (counts) {
+                    for (int i = 0; i < counts.length; i++) {
+                        counts[i] += chunkCounts[i];
+                    }
+                    attempts += chunkAttempts;
+                }
+                return codes;
+            }
+        };
+    }
+
+    /**
+     * A method to wait for a chunk and print its codes.
+     * @param chunk the chunk to print
+     * @param out stream to print the codes to
+     * @throws IOException if the chunk could not be generated
+     */
+    private void printChunk(Future<List<String>> chunk, PrintStream out) throws IOException {
+        try {
+            for (String code : chunk.get()) {
+                out.println(code);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Generation is interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Generation failed", e.getCause());
+        }
+    }
+
+    /**
+     * A method to print the number of challenges of each difficulty and the throughput.
+     * @param out stream to print the summary to
+     * @param seconds time spent on the generation in seconds
+     */
+    public void printSummary(PrintStream out, double seconds) {
+        long total = 0;
+        synchronized (counts) {
+            for (int difficulty = 1; difficulty < counts.length; difficulty++) {
+                out.println("Difficulty " + difficulty + ": " + counts[difficulty]);
+                total += counts[difficulty];
+            }
+            out.printf("Generated %d challenges in %d attempts in %.3f s "
+                    + "(%.0f challenges/min) on %d threads%n", total, attempts, seconds,
+                    seconds > 0 ? total * 60 / seconds : 0.0, threadNo);
+        }
+    }
+
+}
@@ -0,0 +1,304 @@
+package com.oops.wallsandwarriors;
+
+import com.oops.wallsandwarriors.model.ChallengeData;
+import com.oops.wallsandwarriors.model.Coordinate;
+import com.oops.wallsandwarriors.model.KnightData;
+import com.oops.wallsandwarriors.util.EncodeUtils;
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A headless launcher to verify the solutions of a file of challenge codes,
+ * one code per line, without starting JavaFX. The walls of each challenge are
+ * placed one by one with the placement rules of the GridManager and the
+ * result is checked with the SolutionManager. The lines are verified in chunks
+ * on every core and the verdicts are printed in the order of the lines,
+ * followed by the number of challenges of each verdict and the throughput.
+ * Usage: BatchVerifier [-threads n] [-failures] (file | -)
+ */
+public class BatchVerifier {
+
+    private static final int CHUNK_SIZE = 256;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * The possible results of verifying a challenge.
+     */
+    public enum Verdict {
+        SOLVED, INCOMPLETE, ILLEGAL, OPEN, ENEMY_INSIDE, INVALID
+    }
+
+    private final int threadNo;
+    private final boolean failuresOnly;
+    private final GridManager gridManager;
+    private final ThreadLocal<SolutionManager> solutionManagers;
+    private final long[] counts;
+
+    /**
+     * A constructor that initializes a BatchVerifier.
+     * @param threadNo number of the threads to verify the challenges on
+     * @param failuresOnly true to print only the verdicts of the unsolved challenges
+     */
+    public BatchVerifier(int threadNo, boolean failuresOnly) {
+        this.threadNo = threadNo;
+        this.failuresOnly = failuresOnly;
+        this.gridManager = new GridManager();
+        this.solutionManagers = new ThreadLocal<SolutionManager>() {
+            @Override
+            protected SolutionManager initialValue() {
+                return new SolutionManager();
+            }
+        };
+        this.counts = new long[Verdict.values().length];
+    }
+
+    /**
+     * Verifies the challenges of a file and prints the verdicts.
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        int threadNo = Runtime.getRuntime().availableProcessors();
+        boolean failuresOnly = false;
+        String path = null;
+        for (int i = 0; i < args.length; i++) {
+            if ("-threads".equals(args[i]) && i + 1 < args.length) {
+                threadNo = Math.max(1, Integer.parseInt(args[++i]));
+            } else if ("-failures".equals(args[i])) {
+                failuresOnly = true;
+            } else if (path == null) {
+                path = args[i];
+            } else {
+                path = null;
+                break;
+            }
+        }
+        if (path == null) {
+            System.err.println("Usage: BatchVerifier [-threads n] [-failures] (file | -)");
+            System.exit(2);
+        }
+
+        BatchVerifier verifier = new BatchVerifier(threadNo, failuresOnly);
+        try {
+            InputStream input = "-".equals(path) ? System.in : new FileInputStream(path);
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(input, StandardCharsets.US_ASCII));
+            try {
+                long startTime = System.nanoTime();
+                verifier.verify(reader, System.out);
+                double seconds = (System.nanoTime() - startTime) / 1000000000.0;
+                verifier.printSummary(System.err, seconds);
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(2);
+        }
+        System.exit(verifier.getCount(Verdict.SOLVED) == verifier.getTotalCount() ? 0 : 1);
+    }
+
+    /**
+     * A method to verify every challenge code read from the reader. At most a
+     * few chunks per thread are kept in memory, so a file of any size is streamed.
+     * @param reader reader of the challenge codes, one code per line
+     * @param out stream to print the verdicts to
+     * @throws IOException if the reader fails
+     */
+    public void verify(BufferedReader reader, PrintStream out) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threadNo, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "batch-verifier");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        ArrayDeque<Future<List<String>>> pending = new ArrayDeque<Future<List<String>>>();
+        try {
+            long lineNo = 0;
+            List<String> codes = new ArrayList<String>();
+            long firstLineNo = 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (codes.isEmpty()) {
+                    firstLineNo = lineNo;
+                }
+                codes.add(line);
+                if (codes.size() == CHUNK_SIZE) {
+                    pending.add(executor.submit(createChunk(codes, firstLineNo)));
+                    codes = new ArrayList<String>();
+                    if (pending.size() >= threadNo * CHUNKS_PER_THREAD) {
+                        printChunk(pending.poll(), out);
+                    }
+                }
+            }
+            if (!codes.isEmpty()) {
+                pending.add(executor.submit(createChunk(codes, firstLineNo)));
+            }
+            while (!pending.isEmpty()) {
+                printChunk(pending.poll(), out);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        out.flush();
+    }
+
+    /**
+     * A method to create the task verifying a chunk of lines.
+     * @param codes the lines of the chunk
+     * @param firstLineNo number of the first line of the chunk in the file
+     * @return the task returning the verdict lines of the chunk
+     */
+    private Callable<List<String>> createChunk(final List<String> codes, final long firstLineNo) {
+        return new Callable<List<String>>() {
+            @Override
+            public List<String> call() {
+                long[] chunkCounts = new long[counts.length];
+                List<String> verdicts = new ArrayList<String>();
+                for (int i = 0; i < codes.size(); i++) {
+                    String code = codes.get(i).trim();
+                    if (code.isEmpty()) {
+                        continue;
+                    }
+                    String verdict = verifyCode(code, chunkCounts);
+                    if (!failuresOnly || !verdict.startsWith(Verdict.SOLVED.name())) {
+                        verdicts.add((firstLineNo + i) + "\t" + verdict);
+                    }
+                }
+                synchronized (counts) {
+                    for (int i = 0; i < counts.length; i++) {
+                        counts[i] += chunkCounts[i];
+                    }
+                }
+                return verdicts;
+            }
+        };
+    }
+
+    /**
+     * A method to wait for a chunk and print its verdicts.
+     * @param chunk the chunk to print
+     * @param out stream to print the verdicts to
+     * @throws IOException if the chunk could not be verified
+     */
+    private void printChunk(Future<List<String>> chunk, PrintStream out) throws IOException {
+        try {
+            for (String verdict : chunk.get()) {
+                out.println(verdict);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Verification is interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Verification failed", e.getCause());
+        }
+    }
+
+    /**
+     * A method to verify a single challenge code.
+     * @param code the code of the challenge
+     * @param chunkCounts counts of the verdicts to increase
+     * @return the verdict followed by its details and the name of the challenge
+     */
+    private String verifyCode(String code, long[] chunkCounts) {
+        ChallengeData challenge;
+        try {
+            challenge = EncodeUtils.decode(code);
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            chunkCounts[Verdict.INVALID.ordinal()]++;
+            return Verdict.INVALID.name() + "\t" + e;
+        }
+        String detail = "";
+        ChallengeData placed = challenge.createCopy(true);
+        Verdict verdict = placeWalls(challenge, placed);
+        if (verdict == null) {
+            List<KnightData> incorrectRedKnights = solutionManagers.get().checkSolution(placed);
+            if (incorrectRedKnights == null) {
+                verdict = Verdict.OPEN;
+            } else if (!incorrectRedKnights.isEmpty()) {
+                verdict = Verdict.ENEMY_INSIDE;
+                detail = incorrectRedKnights.size() + " ";
+            } else {
+                verdict = Verdict.SOLVED;
+            }
+        }
+        chunkCounts[verdict.ordinal()]++;
+        return verdict.name() + "\t" + detail + challenge.getName();
+    }
+
+    /**
+     * A method to check that every wall of a challenge is placed and that the
+     * walls can be placed one after the other on a copy of the challenge.
+     * @param challenge the challenge to check
+     * @param placed a copy of the challenge with no walls placed, to place the walls on
+     * @return INCOMPLETE or ILLEGAL if the walls are not placed properly, null otherwise
+     */
+    private Verdict placeWalls(ChallengeData challenge, ChallengeData placed) {
+        for (int i = 0; i < challenge.walls.size(); i++) {
+            Coordinate position = challenge.walls.get(i).getPosition();
+            if (position == null) {
+                return Verdict.INCOMPLETE;
+            }
+            if (!gridManager.attemptPlacement(placed, position, placed.walls.get(i))) {
+                return Verdict.ILLEGAL;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A method to print the number of challenges of each verdict and the throughput.
+     * @param out stream to print the summary to
+     * @param seconds time spent on the verification in seconds
+     */
+    public void printSummary(PrintStream out, double seconds) {
+        long total = getTotalCount();
+        for (Verdict verdict : Verdict.values()) {
+            out.println(verdict.name() + ": " + getCount(verdict));
+        }
+        out.printf("Verified %d challenges in %.3f s (%.0f challenges/s) on %d threads%n",
+                total, seconds, seconds > 0 ? total / seconds : 0.0, threadNo);
+    }
+
+    /**
+     * A get method to return the number of challenges verified with a verdict.
+     * @param verdict the verdict to count
+     * @return number of the challenges with the verdict
+     */
+    public long getCount(Verdict verdict) {
+        synchronized (counts) {
+            return counts[verdict.ordinal()];
+        }
+    }
+
+    /**
+     * A get method to return the number of verified challenges.
+     * @return number of the verified challenges
+     */
+    public long getTotalCount() {
+        synchronized (counts) {
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            return total;
+        }
+    }
+
+}
@@ -1,6 +1,9 @@
 package com.oops.wallsandwarriors;
 
 import com.oops.wallsandwarriors.screens.Screen;
+import com.oops.wallsandwarriors.screens.challenges.CustomChallengesData;
+import com.oops.wallsandwarriors.solver.TranspositionTable;
+import com.oops.wallsandwarriors.util.AssetCache;
 import javafx.stage.Stage;
 
 /**
@@ -9,15 +12,22 @@ import javafx.stage.Stage;
  */
 public class Game {
     
+    // The verdicts of the boards seen while playing, which are looked up
+    // every time a wall is placed
+    private static final int VERDICT_CAPACITY = 4096;
+
     private static Game instance;
     private static Stage stage;
+    private Screen currentScreen;
     
     public final ChallengeManager challengeManager;
     public final HintManager hintManager;
     public final GridManager gridManager;
     public final ScreenManager screenManager;
     public final SolutionManager solutionManager;
+    public final SolverManager solverManager;
     public final StorageManager storageManager;
+    public final SessionWriter sessionWriter;
     public final SettingsManager settingsManager;
     public final SoundManager soundManager;
 
@@ -35,12 +45,14 @@ public class Game {
     private Game() {
         challengeManager = new ChallengeManager();
         hintManager = new HintManager();
-        gridManager = new GridManager();
+        gridManager = new GridManager(challengeManager);
         screenManager = new ScreenManager();
-        solutionManager = new SolutionManager();
+        solutionManager = new SolutionManager(new TranspositionTable(VERDICT_CAPACITY));
+        solverManager = new SolverManager();
         storageManager = new StorageManager();
+        sessionWriter = new SessionWriter(storageManager);
         settingsManager = new SettingsManager();
-        soundManager = new SoundManager();
+        soundManager = new SoundManager(settingsManager);
     }
     
     /**
@@ -49,7 +61,9 @@ public class Game {
      */
     public void initGame(Stage stage) {
         Game.stage = stage;
-        setScreen(screenManager.mainMenu);
+        AssetCache.preload();
+        CustomChallengesData.preload();
+        setScreen(screenManager.getMainMenu());
         stage.setTitle("Walls & Warriors");
         stage.setResizable(false);
         stage.show();
@@ -58,11 +72,19 @@ public class Game {
     }
     
     /**
-     * Changes the screen currently being displayed
+     * Changes the screen currently being displayed. The searches started by
+     * the previous screen are cancelled, the previous screen is hidden and the
+     * new one is refreshed.
      * @param screen the new screen to display
      */
     public void setScreen(Screen screen) {
+        solverManager.cancelAll();
+        if (currentScreen != null) {
+            currentScreen.onHide();
+        }
+        currentScreen = screen;
         stage.setScene(screen.getScene());
+        screen.onShow();
         stage.sizeToScene();
     }
     
@@ -68,6 +68,8 @@ public class GameConstants {
     public static final int CAMP_SCR_MARGIN = 3;
     public static final int CAMP_SCR_BLOCK_LENGTH = 18;
     public static final int CAMP_SCR_GRID_B = 18;
+    public static final int THUMB_CACHE_CAPACITY = 256;
+    public static final int THUMB_DISK_CAPACITY = 1024;
 
 
     public static final int CUST_SCR_TEXT_X = 50;
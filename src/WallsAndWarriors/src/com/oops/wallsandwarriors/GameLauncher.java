@@ -18,6 +18,16 @@ public class GameLauncher extends Application {
         Game.getInstance().initGame(stage);
     }
     
+    /**
+     * Writes the session of the player and the pending files before the
+     * application exits.
+     */
+    @Override
+    public void stop() {
+        Game.getInstance().sessionWriter.close();
+        Game.getInstance().storageManager.close();
+    }
+    
     /**
      * Launches the JavaFX application
      * @param args command line arguments (unused)
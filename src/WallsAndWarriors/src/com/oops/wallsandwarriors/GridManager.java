@@ -5,18 +5,37 @@ import com.oops.wallsandwarriors.model.Coordinate;
 import com.oops.wallsandwarriors.model.GridPiece;
 import com.oops.wallsandwarriors.model.HighTowerData;
 import com.oops.wallsandwarriors.model.KnightData;
+import com.oops.wallsandwarriors.model.OccupancyGrid;
 import com.oops.wallsandwarriors.model.WallData;
+import com.oops.wallsandwarriors.model.WallShape;
 import com.oops.wallsandwarriors.util.Point;
 import java.awt.geom.Point2D;
 
-import java.util.List;
-
 /**
  * A class to manage grid settings of the game
  * @author Emin Bahadir Tuluce
  */
 public class GridManager {
 
+    private final ChallengeManager challengeManager;
+
+    /**
+     * A constructor that initializes a GridManager checking the current challenge
+     * of the given challenge manager
+     * @param challengeManager the manager of the current challenge
+     */
+    public GridManager(ChallengeManager challengeManager) {
+        this.challengeManager = challengeManager;
+    }
+
+    /**
+     * A default constructor that initializes a GridManager which can only check
+     * the challenges given explicitly
+     */
+    public GridManager() {
+        this(null);
+    }
+
     /**
      * A method to check whether piece is placeable or not
      * @return true if piece is placeable
@@ -24,12 +43,23 @@ public class GridManager {
      * @param piece grid piece
      */
     public boolean isPiecePlacable(Coordinate block, GridPiece piece) {
+        return isPiecePlacable(challengeManager.getChallengeData(), block, piece);
+    }
+
+    /**
+     * A method to check whether piece is placeable on the given challenge or not
+     * @return true if piece is placeable
+     * @param challenge challenge to place the piece on
+     * @param block gird coordinate
+     * @param piece grid piece
+     */
+    public boolean isPiecePlacable(ChallengeData challenge, Coordinate block, GridPiece piece) {
         if (piece instanceof WallData) {
-            return isWallPlacable(block, (WallData) piece);
+            return isWallPlacable(challenge, block, (WallData) piece);
         } else if (piece instanceof KnightData) {
-            return isKnightPlacable(block, (KnightData) piece);
+            return isKnightPlacable(challenge, block, (KnightData) piece);
         } else if (piece instanceof HighTowerData) {
-            return isHighTowerPlacable(block, (HighTowerData) piece);
+            return isHighTowerPlacable(challenge, block, (HighTowerData) piece);
         }
         return false;
     }
@@ -41,12 +71,23 @@ public class GridManager {
      * @param piece grid piece
      */
     public boolean attemptPlacement(Coordinate block, GridPiece piece) {
+        return attemptPlacement(challengeManager.getChallengeData(), block, piece);
+    }
+
+    /**
+     * A method to attempt to place piece on the given challenge
+     * @return true if placement performed
+     * @param challenge challenge to place the piece on
+     * @param block grid coordinate
+     * @param piece grid piece
+     */
+    public boolean attemptPlacement(ChallengeData challenge, Coordinate block, GridPiece piece) {
         if (piece instanceof WallData) {
-            return attemptWallPlacement(block, (WallData) piece);
+            return attemptWallPlacement(challenge, block, (WallData) piece);
         } else if (piece instanceof KnightData) {
-            return attemptKnightPlacement(block, (KnightData) piece);
+            return attemptKnightPlacement(challenge, block, (KnightData) piece);
         } else if (piece instanceof HighTowerData) {
-            return attemptHighTowerPlacement(block, (HighTowerData) piece);
+            return attemptHighTowerPlacement(challenge, block, (HighTowerData) piece);
         }
         return false;
     }
@@ -54,31 +95,22 @@ public class GridManager {
     /**
      * A method to check whether the wall is placeable or not
      * @return true if wall is placeable
+     * @param challenge challenge to place the wall on
      * @param block grid coordinate
      * @param wall wall data
      */
-    private boolean isWallPlacable(Coordinate block, WallData wall) {
-        List<Coordinate> blocks = Game.getInstance().challengeManager.
-                getChallengeData().blocks;
-        
-        List<Point> candidatePoints = wall.occupies(block);
-        List<Point> occupiedPoints = Game.getInstance().challengeManager.
-                getChallengeData().getOccupiedBorderPoints();
+    private boolean isWallPlacable(ChallengeData challenge, Coordinate block, WallData wall) {
+        OccupancyGrid occupancy = challenge.getOccupancy();
+        WallShape shape = wall.getShape();
+        int orientation = wall.getOrientation();
+        int originX = block.x * OccupancyGrid.LATTICE;
+        int originY = block.y * OccupancyGrid.LATTICE;
         
-        for (Point candidatePoint : candidatePoints) {
-            boolean isInside = false;
-            for (Coordinate gridCoordinate : blocks) {
-                isInside = isInside || isInside(candidatePoint, gridCoordinate);
-            }
-            if (!isInside) {
+        for (int i = 0; i < shape.getLatticePointCount(orientation); i++) {
+            if (!occupancy.isBorderFree(originX + shape.getLatticeX(orientation, i),
+                    originY + shape.getLatticeY(orientation, i))) {
                 return false;
             }
-            
-            for (Point occupiedPoint : occupiedPoints) {
-                if (pointsConflict(candidatePoint, occupiedPoint)) {
-                    return false;
-                }
-            }
         }
         return true;
     }
@@ -86,53 +118,46 @@ public class GridManager {
     /**
      * A method to check whether the knight is placeable or not
      * @return true if knight is placeable
+     * @param challenge challenge to place the knight on
      * @param block grid coordinate
      * @param knight test knight to place
      */
-    private boolean isKnightPlacable(Coordinate block, KnightData knight) {
-        ChallengeData challenge = Game.getInstance().challengeManager.getChallengeData();
-        return challenge.blocks.contains(block) &&
-              !challenge.getOccupiedBlockPoints().contains(block);
+    private boolean isKnightPlacable(ChallengeData challenge, Coordinate block, KnightData knight) {
+        return challenge.getOccupancy().isBlockFree(block.x, block.y);
     }
 
     /**
      * A method to check whether the high tower is placeable or not
      * @return true if the high tower is placeable
+     * @param challenge challenge to place the high tower on
      * @param block grid coordinate
      * @param highTower high tower to place
      */
-    private boolean isHighTowerPlacable(Coordinate block, HighTowerData highTower) {
-        ChallengeData challenge = Game.getInstance().challengeManager.getChallengeData();
+    private boolean isHighTowerPlacable(ChallengeData challenge, Coordinate block, HighTowerData highTower) {
         Coordinate firstPosition = block;
         Coordinate difference = highTower.isVertical ?
                 new Coordinate(0, 1) : new Coordinate(1, 0);
         Coordinate secondPosition = firstPosition.plus(difference);
-        boolean blockSuitable = challenge.blocks.contains(firstPosition) &&
-                challenge.blocks.contains(secondPosition) &&
-               !challenge.getOccupiedBlockPoints().contains(firstPosition) &&
-               !challenge.getOccupiedBlockPoints().contains(secondPosition);
+        OccupancyGrid occupancy = challenge.getOccupancy();
+        boolean blockSuitable = occupancy.isBlockFree(firstPosition.x, firstPosition.y) &&
+                occupancy.isBlockFree(secondPosition.x, secondPosition.y);
         
-        boolean borderSuitable = true;
-        Point candidatePoint = new Point(
-                (firstPosition.x + secondPosition.x) / 2.0,
-                (firstPosition.y + secondPosition.y) / 2.0);
-        List<Point> occupiedPoints = challenge.getOccupiedBorderPoints();
-        for (Point occupiedPoint : occupiedPoints) {
-            if (pointsConflict(candidatePoint, occupiedPoint)) {
-                borderSuitable = false;
-            }
-        }
+        // The point between two blocks of the grid is always inside the grid
+        boolean borderSuitable = occupancy.isBorderFree(
+                (firstPosition.x + secondPosition.x) * OccupancyGrid.LATTICE / 2,
+                (firstPosition.y + secondPosition.y) * OccupancyGrid.LATTICE / 2);
         return blockSuitable && borderSuitable;
     }
 
     /**
      * A method to attempt to place a wall
      * @return true placement performed
+     * @param challenge challenge to place the wall on
      * @param block grid coordinate
      * @param wall wall to attempt place
      */
-    private boolean attemptWallPlacement(Coordinate block, WallData wall) {
-        if (isWallPlacable(block, wall)) {
+    private boolean attemptWallPlacement(ChallengeData challenge, Coordinate block, WallData wall) {
+        if (isWallPlacable(challenge, block, wall)) {
             wall.setPosition(block);
             return true;
         }
@@ -142,11 +167,12 @@ public class GridManager {
     /**
      * A method to attempt to place a knight
      * @return true placement performed
+     * @param challenge challenge to place the knight on
      * @param block grid coordinate
      * @param knight knight to attempt place
      */
-    private boolean attemptKnightPlacement(Coordinate block, KnightData knight) {
-        if (isKnightPlacable(block, knight)) {
+    private boolean attemptKnightPlacement(ChallengeData challenge, Coordinate block, KnightData knight) {
+        if (isKnightPlacable(challenge, block, knight)) {
             knight.setPosition(block);
             return true;
         }
@@ -156,11 +182,12 @@ public class GridManager {
     /**
      * A method to attempt to place a high tower
      * @return true placement performed
+     * @param challenge challenge to place the high tower on
      * @param block grid coordinate
      * @param highTower high tower to attempt place
      */
-    private boolean attemptHighTowerPlacement(Coordinate block, HighTowerData highTower) {
-        if (isHighTowerPlacable(block, highTower)) {
+    private boolean attemptHighTowerPlacement(ChallengeData challenge, Coordinate block, HighTowerData highTower) {
+        if (isHighTowerPlacable(challenge, block, highTower)) {
             Coordinate firstPosition = block;
             Coordinate difference = highTower.isVertical ?
                     new Coordinate(0, 1) : new Coordinate(1, 0);
@@ -171,24 +198,13 @@ public class GridManager {
         return false;
     }
 
-    /**
-     * A method to check whether the piece is inside of the grid borders or not
-     * @return true if piece is inside
-     * @param point point to check
-     * @param gridCoordinate grid coordinate
-     */
-    private boolean isInside(Point point, Coordinate gridCoordinate) {
-        return (gridCoordinate.x - 0.5 <= point.x && point.x <= gridCoordinate.x + 0.5
-             && gridCoordinate.y - 0.5 <= point.y && point.y <= gridCoordinate.y + 0.5);
-    }
-
     /**
      * A method to check whether the points of the pieces in conflict or not
-     * @return true if there is no conflict
+     * @return true if there is a conflict
      * @param point1 point to check conflict
      * @param point2 point to check conflict
      */
-    private boolean pointsConflict(Point point1, Point point2) {
+    public boolean pointsConflict(Point point1, Point point2) {
         return Point2D.distance(point1.x, point1.y, point2.x, point2.y) < (0.35);
     }
     
@@ -1,22 +1,53 @@
 package com.oops.wallsandwarriors;
 
 import com.oops.wallsandwarriors.model.ChallengeData;
+import com.oops.wallsandwarriors.model.Coordinate;
+import com.oops.wallsandwarriors.model.OccupancyGrid;
+import com.oops.wallsandwarriors.model.WallData;
+import com.oops.wallsandwarriors.model.WallDefinition;
+import com.oops.wallsandwarriors.model.WallShape;
+import com.oops.wallsandwarriors.solver.ChallengeSolver;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
- * A class to manage sound settings of the game
+ * A class to manage the hints of the current challenge. The solutions of the
+ * challenge are found once by the ChallengeSolver, either here or in the
+ * background by the SolverManager. A hint compares the walls
+ * placed by the player with every solution, keeps the solution sharing the most
+ * placed walls, marks the placed walls which are not in that solution as
+ * misplaced and reveals the wall of the solution which needs the fewest
+ * rotations to place. Hints are remembered for each placement of the walls.
  * @author Cagla Sozen
  * @author Emin Bahadir Tuluce
  */
 public class HintManager {
-    
+
+    private static final int MEMO_CAPACITY = 1024;
+
     private ChallengeData challengeData;
+    private List<ChallengeData> solutions;
+    private final Map<String, Hint> hints;
+
+    /**
+     * A default constructor that initializes a HintManager with no challenge.
+     */
+    public HintManager() {
+        hints = new HashMap<String, Hint>();
+    }
 
     /**
      * A method to set challenge data
-     * @param challengeData challenge data 
+     * @param challengeData challenge data
      */
     public void setChallengeData(ChallengeData challengeData) {
         this.challengeData = challengeData;
+        solutions = null;
+        hints.clear();
     }
 
     /**
@@ -26,5 +57,258 @@ public class HintManager {
     public ChallengeData getChallengeData() {
         return challengeData;
     }
-    
+
+    /**
+     * A method to get the solutions of the challenge, solving it on the first call.
+     * @return the solutions of the challenge
+     */
+    public List<ChallengeData> getSolutions() {
+        if (solutions == null) {
+            solutions = challengeData == null ? Collections.<ChallengeData>emptyList() :
+                    new ChallengeSolver().solve(challengeData);
+        }
+        return solutions;
+    }
+
+    /**
+     * A method to check whether the solutions of the challenge are known, so
+     * that a hint can be found without a search.
+     * @return true if the solutions are known or there is no challenge
+     */
+    public boolean isSolved() {
+        return solutions != null || challengeData == null;
+    }
+
+    /**
+     * A method to set the solutions of a challenge found in the background.
+     * The solutions are ignored if the challenge has changed since.
+     * @param solved the challenge the solutions were found for
+     * @param challengeSolutions the solutions of the challenge
+     */
+    public void setSolutions(ChallengeData solved, List<ChallengeData> challengeSolutions) {
+        if (solved == challengeData) {
+            solutions = challengeSolutions;
+        }
+    }
+
+    /**
+     * A method to get the hint for the walls currently placed on a challenge.
+     * The challenge must have the same walls, knights and high towers as the
+     * challenge of the hint manager.
+     * @param current the challenge being played
+     * @return the hint, or null if the challenge has no solution
+     */
+    public Hint getHint(ChallengeData current) {
+        String key = getStateKey(current);
+        Hint hint = hints.get(key);
+        if (hint == null && !hints.containsKey(key)) {
+            hint = findHint(current);
+            if (hints.size() >= MEMO_CAPACITY) {
+                hints.clear();
+            }
+            hints.put(key, hint);
+        }
+        return hint;
+    }
+
+    /**
+     * A method to find the hint for the walls currently placed on a challenge.
+     * @param current the challenge being played
+     * @return the hint, or null if the challenge has no solution
+     */
+    private Hint findHint(ChallengeData current) {
+        List<WallData> walls = current.walls;
+        int[][] placedFootprints = new int[walls.size()][];
+        for (int i = 0; i < walls.size(); i++) {
+            WallData wall = walls.get(i);
+            if (wall.getPosition() != null) {
+                placedFootprints[i] = getFootprint(wall.getShape(),
+                        wall.getOrientation(), wall.getPosition());
+            }
+        }
+
+        Hint best = null;
+        int bestKept = -1;
+        for (ChallengeData solution : getSolutions()) {
+            // Match each placed wall with an unused wall of the solution in the same place
+            int[] matchOf = new int[walls.size()];
+            boolean[] used = new boolean[solution.walls.size()];
+            int kept = 0;
+            for (int i = 0; i < walls.size(); i++) {
+                matchOf[i] = placedFootprints[i] == null ? -1 :
+                        findMatch(solution, used, walls.get(i).getShape(), placedFootprints[i]);
+                if (matchOf[i] >= 0) {
+                    used[matchOf[i]] = true;
+                    kept++;
+                }
+            }
+            if (kept <= bestKept) {
+                continue;
+            }
+            bestKept = kept;
+
+            List<Integer> misplaced = new ArrayList<Integer>();
+            for (int i = 0; i < walls.size(); i++) {
+                if (placedFootprints[i] != null && matchOf[i] < 0) {
+                    misplaced.add(i);
+                }
+            }
+            best = new Hint(misplaced);
+            int bestCost = Integer.MAX_VALUE;
+            for (int j = 0; j < solution.walls.size(); j++) {
+                if (used[j]) {
+                    continue;
+                }
+                WallData target = solution.walls.get(j);
+                for (int i = 0; i < walls.size(); i++) {
+                    WallData wall = walls.get(i);
+                    if (matchOf[i] >= 0 || wall.getShape() != target.getShape()) {
+                        continue;
+                    }
+                    int cost = getRotationNo(wall, target.getWallDefinition());
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        best.setNextWall(i, target.getWallDefinition(), target.getPosition());
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * A method to find an unused wall of a solution which occupies the given footprint.
+     * @param solution the solution to search
+     * @param used the walls of the solution which are already matched
+     * @param shape the shape of the wall to match
+     * @param footprint the footprint of the wall to match
+     * @return index of the matching wall in the solution, or -1 if there is none
+     */
+    private int findMatch(ChallengeData solution, boolean[] used, WallShape shape, int[] footprint) {
+        for (int j = 0; j < solution.walls.size(); j++) {
+            WallData candidate = solution.walls.get(j);
+            if (!used[j] && candidate.getShape() == shape && Arrays.equals(footprint,
+                    getFootprint(shape, candidate.getOrientation(), candidate.getPosition()))) {
+                return j;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A method to get the sorted lattice points occupied by a wall. Orientations
+     * of a symmetric shape which look the same have the same footprint.
+     * @param shape the shape of the wall
+     * @param orientation the orientation of the wall
+     * @param position the position of the wall
+     * @return the packed lattice points in increasing order
+     */
+    private static int[] getFootprint(WallShape shape, int orientation, Coordinate position) {
+        int[] footprint = new int[shape.getLatticePointCount(orientation)];
+        for (int p = 0; p < footprint.length; p++) {
+            int x = position.x * OccupancyGrid.LATTICE + shape.getLatticeX(orientation, p);
+            int y = position.y * OccupancyGrid.LATTICE + shape.getLatticeY(orientation, p);
+            footprint[p] = (x << 16) ^ (y & 0xFFFF);
+        }
+        Arrays.sort(footprint);
+        return footprint;
+    }
+
+    /**
+     * A method to count the rotations needed to turn a wall into a definition.
+     * @param wall the wall to rotate
+     * @param definition a definition of the shape of the wall
+     * @return the number of rotations
+     */
+    private static int getRotationNo(WallData wall, WallDefinition definition) {
+        int target = wall.getShape().indexOf(definition);
+        return (target - wall.getOrientation() + WallShape.ORIENTATION_NO) %
+                WallShape.ORIENTATION_NO;
+    }
+
+    /**
+     * A method to get a key for the placement of the walls of a challenge.
+     * @param current the challenge being played
+     * @return the key of the placement
+     */
+    private static String getStateKey(ChallengeData current) {
+        StringBuilder key = new StringBuilder();
+        for (WallData wall : current.walls) {
+            Coordinate position = wall.getPosition();
+            key.append(wall.getOrientation());
+            if (position != null) {
+                key.append('@').append(position.x).append(',').append(position.y);
+            }
+            key.append(';');
+        }
+        return key.toString();
+    }
+
+    /**
+     * A class to store a hint: the placed walls which are not in the nearest
+     * solution and the next wall of that solution to place.
+     */
+    public static class Hint {
+
+        private final List<Integer> misplacedWalls;
+        private int wallIndex;
+        private WallDefinition definition;
+        private Coordinate position;
+
+        /**
+         * A constructor that initializes a Hint with no wall to place.
+         * @param misplacedWalls indices of the misplaced walls
+         */
+        private Hint(List<Integer> misplacedWalls) {
+            this.misplacedWalls = Collections.unmodifiableList(misplacedWalls);
+            this.wallIndex = -1;
+        }
+
+        /**
+         * A method to set the wall to place next.
+         * @param wallIndex index of the wall in the challenge
+         * @param definition definition to place the wall with
+         * @param position position to place the wall on
+         */
+        private void setNextWall(int wallIndex, WallDefinition definition, Coordinate position) {
+            this.wallIndex = wallIndex;
+            this.definition = definition;
+            this.position = position;
+        }
+
+        /**
+         * A get method to return the indices of the walls which are not placed
+         * as in the nearest solution.
+         * @return indices of the misplaced walls
+         */
+        public List<Integer> getMisplacedWalls() {
+            return misplacedWalls;
+        }
+
+        /**
+         * A get method to return the index of the wall to place next.
+         * @return index of the wall, or -1 if the challenge is already solved
+         */
+        public int getWallIndex() {
+            return wallIndex;
+        }
+
+        /**
+         * A get method to return the definition to place the next wall with.
+         * @return the definition of the next wall
+         */
+        public WallDefinition getDefinition() {
+            return definition;
+        }
+
+        /**
+         * A get method to return the position to place the next wall on.
+         * @return the position of the next wall
+         */
+        public Coordinate getPosition() {
+            return position;
+        }
+
+    }
+
 }
@@ -9,20 +9,127 @@ import com.oops.wallsandwarriors.screens.HowToPlayScreen;
 import com.oops.wallsandwarriors.screens.MainMenuScreen;
 import com.oops.wallsandwarriors.screens.Screen;
 import com.oops.wallsandwarriors.screens.SettingsScreen;
+import javafx.application.Platform;
 
 /**
- * A class to store the screen instances of the game
+ * A class to store the screen instances of the game. Each screen is created
+ * when it is first requested, and its content when it is first displayed or
+ * prepared.
  * @author Emin Bahadir Tuluce
  */
 public class ScreenManager {
 
-    public final Screen challengeEditor = new ChallengeEditorScreen();
-    public final Screen gameScreen = new GameScreen();
-    public final Screen customChallenges = new CustomChallengesScreen();
-    public final Screen campaignChallenges = new CampaignChallengesScreen();
-    public final Screen mainMenu = new MainMenuScreen();
-    public final Screen settings = new SettingsScreen();
-    public final Screen credits = new CreditsScreen();
-    public final Screen howToPlay = new HowToPlayScreen();
+    private Screen challengeEditor;
+    private Screen gameScreen;
+    private Screen customChallenges;
+    private Screen campaignChallenges;
+    private Screen mainMenu;
+    private Screen settings;
+    private Screen credits;
+    private Screen howToPlay;
+
+    /**
+     * A method to create the content of a screen which is likely to be
+     * displayed next. The content is created on the JavaFX application thread
+     * after the events and the rendering already waiting there, so that the
+     * current screen is displayed first and the next one is displayed at once.
+     * @param screen the screen to prepare
+     */
+    public void prepare(final Screen screen) {
+        Platform.runLater(new Runnable() {
+            @Override
+            public void run() {
+                screen.getScene();
+            }
+        });
+    }
+
+    /**
+     * A get method to return the challenge editor screen.
+     * @return the challenge editor screen
+     */
+    public Screen getChallengeEditor() {
+        if (challengeEditor == null) {
+            challengeEditor = new ChallengeEditorScreen();
+        }
+        return challengeEditor;
+    }
+
+    /**
+     * A get method to return the game screen.
+     * @return the game screen
+     */
+    public Screen getGameScreen() {
+        if (gameScreen == null) {
+            gameScreen = new GameScreen();
+        }
+        return gameScreen;
+    }
+
+    /**
+     * A get method to return the custom challenges screen.
+     * @return the custom challenges screen
+     */
+    public Screen getCustomChallenges() {
+        if (customChallenges == null) {
+            customChallenges = new CustomChallengesScreen();
+        }
+        return customChallenges;
+    }
+
+    /**
+     * A get method to return the campaign challenges screen.
+     * @return the campaign challenges screen
+     */
+    public Screen getCampaignChallenges() {
+        if (campaignChallenges == null) {
+            campaignChallenges = new CampaignChallengesScreen();
+        }
+        return campaignChallenges;
+    }
+
+    /**
+     * A get method to return the main menu screen.
+     * @return the main menu screen
+     */
+    public Screen getMainMenu() {
+        if (mainMenu == null) {
+            mainMenu = new MainMenuScreen();
+        }
+        return mainMenu;
+    }
+
+    /**
+     * A get method to return the settings screen.
+     * @return the settings screen
+     */
+    public Screen getSettings() {
+        if (settings == null) {
+            settings = new SettingsScreen();
+        }
+        return settings;
+    }
+
+    /**
+     * A get method to return the credits screen.
+     * @return the credits screen
+     */
+    public Screen getCredits() {
+        if (credits == null) {
+            credits = new CreditsScreen();
+        }
+        return credits;
+    }
+
+    /**
+     * A get method to return the how to play screen.
+     * @return the how to play screen
+     */
+    public Screen getHowToPlay() {
+        if (howToPlay == null) {
+            howToPlay = new HowToPlayScreen();
+        }
+        return howToPlay;
+    }
 
 }
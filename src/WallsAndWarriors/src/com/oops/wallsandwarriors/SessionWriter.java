@@ -0,0 +1,320 @@
+package com.oops.wallsandwarriors;
+
+import com.oops.wallsandwarriors.model.ChallengeData;
+import com.oops.wallsandwarriors.model.Coordinate;
+import com.oops.wallsandwarriors.model.WallData;
+import com.oops.wallsandwarriors.model.WallShape;
+import com.oops.wallsandwarriors.util.EncodeUtils;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A class to save the session of the player in the background, so that a
+ * challenge can be continued after the game is closed or crashes. The session
+ * file starts with a snapshot, the codes of the challenge and of the challenge
+ * the hints are given for, and goes on with one line for every wall which has
+ * moved since then: the index of the wall and either its orientation and its
+ * position or "-" if it is off the grid. A move only compares the walls with
+ * the ones last recorded, which is done in memory, and the lines of the moved
+ * walls are written a moment later on the thread of the StorageManager, so a
+ * burst of moves is written at once and a wall moved many times in the burst
+ * is written only once. A new snapshot is written when another challenge is played and
+ * after every SNAPSHOT_INTERVAL moves, so the file stays short. A session is
+ * restored by decoding the snapshot and replaying the moves on it.
+ * The methods except readSession and close must be called on the JavaFX
+ * application thread.
+ */
+public class SessionWriter {
+
+    private static final long FLUSH_DELAY = 500;
+    private static final int SNAPSHOT_INTERVAL = 64;
+    private static final String OFF_GRID = "-";
+
+    private final File file;
+    private final StorageManager storage;
+
+    private ChallengeData challenge;
+    private ChallengeData hint;
+    private Coordinate[] positions;
+    private int[] orientations;
+    private int movesSinceSnapshot;
+
+    // The changes waiting to be written, shared with the storage thread
+    private ChallengeData pendingChallenge;
+    private ChallengeData pendingHint;
+    private boolean pendingClear;
+    private final Map<Integer, String> pendingMoves;
+    private boolean flushScheduled;
+
+    /**
+     * A constructor that initializes a SessionWriter for the session file.
+     * @param storage the StorageManager to write the session file with
+     */
+    public SessionWriter(StorageManager storage) {
+        this.file = storage.sessionData;
+        this.storage = storage;
+        this.pendingMoves = new LinkedHashMap<>();
+    }
+
+    /**
+     * A method to record the current state of a challenge being played. Only
+     * the walls which have moved or rotated since the last call are written.
+     * @param challengeData the challenge being played
+     * @param hintData the challenge the hints are given for
+     */
+    public void record(ChallengeData challengeData, ChallengeData hintData) {
+        if (challengeData != challenge || hintData != hint ||
+                challengeData.walls.size() != positions.length ||
+                movesSinceSnapshot >= SNAPSHOT_INTERVAL) {
+            snapshot(challengeData, hintData);
+            return;
+        }
+        List<WallData> walls = challengeData.walls;
+        for (int i = 0; i < walls.size(); i++) {
+            WallData wall = walls.get(i);
+            Coordinate position = wall.getPosition();
+            int orientation = wall.getOrientation();
+            if (position != positions[i] || orientation != orientations[i]) {
+                positions[i] = position;
+                orientations[i] = orientation;
+                movesSinceSnapshot++;
+                synchronized (this) {
+                    pendingMoves.put(i, position == null ? i + " " + OFF_GRID :
+                            i + " " + orientation + " " + position.x + " " + position.y);
+                }
+            }
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * A method to start the session file over with the current state of a challenge.
+     * @param challengeData the challenge being played
+     * @param hintData the challenge the hints are given for
+     */
+    private void snapshot(ChallengeData challengeData, ChallengeData hintData) {
+        challenge = challengeData;
+        hint = hintData;
+        int wallCount = challengeData.walls.size();
+        positions = new Coordinate[wallCount];
+        orientations = new int[wallCount];
+        for (int i = 0; i < wallCount; i++) {
+            WallData wall = challengeData.walls.get(i);
+            positions[i] = wall.getPosition();
+            orientations[i] = wall.getOrientation();
+        }
+        movesSinceSnapshot = 0;
+        synchronized (this) {
+            pendingChallenge = challengeData.createCopy(false);
+            pendingHint = hintData.createCopy(false);
+            pendingMoves.clear();
+            pendingClear = false;
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * A method to clear the session, when the challenge is left.
+     */
+    public void clear() {
+        challenge = null;
+        hint = null;
+        synchronized (this) {
+            pendingChallenge = null;
+            pendingHint = null;
+            pendingMoves.clear();
+            pendingClear = true;
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * A method to write the pending changes after the flush delay, unless
+     * they are already going to be written.
+     */
+    private synchronized void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            storage.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            }, FLUSH_DELAY);
+        }
+    }
+
+    /**
+     * A method to write the pending changes to the file. It is only called on
+     * the thread of the StorageManager.
+     */
+    private void flush() {
+        ChallengeData snapshotChallenge;
+        ChallengeData snapshotHint;
+        boolean clearFile;
+        List<String> moves;
+        synchronized (this) {
+            flushScheduled = false;
+            snapshotChallenge = pendingChallenge;
+            snapshotHint = pendingHint;
+            clearFile = pendingClear;
+            moves = new ArrayList<>(pendingMoves.values());
+            pendingChallenge = null;
+            pendingHint = null;
+            pendingClear = false;
+            pendingMoves.clear();
+        }
+        try {
+            if (snapshotChallenge != null) {
+                writeSnapshot(EncodeUtils.encode(snapshotChallenge),
+                        EncodeUtils.encode(snapshotHint), moves);
+            } else if (clearFile) {
+                storage.writeAtomically(file, new ArrayList<String>());
+            } else if (!moves.isEmpty()) {
+                storage.appendNow(file, moves);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * A method to replace the file with a new snapshot.
+     * @param challengeCode the code of the challenge being played
+     * @param hintCode the code of the challenge the hints are given for
+     * @param moves the moves made after the snapshot
+     * @throws IOException if the file can not be written
+     */
+    private void writeSnapshot(String challengeCode, String hintCode, List<String> moves)
+            throws IOException {
+        List<String> lines = new ArrayList<>(moves.size() + 2);
+        lines.add(challengeCode);
+        lines.add(hintCode);
+        lines.addAll(moves);
+        storage.writeAtomically(file, lines);
+    }
+
+    /**
+     * A method to read the saved session on the thread of the StorageManager,
+     * after the pending changes are written.
+     * @return the reading of the saved session, which is completed with null
+     * if there is none
+     */
+    public CompletableFuture<Session> readSession() {
+        return storage.submit(new Callable<Session>() {
+            @Override
+            public Session call() throws Exception {
+                flush();
+                return read();
+            }
+        });
+    }
+
+    /**
+     * A method to decode the snapshot of the file and replay its moves.
+     * @return the saved session, or null if there is none
+     * @throws IOException if the file can not be read
+     * @throws ClassNotFoundException if the snapshot is in an unknown format
+     */
+    private Session read() throws IOException, ClassNotFoundException {
+        String[] lines = new String(storage.readBytesNow(file), StandardCharsets.UTF_8)
+                .split("\r?\n");
+        if (lines.length < 2 || lines[0].isEmpty() || lines[1].isEmpty()) {
+            return null;
+        }
+        ChallengeData challengeData = EncodeUtils.decode(lines[0]);
+        ChallengeData hintData = EncodeUtils.decode(lines[1]);
+        for (int i = 2; i < lines.length; i++) {
+            replay(challengeData, lines[i]);
+        }
+        return new Session(challengeData, hintData);
+    }
+
+    /**
+     * A method to apply a recorded move to a challenge. Lines which can not
+     * be applied, such as a line cut off by a crash, are skipped.
+     * @param challengeData the challenge to apply the move to
+     * @param line the line of the move
+     */
+    private static void replay(ChallengeData challengeData, String line) {
+        String[] parts = line.trim().split(" ");
+        try {
+            WallData wall = challengeData.walls.get(Integer.parseInt(parts[0]));
+            if (parts.length == 2 && parts[1].equals(OFF_GRID)) {
+                wall.setPosition(null);
+            } else if (parts.length == 4) {
+                int orientation = Integer.parseInt(parts[1]);
+                if (orientation >= 0 && orientation < WallShape.ORIENTATION_NO) {
+                    wall.setWallDefinition(wall.getShape().getOrientation(orientation));
+                    wall.setPosition(new Coordinate(
+                            Integer.parseInt(parts[2]), Integer.parseInt(parts[3])));
+                }
+            }
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            // The line is broken, so the wall keeps its last position
+        }
+    }
+
+    /**
+     * A method to write the pending changes at once, when the game is closed.
+     */
+    public void close() {
+        try {
+            storage.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    flush();
+                    return null;
+                }
+            }).get();
+        } catch (InterruptedException | ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * A class to store a session read from the file.
+     */
+    public static class Session {
+
+        private final ChallengeData challengeData;
+        private final ChallengeData hintData;
+
+        /**
+         * A constructor that initializes a Session.
+         * @param challengeData the challenge being played
+         * @param hintData the challenge the hints are given for
+         */
+        private Session(ChallengeData challengeData, ChallengeData hintData) {
+            this.challengeData = challengeData;
+            this.hintData = hintData;
+        }
+
+        /**
+         * A get method to return the challenge being played, with its walls
+         * as they were last placed.
+         * @return the challenge of the session
+         */
+        public ChallengeData getChallengeData() {
+            return challengeData;
+        }
+
+        /**
+         * A get method to return the challenge the hints are given for.
+         * @return the hint challenge of the session
+         */
+        public ChallengeData getHintData() {
+            return hintData;
+        }
+
+    }
+
+}
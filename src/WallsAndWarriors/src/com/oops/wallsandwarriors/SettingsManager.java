@@ -1,4 +1,5 @@
 package com.oops.wallsandwarriors;
+import java.util.function.Consumer;
 import javafx.scene.paint.Color;
 
 /**
@@ -81,11 +82,19 @@ public class SettingsManager {
     }
 
     /**
-     * A method to read sound and music settings from file
+     * A method to read sound and music settings from file. The volumes are
+     * applied on the JavaFX application thread when the settings are read.
      */
     public void readSettings() {
-        setVolume(Game.getInstance().storageManager.readSoundSetting());
-        setMusicVolume(Game.getInstance().storageManager.readMusicSetting());
+        Game.getInstance().storageManager.readSettings().thenAcceptAsync(new Consumer<double[]>() {
+            @Override
+            public void accept(double[] settings) {
+                setVolume(settings[0]);
+                setMusicVolume(settings[1]);
+                Game.getInstance().soundManager.updateSoundVolume();
+                Game.getInstance().soundManager.updateMusicVolume();
+            }
+        }, StorageManager.FX_THREAD);
     }
 
 
@@ -6,30 +6,69 @@ import com.oops.wallsandwarriors.model.MarkedCoordinates;
 import com.oops.wallsandwarriors.model.Coordinate;
 import com.oops.wallsandwarriors.model.ChallengeData;
 import com.oops.wallsandwarriors.model.KnightData;
+import com.oops.wallsandwarriors.model.HighTowerData;
+import com.oops.wallsandwarriors.solver.BitBoard;
+import com.oops.wallsandwarriors.solver.EnclosureTracker;
+import com.oops.wallsandwarriors.solver.TranspositionTable;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A class for checking a ChallengeData’s correctly solved/unsolved status.
+ * Grids that fit into a BitBoard are checked with bit masks, larger grids
+ * fall back to marking the coordinates one by one. The region reachable from
+ * the blue knights is kept by an EnclosureTracker between the checks, so
+ * checking a challenge again after a wall has moved only updates the region
+ * around the edges of that wall. The verdicts on grids that
+ * fit into a BitBoard can be cached in a TranspositionTable by the Zobrist
+ * hash of the challenge, which is kept up to date as the walls are moved, so
+ * a board seen before is not checked again. The flooded region is cached
+ * instead of the knights, since the order of the knights is not hashed.
  * @author Ali Babayev
  */
 public class SolutionManager {
 
+    private static final long NOT_CLOSED = -1;
+
     private final MarkedCoordinates markedCoordinatelist;
     private final Coordinate leftCoordinate = new Coordinate(-1,0);
     private final Coordinate rightCoordinate = new Coordinate(1,0);
     private final Coordinate upperCoordinate = new Coordinate(0,-1);
     private final Coordinate downCordinate = new Coordinate(0,1);
     private final ArrayList<KnightData> IncorrectRedKnightList;
+    private final BitBoard board;
+    private final EnclosureTracker tracker;
+    private final TranspositionTable verdicts;
 
     private ChallengeData challengeData;
+    private long marked;
 
 
     /**
      * A default constructor that initializes lists of marked coordinates and incorrect enemy knights
      */
     public SolutionManager() {
+        this(null);
+    }
+
+    /**
+     * A constructor that initializes a SolutionManager caching its verdicts in the given table
+     * @param verdicts the table to cache the verdicts in, or null to check every solution
+     */
+    public SolutionManager(TranspositionTable verdicts) {
         markedCoordinatelist = new MarkedCoordinates();
         IncorrectRedKnightList = new ArrayList<KnightData>();
+        board = new BitBoard();
+        tracker = new EnclosureTracker();
+        this.verdicts = verdicts;
+    }
+
+    /**
+     * A get method to return the table the verdicts are cached in
+     * @return the table of the verdicts, or null if the verdicts are not cached
+     */
+    public TranspositionTable getVerdicts() {
+        return verdicts;
     }
 
     /**
@@ -42,6 +81,115 @@ public class SolutionManager {
         reset();
         challengeData = newChallengeData;
 
+        if (board.loadBlocks(challengeData.blocks)) {
+            if (verdicts == null) {
+                return checkSolutionIncrementally();
+            }
+            long key = challengeData.getZobristHash();
+            long verdict = verdicts.get(key);
+            if (verdict == TranspositionTable.MISSING) {
+                ArrayList<KnightData> incorrectRedKnights = checkSolutionIncrementally();
+                verdicts.put(key, incorrectRedKnights == null ? NOT_CLOSED : marked);
+                return incorrectRedKnights;
+            }
+            return getIncorrectRedKnights(verdict);
+        }
+        return checkSolutionByMarking();
+    }
+
+    /**
+     * A method to check a solution whose walls are already packed into edge masks
+     * @param newChallengeData ChallengeData whose knights and high towers are checked
+     * @param horizontalWalls horizontal edge mask of a BitBoard loaded with the blocks of the challenge
+     * @param verticalWalls vertical edge mask of a BitBoard loaded with the blocks of the challenge
+     * @return null if walls are not in their correct places on the grid or list of red(enemy) knights that are marked
+     * @throws IllegalArgumentException if the grid of the challenge does not fit into a BitBoard
+     */
+    public ArrayList<KnightData> checkSolution(ChallengeData newChallengeData,
+            long horizontalWalls, long verticalWalls) {
+
+        reset();
+        challengeData = newChallengeData;
+
+        if (!board.loadBlocks(challengeData.blocks)) {
+            throw new IllegalArgumentException("The grid does not fit into a BitBoard");
+        }
+        board.setEdges(horizontalWalls, verticalWalls);
+        return checkSolutionOnBoard();
+    }
+
+    /**
+     * A method to check the solution with the region kept by the tracker
+     * @return null if walls are not closed or list of red(enemy) knights in the region
+     */
+    private ArrayList<KnightData> checkSolutionIncrementally() {
+        tracker.update(challengeData);
+        marked = tracker.getRegion();
+        if (tracker.getReachedEnemies() == 0 && !tracker.isClosed()) {
+            return null;
+        }
+        return getIncorrectRedKnights(marked);
+    }
+
+    /**
+     * A method to get the result of a check from its cached verdict
+     * @param verdict the region reachable from the blue knights and the high towers,
+     *                or NOT_CLOSED if walls are not closed
+     * @return null if walls are not closed or list of red(enemy) knights in the region
+     */
+    private ArrayList<KnightData> getIncorrectRedKnights(long verdict) {
+        if (verdict == NOT_CLOSED) {
+            return null;
+        }
+        for (KnightData knight : challengeData.knights) {
+            if (knight.isEnemy && (verdict & board.cellBit(knight.getPosition())) != 0) {
+                IncorrectRedKnightList.add(knight);
+            }
+        }
+        return IncorrectRedKnightList;
+    }
+
+    /**
+     * A method to check the solution with the bit masks of the loaded board
+     * @return null if walls are not closed or list of red(enemy) knights that are marked
+     */
+    private ArrayList<KnightData> checkSolutionOnBoard() {
+        List<KnightData> knights = challengeData.knights;
+        List<HighTowerData> highTowers = challengeData.highTowers;
+
+        long seeds = 0;
+        for (int i = 0; i < knights.size(); i++) {
+            KnightData knight = knights.get(i);
+            if (!knight.isEnemy) {
+                seeds |= board.cellBit(knight.getPosition());
+            }
+        }
+        for (int i = 0; i < highTowers.size(); i++) {
+            HighTowerData highTower = highTowers.get(i);
+            seeds |= board.cellBit(highTower.getFirstPosition());
+            seeds |= board.cellBit(highTower.getSecondPosition());
+        }
+
+        marked = board.flood(seeds);
+        for (int i = 0; i < knights.size(); i++) {
+            KnightData knight = knights.get(i);
+            if (knight.isEnemy && (marked & board.cellBit(knight.getPosition())) != 0) {
+                IncorrectRedKnightList.add(knight);
+            }
+        }
+
+        if (IncorrectRedKnightList.isEmpty() && board.leaks(marked) != 0) {
+            return null;
+        }
+        return IncorrectRedKnightList;
+    }
+
+    /**
+     * A method to check the solution by marking the reachable coordinates one by one
+     * @return null if walls are not closed or list of red(enemy) knights that are marked
+     */
+    private ArrayList<KnightData> checkSolutionByMarking() {
+
         //if the knight is BLUE, then check for Coordinates to mark
         for( int i = 0; i < challengeData.knights.size(); i++){
             if( !(challengeData.knights.get(i).isEnemy)){
@@ -0,0 +1,278 @@
+package com.oops.wallsandwarriors;
+
+import com.oops.wallsandwarriors.model.Canonicalizer;
+import com.oops.wallsandwarriors.model.ChallengeData;
+import com.oops.wallsandwarriors.solver.ChallengeSolver;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import javafx.application.Platform;
+
+/**
+ * A class to run the searches of the ChallengeSolver for the screens without
+ * blocking the JavaFX application thread. The jobs run on a fork-join pool
+ * which leaves one processor to the rendering, and their results are delivered
+ * on the JavaFX application thread, so the callbacks of a job can change the
+ * screen directly. Every job has a cancel flag which the search checks, and
+ * a deadline after which the flag is set and the job fails with a
+ * TimeoutException. A cancelled or timed out job never delivers a result, even
+ * if the search has already finished. All jobs are cancelled when the screen
+ * changes. The solutions found are kept for the canonical form of the
+ * challenge, so a rotated or mirrored copy of a solved challenge is solved by
+ * mapping the kept solutions back instead of searching again.
+ */
+public class SolverManager {
+
+    private static final int SOLUTION_CAPACITY = 64;
+
+    private final ForkJoinPool pool;
+    private final ChallengeSolver solver;
+    private final Executor delivery;
+    private final ScheduledThreadPoolExecutor deadlines;
+    private final Set<Job<?>> jobs;
+    private final Map<Long, List<ChallengeData>> solutions;
+
+    /**
+     * A default constructor that initializes a SolverManager which delivers
+     * the results on the JavaFX application thread.
+     */
+    public SolverManager() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                Platform.runLater(command);
+            }
+        });
+    }
+
+    /**
+     * A constructor that initializes a SolverManager with the given number of
+     * threads, which delivers the results with the given executor.
+     * @param parallelism number of threads to run the searches on
+     * @param delivery the executor to complete the results of the jobs on
+     */
+    public SolverManager(int parallelism, Executor delivery) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.solver = new ChallengeSolver(pool);
+        this.delivery = delivery;
+        this.deadlines = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "solver-deadlines");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.deadlines.setRemoveOnCancelPolicy(true);
+        this.jobs = Collections.newSetFromMap(new ConcurrentHashMap<Job<?>, Boolean>());
+        this.solutions = Collections.synchronizedMap(
+                new LinkedHashMap<Long, List<ChallengeData>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, List<ChallengeData>> eldest) {
+                return size() > SOLUTION_CAPACITY;
+            }
+        });
+    }
+
+    /**
+     * A method to run a task on the solver in the background.
+     * @param <T> type of the result of the task
+     * @param task the task to run
+     * @param timeLimit milliseconds after which the task is cancelled
+     * @return the job of the task
+     */
+    public <T> Job<T> submit(final SolverTask<T> task, long timeLimit) {
+        final Job<T> job = new Job<T>();
+        jobs.add(job);
+        job.deadline = deadlines.schedule(new Runnable() {
+            @Override
+            public void run() {
+                job.cancelled.set(true);
+                delivery.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        job.result.completeExceptionally(new TimeoutException());
+                    }
+                });
+            }
+        }, timeLimit, TimeUnit.MILLISECONDS);
+        job.result.whenComplete(new BiConsumer<T, Throwable>() {
+            @Override
+            public void accept(T value, Throwable error) {
+                jobs.remove(job);
+                job.deadline.cancel(false);
+            }
+        });
+        pool.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (job.cancelled.get()) {
+                    return;
+                }
+                try {
+                    final T value = task.run(solver, job.cancelled);
+                    delivery.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (!job.cancelled.get()) {
+                                job.result.complete(value);
+                            }
+                        }
+                    });
+                } catch (final RuntimeException e) {
+                    delivery.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            job.result.completeExceptionally(e);
+                        }
+                    });
+                }
+            }
+        });
+        return job;
+    }
+
+    /**
+     * A method to find all solutions of a challenge in the background.
+     * @param challenge the challenge to solve, which is copied before the search
+     * @param timeLimit milliseconds after which the search is cancelled
+     * @return the job of the search
+     */
+    public Job<List<ChallengeData>> solve(ChallengeData challenge, long timeLimit) {
+        final ChallengeData puzzle = challenge.createCopy(true);
+        return submit(new SolverTask<List<ChallengeData>>() {
+            @Override
+            public List<ChallengeData> run(ChallengeSolver solver, AtomicBoolean cancelled) {
+                Canonicalizer.CanonicalForm form = Canonicalizer.canonicalize(puzzle);
+                List<ChallengeData> canonicalSolutions = solutions.get(form.getHash());
+                if (canonicalSolutions == null) {
+                    canonicalSolutions = solver.solve(form.toCanonical(puzzle),
+                            Integer.MAX_VALUE, cancelled);
+                    if (cancelled.get()) {
+                        return canonicalSolutions;
+                    }
+                    solutions.put(form.getHash(), canonicalSolutions);
+                }
+                List<ChallengeData> puzzleSolutions =
+                        new ArrayList<ChallengeData>(canonicalSolutions.size());
+                for (ChallengeData solution : canonicalSolutions) {
+                    puzzleSolutions.add(form.fromCanonical(puzzle, solution));
+                }
+                return puzzleSolutions;
+            }
+        }, timeLimit);
+    }
+
+    /**
+     * A method to count the solutions of a challenge up to a limit in the background.
+     * @param challenge the challenge to solve, which is copied before the search
+     * @param limit maximum number of solutions to count
+     * @param timeLimit milliseconds after which the search is cancelled
+     * @return the job of the search
+     */
+    public Job<Integer> countSolutions(ChallengeData challenge, final int limit, long timeLimit) {
+        final ChallengeData puzzle = challenge.createCopy(true);
+        return submit(new SolverTask<Integer>() {
+            @Override
+            public Integer run(ChallengeSolver solver, AtomicBoolean cancelled) {
+                return solver.countSolutions(puzzle, limit, cancelled);
+            }
+        }, timeLimit);
+    }
+
+    /**
+     * A method to cancel every job which is not finished yet.
+     */
+    public void cancelAll() {
+        for (Job<?> job : jobs.toArray(new Job<?>[0])) {
+            job.cancel();
+        }
+    }
+
+    /**
+     * A get method to return the solver the jobs run on.
+     * @return the solver
+     */
+    public ChallengeSolver getSolver() {
+        return solver;
+    }
+
+    /**
+     * An interface for a task which uses the solver and stops when it is cancelled.
+     * @param <T> type of the result of the task
+     */
+    public interface SolverTask<T> {
+
+        /**
+         * A method to run the task on a thread of the solver.
+         * @param solver the solver to run the searches with
+         * @param cancelled a flag which is set when the task should stop
+         * @return the result of the task
+         */
+        T run(ChallengeSolver solver, AtomicBoolean cancelled);
+
+    }
+
+    /**
+     * A class to store a job submitted to the SolverManager.
+     * @param <T> type of the result of the job
+     */
+    public static class Job<T> {
+
+        private final AtomicBoolean cancelled;
+        private final CompletableFuture<T> result;
+        private ScheduledFuture<?> deadline;
+
+        /**
+         * A default constructor that initializes a Job which is not finished.
+         */
+        private Job() {
+            cancelled = new AtomicBoolean();
+            result = new CompletableFuture<T>();
+        }
+
+        /**
+         * A get method to return the result of the job. The result is completed
+         * on the JavaFX application thread, with a CancellationException if the
+         * job is cancelled and with a TimeoutException if its deadline passes.
+         * @return the result of the job
+         */
+        public CompletableFuture<T> getResult() {
+            return result;
+        }
+
+        /**
+         * A method to cancel the job. The search stops at its next check of
+         * the cancel flag and its result is dropped.
+         * @return true if the job was not finished yet
+         */
+        public boolean cancel() {
+            cancelled.set(true);
+            return result.cancel(false);
+        }
+
+        /**
+         * A method to check whether the job is cancelled or timed out.
+         * @return true if the job is cancelled
+         */
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+
+    }
+
+}
@@ -1,51 +1,153 @@
 package com.oops.wallsandwarriors;
 
 import com.oops.wallsandwarriors.util.FileUtils;
+import java.io.FileNotFoundException;
+import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import javafx.scene.media.AudioClip;
 import javafx.scene.media.Media;
 import javafx.scene.media.MediaPlayer;
 import javafx.util.Duration;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioSystem;
 
 /**
- * A class to manage sound settings of the game
+ * A class to manage sound settings of the game. The short effects are decoded
+ * into AudioClips on a background thread when the game starts, so nothing
+ * waits for them, and an effect asked for before it is decoded is skipped. The
+ * effects are played on a small pool of voices, so they can overlap with each
+ * other and with themselves, and when all voices are busy the voice which ends
+ * first is taken over. Every voice plays its own AudioClip of an effect, since
+ * stopping an AudioClip stops all of its instances, so taking over a voice
+ * does not cut off the same effect on the other voices. The music and the
+ * congratulation jingle are streamed with MediaPlayers, which are created when
+ * they are first played. The effects and the jingle are played at the sound
+ * volume and the music at the music volume of the SettingsManager.
  * @author Merve Sagyatanlar
  * @author Emin Bahadir Tuluce
  */
 public class SoundManager {
 
-    private final Media musicFile = new Media(FileUtils.getURI(
-            "/com/oops/wallsandwarriors/resources/musics/bg_music.mp3"));
-    private final MediaPlayer mediaplayer = new MediaPlayer(musicFile);
+    private static final String SOUNDS = "/com/oops/wallsandwarriors/resources/musics/";
+    private static final int VOICE_NO = 4;
 
-    private final Media primary = new Media(FileUtils.getURI(
-            "/com/oops/wallsandwarriors/resources/musics/primary.wav"));
-    private final MediaPlayer primarySound = new MediaPlayer(primary);
+    private final CompletableFuture<Effect> primary;
+    private final CompletableFuture<Effect> secondary;
+    private final CompletableFuture<Effect> rotate;
+    private final CompletableFuture<Effect> click;
+    private final Effect[] voiceEffects;
+    private final long[] voiceEnds;
+    private final SettingsManager settingsManager;
 
-    private final Media secondary = new Media(FileUtils.getURI(
-            "/com/oops/wallsandwarriors/resources/musics/secondary.wav"));
-    private final MediaPlayer secondarySound = new MediaPlayer(secondary);
+    private MediaPlayer musicPlayer;
+    private MediaPlayer congratsPlayer;
+    private double soundVolume;
+    private double musicVolume;
 
-    private final Media congrats = new Media(FileUtils.getURI(
-            "/com/oops/wallsandwarriors/resources/musics/congrats.mp3"));
-    private final MediaPlayer congratsSound = new MediaPlayer(congrats);
+    /**
+     * A constructor that starts decoding the effects in the background.
+     * @param settingsManager the SettingsManager to take the volumes from
+     */
+    public SoundManager(SettingsManager settingsManager) {
+        this.settingsManager = settingsManager;
+        Executor loader = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                Thread thread = new Thread(command, "sound-loader");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        };
+        primary = load("primary.wav", loader);
+        secondary = load("secondary.wav", loader);
+        rotate = load("rotate.wav", loader);
+        click = load("click.wav", loader);
+        voiceEffects = new Effect[VOICE_NO];
+        voiceEnds = new long[VOICE_NO];
+        soundVolume = settingsManager.getVolume();
+        musicVolume = settingsManager.getMusicVolume();
+    }
 
-    private final Media rotate = new Media(FileUtils.getURI(
-            "/com/oops/wallsandwarriors/resources/musics/rotate.wav"));
-    private final MediaPlayer rotateSound = new MediaPlayer(rotate);
+    /**
+     * A method to start decoding an effect.
+     * @param name file name of the effect
+     * @param loader the executor to decode the effect on
+     * @return the decoding of the effect, which is completed with null if
+     * the effect can not be decoded
+     */
+    private static CompletableFuture<Effect> load(final String name, Executor loader) {
+        return CompletableFuture.supplyAsync(new Supplier<Effect>() {
+            @Override
+            public Effect get() {
+                URL resource = SoundManager.class.getResource(SOUNDS + name);
+                if (resource == null) {
+                    new FileNotFoundException(SOUNDS + name).printStackTrace();
+                    return null;
+                }
+                try {
+                    AudioClip[] clips = new AudioClip[VOICE_NO];
+                    for (int voice = 0; voice < VOICE_NO; voice++) {
+                        clips[voice] = new AudioClip(resource.toExternalForm());
+                    }
+                    AudioFileFormat format = AudioSystem.getAudioFileFormat(resource);
+                    long length = (long) (1000 * format.getFrameLength() /
+                            format.getFormat().getFrameRate());
+                    return new Effect(clips, Math.max(length, 1));
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    return null;
+                }
+            }
+        }, loader);
+    }
 
-    private final Media click = new Media(FileUtils.getURI(
-            "/com/oops/wallsandwarriors/resources/musics/click.wav"));
-    private final MediaPlayer clickSound = new MediaPlayer(click);
+    /**
+     * A method to play an effect on a free voice, or on the voice which ends
+     * first if all of them are busy.
+     * @param decoding the decoding of the effect
+     */
+    private void play(CompletableFuture<Effect> decoding) {
+        Effect effect = decoding.getNow(null);
+        if (effect == null || soundVolume <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int voice = 0;
+        for (int i = 1; i < VOICE_NO; i++) {
+            if (voiceEnds[i] < voiceEnds[voice]) {
+                voice = i;
+            }
+        }
+        if (voiceEnds[voice] > now) {
+            voiceEffects[voice].clips[voice].stop();
+        }
+        voiceEffects[voice] = effect;
+        voiceEnds[voice] = now + effect.length;
+        effect.clips[voice].play(soundVolume);
+    }
+
+    /**
+     * A method to create a media player for a sound file, if the file exists.
+     * @param name file name of the sound
+     * @return the media player, or null if the sound is missing
+     */
+    private static MediaPlayer createPlayer(String name) {
+        if (SoundManager.class.getResource(SOUNDS + name) == null) {
+            new FileNotFoundException(SOUNDS + name).printStackTrace();
+            return null;
+        }
+        return new MediaPlayer(new Media(FileUtils.getURI(SOUNDS + name)));
+    }
 
     /**
      * A method to set music and sound files volume to mute
      */
     public void mute() {
-        mediaplayer.setVolume(0);
-        primarySound.setVolume(0);
-        secondarySound.setVolume(0);
-        congratsSound.setVolume(0);
-        rotateSound.setVolume(0);
-        clickSound.setVolume(0);
+        soundVolume = 0;
+        musicVolume = 0;
+        applyVolumes();
     }
 
     /**
@@ -53,85 +155,122 @@ public class SoundManager {
      * @return true if both volume is greater than 0
      */
     public boolean soundCheck() {
-        return mediaplayer.getVolume() > 0 ||
-               primarySound.getVolume() > 0 ||
-               secondarySound.getVolume() > 0;
+        return musicVolume > 0 || soundVolume > 0;
     }
 
     /**
-     * A method to set initial volume of the music and sound
+     * A method to set initial volume of the music and sound, which is set
+     * when the settings are read
      */
     public void setInitialVolume() {
-        Game.getInstance().settingsManager.readSettings();
-        updateMusicVolume();
-        updateSoundVolume();
+        settingsManager.readSettings();
     }
 
     /**
      * A method to update music volume
      */
     public void updateMusicVolume(){
-        mediaplayer.setVolume(Game.getInstance().settingsManager.getMusicVolume());
+        musicVolume = settingsManager.getMusicVolume();
+        applyVolumes();
     }
 
     /**
      * A method to update sound volume
      */
     public void updateSoundVolume() {
-        primarySound.setVolume(Game.getInstance().settingsManager.getVolume());
-        secondarySound.setVolume(Game.getInstance().settingsManager.getVolume());
-        congratsSound.setVolume(Game.getInstance().settingsManager.getVolume());
-        rotateSound.setVolume(Game.getInstance().settingsManager.getVolume());
-        clickSound.setVolume(Game.getInstance().settingsManager.getVolume());
+        soundVolume = settingsManager.getVolume();
+        applyVolumes();
     }
-    
+
+    /**
+     * A method to set the volumes of the media players which are created.
+     */
+    private void applyVolumes() {
+        if (musicPlayer != null) {
+            musicPlayer.setVolume(musicVolume);
+        }
+        if (congratsPlayer != null) {
+            congratsPlayer.setVolume(soundVolume);
+        }
+    }
+
     /**
      * A method to start playing music file
      */
     public void startPlayMusic() {
-        mediaplayer.setCycleCount(Integer.MAX_VALUE);
-        mediaplayer.setVolume(Game.getInstance().settingsManager.getMusicVolume());
-        mediaplayer.play();
+        if (musicPlayer == null) {
+            musicPlayer = createPlayer("bg_music.mp3");
+            if (musicPlayer == null) {
+                return;
+            }
+            musicPlayer.setCycleCount(MediaPlayer.INDEFINITE);
+        }
+        musicPlayer.setVolume(musicVolume);
+        musicPlayer.play();
     }
-    
+
     /**
      * A method to start playing sound file
      */
     public void playCongrats() {
-        congratsSound.seek(Duration.ZERO);
-        congratsSound.play();
+        if (congratsPlayer == null) {
+            congratsPlayer = createPlayer("congrats.mp3");
+            if (congratsPlayer == null) {
+                return;
+            }
+        }
+        congratsPlayer.setVolume(soundVolume);
+        congratsPlayer.seek(Duration.ZERO);
+        congratsPlayer.play();
     }
 
     /**
      * A method to start playing primary sound file
      */
     public void playPrimary() {
-        primarySound.seek(Duration.ZERO);
-        primarySound.play();
+        play(primary);
     }
 
     /**
      * A method to start playing secondary sound file
      */
     public void playSecondary() {
-        secondarySound.seek(Duration.ZERO);
-        secondarySound.play();
+        play(secondary);
     }
 
     /**
      * A method to start playing rotate sound file
      */
     public void playRotate() {
-        rotateSound.seek(Duration.ZERO);
-        rotateSound.play();
+        play(rotate);
     }
 
     /**
      * A method to start playing click sound file
      */
     public void playClick() {
-        clickSound.seek(Duration.ZERO);
-        clickSound.play();
+        play(click);
+    }
+
+    /**
+     * A class to store the decoded clips of an effect, one for each voice,
+     * with its length.
+     */
+    private static class Effect {
+
+        private final AudioClip[] clips;
+        private final long length;
+
+        /**
+         * A constructor that initializes an Effect.
+         * @param clips the decoded clips of the effect, one for each voice
+         * @param length the length of the effect in milliseconds
+         */
+        private Effect(AudioClip[] clips, long length) {
+            this.clips = clips;
+            this.length = length;
+        }
+
     }
 
 }
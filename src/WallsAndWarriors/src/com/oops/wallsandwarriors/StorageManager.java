@@ -1,16 +1,42 @@
 package com.oops.wallsandwarriors;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.Scanner;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javafx.application.Platform;
 
 /**
- * A class to manage writing and reading file operations
+ * A class to manage writing and reading file operations. Every operation runs
+ * on one background thread, in the order it is requested, and returns a
+ * CompletableFuture, so the JavaFX application thread never waits for the
+ * disk and the writes of a file never overtake each other. A file is written
+ * into a temporary file first, which is then moved over the file, so a crash
+ * leaves either the old or the new content. The settings, the progress and
+ * the custom challenges are read in one batch when the game starts, and the
+ * settings are kept in memory after that.
  * @author Merve Sagyatanlar
  * @author Emin Bahadir Tuluce
  * @author Ali Babayev
@@ -18,194 +44,393 @@ import java.util.Scanner;
  */
 public class StorageManager {
 
-    public File wnwData;
-    public File campaignChallengeData;
-    public File customChallengeData;
-    public File sessionData;
-    public File progressData;
-    public File settingsData;
+    /**
+     * An executor to continue on the JavaFX application thread after an operation.
+     */
+    public static final Executor FX_THREAD = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            Platform.runLater(command);
+        }
+    };
+
+    private static final String DEFAULT_SETTINGS = "1 0";
+
+    public final File wnwData;
+    public final File campaignChallengeData;
+    public final File customChallengeData;
+    public final File sessionData;
+    public final File progressData;
+    public final File settingsData;
+
+    private final ScheduledThreadPoolExecutor io;
+    private final CompletableFuture<List<String>> progress;
+    private final CompletableFuture<String> customChallenges;
+    private CompletableFuture<double[]> settings;
 
     /**
-     * A default constructor that calls makeDirectory
+     * A default constructor that initializes the files in the .wnwdata folder
+     * of the user's home directory, and starts creating the folder and reading
+     * the files in the background.
      */
     public StorageManager() {
-        makeDirectory();
+        wnwData = new File(System.getProperty("user.home"), ".wnwdata");
+        campaignChallengeData = new File(wnwData, "campaign_challenges.dat");
+        customChallengeData = new File(wnwData, "custom_challenges.dat");
+        sessionData = new File(wnwData, "session.dat");
+        progressData = new File(wnwData, "progress.dat");
+        settingsData = new File(wnwData, "settings.dat");
+        io = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "storage-io");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        submit(new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+                makeDirectory();
+                return null;
+            }
+        });
+        settings = readText(settingsData).thenApply(new Function<String, double[]>() {
+            @Override
+            public double[] apply(String text) {
+                return parseSettings(text);
+            }
+        });
+        progress = readLines(progressData);
+        customChallenges = readText(customChallengeData);
     }
 
     /**
-     * A method to create .wnwdata folder into the user's home directory
+     * A method to create .wnwdata folder into the user's home directory and
+     * the files in it which do not exist yet.
+     * @throws IOException if a file can not be created
      */
-    private void makeDirectory() {
-        String userHome = System.getProperty("user.home");
-        wnwData = new File(userHome + "/.wnwdata");
+    private void makeDirectory() throws IOException {
         wnwData.mkdirs();
+        campaignChallengeData.createNewFile();
+        customChallengeData.createNewFile();
+        sessionData.createNewFile();
+        progressData.createNewFile();
+        if (!settingsData.exists()) {
+            writeAtomically(settingsData, Collections.singletonList(DEFAULT_SETTINGS));
+        }
+    }
+
+    /**
+     * A method to run a task on the storage thread.
+     * @param <T> type of the result of the task
+     * @param task the task to run
+     * @return the result of the task, completed on the storage thread
+     */
+    public <T> CompletableFuture<T> submit(final Callable<T> task) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        io.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    result.complete(task.call());
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    result.completeExceptionally(e);
+                }
+            }
+        });
+        return result;
+    }
 
-        makeCampaignChallengesFile();
-        makeCustomChallengesFile();
-        makeProgressFile();
-        makeSettingsFile();
+    /**
+     * A method to run a task on the storage thread after a delay.
+     * @param task the task to run
+     * @param delay milliseconds to wait before running the task
+     * @return the scheduled task
+     */
+    public ScheduledFuture<?> schedule(Runnable task, long delay) {
+        return io.schedule(task, delay, TimeUnit.MILLISECONDS);
     }
 
     /**
-     * A method to create settings.dat file into the .wnwdata folder
+     * A method to read a file as text in the background.
+     * @param file the file to read
+     * @return the content of the file, which is empty if the file does not exist
      */
-    public void makeSettingsFile() {
-        settingsData = new File (wnwData,"settings.dat");
-        try {
-            if (!settingsData.exists()) {
-                settingsData.createNewFile();
-                BufferedWriter bufferedWriter = new BufferedWriter(
-                    new FileWriter(settingsData));
-                bufferedWriter.write("1 0");
-                bufferedWriter.close();
+    public CompletableFuture<String> readText(final File file) {
+        return submit(new Callable<String>() {
+            @Override
+            public String call() throws IOException {
+                return new String(readBytesNow(file), StandardCharsets.UTF_8);
             }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        settingsData.setWritable(true);
+        });
     }
 
     /**
-     * A method to write latest data to the settings.dat file
-     * @param sound double value representing volume(level) of the sound
-     * @param music double value representing volume(level) of the sound
+     * A method to read the lines of a file in the background.
+     * @param file the file to read
+     * @return the lines of the file, which are empty if the file does not exist
      */
-    public void writeSettings(double sound, double music) {
-        try {
-            settingsData = new File(wnwData, "settings.dat");
-            settingsData.createNewFile();
-            BufferedWriter bufferedWriter = new BufferedWriter(
-                    new FileWriter(settingsData));
-            bufferedWriter.write(sound + " " + music);
-            bufferedWriter.close();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    public CompletableFuture<List<String>> readLines(File file) {
+        return readText(file).thenApply(new Function<String, List<String>>() {
+            @Override
+            public List<String> apply(String text) {
+                return toLines(text);
+            }
+        });
     }
 
     /**
-     * A method to read sound settings from the settings.dat file
-     * @return sound setting
+     * A method to read a file as bytes in the background.
+     * @param file the file to read
+     * @return the content of the file, which is empty if the file does not exist
      */
-    public double readSoundSetting() {
-        try {
-            BufferedReader soundReader = new BufferedReader(
-                    new FileReader(new File(wnwData, "settings.dat")));
-            String soundSetting = soundReader.readLine();
-            Scanner soundScanner = new Scanner(soundSetting);
-            return Double.parseDouble(soundScanner.next());
-        }
-        catch (IOException e) {
-            e.printStackTrace();
-        } catch (Exception e){
-            e.printStackTrace();
-        }
-        return 0;
+    public CompletableFuture<byte[]> readBytes(final File file) {
+        return submit(new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws IOException {
+                return readBytesNow(file);
+            }
+        });
     }
 
     /**
-     * A method to read latest music setting from the settings.dat file
-     * @return music setting
+     * A method to replace the lines of a file atomically in the background.
+     * @param file the file to write
+     * @param lines the new lines of the file
+     * @return a future which is completed when the file is written
      */
-    public double readMusicSetting() {
-        try {
-            BufferedReader soundReader = new BufferedReader(
-                    new FileReader(new File(wnwData, "settings.dat")));
-            String soundSetting = soundReader.readLine();
-            Scanner soundScanner = new Scanner(soundSetting);
-            soundScanner.next();
-            return Double.parseDouble(soundScanner.next());
+    public CompletableFuture<Void> writeLines(final File file, final List<String> lines) {
+        return submit(new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+                writeAtomically(file, lines);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * A method to replace the content of a file atomically in the background.
+     * @param file the file to write
+     * @param content the new content of the file
+     * @return a future which is completed when the file is written
+     */
+    public CompletableFuture<Void> writeBytes(final File file, final byte[] content) {
+        return submit(new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+                File tempFile = getTempFile(file);
+                FileOutputStream outputStream = new FileOutputStream(tempFile);
+                try {
+                    outputStream.write(content);
+                } finally {
+                    outputStream.close();
+                }
+                replace(tempFile, file);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * A method to append lines to the end of a file in the background.
+     * @param file the file to append to
+     * @param lines the lines to append
+     * @return a future which is completed when the lines are written
+     */
+    public CompletableFuture<Void> appendLines(final File file, final List<String> lines) {
+        return submit(new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+                appendNow(file, lines);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * A method to read a file on the calling thread, which must be the storage thread.
+     * @param file the file to read
+     * @return the content of the file, which is empty if the file does not exist
+     * @throws IOException if the file can not be read
+     */
+    byte[] readBytesNow(File file) throws IOException {
+        if (!file.exists()) {
+            return new byte[0];
         }
-        catch (IOException e) {
-            e.printStackTrace();
-        } catch (Exception e){
-            e.printStackTrace();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        InputStream inputStream = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[8192];
+            for (int read; (read = inputStream.read(buffer)) != -1;) {
+                outputStream.write(buffer, 0, read);
+            }
+        } finally {
+            inputStream.close();
         }
-        return 0;
+        return outputStream.toByteArray();
     }
 
     /**
-     * A method to create campaign_challenges.dat file into the .wnwdata folder
+     * A method to replace the lines of a file atomically on the calling
+     * thread, which must be the storage thread.
+     * @param file the file to write
+     * @param lines the new lines of the file
+     * @throws IOException if the file can not be written
      */
-    public void makeCampaignChallengesFile() {
-        campaignChallengeData = new File(wnwData, "campaign_challenges.dat");
+    void writeAtomically(File file, List<String> lines) throws IOException {
+        File tempFile = getTempFile(file);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(tempFile), StandardCharsets.UTF_8));
         try {
-            campaignChallengeData.createNewFile();
-        } catch (IOException e) {
-            e.printStackTrace();
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        } finally {
+            writer.close();
         }
-        campaignChallengeData.setWritable(true);
+        replace(tempFile, file);
     }
 
     /**
-     * A method to create custom_challenges.dat file into the .wnwdata folder
+     * A method to append lines to a file on the calling thread, which must be
+     * the storage thread.
+     * @param file the file to append to
+     * @param lines the lines to append
+     * @throws IOException if the file can not be written
      */
-    public void makeCustomChallengesFile() {
-        customChallengeData = new File(wnwData, "custom_challenges.dat");
+    void appendNow(File file, List<String> lines) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file, true), StandardCharsets.UTF_8));
         try {
-            customChallengeData.createNewFile();
-        } catch (IOException e) {
-            e.printStackTrace();
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        } finally {
+            writer.close();
         }
-        makeSessionFile();
     }
 
     /**
-     * A method to create progress.dat file into the .wnwdata folder
+     * A method to get the temporary file to write the new content of a file into.
+     * @param file the file to write
+     * @return the temporary file next to it
      */
-    public void makeProgressFile() {
-        progressData = new File(wnwData, "progress.dat");
+    private static File getTempFile(File file) {
+        return new File(file.getPath() + ".tmp");
+    }
+
+    /**
+     * A method to move a temporary file over a file, atomically if the file
+     * system supports it.
+     * @param tempFile the temporary file
+     * @param file the file to replace
+     * @throws IOException if the file can not be replaced
+     */
+    private static void replace(File tempFile, File file) throws IOException {
         try {
-            progressData.createNewFile();
-        } catch (IOException e) {
-            e.printStackTrace();
+            Files.move(tempFile.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
         }
-        progressData.setWritable(true);
     }
 
     /**
-     * A method to create session.dat file into the .wnwdata folder
+     * A method to split a text into its lines.
+     * @param text the text to split
+     * @return the lines of the text, without the empty last line
      */
-    public void makeSessionFile() {
-        sessionData = new File(wnwData, "session.dat");
-        try {
-            sessionData.createNewFile();
-        } catch (IOException e) {
-            e.printStackTrace();
+    private static List<String> toLines(String text) {
+        if (text.isEmpty()) {
+            return new ArrayList<>();
         }
-        sessionData.setWritable(true);
+        return new ArrayList<>(Arrays.asList(text.split("\r?\n")));
     }
 
     /**
-     * A method to remove data from session.dat file
+     * A method to parse the sound and the music volumes of the settings file.
+     * @param text the content of the settings file
+     * @return the sound volume and the music volume
      */
-    public void clearSessionFile() {
+    private static double[] parseSettings(String text) {
+        String[] values = text.trim().split("\\s+");
+        if (values.length < 2) {
+            values = DEFAULT_SETTINGS.split(" ");
+        }
         try {
-            sessionData = new File(wnwData, "session.dat");
-            sessionData.createNewFile();
-            BufferedWriter bufferedWriter = new BufferedWriter(
-                    new FileWriter(new File(wnwData, "session.dat")));
-            bufferedWriter.write("");
-            bufferedWriter.close();
-        } catch (IOException e) {
+            return new double[] {Double.parseDouble(values[0]), Double.parseDouble(values[1])};
+        } catch (NumberFormatException e) {
             e.printStackTrace();
+            return new double[] {1, 0};
         }
     }
 
     /**
-     * A method to read session from session.dat file
-     * @return BufferReader for the session data
-     * @throws FileNotFoundException if file is not found
+     * A method to write latest data to the settings.dat file
+     * @param sound double value representing volume(level) of the sound
+     * @param music double value representing volume(level) of the sound
+     */
+    public void writeSettings(double sound, double music) {
+        settings = CompletableFuture.completedFuture(new double[] {sound, music});
+        writeLines(settingsData, Collections.singletonList(sound + " " + music));
+    }
+
+    /**
+     * A method to read the sound and the music settings, which are read from
+     * the settings.dat file when the game starts.
+     * @return the sound volume and the music volume
+     */
+    public CompletableFuture<double[]> readSettings() {
+        return settings;
+    }
+
+    /**
+     * A method to read the progress in the campaign, which is read from the
+     * progress.dat file when the game starts.
+     * @return the lines of the progress file
      */
-    public BufferedReader getSessionReader() throws FileNotFoundException {
-        return new BufferedReader(new FileReader(new File(wnwData, "session.dat")));
+    public CompletableFuture<List<String>> readProgress() {
+        return progress;
     }
 
     /**
-     * A method to get progress data
-     * @return progress data file
+     * A method to write the progress in the campaign to the progress.dat file.
+     * @param campaignProgress the progress of every campaign challenge
      */
-    public File getProgressData() {
-        return progressData;
+    public void writeProgress(List<String> campaignProgress) {
+        writeLines(progressData, Collections.singletonList(campaignProgress.toString()));
     }
+
+    /**
+     * A method to read the custom challenges journal, which is read when the game starts.
+     * @return the content of the custom_challenges.dat file
+     */
+    public CompletableFuture<String> readCustomChallenges() {
+        return customChallenges;
+    }
+
+    /**
+     * A method to wait until every operation requested so far is done and to
+     * stop the storage thread, when the game is closed.
+     */
+    public void close() {
+        try {
+            submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    return null;
+                }
+            }).get();
+        } catch (InterruptedException | ExecutionException e) {
+            e.printStackTrace();
+        }
+        io.shutdown();
+    }
+
 }
@@ -5,6 +5,7 @@ import com.oops.wallsandwarriors.model.WallBastion;
 import com.oops.wallsandwarriors.model.WallData;
 import com.oops.wallsandwarriors.model.WallDefinition;
 import com.oops.wallsandwarriors.model.WallPortion;
+import com.oops.wallsandwarriors.model.WallShape;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -62,6 +63,10 @@ public class WallDefinitions {
         STANDARD.add(new WallData(wall2));
         STANDARD.add(new WallData(wall3));
         STANDARD.add(new WallData(wall4));
+
+        for (WallData wall : STANDARD) {
+            WallShape.getShape(wall.getWallDefinition());
+        }
         
     }
     
@@ -0,0 +1,495 @@
+package com.oops.wallsandwarriors.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A class to find the canonical form of a challenge under the eight symmetries
+ * of the grid, which are the four rotations, each followed or not by a mirror.
+ * A symmetry maps the blocks, the knights, the high towers and the walls of a
+ * challenge. A mirrored wall has the mirrored shape, since walls can only be
+ * rotated while playing, so a challenge with a chiral wall is not the same
+ * challenge as its mirror unless the mirrored shape is also one of its walls.
+ * The mapped blocks are moved to start at zero and the mapped pieces are
+ * sorted, so neither the place of the grid nor the order of the pieces
+ * matters. The smallest of the eight mapped challenges in a fixed order of
+ * the blocks, the knights, the high towers and the shapes of the walls is the
+ * canonical form, and its 64-bit hash is the same for a challenge and all its
+ * rotated and mirrored copies. The positions of the walls are ignored, so a
+ * challenge has the same canonical form as its solutions.
+ */
+public final class Canonicalizer {
+
+    public static final int SYMMETRY_NO = 8;
+
+    private static final long SEED = 0x2F6B8D1A4C3E5097L;
+    private static final long NO_POSITION = 0xFFFFFFFFL;
+
+    private static final Map<WallShape, long[]> SHAPE_IDS =
+            new ConcurrentHashMap<WallShape, long[]>();
+
+    private Canonicalizer() {
+    }
+
+    /**
+     * A method to find the canonical form of a challenge with its walls.
+     * @param challenge the challenge to find the canonical form of
+     * @return the canonical form
+     */
+    public static CanonicalForm canonicalize(ChallengeData challenge) {
+        return canonicalize(challenge, true);
+    }
+
+    /**
+     * A method to find the canonical form of a challenge.
+     * @param challenge the challenge to find the canonical form of
+     * @param withWalls false to ignore the walls, for example to compare only
+     * what is drawn in a preview
+     * @return the canonical form
+     */
+    public static CanonicalForm canonicalize(ChallengeData challenge, boolean withWalls) {
+        long[] best = null;
+        int bestSymmetry = 0;
+        for (int symmetry = 0; symmetry < SYMMETRY_NO; symmetry++) {
+            long[] sequence = getSequence(challenge, symmetry, withWalls);
+            if (best == null || compare(sequence, best) < 0) {
+                best = sequence;
+                bestSymmetry = symmetry;
+            }
+        }
+        long hash = SEED;
+        for (long value : best) {
+            hash = ZobristKeys.scramble(hash + value);
+        }
+        int[] min = getMin(challenge, 0);
+        return new CanonicalForm(hash, bestSymmetry, min[0], min[1]);
+    }
+
+    /**
+     * A method to get the inverse of a symmetry.
+     * @param symmetry index of the symmetry
+     * @return index of the symmetry which undoes it
+     */
+    public static int inverse(int symmetry) {
+        // A mirror undoes itself, a rotation is undone by the opposite rotation
+        return symmetry < 4 ? (4 - symmetry) & 3 : symmetry;
+    }
+
+    /**
+     * A method to map a challenge with a symmetry. The mapped blocks start at
+     * the given point and the pieces are in the same order as in the challenge.
+     * @param challenge the challenge to map
+     * @param symmetry index of the symmetry
+     * @param minX the smallest x value of the mapped blocks
+     * @param minY the smallest y value of the mapped blocks
+     * @return the mapped copy of the challenge
+     */
+    private static ChallengeData transform(ChallengeData challenge, int symmetry,
+            int minX, int minY) {
+        int[] min = getMin(challenge, symmetry);
+        int dx = minX - min[0];
+        int dy = minY - min[1];
+        List<Coordinate> blocks = new ArrayList<Coordinate>(challenge.blocks.size());
+        for (Coordinate block : challenge.blocks) {
+            blocks.add(map(block, symmetry, dx, dy));
+        }
+        List<WallData> walls = new ArrayList<WallData>(challenge.walls.size());
+        for (WallData wall : challenge.walls) {
+            walls.add(new WallData(map(wall.getWallDefinition(), symmetry),
+                    map(wall.getPosition(), symmetry, dx, dy)));
+        }
+        ChallengeData mapped = new ChallengeData(blocks, walls);
+        mapped.setName(challenge.getName());
+        mapped.setDescription(challenge.getDescription());
+        mapped.setCreator(challenge.getCreator());
+        for (KnightData knight : challenge.knights) {
+            mapped.addPiece(new KnightData(map(knight.getPosition(), symmetry, dx, dy),
+                    knight.isEnemy));
+        }
+        for (HighTowerData highTower : challenge.highTowers) {
+            mapped.addPiece(new HighTowerData(
+                    map(highTower.getFirstPosition(), symmetry, dx, dy),
+                    map(highTower.getSecondPosition(), symmetry, dx, dy)));
+        }
+        return mapped;
+    }
+
+    /**
+     * A method to get the values to compare the challenge mapped with a
+     * symmetry by: the blocks, the knights, the high towers and the shapes of
+     * the walls, each preceded by their number and sorted.
+     * @param challenge the challenge to map
+     * @param symmetry index of the symmetry
+     * @param withWalls false to leave the walls out
+     * @return the values of the mapped challenge
+     */
+    private static long[] getSequence(ChallengeData challenge, int symmetry, boolean withWalls) {
+        int[] min = getMin(challenge, symmetry);
+        int dx = -min[0];
+        int dy = -min[1];
+        int wallCount = withWalls ? challenge.walls.size() : 0;
+        long[] sequence = new long[4 + challenge.blocks.size() + challenge.knights.size()
+                + challenge.highTowers.size() + wallCount];
+        int i = 0;
+        sequence[i++] = challenge.blocks.size();
+        int from = i;
+        for (Coordinate block : challenge.blocks) {
+            sequence[i++] = pack(map(block, symmetry, dx, dy));
+        }
+        Arrays.sort(sequence, from, i);
+        sequence[i++] = challenge.knights.size();
+        from = i;
+        for (KnightData knight : challenge.knights) {
+            sequence[i++] = pack(map(knight.getPosition(), symmetry, dx, dy))
+                    | (knight.isEnemy ? 1L << 32 : 0);
+        }
+        Arrays.sort(sequence, from, i);
+        sequence[i++] = challenge.highTowers.size();
+        from = i;
+        for (HighTowerData highTower : challenge.highTowers) {
+            long first = pack(map(highTower.getFirstPosition(), symmetry, dx, dy));
+            long second = pack(map(highTower.getSecondPosition(), symmetry, dx, dy));
+            sequence[i++] = Math.min(first, second) << 32 | Math.max(first, second);
+        }
+        Arrays.sort(sequence, from, i);
+        sequence[i++] = wallCount;
+        from = i;
+        for (int w = 0; w < wallCount; w++) {
+            sequence[i++] = getShapeId(challenge.walls.get(w).getShape(), symmetry >= 4);
+        }
+        Arrays.sort(sequence, from, i);
+        return sequence;
+    }
+
+    /**
+     * A method to get an identifier of a shape or of its mirror. The key of a
+     * shape is not used, since it is the same for the orientations of a shape
+     * and their mirrors if they occupy the same border points together, even
+     * if the shape can not be rotated into its mirror.
+     * @param shape the shape to identify
+     * @param mirrored true to identify the mirror of the shape
+     * @return the identifier, which is the same for the shapes whose
+     * orientations occupy the same border points up to a move
+     */
+    private static long getShapeId(WallShape shape, boolean mirrored) {
+        long[] ids = SHAPE_IDS.get(shape);
+        if (ids == null) {
+            ids = new long[] {computeShapeId(shape, false), computeShapeId(shape, true)};
+            SHAPE_IDS.put(shape, ids);
+        }
+        return ids[mirrored ? 1 : 0];
+    }
+
+    /**
+     * A method to compute the identifier of a shape or of its mirror as the
+     * smallest hash of the border points of an orientation, moved so that
+     * their first point is at zero.
+     * @param shape the shape to identify
+     * @param mirrored true to identify the mirror of the shape
+     * @return the identifier
+     */
+    private static long computeShapeId(WallShape shape, boolean mirrored) {
+        long id = Long.MAX_VALUE;
+        for (int orientation = 0; orientation < WallShape.ORIENTATION_NO; orientation++) {
+            int[][] points = getLatticePoints(shape, orientation, mirrored);
+            long hash = SEED;
+            for (int[] point : points) {
+                hash = ZobristKeys.scramble(hash + pack(new Coordinate(
+                        point[0] - points[0][0], point[1] - points[0][1])));
+            }
+            id = Math.min(id, hash);
+        }
+        return id;
+    }
+
+    /**
+     * A method to find the smallest x and y values of the blocks of a challenge
+     * mapped with a symmetry.
+     * @param challenge the challenge to map
+     * @param symmetry index of the symmetry
+     * @return the smallest x and y values, or zeros if there are no blocks
+     */
+    private static int[] getMin(ChallengeData challenge, int symmetry) {
+        if (challenge.blocks.isEmpty()) {
+            return new int[2];
+        }
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        for (Coordinate block : challenge.blocks) {
+            minX = Math.min(minX, mapX(block.x, block.y, symmetry));
+            minY = Math.min(minY, mapY(block.x, block.y, symmetry));
+        }
+        return new int[] {minX, minY};
+    }
+
+    /**
+     * A method to map a wall definition with a symmetry. Portions are given by
+     * the blocks on their two sides and are mapped like blocks, bastions are
+     * given by the block below and on the right of their corner, so the
+     * corner itself is mapped.
+     * @param definition the definition to map
+     * @param symmetry index of the symmetry
+     * @return the mapped definition, with its portions and bastions in the same order
+     */
+    private static WallDefinition map(WallDefinition definition, int symmetry) {
+        List<WallPortion> portions = new ArrayList<WallPortion>(definition.portions.size());
+        for (WallPortion portion : definition.portions) {
+            portions.add(new WallPortion(map(portion.firstRelativePos, symmetry, 0, 0),
+                    map(portion.secondRelativePos, symmetry, 0, 0)));
+        }
+        List<WallBastion> bastions = new ArrayList<WallBastion>(definition.bastions.size());
+        for (WallBastion bastion : definition.bastions) {
+            // Corners are at odd values when every value is doubled
+            int cornerX = 2 * bastion.relativePos.x - 1;
+            int cornerY = 2 * bastion.relativePos.y - 1;
+            bastions.add(new WallBastion(new Coordinate(
+                    (mapX(cornerX, cornerY, symmetry) + 1) / 2,
+                    (mapY(cornerX, cornerY, symmetry) + 1) / 2)));
+        }
+        return new WallDefinition(portions, bastions);
+    }
+
+    /**
+     * A method to map a coordinate with a symmetry and move it.
+     * @param coordinate the coordinate to map, may be null
+     * @param symmetry index of the symmetry
+     * @param dx value to add to the mapped x value
+     * @param dy value to add to the mapped y value
+     * @return the mapped coordinate, or null if the coordinate is null
+     */
+    private static Coordinate map(Coordinate coordinate, int symmetry, int dx, int dy) {
+        if (coordinate == null) {
+            return null;
+        }
+        return new Coordinate(mapX(coordinate.x, coordinate.y, symmetry) + dx,
+                mapY(coordinate.x, coordinate.y, symmetry) + dy);
+    }
+
+    /**
+     * A method to get the x value of a point mapped with a symmetry. Symmetries
+     * 0 to 3 rotate the point 0 to 3 times as Coordinate.rotate does, and
+     * symmetries 4 to 7 mirror the x value after the same rotations.
+     * @param x the x value of the point
+     * @param y the y value of the point
+     * @param symmetry index of the symmetry
+     * @return the mapped x value
+     */
+    private static int mapX(int x, int y, int symmetry) {
+        int mapped;
+        switch (symmetry & 3) {
+            case 0:
+                mapped = x;
+                break;
+            case 1:
+                mapped = y;
+                break;
+            case 2:
+                mapped = -x;
+                break;
+            default:
+                mapped = -y;
+                break;
+        }
+        return symmetry < 4 ? mapped : -mapped;
+    }
+
+    /**
+     * A method to get the y value of a point mapped with a symmetry.
+     * @param x the x value of the point
+     * @param y the y value of the point
+     * @param symmetry index of the symmetry
+     * @return the mapped y value
+     */
+    private static int mapY(int x, int y, int symmetry) {
+        switch (symmetry & 3) {
+            case 0:
+                return y;
+            case 1:
+                return -x;
+            case 2:
+                return -y;
+            default:
+                return x;
+        }
+    }
+
+    /**
+     * A method to pack a coordinate into the low 32 bits of a value.
+     * @param coordinate the coordinate to pack, may be null
+     * @return the packed coordinate
+     */
+    private static long pack(Coordinate coordinate) {
+        if (coordinate == null) {
+            return NO_POSITION;
+        }
+        return (coordinate.x & 0xFFFFL) << 16 | (coordinate.y & 0xFFFFL);
+    }
+
+    /**
+     * A method to compare two sequences of values in lexicographic order.
+     * @param first the first sequence
+     * @param second the second sequence
+     * @return a negative value, zero or a positive value if the first
+     * sequence is smaller than, equal to or greater than the second
+     */
+    private static int compare(long[] first, long[] second) {
+        int length = Math.min(first.length, second.length);
+        for (int i = 0; i < length; i++) {
+            if (first[i] != second[i]) {
+                return Long.compare(first[i], second[i]);
+            }
+        }
+        return first.length - second.length;
+    }
+
+    /**
+     * A class to store the canonical form of a challenge: its hash and the
+     * symmetry which maps the challenge to the canonical form.
+     */
+    public static final class CanonicalForm {
+
+        private final long hash;
+        private final int symmetry;
+        private final int minX;
+        private final int minY;
+
+        /**
+         * A constructor that initializes a CanonicalForm.
+         * @param hash the hash of the canonical form
+         * @param symmetry index of the symmetry mapping the challenge to the canonical form
+         * @param minX the smallest x value of the blocks of the challenge
+         * @param minY the smallest y value of the blocks of the challenge
+         */
+        private CanonicalForm(long hash, int symmetry, int minX, int minY) {
+            this.hash = hash;
+            this.symmetry = symmetry;
+            this.minX = minX;
+            this.minY = minY;
+        }
+
+        /**
+         * A get method to return the hash of the canonical form, which is the
+         * same for all rotated and mirrored copies of a challenge.
+         * @return the 64-bit hash
+         */
+        public long getHash() {
+            return hash;
+        }
+
+        /**
+         * A get method to return the symmetry which maps the challenge to the
+         * canonical form.
+         * @return index of the symmetry
+         */
+        public int getSymmetry() {
+            return symmetry;
+        }
+
+        /**
+         * A method to map a challenge to the canonical form, with its blocks
+         * starting at zero. Challenges with the same canonical form are mapped
+         * to the same blocks, knights, high towers and wall shapes.
+         * @param challenge the challenge this form was found for
+         * @return the mapped copy of the challenge
+         */
+        public ChallengeData toCanonical(ChallengeData challenge) {
+            return transform(challenge, symmetry, 0, 0);
+        }
+
+        /**
+         * A method to map a solution of the canonical form back to a solution
+         * of the challenge. Each wall of the challenge takes the place of an
+         * unused wall of the mapped solution which occupies the same border
+         * points. A mapped definition may list its portions in another order
+         * than the definitions of the challenge, and a mirrored definition may
+         * be a rotation of the original one around another block, so the walls
+         * are compared by the border points they occupy on the grid.
+         * @param challenge the challenge this form was found for
+         * @param canonicalSolution a solution of the canonical form
+         * @return a copy of the challenge with its walls placed as in the solution
+         */
+        public ChallengeData fromCanonical(ChallengeData challenge, ChallengeData canonicalSolution) {
+            ChallengeData mapped = transform(canonicalSolution, inverse(symmetry), minX, minY);
+            ChallengeData solution = challenge.createCopy(true);
+            boolean[] used = new boolean[mapped.walls.size()];
+            for (WallData wall : solution.walls) {
+                for (int j = 0; j < used.length; j++) {
+                    if (!used[j] && place(wall, mapped.walls.get(j))) {
+                        used[j] = true;
+                        break;
+                    }
+                }
+            }
+            return solution;
+        }
+
+    }
+
+    /**
+     * A method to place a wall on the border points occupied by another wall,
+     * if one of its orientations occupies them.
+     * @param wall the wall to place
+     * @param target the placed wall to take the place of
+     * @return true if the wall is placed
+     */
+    private static boolean place(WallData wall, WallData target) {
+        WallShape shape = wall.getShape();
+        if (target.getPosition() == null) {
+            return false;
+        }
+        int[][] occupied = getLatticePoints(target.getShape(), target.getOrientation(), false);
+        for (int orientation = 0; orientation < WallShape.ORIENTATION_NO; orientation++) {
+            int[][] points = getLatticePoints(shape, orientation, false);
+            if (points.length != occupied.length) {
+                continue;
+            }
+            // The orientation must be moved by whole blocks onto the target
+            int dx = occupied[0][0] - points[0][0];
+            int dy = occupied[0][1] - points[0][1];
+            if (dx % OccupancyGrid.LATTICE != 0 || dy % OccupancyGrid.LATTICE != 0) {
+                continue;
+            }
+            boolean matches = true;
+            for (int p = 1; p < points.length && matches; p++) {
+                matches = occupied[p][0] == points[p][0] + dx
+                        && occupied[p][1] == points[p][1] + dy;
+            }
+            if (matches) {
+                wall.setWallDefinition(shape.getOrientation(orientation));
+                wall.setPosition(target.getPosition().plus(new Coordinate(
+                        dx / OccupancyGrid.LATTICE, dy / OccupancyGrid.LATTICE)));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A method to get the lattice points occupied by an orientation of a shape
+     * relative to the position of the wall, sorted by their x and y values.
+     * @param shape the shape of the wall
+     * @param orientation index of the orientation
+     * @param mirrored true to mirror the x values of the points
+     * @return the x and y values of the lattice points
+     */
+    private static int[][] getLatticePoints(WallShape shape, int orientation, boolean mirrored) {
+        int[][] points = new int[shape.getLatticePointCount(orientation)][];
+        for (int p = 0; p < points.length; p++) {
+            int x = shape.getLatticeX(orientation, p);
+            points[p] = new int[] {mirrored ? -x : x, shape.getLatticeY(orientation, p)};
+        }
+        Arrays.sort(points, new Comparator<int[]>() {
+            @Override
+            public int compare(int[] first, int[] second) {
+                return first[0] != second[0] ? Integer.compare(first[0], second[0])
+                        : Integer.compare(first[1], second[1]);
+            }
+        });
+        return points;
+    }
+
+}
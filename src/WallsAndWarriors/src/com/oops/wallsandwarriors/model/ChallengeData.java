@@ -18,6 +18,8 @@ import java.util.List;
  */
 public class ChallengeData implements Serializable {
 
+    private static final long serialVersionUID = 8877753144522272950L;
+
     private String name;
     private String description;
     private String creator;
@@ -29,6 +31,9 @@ public class ChallengeData implements Serializable {
 
     private transient final List<BorderPiece> borderPieces;
     private transient final List<BlockPiece> blockPieces;
+    private transient OccupancyGrid occupancy;
+    private transient boolean hashed;
+    private transient long zobristHash;
 
     /**
      * A constructor that initializes a ChallengeData with the given blocks and walls.
@@ -81,6 +86,14 @@ public class ChallengeData implements Serializable {
         if (piece instanceof BorderPiece) {
             borderPieces.add((BorderPiece) piece);
         }
+
+        setOwner(piece, this);
+        if (occupancy != null) {
+            occupancy.add(piece);
+        }
+        if (hashed) {
+            zobristHash += ZobristKeys.getKey(piece);
+        }
     }
 
     /**
@@ -102,6 +115,16 @@ public class ChallengeData implements Serializable {
         if (piece instanceof BorderPiece) {
             AlgorithmUtils.concurrentRemove(borderPieces, piece);
         }
+
+        if (getOwner(piece) == this) {
+            if (occupancy != null) {
+                occupancy.remove(piece);
+            }
+            if (hashed) {
+                zobristHash -= ZobristKeys.getKey(piece);
+            }
+            setOwner(piece, null);
+        }
     }
 
     /**
@@ -117,6 +140,17 @@ public class ChallengeData implements Serializable {
      * Method to reset the ChallengeData completely.
      */
     public void resetAll() {
+        for (WallData wall : walls) {
+            wall.owner = null;
+        }
+        for (KnightData knight : knights) {
+            knight.owner = null;
+        }
+        for (HighTowerData highTower : highTowers) {
+            highTower.owner = null;
+        }
+        occupancy = null;
+        hashed = false;
         knights.clear();
         highTowers.clear();
         walls.clear();
@@ -148,6 +182,125 @@ public class ChallengeData implements Serializable {
         return occupiedList;
     }
 
+    /**
+     * Method to get the index of the blocks and border points occupied
+     * currently in the Challenge. The index is built on the first request,
+     * which also covers a challenge read from a stream, and kept up to date
+     * as the pieces of the challenge are added, removed, moved or rotated.
+     * @return the occupancy grid of the challenge.
+     */
+    public OccupancyGrid getOccupancy() {
+        if (occupancy == null) {
+            OccupancyGrid grid = new OccupancyGrid(blocks);
+            for (WallData wall : walls) {
+                wall.owner = this;
+                grid.add(wall);
+            }
+            for (KnightData knight : knights) {
+                knight.owner = this;
+                grid.add(knight);
+            }
+            for (HighTowerData highTower : highTowers) {
+                highTower.owner = this;
+                grid.add(highTower);
+            }
+            occupancy = grid;
+        }
+        return occupancy;
+    }
+
+    /**
+     * Method to get the 64-bit Zobrist hash of the blocks and the pieces
+     * currently in the Challenge, which does not depend on the order of the
+     * pieces. The hash is computed on the first request and kept up to date
+     * as the pieces of the challenge are added, removed, moved or rotated,
+     * so equal boards have equal hashes and different boards have different
+     * hashes with a very high probability.
+     * @return the Zobrist hash of the challenge.
+     */
+    public long getZobristHash() {
+        if (!hashed) {
+            long hash = 0;
+            for (Coordinate block : blocks) {
+                hash += ZobristKeys.getKey(block);
+            }
+            for (WallData wall : walls) {
+                wall.owner = this;
+                hash += ZobristKeys.getKey(wall);
+            }
+            for (KnightData knight : knights) {
+                knight.owner = this;
+                hash += ZobristKeys.getKey(knight);
+            }
+            for (HighTowerData highTower : highTowers) {
+                highTower.owner = this;
+                hash += ZobristKeys.getKey(highTower);
+            }
+            zobristHash = hash;
+            hashed = true;
+        }
+        return zobristHash;
+    }
+
+    /**
+     * Method to be called by a piece of the challenge before its position or
+     * its shape changes.
+     * @param piece the piece which is about to change.
+     */
+    void pieceChanging(GridPiece piece) {
+        if (occupancy != null) {
+            occupancy.remove(piece);
+        }
+        if (hashed) {
+            zobristHash -= ZobristKeys.getKey(piece);
+        }
+    }
+
+    /**
+     * Method to be called by a piece of the challenge after its position or
+     * its shape changes.
+     * @param piece the piece which has changed.
+     */
+    void pieceChanged(GridPiece piece) {
+        if (occupancy != null) {
+            occupancy.add(piece);
+        }
+        if (hashed) {
+            zobristHash += ZobristKeys.getKey(piece);
+        }
+    }
+
+    /**
+     * Method to get the challenge which is notified of the changes of a piece.
+     * @param piece the piece to check.
+     * @return the owner of the piece, or null if it has none.
+     */
+    private static ChallengeData getOwner(GridPiece piece) {
+        if (piece instanceof WallData) {
+            return ((WallData) piece).owner;
+        } else if (piece instanceof KnightData) {
+            return ((KnightData) piece).owner;
+        } else if (piece instanceof HighTowerData) {
+            return ((HighTowerData) piece).owner;
+        }
+        return null;
+    }
+
+    /**
+     * Method to set the challenge which is notified of the changes of a piece.
+     * @param piece the piece to update.
+     * @param owner the new owner of the piece.
+     */
+    private static void setOwner(GridPiece piece, ChallengeData owner) {
+        if (piece instanceof WallData) {
+            ((WallData) piece).owner = owner;
+        } else if (piece instanceof KnightData) {
+            ((KnightData) piece).owner = owner;
+        } else if (piece instanceof HighTowerData) {
+            ((HighTowerData) piece).owner = owner;
+        }
+    }
+
     /**
      * Method to create a copy of the challenge.
      * @param reset A parameter to indicate whether the walls in the copied
@@ -13,11 +13,15 @@ import java.util.List;
  */
 public class HighTowerData implements BorderPiece, BlockPiece, Serializable {
 
+    private static final long serialVersionUID = -3072302885903161136L;
+
     private Coordinate firstPosition;
     private Coordinate secondPosition;
     
     public transient boolean isVertical;
 
+    transient ChallengeData owner;
+
     /**
      * A constructor that initializes a HighTowerData with the given
      * Coordinates as first and second positions.
@@ -51,8 +55,14 @@ public class HighTowerData implements BorderPiece, BlockPiece, Serializable {
      * @param secondPosition new secondPosition of the HighTower.
      */
     public void setPosition(Coordinate firstPosition, Coordinate secondPosition) {
+        if (owner != null) {
+            owner.pieceChanging(this);
+        }
         this.firstPosition = firstPosition;
         this.secondPosition = secondPosition;
+        if (owner != null) {
+            owner.pieceChanged(this);
+        }
     }
 
     /**
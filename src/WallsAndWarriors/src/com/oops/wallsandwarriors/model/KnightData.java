@@ -12,9 +12,13 @@ import java.util.List;
  */
 public class KnightData implements BlockPiece,Serializable {
 
+    private static final long serialVersionUID = -8236786083914653975L;
+
     public final boolean isEnemy;
     private Coordinate position;
 
+    transient ChallengeData owner;
+
     /**
      * A constructor that initializes a KnightData with the given
      * Coordinate as position on the grid and type of the KnightData
@@ -42,7 +46,13 @@ public class KnightData implements BlockPiece,Serializable {
      */
     @Override
     public void setPosition(Coordinate position) {
+        if (owner != null) {
+            owner.pieceChanging(this);
+        }
         this.position = position;
+        if (owner != null) {
+            owner.pieceChanged(this);
+        }
     }
 
     /**
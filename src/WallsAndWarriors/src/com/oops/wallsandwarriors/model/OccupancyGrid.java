@@ -0,0 +1,223 @@
+package com.oops.wallsandwarriors.model;
+
+import java.util.List;
+
+/**
+ * A class to index the blocks and border points occupied by the pieces of a
+ * challenge. Border points are kept on a lattice of one sixth of a block, which
+ * contains every half-edge of a wall portion, every bastion corner and every
+ * high tower point exactly. Each occupied point stamps the lattice points it
+ * conflicts with, so a placement check is a single integer lookup per point.
+ * The grid is updated by the owning ChallengeData whenever a piece changes.
+ */
+public class OccupancyGrid {
+
+    public static final int LATTICE = 6;
+
+    // Lattice offsets closer than 0.35 blocks (2.1 lattice units)
+    private static final int[] CONFLICT_X = {0, -1, 1, 0, 0, -1, -1, 1, 1, -2, 2, 0, 0};
+    private static final int[] CONFLICT_Y = {0, 0, 0, -1, 1, -1, 1, -1, 1, 0, 0, -2, 2};
+    private static final int STAMP_RANGE = 2;
+
+    private final int minX;
+    private final int minY;
+    private final int columns;
+    private final int rows;
+    private final boolean[] blockMask;
+    private final int[] blockCounts;
+
+    private final int latticeMinX;
+    private final int latticeMinY;
+    private final int latticeWidth;
+    private final int latticeHeight;
+    private final boolean[] insideMask;
+    private final int[] conflictCounts;
+
+    /**
+     * A constructor that initializes an empty OccupancyGrid over the given blocks.
+     * @param blocks the blocks of the challenge
+     */
+    public OccupancyGrid(List<Coordinate> blocks) {
+        int lowX = 0;
+        int lowY = 0;
+        int highX = -1;
+        int highY = -1;
+        for (int i = 0; i < blocks.size(); i++) {
+            Coordinate block = blocks.get(i);
+            if (i == 0 || block.x < lowX) {
+                lowX = block.x;
+            }
+            if (i == 0 || block.y < lowY) {
+                lowY = block.y;
+            }
+            if (i == 0 || block.x > highX) {
+                highX = block.x;
+            }
+            if (i == 0 || block.y > highY) {
+                highY = block.y;
+            }
+        }
+        minX = lowX;
+        minY = lowY;
+        columns = highX - lowX + 1;
+        rows = highY - lowY + 1;
+        blockMask = new boolean[columns * rows];
+        blockCounts = new int[columns * rows];
+
+        int half = LATTICE / 2;
+        latticeMinX = minX * LATTICE - half - STAMP_RANGE;
+        latticeMinY = minY * LATTICE - half - STAMP_RANGE;
+        latticeWidth = columns * LATTICE + 1 + 2 * STAMP_RANGE;
+        latticeHeight = rows * LATTICE + 1 + 2 * STAMP_RANGE;
+        insideMask = new boolean[latticeWidth * latticeHeight];
+        conflictCounts = new int[latticeWidth * latticeHeight];
+
+        for (Coordinate block : blocks) {
+            blockMask[getBlockIndex(block.x, block.y)] = true;
+            for (int y = block.y * LATTICE - half; y <= block.y * LATTICE + half; y++) {
+                for (int x = block.x * LATTICE - half; x <= block.x * LATTICE + half; x++) {
+                    insideMask[getLatticeIndex(x, y)] = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * A method to check whether a block is on the grid and not occupied by any piece.
+     * @param x x value of the block
+     * @param y y value of the block
+     * @return true if a knight or a high tower can stand on the block
+     */
+    public boolean isBlockFree(int x, int y) {
+        int index = getBlockIndex(x, y);
+        return index >= 0 && blockMask[index] && blockCounts[index] == 0;
+    }
+
+    /**
+     * A method to check whether a lattice point is on the grid and does not
+     * conflict with any occupied border point.
+     * @param x x value of the point on the lattice
+     * @param y y value of the point on the lattice
+     * @return true if a border piece can occupy the point
+     */
+    public boolean isBorderFree(int x, int y) {
+        int index = getLatticeIndex(x, y);
+        return index >= 0 && insideMask[index] && conflictCounts[index] == 0;
+    }
+
+    /**
+     * A method to mark the blocks and the border points of a piece as occupied.
+     * @param piece the piece to add
+     */
+    void add(GridPiece piece) {
+        update(piece, 1);
+    }
+
+    /**
+     * A method to unmark the blocks and the border points of a piece.
+     * @param piece the piece to remove
+     */
+    void remove(GridPiece piece) {
+        update(piece, -1);
+    }
+
+    /**
+     * A method to add the given amount to the counts of the points occupied by a piece.
+     * @param piece the piece to update
+     * @param amount 1 to add the piece, -1 to remove it
+     */
+    private void update(GridPiece piece, int amount) {
+        if (piece instanceof WallData) {
+            WallData wall = (WallData) piece;
+            Coordinate position = wall.getPosition();
+            if (position != null) {
+                WallShape shape = wall.getShape();
+                int orientation = wall.getOrientation();
+                int originX = position.x * LATTICE;
+                int originY = position.y * LATTICE;
+                for (int i = 0; i < shape.getLatticePointCount(orientation); i++) {
+                    stamp(originX + shape.getLatticeX(orientation, i),
+                            originY + shape.getLatticeY(orientation, i), amount);
+                }
+            }
+        } else if (piece instanceof KnightData) {
+            Coordinate position = ((KnightData) piece).getPosition();
+            if (position != null) {
+                count(position, amount);
+            }
+        } else if (piece instanceof HighTowerData) {
+            HighTowerData highTower = (HighTowerData) piece;
+            Coordinate first = highTower.getFirstPosition();
+            Coordinate second = highTower.getSecondPosition();
+            if (first != null) {
+                count(first, amount);
+            }
+            if (second != null) {
+                count(second, amount);
+            }
+            if (first != null && second != null) {
+                stamp((first.x + second.x) * LATTICE / 2,
+                        (first.y + second.y) * LATTICE / 2, amount);
+            }
+        }
+    }
+
+    /**
+     * A method to add the given amount to the count of a block.
+     * @param block the block to count
+     * @param amount the amount to add
+     */
+    private void count(Coordinate block, int amount) {
+        int index = getBlockIndex(block.x, block.y);
+        if (index >= 0) {
+            blockCounts[index] += amount;
+        }
+    }
+
+    /**
+     * A method to add the given amount to the lattice points conflicting
+     * with an occupied border point.
+     * @param x x value of the occupied point on the lattice
+     * @param y y value of the occupied point on the lattice
+     * @param amount the amount to add
+     */
+    private void stamp(int x, int y, int amount) {
+        for (int k = 0; k < CONFLICT_X.length; k++) {
+            int index = getLatticeIndex(x + CONFLICT_X[k], y + CONFLICT_Y[k]);
+            if (index >= 0) {
+                conflictCounts[index] += amount;
+            }
+        }
+    }
+
+    /**
+     * A method to get the index of a block in the block arrays.
+     * @param x x value of the block
+     * @param y y value of the block
+     * @return the index, or -1 if the block is out of the bounds of the grid
+     */
+    private int getBlockIndex(int x, int y) {
+        int column = x - minX;
+        int row = y - minY;
+        if (column < 0 || column >= columns || row < 0 || row >= rows) {
+            return -1;
+        }
+        return row * columns + column;
+    }
+
+    /**
+     * A method to get the index of a lattice point in the lattice arrays.
+     * @param x x value of the point on the lattice
+     * @param y y value of the point on the lattice
+     * @return the index, or -1 if the point is out of the bounds of the lattice
+     */
+    private int getLatticeIndex(int x, int y) {
+        int column = x - latticeMinX;
+        int row = y - latticeMinY;
+        if (column < 0 || column >= latticeWidth || row < 0 || row >= latticeHeight) {
+            return -1;
+        }
+        return row * latticeWidth + column;
+    }
+
+}
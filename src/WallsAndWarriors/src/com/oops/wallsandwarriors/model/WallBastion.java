@@ -10,6 +10,8 @@ import java.io.Serializable;
  * @author Emin Bahadir Tuluce
  */
 public class WallBastion implements Serializable {
+
+    private static final long serialVersionUID = 1765374421918949328L;
     
     // The wall bastion lies on top-left corner of the relative block position
     public final Coordinate relativePos;
@@ -38,5 +40,15 @@ public class WallBastion implements Serializable {
         }
         return false;
     }
+
+    /**
+     * An overriden hashCode method to generate a hash code
+     * for the Object according to relativePos Coordinate.
+     * @return An integer value as the hash code of the WallBastion object.
+     */
+    @Override
+    public int hashCode() {
+        return relativePos.hashCode();
+    }
     
 }
@@ -3,6 +3,7 @@ package com.oops.wallsandwarriors.model;
 import com.oops.wallsandwarriors.util.Point;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -16,11 +17,19 @@ import java.util.List;
  */
 public class WallData implements BorderPiece, Serializable {
 
-    private static final int ROTATION_NO = 4;
+    private static final long serialVersionUID = -5570230680762031797L;
 
     private WallDefinition definition;
     private Coordinate position;
 
+    private transient WallShape shape;
+    private transient WallDefinition shapeDefinition;
+    private transient int orientation;
+    transient ChallengeData owner;
+    private transient List<Point> occupiedPoints;
+    private transient Coordinate occupiedPosition;
+    private transient WallDefinition occupiedDefinition;
+
     /**
      * A constructor that initializes WallData with the given definition and position.
      * @param definition  Definition of the wall as a WallDefinition.
@@ -61,7 +70,13 @@ public class WallData implements BorderPiece, Serializable {
      */
     @Override
     public void setPosition(Coordinate position) {
+        if (owner != null) {
+            owner.pieceChanging(this);
+        }
         this.position = position;
+        if (owner != null) {
+            owner.pieceChanged(this);
+        }
     }
 
     /**
@@ -69,7 +84,13 @@ public class WallData implements BorderPiece, Serializable {
      * @param definition new definition of the WallData
      */
     public void setWallDefinition(WallDefinition definition){
+        if (owner != null) {
+            owner.pieceChanging(this);
+        }
         this.definition = definition;
+        if (owner != null) {
+            owner.pieceChanged(this);
+        }
     }
 
     /**
@@ -78,28 +99,28 @@ public class WallData implements BorderPiece, Serializable {
      */
     @Override
     public WallData createCopy() {
-        return new WallData(definition, position);
+        WallData copy = new WallData(definition, position);
+        copy.shape = shape;
+        copy.shapeDefinition = shapeDefinition;
+        copy.orientation = orientation;
+        return copy;
     }
 
     /**
      * An overriden method to rotate a Wall as a GridPiece. As a result of the rotation,
-     * wall definition is modified.
+     * wall definition is replaced with the next orientation in the shape table.
      */
     public void rotate() {
-        List<WallPortion> rotatedPortions = new ArrayList<WallPortion>();
-        List<WallBastion> rotatedBastions = new ArrayList<WallBastion>();
-        for (WallPortion portion : definition.portions) {
-            rotatedPortions.add(new WallPortion(portion.firstRelativePos.rotate(),
-                    portion.secondRelativePos.rotate()));
+        WallShape wallShape = getShape();
+        if (owner != null) {
+            owner.pieceChanging(this);
         }
-        for (WallBastion bastion : definition.bastions) {
-            double exactX = bastion.relativePos.x - 0.5;
-            double exactY = bastion.relativePos.y - 0.5;
-            Coordinate rotated = new Coordinate((int) (exactY + 0.5), (int) (-exactX + 0.5));
-            rotatedBastions.add(new WallBastion(rotated));
+        orientation = (orientation + 1) % WallShape.ORIENTATION_NO;
+        definition = wallShape.getOrientation(orientation);
+        shapeDefinition = definition;
+        if (owner != null) {
+            owner.pieceChanged(this);
         }
-        WallDefinition rotatedDefinition = new WallDefinition(rotatedPortions, rotatedBastions);
-        this.definition = rotatedDefinition;
     }
 
     /**
@@ -114,33 +135,28 @@ public class WallData implements BorderPiece, Serializable {
 
     /**
      * A method to get the list of Points that a is occupied
-     * by a Wall according to the position of the Wall.
+     * by a Wall according to the position of the Wall. The points of the
+     * last requested position are kept, so repeated requests do not allocate.
      * @param position position of the Wall.
-     * @return  list of Points that is occupied by the Wall.
+     * @return  unmodifiable list of Points that is occupied by the Wall.
      */
     public List<Point> occupies(Coordinate position) {
-        List<Point> occupies = new ArrayList<Point>();
         if (position == null) {
-            return occupies;
+            return Collections.emptyList();
         }
-        for (WallPortion portion : definition.portions) {
-            Coordinate coord1 = position.plus(portion.firstRelativePos);
-            Coordinate coord2 = position.plus(portion.secondRelativePos);
-            double middleX = (coord1.x + coord2.x) / 2.0;
-            double middleY = (coord1.y + coord2.y) / 2.0;
-            if (coord1.y == coord2.y) {
-                occupies.add(new Point(middleX, middleY - 1.0 / 6.0));
-                occupies.add(new Point(middleX, middleY + 1.0 / 6.0));
-            } else {
-                occupies.add(new Point(middleX - 1.0 / 6.0, middleY));
-                occupies.add(new Point(middleX + 1.0 / 6.0, middleY));
+        WallShape wallShape = getShape();
+        if (occupiedPoints == null || occupiedDefinition != definition ||
+                !position.equals(occupiedPosition)) {
+            List<Point> footprint = wallShape.getFootprint(orientation);
+            List<Point> points = new ArrayList<Point>(footprint.size());
+            for (Point relative : footprint) {
+                points.add(new Point(position.x + relative.x, position.y + relative.y));
             }
+            occupiedPoints = Collections.unmodifiableList(points);
+            occupiedDefinition = definition;
+            occupiedPosition = position;
         }
-        for (WallBastion bastion : definition.bastions) {
-            Coordinate coord = position.plus(bastion.relativePos);
-            occupies.add(new Point(coord.x - 0.5, coord.y - 0.5));
-        }
-        return occupies;
+        return occupiedPoints;
     }
 
     /**
@@ -151,13 +167,30 @@ public class WallData implements BorderPiece, Serializable {
      */
     public boolean isPieceEqual( WallData otherWall )
     {
-        WallData copyWall = otherWall.createCopy();
-        for ( int i = 0; i < ROTATION_NO; i++) {
-            if( this.getWallDefinition().equals(copyWall.getWallDefinition()) )
-                return true;
-            copyWall.rotate();
+        return getShape() == otherWall.getShape();
+    }
+
+    /**
+     * A get method to return the shape of the wall, resolving the shape and the
+     * orientation of the current definition if the definition has changed.
+     * @return the shape of the wall
+     */
+    public WallShape getShape() {
+        if (shape == null || shapeDefinition != definition) {
+            shape = WallShape.getShape(definition);
+            orientation = shape.indexOf(definition);
+            shapeDefinition = definition;
         }
-        return false;
+        return shape;
     }
-    
+
+    /**
+     * A get method to return the index of the current orientation of the wall in its shape.
+     * @return index of the orientation
+     */
+    public int getOrientation() {
+        getShape();
+        return orientation;
+    }
+
 }
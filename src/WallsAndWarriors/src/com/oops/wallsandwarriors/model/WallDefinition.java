@@ -12,6 +12,8 @@ import java.util.List;
  */
 public class WallDefinition implements Serializable {
 
+    private static final long serialVersionUID = 1247729788467482643L;
+
     public final List<WallPortion> portions;
     public final List<WallBastion> bastions;
 
@@ -41,4 +43,17 @@ public class WallDefinition implements Serializable {
         return false;
     }
 
+    /**
+     * An overriden hashCode method to generate a hash code
+     * for the Object according to portions and bastions.
+     * @return An integer value as the hash code of the WallDefinition object.
+     */
+    @Override
+    public int hashCode() {
+        int hash = 5;
+        hash = 43 * hash + portions.hashCode();
+        hash = 43 * hash + bastions.hashCode();
+        return hash;
+    }
+
 }
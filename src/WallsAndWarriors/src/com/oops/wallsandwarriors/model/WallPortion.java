@@ -10,6 +10,8 @@ import java.util.Objects;
  * @author Emin Bahadir Tuluce
  */
 public class WallPortion implements Serializable {
+
+    private static final long serialVersionUID = 9188568213929688641L;
     
     // The wall portion lies between two relative block positions
     public final Coordinate firstRelativePos;
@@ -50,13 +52,14 @@ public class WallPortion implements Serializable {
     /**
      * An overriden hashCode method to generate a hashCode
      * for the Object according to firstRelativePos and secondRelativePos Coordinates.
+     * The hash code does not depend on the order of the Coordinates, as equality does not.
      * @return An integer value as the hash code of the WallPortion object.
      */
     @Override
     public int hashCode() {
         int hash = 7;
-        hash = 97 * hash + Objects.hashCode(this.firstRelativePos);
-        hash = 97 * hash + Objects.hashCode(this.secondRelativePos);
+        hash = 97 * hash + Objects.hashCode(this.firstRelativePos)
+                         + Objects.hashCode(this.secondRelativePos);
         return hash;
     }
     
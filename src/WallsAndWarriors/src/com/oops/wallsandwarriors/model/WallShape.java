@@ -0,0 +1,277 @@
+package com.oops.wallsandwarriors.model;
+
+import com.oops.wallsandwarriors.util.Point;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable table to store the four orientations of a wall shape together
+ * with the border points occupied by each orientation relative to the wall
+ * position. A shape is computed once for each distinct wall definition and
+ * shared by every definition which is a rotation of it, so rotating a wall
+ * and comparing the shapes of two walls do not allocate.
+ */
+public final class WallShape {
+
+    public static final int ORIENTATION_NO = 4;
+
+    private static final Map<WallDefinition, WallShape> SHAPES =
+            new ConcurrentHashMap<WallDefinition, WallShape>();
+
+    private final WallDefinition[] orientations;
+    private final List<List<Point>> footprints;
+    private final int[][] latticeFootprints;
+    private final long[] keys;
+    private final long key;
+
+    /**
+     * A constructor that computes the orientations of the given definition.
+     * @param definition the definition to use as the first orientation
+     */
+    private WallShape(WallDefinition definition) {
+        orientations = new WallDefinition[ORIENTATION_NO];
+        latticeFootprints = new int[ORIENTATION_NO][];
+        List<List<Point>> orientationFootprints = new ArrayList<List<Point>>();
+        orientations[0] = definition;
+        for (int i = 0; i < ORIENTATION_NO; i++) {
+            if (i > 0) {
+                orientations[i] = rotate(orientations[i - 1]);
+            }
+            orientationFootprints.add(Collections.unmodifiableList(
+                    getFootprint(orientations[i])));
+            latticeFootprints[i] = getLatticeFootprint(orientations[i]);
+        }
+        footprints = Collections.unmodifiableList(orientationFootprints);
+        keys = new long[ORIENTATION_NO];
+        long shapeKey = 0;
+        for (int i = 0; i < ORIENTATION_NO; i++) {
+            int[] footprint = latticeFootprints[i];
+            for (int j = 0; j < footprint.length; j += 2) {
+                keys[i] += ZobristKeys.getLatticeKey(footprint[j], footprint[j + 1]);
+            }
+            shapeKey += keys[i];
+        }
+        key = shapeKey;
+    }
+
+    /**
+     * A method to get the shape of the given definition. The shapes of the
+     * standard walls are computed when the wall definitions are loaded, any
+     * other shape is computed the first time it is requested.
+     * @param definition definition of a wall in any orientation
+     * @return the shape containing the definition as one of its orientations
+     */
+    public static WallShape getShape(WallDefinition definition) {
+        WallShape shape = SHAPES.get(definition);
+        if (shape == null) {
+            shape = register(definition);
+        }
+        return shape;
+    }
+
+    /**
+     * A method to compute and register the shape of the given definition if
+     * none of its orientations is registered yet.
+     * @param definition definition of a wall in any orientation
+     * @return the registered shape containing the definition
+     */
+    private static synchronized WallShape register(WallDefinition definition) {
+        WallShape shape = SHAPES.get(definition);
+        if (shape != null) {
+            return shape;
+        }
+        shape = new WallShape(definition);
+        for (WallDefinition orientation : shape.orientations) {
+            WallShape registered = SHAPES.get(orientation);
+            if (registered != null) {
+                // Orientations are closed under rotation, so a registered
+                // orientation means the whole shape is already registered
+                SHAPES.put(definition, registered);
+                return registered;
+            }
+        }
+        for (WallDefinition orientation : shape.orientations) {
+            SHAPES.put(orientation, shape);
+        }
+        return shape;
+    }
+
+    /**
+     * A method to find the orientation index of the given definition.
+     * @param definition definition of a wall of this shape
+     * @return the index of the orientation, or -1 if it is not an orientation of this shape
+     */
+    public int indexOf(WallDefinition definition) {
+        for (int i = 0; i < ORIENTATION_NO; i++) {
+            if (orientations[i] == definition) {
+                return i;
+            }
+        }
+        for (int i = 0; i < ORIENTATION_NO; i++) {
+            if (orientations[i].equals(definition)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A get method to return an orientation of the shape.
+     * @param index index of the orientation, each index is rotated once
+     *              clockwise with respect to the previous one
+     * @return the definition of the orientation
+     */
+    public WallDefinition getOrientation(int index) {
+        return orientations[index];
+    }
+
+    /**
+     * A get method to return the border points occupied by an orientation
+     * relative to the position of the wall.
+     * @param index index of the orientation
+     * @return unmodifiable list of the relative border points
+     */
+    public List<Point> getFootprint(int index) {
+        return footprints.get(index);
+    }
+
+    /**
+     * A get method to return the number of border points occupied by an orientation.
+     * @param index index of the orientation
+     * @return number of the border points
+     */
+    public int getLatticePointCount(int index) {
+        return latticeFootprints[index].length / 2;
+    }
+
+    /**
+     * A get method to return the x value of a border point occupied by an
+     * orientation on the lattice of the OccupancyGrid, relative to the
+     * lattice point of the wall position.
+     * @param index index of the orientation
+     * @param point index of the border point
+     * @return the relative x value on the lattice
+     */
+    public int getLatticeX(int index, int point) {
+        return latticeFootprints[index][2 * point];
+    }
+
+    /**
+     * A get method to return the y value of a border point occupied by an
+     * orientation on the lattice of the OccupancyGrid, relative to the
+     * lattice point of the wall position.
+     * @param index index of the orientation
+     * @param point index of the border point
+     * @return the relative y value on the lattice
+     */
+    public int getLatticeY(int index, int point) {
+        return latticeFootprints[index][2 * point + 1];
+    }
+
+    /**
+     * A get method to return the key of an orientation, which only depends on
+     * the border points occupied by the orientation.
+     * @param index index of the orientation
+     * @return the 64-bit key of the orientation
+     */
+    public long getKey(int index) {
+        return keys[index];
+    }
+
+    /**
+     * A get method to return the key of the shape, which is the same for
+     * all orientations.
+     * @return the 64-bit key of the shape
+     */
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * A method to rotate a definition once.
+     * @param definition the definition to rotate
+     * @return a new definition as a result of the rotation
+     */
+    private static WallDefinition rotate(WallDefinition definition) {
+        List<WallPortion> rotatedPortions = new ArrayList<WallPortion>();
+        List<WallBastion> rotatedBastions = new ArrayList<WallBastion>();
+        for (WallPortion portion : definition.portions) {
+            rotatedPortions.add(new WallPortion(portion.firstRelativePos.rotate(),
+                    portion.secondRelativePos.rotate()));
+        }
+        for (WallBastion bastion : definition.bastions) {
+            double exactX = bastion.relativePos.x - 0.5;
+            double exactY = bastion.relativePos.y - 0.5;
+            Coordinate rotated = new Coordinate((int) (exactY + 0.5), (int) (-exactX + 0.5));
+            rotatedBastions.add(new WallBastion(rotated));
+        }
+        return new WallDefinition(rotatedPortions, rotatedBastions);
+    }
+
+    /**
+     * A method to compute the border points occupied by a definition
+     * relative to the position of the wall.
+     * @param definition the definition of the wall
+     * @return list of the relative border points
+     */
+    private static List<Point> getFootprint(WallDefinition definition) {
+        List<Point> footprint = new ArrayList<Point>();
+        for (WallPortion portion : definition.portions) {
+            Coordinate coord1 = portion.firstRelativePos;
+            Coordinate coord2 = portion.secondRelativePos;
+            double middleX = (coord1.x + coord2.x) / 2.0;
+            double middleY = (coord1.y + coord2.y) / 2.0;
+            if (coord1.y == coord2.y) {
+                footprint.add(new Point(middleX, middleY - 1.0 / 6.0));
+                footprint.add(new Point(middleX, middleY + 1.0 / 6.0));
+            } else {
+                footprint.add(new Point(middleX - 1.0 / 6.0, middleY));
+                footprint.add(new Point(middleX + 1.0 / 6.0, middleY));
+            }
+        }
+        for (WallBastion bastion : definition.bastions) {
+            Coordinate coord = bastion.relativePos;
+            footprint.add(new Point(coord.x - 0.5, coord.y - 0.5));
+        }
+        return footprint;
+    }
+
+    /**
+     * A method to compute the border points occupied by a definition on the
+     * lattice of the OccupancyGrid, in the same order as the footprint.
+     * @param definition the definition of the wall
+     * @return x and y values of the relative lattice points, one after the other
+     */
+    private static int[] getLatticeFootprint(WallDefinition definition) {
+        int half = OccupancyGrid.LATTICE / 2;
+        int[] footprint = new int[4 * definition.portions.size() + 2 * definition.bastions.size()];
+        int i = 0;
+        for (WallPortion portion : definition.portions) {
+            Coordinate coord1 = portion.firstRelativePos;
+            Coordinate coord2 = portion.secondRelativePos;
+            int middleX = (coord1.x + coord2.x) * half;
+            int middleY = (coord1.y + coord2.y) * half;
+            if (coord1.y == coord2.y) {
+                footprint[i++] = middleX;
+                footprint[i++] = middleY - 1;
+                footprint[i++] = middleX;
+                footprint[i++] = middleY + 1;
+            } else {
+                footprint[i++] = middleX - 1;
+                footprint[i++] = middleY;
+                footprint[i++] = middleX + 1;
+                footprint[i++] = middleY;
+            }
+        }
+        for (WallBastion bastion : definition.bastions) {
+            Coordinate coord = bastion.relativePos;
+            footprint[i++] = coord.x * OccupancyGrid.LATTICE - half;
+            footprint[i++] = coord.y * OccupancyGrid.LATTICE - half;
+        }
+        return footprint;
+    }
+
+}
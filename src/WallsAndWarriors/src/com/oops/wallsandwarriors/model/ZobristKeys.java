@@ -0,0 +1,99 @@
+package com.oops.wallsandwarriors.model;
+
+/**
+ * A class to compute the 64-bit Zobrist keys of the blocks and the pieces of a
+ * challenge. The key of a challenge is the sum of the keys of its blocks and
+ * pieces, so it is updated in constant time when a piece is added, removed,
+ * moved or rotated by taking the old key of the piece out and putting the new
+ * one in. A sum is used instead of the usual exclusive or, so that two equal
+ * pieces stacked on the same place do not cancel each other out. Instead of a
+ * table of random numbers, every key is derived from the kind and the position
+ * of a piece with a 64-bit mixing function, so there is no bound on the
+ * coordinates and the keys are the same in every run.
+ * A wall on the grid is keyed by its orientation and position, a wall off the
+ * grid only by its shape, since rotating it on the palette does not change
+ * the board.
+ */
+public final class ZobristKeys {
+
+    private static final long BLOCK = 0x5F8C2B1D3E4A6970L;
+    private static final long BLUE_KNIGHT = 0x2C1B7E4F9A3D5086L;
+    private static final long RED_KNIGHT = 0x7A3E9C5B1F2D4068L;
+    private static final long HIGH_TOWER = 0x3D9F1A7C5E2B8046L;
+    private static final long WALL = 0x6B2D8F4A1C7E9035L;
+    private static final long UNPLACED = 0x1E7A5C3B9D2F6084L;
+    private static final long NO_POSITION = 0x4C6E2A8F3B1D7059L;
+
+    private ZobristKeys() {
+    }
+
+    /**
+     * A method to get the key of a block of the grid.
+     * @param block the coordinate of the block
+     * @return the key of the block
+     */
+    public static long getKey(Coordinate block) {
+        return mix(BLOCK, block);
+    }
+
+    /**
+     * A method to get the key of a piece in its current position and orientation.
+     * @param piece the piece to get the key of
+     * @return the key of the piece, or 0 if it is not a piece of a challenge
+     */
+    public static long getKey(GridPiece piece) {
+        if (piece instanceof WallData) {
+            WallData wall = (WallData) piece;
+            WallShape shape = wall.getShape();
+            if (wall.getPosition() == null) {
+                return scramble(shape.getKey() ^ UNPLACED);
+            }
+            return mix(scramble(shape.getKey(wall.getOrientation()) ^ WALL), wall.getPosition());
+        } else if (piece instanceof KnightData) {
+            KnightData knight = (KnightData) piece;
+            return mix(knight.isEnemy ? RED_KNIGHT : BLUE_KNIGHT, knight.getPosition());
+        } else if (piece instanceof HighTowerData) {
+            HighTowerData highTower = (HighTowerData) piece;
+            return mix(mix(HIGH_TOWER, highTower.getFirstPosition()),
+                    highTower.getSecondPosition());
+        }
+        return 0;
+    }
+
+    /**
+     * A method to get the key of a point of the lattice of the OccupancyGrid
+     * relative to the position of a wall.
+     * @param x the relative x value on the lattice
+     * @param y the relative y value on the lattice
+     * @return the key of the point
+     */
+    static long getLatticeKey(int x, int y) {
+        return scramble(scramble(WALL + x) + y);
+    }
+
+    /**
+     * A method to mix a coordinate into a key.
+     * @param key the key to mix the coordinate into
+     * @param coordinate the coordinate, or null
+     * @return the mixed key
+     */
+    private static long mix(long key, Coordinate coordinate) {
+        if (coordinate == null) {
+            return scramble(key ^ NO_POSITION);
+        }
+        return scramble(scramble(key + coordinate.x) + coordinate.y);
+    }
+
+    /**
+     * A method to scramble the bits of a value with the finalizer of SplitMix64.
+     * @param value the value to scramble
+     * @return the scrambled value
+     */
+    static long scramble(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+}
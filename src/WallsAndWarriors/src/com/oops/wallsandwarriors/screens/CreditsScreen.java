@@ -2,7 +2,7 @@ package com.oops.wallsandwarriors.screens;
 
 import com.oops.wallsandwarriors.Game;
 import com.oops.wallsandwarriors.GameConstants;
-import com.oops.wallsandwarriors.util.FileUtils;
+import com.oops.wallsandwarriors.util.AssetCache;
 import javafx.scene.Group;
 import javafx.scene.Scene;
 import javafx.scene.canvas.GraphicsContext;
@@ -18,29 +18,22 @@ import javafx.scene.paint.Color;
 public class CreditsScreen extends GeneralScreen {
 
     /**
-     * An overriden getScene method to return the current Screen.
-     * @return the current screen as a Screen object.
+     * An overriden method to create the content of the screen.
+     * @return the content of the screen as a Scene object.
      */
     @Override
-    public Scene getScene() {
+    protected Scene createScene() {
         Group root = new Group();
         Scene scene = new Scene(root);
-        GraphicsContext g = addBackgroundCanvas(root, "/com/oops/wallsandwarriors/resources/images/background2.png", "Credits");
+        GraphicsContext g = addBackgroundCanvas(root, AssetCache.GAME_BACKGROUND, "Credits");
         g.setFill(Color.BEIGE);
         g.fillRoundRect(50, 80, 450, 450, 30, 30);
-        Image content = getContentImage();
-        g.drawImage(content, 60, 90, 780, 430);
+        Image content = AssetCache.getImage(AssetCache.CREDITS,
+                AssetCache.CREDITS_WIDTH, AssetCache.CREDITS_HEIGHT);
+        g.drawImage(content, 60, 90, AssetCache.CREDITS_WIDTH, AssetCache.CREDITS_HEIGHT);
         addTransitionButton(root, "Back", GameConstants.BACK_BUTTON_X,
-                GameConstants.BACK_BUTTON_Y, Game.getInstance().screenManager.mainMenu);
+                GameConstants.BACK_BUTTON_Y, Game.getInstance().screenManager.getMainMenu());
 
         return scene;
     }
-    
-    private static Image contentImage = null;
-    private static Image getContentImage() {
-        if (contentImage == null) {
-            contentImage = new Image(FileUtils.getInputStream("/com/oops/wallsandwarriors/resources/images/credits.png"));
-        }
-        return contentImage;
-    }
 }
@@ -3,11 +3,12 @@ package com.oops.wallsandwarriors.screens;
 import static com.oops.wallsandwarriors.GameConstants.SCREEN_HEIGHT;
 import static com.oops.wallsandwarriors.GameConstants.SCREEN_WIDTH;
 import com.oops.wallsandwarriors.Game;
-import com.oops.wallsandwarriors.util.FileUtils;
+import com.oops.wallsandwarriors.util.AssetCache;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.scene.Group;
 import javafx.scene.Node;
+import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Button;
@@ -18,10 +19,49 @@ import javafx.scene.text.FontWeight;
 /**
  * Abstract parent class for all Screen classes. It structures the generic
  * elements in all screens like transition buttons and the background.
+ * The Scene of a screen is created once, when it is first displayed or
+ * prepared, and is kept for the next times the screen is displayed. The data
+ * which may change between two displays is refreshed by onShow.
  * @author OOPs
  */
 public abstract class GeneralScreen implements Screen {
 
+    private Scene scene;
+
+    /**
+     * A method to return the Scene of the screen, which is created on the first call.
+     * @return the Scene of the screen.
+     */
+    @Override
+    public final Scene getScene() {
+        if (scene == null) {
+            scene = createScene();
+        }
+        return scene;
+    }
+
+    /**
+     * A method to refresh the content of the screen each time it is displayed.
+     * It does nothing unless it is overridden.
+     */
+    @Override
+    public void onShow() {
+    }
+
+    /**
+     * A method to pause the content of the screen when another screen is
+     * displayed. It does nothing unless it is overridden.
+     */
+    @Override
+    public void onHide() {
+    }
+
+    /**
+     * A method to create the content of the screen, which is called only once.
+     * @return the content of the screen as a Scene object.
+     */
+    protected abstract Scene createScene();
+
     /**
      * A method to add a button to the screen
      * @param root root as a Group object.
@@ -124,7 +164,7 @@ public abstract class GeneralScreen implements Screen {
         Canvas canvas = new Canvas(SCREEN_WIDTH, SCREEN_HEIGHT);
         GraphicsContext graphics = canvas.getGraphicsContext2D();
         
-        Image background = new Image(FileUtils.getInputStream(imagePath));
+        Image background = AssetCache.getImage(imagePath, SCREEN_WIDTH, SCREEN_HEIGHT);
         graphics.drawImage(background, 0, 0, SCREEN_WIDTH, SCREEN_HEIGHT);
         
         Font titleFont = Font.font("Arial", FontWeight.BOLD, 48);
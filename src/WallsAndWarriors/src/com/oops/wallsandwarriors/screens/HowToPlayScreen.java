@@ -2,7 +2,7 @@ package com.oops.wallsandwarriors.screens;
 
 import com.oops.wallsandwarriors.Game;
 import com.oops.wallsandwarriors.GameConstants;
-import com.oops.wallsandwarriors.util.FileUtils;
+import com.oops.wallsandwarriors.util.AssetCache;
 import javafx.scene.Group;
 import javafx.scene.Scene;
 import javafx.scene.canvas.GraphicsContext;
@@ -18,30 +18,23 @@ import javafx.scene.paint.Color;
 public class HowToPlayScreen extends GeneralScreen {
 
     /**
-     * An overriden getScene method to return the current Screen.
-     * @return the current screen as a Screen object.
+     * An overriden method to create the content of the screen.
+     * @return the content of the screen as a Scene object.
      */
     @Override
-    public Scene getScene() {
+    protected Scene createScene() {
         Group root = new Group();
         Scene scene = new Scene(root);
-        GraphicsContext g = addBackgroundCanvas(root, "/com/oops/wallsandwarriors/resources/images/background2.png", "How To Play");
+        GraphicsContext g = addBackgroundCanvas(root, AssetCache.GAME_BACKGROUND, "How To Play");
         g.setFill(Color.BEIGE);
         g.fillRoundRect(10, 80, 784, 450, 30, 30);
-        Image content = getContentImage();
-        g.drawImage(content, 20, 90, 784.0, 450.6);
+        Image content = AssetCache.getImage(AssetCache.HOW_TO_PLAY,
+                AssetCache.HOW_TO_PLAY_WIDTH, AssetCache.HOW_TO_PLAY_HEIGHT);
+        g.drawImage(content, 20, 90, AssetCache.HOW_TO_PLAY_WIDTH, AssetCache.HOW_TO_PLAY_HEIGHT);
         addTransitionButton(root, "Back", GameConstants.BACK_BUTTON_X,
-                GameConstants.BACK_BUTTON_Y, Game.getInstance().screenManager.mainMenu);
+                GameConstants.BACK_BUTTON_Y, Game.getInstance().screenManager.getMainMenu());
 
         return scene;
     }
     
-    private static Image contentImage = null;
-    private static Image getContentImage() {
-        if (contentImage == null) {
-            contentImage = new Image(FileUtils.getInputStream("/com/oops/wallsandwarriors/resources/images/HowToPlay.png"));
-        }
-        return contentImage;
-    }
-    
 }
@@ -1,20 +1,22 @@
 package com.oops.wallsandwarriors.screens;
 
+import com.oops.wallsandwarriors.util.AssetCache;
 import com.oops.wallsandwarriors.util.DebugUtils;
 import com.oops.wallsandwarriors.Game;
+import com.oops.wallsandwarriors.SessionWriter;
+import com.oops.wallsandwarriors.StorageManager;
 import static com.oops.wallsandwarriors.GameConstants.SCREEN_HEIGHT;
 import static com.oops.wallsandwarriors.GameConstants.SCREEN_WIDTH;
 import com.oops.wallsandwarriors.model.ChallengeData;
 import com.oops.wallsandwarriors.screens.game.GameScreen;
-import com.oops.wallsandwarriors.util.EncodeUtils;
-import com.oops.wallsandwarriors.util.FileUtils;
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.scene.Group;
 import javafx.scene.Scene;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Button;
 import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
@@ -28,37 +30,62 @@ public class MainMenuScreen extends GeneralScreen {
     
     private ChallengeData lastSessionChallenge;
     private ChallengeData lastSessionHint;
+    private GraphicsContext graphics;
+    private Button lastSessionButton;
+    private CompletableFuture<SessionWriter.Session> sessionRead;
 
     /**
-     * An overriden getScene method to return the current Screen.
-     * @return the current screen as a Screen object.
+     * An overriden method to create the content of the screen.
+     * @return the content of the screen as a Scene object.
      */
     @Override
-    public Scene getScene() {
+    protected Scene createScene() {
         Group root = new Group();
         Scene scene = new Scene(root);
         
-        lastSessionChallenge = null;
-        lastSessionHint = null;
         DebugUtils.initClickDebugger(scene);
-        GraphicsContext graphics = addBackgroundCanvas(root);
-        checkLastSession();
-        drawUi(graphics);
+        graphics = addBackgroundCanvas(root);
         addButtons(root);
         
         return scene;
     }
 
+    /**
+     * An overriden method to check the last session each time the main menu
+     * is displayed, and to prepare the campaign challenges screen. The menu is
+     * drawn at once, and the last session button is shown when the session
+     * has been read.
+     */
+    @Override
+    public void onShow() {
+        lastSessionChallenge = null;
+        lastSessionHint = null;
+        drawUi(graphics);
+        lastSessionButton.setVisible(false);
+        checkLastSession();
+        Game.getInstance().screenManager.prepare(
+                Game.getInstance().screenManager.getCampaignChallenges());
+    }
+
+    /**
+     * An overriden method to ignore the reading of the last session if it
+     * ends after another screen is displayed.
+     */
+    @Override
+    public void onHide() {
+        sessionRead = null;
+    }
+
     private void addButtons(Group root) {
-        addTransitionButton(root, "Campaign Mode", 300, 250, 160, 40, Game.getInstance().screenManager.campaignChallenges);
-        addTransitionButton(root, "Custom Challenges", 300, 300, 160, 40, Game.getInstance().screenManager.customChallenges);
-        addTransitionButton(root, "Settings", 300, 400, 160, 40, Game.getInstance().screenManager.settings);
-        addTransitionButton(root, "How to Play", 300, 450, 160, 40, Game.getInstance().screenManager.howToPlay);
-        addTransitionButton(root, "Credits", 300, 500, 160, 40, Game.getInstance().screenManager.credits);
+        addTransitionButton(root, "Campaign Mode", 300, 250, 160, 40, Game.getInstance().screenManager.getCampaignChallenges());
+        addTransitionButton(root, "Custom Challenges", 300, 300, 160, 40, Game.getInstance().screenManager.getCustomChallenges());
+        addTransitionButton(root, "Settings", 300, 400, 160, 40, Game.getInstance().screenManager.getSettings());
+        addTransitionButton(root, "How to Play", 300, 450, 160, 40, Game.getInstance().screenManager.getHowToPlay());
+        addTransitionButton(root, "Credits", 300, 500, 160, 40, Game.getInstance().screenManager.getCredits());
         addButton(root, "Challenge Editor", 300, 350, 160, 40, new EventHandler<ActionEvent>() {
             @Override
             public void handle(ActionEvent event) {
-                Screen editorScreen = Game.getInstance().screenManager.challengeEditor;
+                Screen editorScreen = Game.getInstance().screenManager.getChallengeEditor();
                 Game.getInstance().challengeManager.initChallengeData();
                 Game.getInstance().setScreen(editorScreen);
             }
@@ -67,41 +94,34 @@ public class MainMenuScreen extends GeneralScreen {
     }
     
     private void checkLastSession() {
-        try {
-            if(Game.getInstance().storageManager.sessionData != null) {
-                BufferedReader sessionReader = Game.getInstance().storageManager.getSessionReader();
-                if (sessionReader != null) {
-                    String challengeCode = sessionReader.readLine();
-                    String hintCode = sessionReader.readLine();
-                    sessionReader.close();
-                    if (challengeCode != null && hintCode != null &&
-                        !challengeCode.isEmpty() && !hintCode.isEmpty()) {
-                        lastSessionChallenge = EncodeUtils.decode(challengeCode);
-                        lastSessionHint = EncodeUtils.decode(hintCode);
-                    }
+        final CompletableFuture<SessionWriter.Session> read =
+                Game.getInstance().sessionWriter.readSession();
+        sessionRead = read;
+        read.thenAcceptAsync(new Consumer<SessionWriter.Session>() {
+            @Override
+            public void accept(SessionWriter.Session session) {
+                if (sessionRead != read || session == null) {
+                    return;
                 }
+                lastSessionChallenge = session.getChallengeData();
+                lastSessionHint = session.getHintData();
+                drawUi(graphics);
+                lastSessionButton.setVisible(true);
             }
-        } catch (FileNotFoundException ex) {
-            ;
-        }
-        catch (Exception ex) {
-            ex.printStackTrace();
-        }
+        }, StorageManager.FX_THREAD);
     }
     
     private void addLastSessionButton(Group root) {
-        if (lastSessionChallenge != null) {
-            addButton(root, "Continue Last Game", 550, 250, 160, 40, new EventHandler<ActionEvent>() {
-                @Override
-                public void handle(ActionEvent event) {
-                    Screen gameScreen = Game.getInstance().screenManager.gameScreen;
-                    ((GameScreen) gameScreen).setPreviousScreen(MainMenuScreen.this);
-                    Game.getInstance().challengeManager.setChallengeData(lastSessionChallenge.createCopy(false));
-                    Game.getInstance().hintManager.setChallengeData(lastSessionHint.createCopy(false));
-                    Game.getInstance().setScreen(gameScreen);
-                }
-            });
-        }
+        lastSessionButton = addButton(root, "Continue Last Game", 550, 250, 160, 40, new EventHandler<ActionEvent>() {
+            @Override
+            public void handle(ActionEvent event) {
+                Screen gameScreen = Game.getInstance().screenManager.getGameScreen();
+                ((GameScreen) gameScreen).setPreviousScreen(MainMenuScreen.this);
+                Game.getInstance().challengeManager.setChallengeData(lastSessionChallenge.createCopy(false));
+                Game.getInstance().hintManager.setChallengeData(lastSessionHint.createCopy(false));
+                Game.getInstance().setScreen(gameScreen);
+            }
+        });
     }
     
     private void drawLastSessionBackground(GraphicsContext graphics) {
@@ -112,7 +132,7 @@ public class MainMenuScreen extends GeneralScreen {
     }
     
     private void drawUi(GraphicsContext graphics) {
-        Image background = getContentImage();
+        Image background = AssetCache.getImage(AssetCache.BACKGROUND, SCREEN_WIDTH, SCREEN_HEIGHT);
         graphics.drawImage(background, 0, 0, SCREEN_WIDTH, SCREEN_HEIGHT);
         
         graphics.setFill(Color.BEIGE);
@@ -129,13 +149,4 @@ public class MainMenuScreen extends GeneralScreen {
         graphics.strokeText("Walls & Warriors", 200, 150);
     }
     
-    private static Image contentImage = null;
-    private static Image getContentImage() {
-        if (contentImage == null) {
-            contentImage = new Image(FileUtils.getInputStream(
-                "/com/oops/wallsandwarriors/resources/images/background.jpg"));
-        }
-        return contentImage;
-    }
-    
 }
@@ -8,9 +8,20 @@ import javafx.scene.Scene;
 public interface Screen {
 
     /**
-     * A method to reach the current screen content.
+     * A method to reach the current screen content. The content is created
+     * when it is first reached and the same Scene is returned afterwards.
      * @return the current conent of the screen as a Scene object.
      */
     Scene getScene();
-    
+
+    /**
+     * A method to refresh the content of the screen each time it is displayed.
+     */
+    void onShow();
+
+    /**
+     * A method to pause the content of the screen when another screen is displayed.
+     */
+    void onHide();
+
 }
@@ -54,9 +54,17 @@ public class SettingsScreen extends GeneralScreen {
     private final String colorNames[] = {
             "Blue", "Red", "Green", "Yellow",
             "Purple", "Brown", "Orange", "Baby Blue"};
-    
+
+    private ChoiceBox cb;
+    private Slider sl;
+    private Slider slmusic;
+
+    /**
+     * An overriden method to create the content of the screen.
+     * @return the content of the screen as a Scene object.
+     */
     @Override
-    public Scene getScene() {
+    protected Scene createScene() {
         Group root = new Group();
         Scene scene = new Scene(root);
         GraphicsContext g = addBackgroundCanvas(root,
@@ -68,8 +76,7 @@ public class SettingsScreen extends GeneralScreen {
         ColorTheme[] themes = initThemes();
 
         DebugUtils.initClickDebugger(scene);
-        ChoiceBox cb = new ChoiceBox(FXCollections.observableArrayList(getThemeNames(themes)));
-        showOldValue(cb);
+        cb = new ChoiceBox(FXCollections.observableArrayList(getThemeNames(themes)));
         cb.getSelectionModel().selectedIndexProperty().
                 addListener(new ChangeListener<Number>() {
             @Override
@@ -91,7 +98,7 @@ public class SettingsScreen extends GeneralScreen {
         addLabel(root, "Music Volume", 140, 260);
         addLabel(root, "Knight Colors", 140, 330);
 
-        Slider sl = new Slider();
+        sl = new Slider();
         sl.valueProperty().addListener(new ChangeListener<Number>() {
             public void changed(ObservableValue<? extends Number> ov,
                                 Number old_val, Number new_val) {
@@ -105,7 +112,7 @@ public class SettingsScreen extends GeneralScreen {
         sl.setLayoutY(200);
         sl.setPrefWidth(230);
 
-        Slider slmusic = new Slider();
+        slmusic = new Slider();
         slmusic.valueProperty().addListener(new ChangeListener<Number>() {
             public void changed(ObservableValue<? extends Number> ov,
                                 Number old_val, Number new_val) {
@@ -118,18 +125,13 @@ public class SettingsScreen extends GeneralScreen {
         slmusic.setLayoutX(330);
         slmusic.setLayoutY(270);
         slmusic.setPrefWidth(230);
-        
-        showOldValueSlider(sl, slmusic);
-
-        Game.getInstance().settingsManager.setVolume(sl.getValue());
-        Game.getInstance().settingsManager.setMusicVolume(slmusic.getValue());
 
         addButton(root, "Back", GameConstants.BACK_BUTTON_X, GameConstants.BACK_BUTTON_Y, new EventHandler<ActionEvent>() {
             @Override
             public void handle(ActionEvent event) {
                 Game.getInstance().storageManager.
                         writeSettings(sl.getValue(),slmusic.getValue());
-                Game.getInstance().setScreen(Game.getInstance().screenManager.mainMenu);
+                Game.getInstance().setScreen(Game.getInstance().screenManager.getMainMenu());
             }
         });
 
@@ -137,6 +139,19 @@ public class SettingsScreen extends GeneralScreen {
         return scene;
     }
 
+    /**
+     * An overriden method to show the current settings each time the screen
+     * is displayed, since they may be read or changed after it is created.
+     */
+    @Override
+    public void onShow() {
+        showOldValue(cb);
+        showOldValueSlider(sl, slmusic);
+
+        Game.getInstance().settingsManager.setVolume(sl.getValue());
+        Game.getInstance().settingsManager.setMusicVolume(slmusic.getValue());
+    }
+
     /**
      * A method to get initial themes
      * @return themes array
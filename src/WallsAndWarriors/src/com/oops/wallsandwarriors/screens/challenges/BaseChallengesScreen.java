@@ -3,19 +3,15 @@ package com.oops.wallsandwarriors.screens.challenges;
 import com.oops.wallsandwarriors.Game;
 import com.oops.wallsandwarriors.GameConstants;
 import com.oops.wallsandwarriors.model.ChallengeData;
-import com.oops.wallsandwarriors.model.HighTowerData;
-import com.oops.wallsandwarriors.model.KnightData;
 import com.oops.wallsandwarriors.screens.GeneralScreen;
 import com.oops.wallsandwarriors.screens.Screen;
 import com.oops.wallsandwarriors.screens.game.GameScreen;
-import com.oops.wallsandwarriors.view.GridView;
-import com.oops.wallsandwarriors.view.HighTowerView;
-import com.oops.wallsandwarriors.view.KnightView;
+import com.oops.wallsandwarriors.view.ThumbnailCache;
 import javafx.scene.Group;
-import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.ImageView;
 import javafx.scene.layout.GridPane;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -32,8 +28,11 @@ import java.util.List;
 public abstract class BaseChallengesScreen extends GeneralScreen {
 
 
+    private static ThumbnailCache thumbnails;
+
     List<ChallengeData> challenges;
     GridPane grid = new GridPane();
+    ImageView previewView = new ImageView();
 
     /**
      * A default constructor that initializes a BaseChallengesScreen with no given parameters
@@ -63,31 +62,22 @@ public abstract class BaseChallengesScreen extends GeneralScreen {
 
     /**
      * A get method to display the challenge preview of a given Challenge
-     * in the BaseChallengesScreen.
+     * in the BaseChallengesScreen. The preview is drawn once and then taken
+     * from the cache of the challenge previews.
      * @param challenge a challenge to display the preview of in the BaseChallengesScreen.
      */
     public void displayChallengePreview(ChallengeData challenge) {
-        Canvas previewCanvas = new Canvas();
-        previewCanvas.setHeight(GameConstants.BASE_CHAL_HEIGHT);
-        previewCanvas.setWidth(GameConstants.BASE_CHAL_WIDTH);
-        GraphicsContext graphics = previewCanvas.getGraphicsContext2D();
-
-        GridView gridView = new GridView(GameConstants.BASE_CHAL_GRID_X_VAL,
-                GameConstants.BASE_CHAL_GRID_Y_VAL, GameConstants.BASE_CHAL_MARGIN,
-                GameConstants.BASE_CHAL_BLOCK_LENGTH);
-        gridView.draw(graphics, 1);
-        grid.add(previewCanvas, GameConstants.BASE_CHAL_COL_IN, GameConstants.BASE_CHAL_ROW_IN);
-
-        for (KnightData knight : challenge.knights) {
-            new KnightView(knight, GameConstants.BASE_CHAL_GRID_X_VAL,
-                    GameConstants.BASE_CHAL_GRID_Y_VAL,
-                    GameConstants.BASE_CHAL_GRID_B).draw(graphics, 1);
-        }
-        for (HighTowerData highTower : challenge.highTowers) {
-            new HighTowerView(highTower, GameConstants.BASE_CHAL_GRID_X_VAL,
-                    GameConstants.BASE_CHAL_GRID_Y_VAL, GameConstants.BASE_CHAL_GRID_B).
-                    draw(graphics, 1);
+        if (thumbnails == null) {
+            thumbnails = new ThumbnailCache(GameConstants.BASE_CHAL_WIDTH,
+                    GameConstants.BASE_CHAL_HEIGHT, GameConstants.BASE_CHAL_GRID_X_VAL,
+                    GameConstants.BASE_CHAL_GRID_Y_VAL, GameConstants.BASE_CHAL_MARGIN,
+                    GameConstants.BASE_CHAL_BLOCK_LENGTH, GameConstants.THUMB_CACHE_CAPACITY,
+                    new File(Game.getInstance().storageManager.wnwData, "thumbs"),
+                    GameConstants.THUMB_DISK_CAPACITY);
         }
+        previewView.setImage(thumbnails.getThumbnail(challenge));
+        grid.getChildren().remove(previewView);
+        grid.add(previewView, GameConstants.BASE_CHAL_COL_IN, GameConstants.BASE_CHAL_ROW_IN);
     }
 
     /**
@@ -97,7 +87,7 @@ public abstract class BaseChallengesScreen extends GeneralScreen {
      */
     public void renderButtons(Group root) {
         addTransitionButton(root, "Back", GameConstants.BACK_BUTTON_X,
-                GameConstants.BACK_BUTTON_Y, Game.getInstance().screenManager.mainMenu);
+                GameConstants.BACK_BUTTON_Y, Game.getInstance().screenManager.getMainMenu());
     }
 
     /**
@@ -108,7 +98,7 @@ public abstract class BaseChallengesScreen extends GeneralScreen {
      */
     public void startChallenge(ChallengeData challengeData, ChallengeData solutionData)
     {
-        Screen gameScreen = Game.getInstance().screenManager.gameScreen;
+        Screen gameScreen = Game.getInstance().screenManager.getGameScreen();
         ((GameScreen) gameScreen).setPreviousScreen(this);
         Game.getInstance().challengeManager.setChallengeData(challengeData);
         Game.getInstance().hintManager.setChallengeData(solutionData);
@@ -3,17 +3,20 @@ package com.oops.wallsandwarriors.screens.challenges;
 import com.oops.wallsandwarriors.Game;
 import com.oops.wallsandwarriors.StorageManager;
 import com.oops.wallsandwarriors.model.ChallengeData;
-import com.oops.wallsandwarriors.util.EncodeUtils;
 import com.oops.wallsandwarriors.util.FileUtils;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.FileWriter;
+import com.oops.wallsandwarriors.util.LazyChallengeList;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
 
 /**
  * A class to store the data to be represented in the CampaignChallengesScreen.
@@ -21,76 +24,121 @@ import java.util.Scanner;
  */
 public class CampaignChallengesData {
 
+    private static final String CAMPAIGN_CHALLENGES_PATH =
+            "/com/oops/wallsandwarriors/resources/challenges/campaign_challenges.dat";
+
     private final StorageManager storageManager;
     public static List<ChallengeData> campaignChallenges;
     public static List<String> campaignChallengesProgress;
+    private static CompletableFuture<Void> progressRead;
 
     /**
      * A default constructor that initializes a CampaignChallengesData with no given parameters
-     * with a storageManager and an empty ArrayList of ChallengeData. If there was a saved version
-     * initializes the data as such.
+     * with a storageManager. The campaign challenges are indexed only once, and each
+     * challenge is decoded when it is first requested. If there was a saved version
+     * of the progress initializes the data as such, once it is read by the StorageManager.
      */
     public CampaignChallengesData() {
         storageManager = Game.getInstance().storageManager;
-        campaignChallenges = new ArrayList<>();
-        readProgressData();
-        writeCampaignChallenges();
+        if (campaignChallenges == null) {
+            writeCampaignChallenges();
+        }
+        if (campaignChallengesProgress == null) {
+            readProgressData();
+        }
     }
     
     /**
-     * A method to read the ProgressData if it exists from previous sessions.
+     * A method to read the ProgressData if it exists from previous sessions. Until
+     * the progress is read, only the first challenge is unlocked.
      */
     private void readProgressData() {
         campaignChallengesProgress = new ArrayList<>();
-
-        if (storageManager.getProgressData().length() == 0) {
-            writeProgressDataToFile(storageManager);
+        for (int index = 0; index < campaignChallenges.size(); index++) {
+            campaignChallengesProgress.add(index == 0 ? "1" : "0");
         }
-        else {
-            campaignChallengesProgress.clear();
-
-            try {
-                BufferedReader bufferedReader =
-                        new BufferedReader(new FileReader(storageManager.progressData));
-                String text = bufferedReader.readLine();
-
-                for (int i = 0; i < text.length(); i++) {
+        progressRead = storageManager.readProgress().thenAcceptAsync(new Consumer<List<String>>() {
+            @Override
+            public void accept(List<String> lines) {
+                if (lines.isEmpty()) {
+                    writeProgressDataToFile(storageManager);
+                    return;
+                }
+                String text = lines.get(0);
+                int index = 0;
+                for (int i = 0; i < text.length() &&
+                        index < campaignChallengesProgress.size(); i++) {
                     if (text.charAt(i) != '[' && text.charAt(i) != ']' &&
                             text.charAt(i) != ',' && text.charAt(i) != ' ') {
-                        campaignChallengesProgress.add(String.valueOf(text.charAt(i)));
+                        campaignChallengesProgress.set(index++, String.valueOf(text.charAt(i)));
                     }
                 }
-            } catch (IOException e) {
-                e.printStackTrace();
             }
-        }
+        }, StorageManager.FX_THREAD);
     }
 
     /**
-     * A method to write the CampaignChallenges according to the stored challenges if they exist.
+     * A method to get the reading of the ProgressData, which is completed on
+     * the JavaFX application thread.
+     * @return a future which is completed when the progress is read
+     */
+    public CompletableFuture<Void> getProgressRead() {
+        return progressRead;
+    }
+
+    /**
+     * A method to index the CampaignChallenges of the game and to copy them into the
+     * storage if the stored copy differs.
      */
     private void writeCampaignChallenges() {
-        campaignChallenges.clear();
-        FileWriter fileWriter = null;
+        byte[] content = new byte[0];
         try {
-            fileWriter = new FileWriter(storageManager.campaignChallengeData);
-
-            Scanner campaignChallengeScanner = new Scanner(FileUtils.getInputStream
-                    ("/com/oops/wallsandwarriors/resources/challenges/campaign_challenges.dat"));
-
-            while (campaignChallengeScanner.hasNext()) {
-                String challengeCode = campaignChallengeScanner.nextLine();
-                fileWriter.write(challengeCode + "\n");
-                try {
-                    campaignChallenges.add(EncodeUtils.decode(challengeCode));
-                } catch (IOException | ClassNotFoundException e) {
-                    e.printStackTrace();
-                }
-            }
-            fileWriter.close();
+            content = readAll(FileUtils.getInputStream(CAMPAIGN_CHALLENGES_PATH));
         } catch (IOException e) {
             e.printStackTrace();
         }
+        final byte[] campaignContent = content;
+        final File storedFile = storageManager.campaignChallengeData;
+        storageManager.readBytes(storedFile).thenAccept(new Consumer<byte[]>() {
+            @Override
+            public void accept(byte[] storedContent) {
+                if (storedContent.length != campaignContent.length ||
+                        getHash(storedContent) != getHash(campaignContent)) {
+                    storageManager.writeBytes(storedFile, campaignContent);
+                }
+            }
+        });
+        campaignChallenges = new LazyChallengeList(content);
+    }
+
+    /**
+     * A method to read a stream until its end and to close it.
+     * @param inputStream the stream to read
+     * @return the bytes read from the stream
+     * @throws IOException if an input exception occurs
+     */
+    private static byte[] readAll(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            byte[] buffer = new byte[8192];
+            for (int read; (read = inputStream.read(buffer)) != -1;) {
+                outputStream.write(buffer, 0, read);
+            }
+        } finally {
+            inputStream.close();
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * A method to compute the hash of a content to compare it with another.
+     * @param content the content to hash
+     * @return the CRC-32 checksum of the content
+     */
+    private static long getHash(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content, 0, content.length);
+        return crc.getValue();
     }
 
     /**
@@ -98,34 +146,7 @@ public class CampaignChallengesData {
      * @param storageManager StorageManager object to be used to manage de storing of the progres..
      */
     public void writeProgressDataToFile(StorageManager storageManager) {
-
-        FileWriter fileWriter = null;
-
-        if(storageManager.getProgressData().length() == 0) 
-        {
-            try {
-                fileWriter = new FileWriter(storageManager.progressData);
-
-                Scanner campaignChallengeScanner = new Scanner(FileUtils.getInputStream
-                        ("/com/oops/wallsandwarriors/resources/challenges/campaign_challenges.dat"));
-
-                int index = 0;
-                while (campaignChallengeScanner.hasNext()) {
-                    if (index == 0) {
-                        campaignChallengesProgress.add("1");
-                    }
-                    else {
-                        campaignChallengesProgress.add("0");
-                    }
-                    index++;
-                    campaignChallengeScanner.nextLine();
-                }
-                fileWriter.write(campaignChallengesProgress.toString() + "\n");
-                fileWriter.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
+        storageManager.writeProgress(campaignChallengesProgress);
     }
 
     /**
@@ -2,12 +2,9 @@ package com.oops.wallsandwarriors.screens.challenges;
 
 import com.oops.wallsandwarriors.GameConstants;
 import com.oops.wallsandwarriors.model.ChallengeData;
-import com.oops.wallsandwarriors.model.HighTowerData;
-import com.oops.wallsandwarriors.model.KnightData;
-import com.oops.wallsandwarriors.util.FileUtils;
-import com.oops.wallsandwarriors.view.GridView;
-import com.oops.wallsandwarriors.view.HighTowerView;
-import com.oops.wallsandwarriors.view.KnightView;
+import com.oops.wallsandwarriors.screens.game.GameScreen;
+import com.oops.wallsandwarriors.util.AssetCache;
+import com.oops.wallsandwarriors.view.ThumbnailCache;
 import com.oops.wallsandwarriors.util.DebugUtils;
 import com.oops.wallsandwarriors.Game;
 import javafx.collections.FXCollections;
@@ -15,8 +12,7 @@ import javafx.collections.ObservableList;
 import javafx.geometry.Orientation;
 import javafx.scene.Group;
 import javafx.scene.Scene;
-import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.BorderPane;
@@ -26,12 +22,15 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.scene.text.Text;
 
+import java.io.File;
 import java.util.List;
 
 import javafx.event.EventHandler;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
+import javafx.util.Callback;
 
 /**
  * A class to implement the distinguishable features for Campaign Challenges Screen.
@@ -50,12 +49,16 @@ public class CampaignChallengesScreen extends BaseChallengesScreen {
 
     GridPane grid = super.getGrid();
 
+    private static ThumbnailCache thumbnails;
+
+    private ListView<Integer> list;
+
     /**
-     * An overriden getScene method to return the current Screen.
-     * @return the current screen as a Screen object.
+     * An overriden method to create the content of the screen.
+     * @return the content of the screen as a Scene object.
      */
     @Override
-    public Scene getScene() {
+    protected Scene createScene() {
         Group root = new Group();
         Scene scene = new Scene(root);
 
@@ -63,7 +66,7 @@ public class CampaignChallengesScreen extends BaseChallengesScreen {
         campaignChallenges = campaignChallengesData.getCampaignChallenges();
 
         DebugUtils.initClickDebugger(scene);
-        addBackgroundCanvas(root, "/com/oops/wallsandwarriors/resources/images/background2.png",
+        addBackgroundCanvas(root, AssetCache.GAME_BACKGROUND,
                 "Campaign Challenges");
         super.renderButtons(root);
 
@@ -79,86 +82,52 @@ public class CampaignChallengesScreen extends BaseChallengesScreen {
     }
 
     /**
-     * A method to display CampaignChallenges on the Screen..
+     * An overriden method to show the current progress each time the screen
+     * is displayed, and to prepare the game screen.
+     */
+    @Override
+    public void onShow() {
+        list.refresh();
+        Game.getInstance().screenManager.prepare(Game.getInstance().screenManager.getGameScreen());
+    }
+
+    /**
+     * A method to display CampaignChallenges on the Screen. The list reuses its
+     * cells while scrolling, and each cell only swaps the cached previews of
+     * the challenges in its row.
      * @param root root as a Group object.
      */
     private void showChallenges(Group root)
     {
-        ObservableList<HBox> hBoxes = FXCollections.observableArrayList ();
-
-        HBox hBox = new HBox();
-        int hBoxCount = 0;
-        
-        javafx.scene.image.Image lock = new javafx.scene.image.Image(FileUtils.getInputStream(
-                    "/com/oops/wallsandwarriors/resources/images/lock.png"));
-
-        for (int i = 0; i < campaignChallenges.size(); i++) {
-            final int index = i;
-
-            ImageView imageView = new ImageView();
-            imageView.setFitHeight(GameConstants.CAMP_SCR_CH_HEIGHT);
-            imageView.setFitWidth(GameConstants.CAMP_SCR_CH_WIDTH);
-            imageView.setImage(lock);
-
-            ChallengeData challengeData = campaignChallenges.get(i);
-
-            Canvas canvas = drawAndGetCanvas(challengeData);
-            Text challengeNameText = new Text(challengeData.getName());
-            
-            BorderPane border = new BorderPane();
-            
-            BorderPane.setAlignment(challengeNameText, Pos.CENTER);
-            BorderPane.setMargin(challengeNameText, new Insets(GameConstants.CAMP_SCR_TEXT_MARG_T,
-                    GameConstants.CAMP_SCR_TEXT_MARG_R, GameConstants.CAMP_SCR_TEXT_MARG_B,
-                    GameConstants.CAMP_SCR_TEXT_MARG_L));
-            border.setBottom(challengeNameText);
-
-            if (CampaignChallengesData.campaignChallengesProgress.get(i).equals("0") && i != 0) {
-                BorderPane.setMargin(imageView, new Insets(GameConstants.CAMP_SCR_BORDER_MARG_T,
-                        GameConstants.CAMP_SCR_BORDER_MARG_R,
-                        GameConstants.CAMP_SCR_BORDER_MARG_B, GameConstants.CAMP_SCR_BORDER_MARG_L)
-                );
-                border.setCenter(imageView);
-            }
-            else {
-                BorderPane.setMargin(canvas, new Insets(GameConstants.CAMP_SCR_BORDER_MARG_T,
-                        GameConstants.CAMP_SCR_BORDER_MARG_R, GameConstants.CAMP_SCR_BORDER_MARG_B,
-                        GameConstants.CAMP_SCR_BORDER_MARG_L));
-                border.setCenter(canvas);
-                border.setOnMouseClicked(new EventHandler<MouseEvent>() {
-                    @Override
-                    public void handle(MouseEvent event) {
-                        Game.getInstance().soundManager.playClick();
-                        CampaignChallengesScreen.super.startChallenge(
-                                challengeData.createCopy(true), challengeData.createCopy(false));
-                    }
-                });
-            }
-
-            if (index / GameConstants.CAMP_SCR_NO_OF_CHALS  <= hBoxCount) {
-                hBox.getChildren().add(border);
-            }
-            else {
-                hBoxes.add(hBox);
-                hBox = new HBox();
-                hBox.getChildren().add(border);
-                hBoxCount++;
-            }
-
-            if (index / GameConstants.CAMP_SCR_NO_OF_CHALS == hBoxCount ) {
-                if (index == campaignChallenges.size() - 1) {
-                    hBoxes.add(hBox);
-                }
-            }
+        ObservableList<Integer> rows = FXCollections.observableArrayList();
+        int rowCount = (campaignChallenges.size() + GameConstants.CAMP_SCR_NO_OF_CHALS - 1) /
+                GameConstants.CAMP_SCR_NO_OF_CHALS;
+        for (int row = 0; row < rowCount; row++) {
+            rows.add(row);
         }
 
-        ListView<HBox> list = new ListView<>();
+        final Image lock = AssetCache.getImage(AssetCache.LOCK,
+                GameConstants.CAMP_SCR_CH_WIDTH, GameConstants.CAMP_SCR_CH_HEIGHT);
+
+        list = new ListView<>();
         list.setLayoutX(GameConstants.CAMP_SCR_LAY_X);
         list.setLayoutY(GameConstants.CAMP_SCR_LAY_Y);
         list.setOrientation(Orientation.VERTICAL);
         list.setPrefHeight(GameConstants.CAMP_SCR_PREF_HEIGHT);
         list.setPrefWidth(GameConstants.CAMP_SCR_PREF_WIDTH);
-        list.setItems(hBoxes);
+        list.setCellFactory(new Callback<ListView<Integer>, ListCell<Integer>>() {
+            @Override
+            public ListCell<Integer> call(ListView<Integer> listView) {
+                return new ChallengeRowCell(lock);
+            }
+        });
+        list.setItems(rows);
+        campaignChallengesData.getProgressRead().thenRun(new Runnable() {
+            @Override
+            public void run() {
+                list.refresh();
+            }
+        });
         
         list.setStyle("-fx-control-inner-background: beige;");
         list.addEventFilter(MouseEvent.MOUSE_PRESSED, new EventHandler<MouseEvent>() {
@@ -171,33 +140,115 @@ public class CampaignChallengesScreen extends BaseChallengesScreen {
     }
 
     /**
-     * A method to draw the given ChallengeData on  the Canvas and get it.
-     * @param challenge ChallengeData to draw on the canvas.
-     * @return drawn Canvas.
+     * A method to get the cache of the challenge previews, creating it on the first call.
+     * @return the cache of the challenge previews
      */
-    private Canvas drawAndGetCanvas(ChallengeData challenge)
+    private static ThumbnailCache getThumbnails()
     {
-        Game.getInstance().challengeManager.setChallengeData(challenge);
-
-        Canvas previewCanvas = new Canvas();
-        previewCanvas.setHeight(GameConstants.CAMP_SCR_HEIGHT);
-        previewCanvas.setWidth(GameConstants.CAMP_SCR_WIDTH);
-        GraphicsContext graphics = previewCanvas.getGraphicsContext2D();
-
-        GridView gridView = new GridView(GameConstants.CAMP_SCR_GRID_X_VAL,
-                GameConstants.CAMP_SCR_GRID_Y_VAL, GameConstants.CAMP_SCR_MARGIN,
-                GameConstants.CAMP_SCR_BLOCK_LENGTH);
-        gridView.draw(graphics, 1);
-        for (KnightData knight : challenge.knights) {
-            new KnightView(knight, GameConstants.CAMP_SCR_GRID_X_VAL,
-                    GameConstants.CAMP_SCR_GRID_Y_VAL, GameConstants.CAMP_SCR_GRID_B).
-                    draw(graphics, 1);
+        if (thumbnails == null) {
+            thumbnails = new ThumbnailCache(GameConstants.CAMP_SCR_WIDTH,
+                    GameConstants.CAMP_SCR_HEIGHT, GameConstants.CAMP_SCR_GRID_X_VAL,
+                    GameConstants.CAMP_SCR_GRID_Y_VAL, GameConstants.CAMP_SCR_MARGIN,
+                    GameConstants.CAMP_SCR_BLOCK_LENGTH, GameConstants.THUMB_CACHE_CAPACITY,
+                    new File(Game.getInstance().storageManager.wnwData, "thumbs"),
+                    GameConstants.THUMB_DISK_CAPACITY);
+        }
+        return thumbnails;
+    }
+
+    /**
+     * A class to display a row of CampaignChallenges in the list. The tiles of
+     * the row are created once with the cell and reused for every row it shows.
+     */
+    private class ChallengeRowCell extends ListCell<Integer> {
+
+        private final Image lock;
+        private final HBox hBox;
+        private final BorderPane[] borders;
+        private final ImageView[] imageViews;
+        private final Text[] names;
+        private final int[] indices;
+
+        /**
+         * A constructor that creates the tiles of the row.
+         * @param lock image to display for the locked challenges.
+         */
+        private ChallengeRowCell(Image lock)
+        {
+            this.lock = lock;
+            hBox = new HBox();
+            borders = new BorderPane[GameConstants.CAMP_SCR_NO_OF_CHALS];
+            imageViews = new ImageView[GameConstants.CAMP_SCR_NO_OF_CHALS];
+            names = new Text[GameConstants.CAMP_SCR_NO_OF_CHALS];
+            indices = new int[GameConstants.CAMP_SCR_NO_OF_CHALS];
+            for (int i = 0; i < GameConstants.CAMP_SCR_NO_OF_CHALS; i++) {
+                final int tile = i;
+
+                imageViews[i] = new ImageView();
+                imageViews[i].setFitHeight(GameConstants.CAMP_SCR_CH_HEIGHT);
+                imageViews[i].setFitWidth(GameConstants.CAMP_SCR_CH_WIDTH);
+                names[i] = new Text();
+
+                borders[i] = new BorderPane();
+                BorderPane.setAlignment(names[i], Pos.CENTER);
+                BorderPane.setMargin(names[i], new Insets(GameConstants.CAMP_SCR_TEXT_MARG_T,
+                        GameConstants.CAMP_SCR_TEXT_MARG_R, GameConstants.CAMP_SCR_TEXT_MARG_B,
+                        GameConstants.CAMP_SCR_TEXT_MARG_L));
+                BorderPane.setMargin(imageViews[i], new Insets(GameConstants.CAMP_SCR_BORDER_MARG_T,
+                        GameConstants.CAMP_SCR_BORDER_MARG_R, GameConstants.CAMP_SCR_BORDER_MARG_B,
+                        GameConstants.CAMP_SCR_BORDER_MARG_L));
+                borders[i].setBottom(names[i]);
+                borders[i].setCenter(imageViews[i]);
+                borders[i].setOnMouseClicked(new EventHandler<MouseEvent>() {
+                    @Override
+                    public void handle(MouseEvent event) {
+                        int index = indices[tile];
+                        if (index < 0) {
+                            return;
+                        }
+                        ChallengeData challengeData = campaignChallenges.get(index);
+                        Game.getInstance().soundManager.playClick();
+                        GameScreen gameScreen = (GameScreen) Game.getInstance().screenManager.getGameScreen();
+                        gameScreen.setCampaignIndex(index);
+                        CampaignChallengesScreen.super.startChallenge(
+                                challengeData.createCopy(true), challengeData.createCopy(false));
+                    }
+                });
+                hBox.getChildren().add(borders[i]);
+            }
         }
-        for (HighTowerData highTower : challenge.highTowers) {
-            new HighTowerView(highTower, GameConstants.CAMP_SCR_GRID_X_VAL,
-                    GameConstants.CAMP_SCR_GRID_Y_VAL, GameConstants.CAMP_SCR_GRID_B).
-                    draw(graphics, 1);
+
+        /**
+         * An overriden method to show the challenges of a row on the tiles.
+         * @param row index of the row.
+         * @param empty true if the cell does not show a row.
+         */
+        @Override
+        protected void updateItem(Integer row, boolean empty)
+        {
+            super.updateItem(row, empty);
+            setText(null);
+            if (empty || row == null) {
+                setGraphic(null);
+                return;
+            }
+            int first = row * GameConstants.CAMP_SCR_NO_OF_CHALS;
+            for (int tile = 0; tile < GameConstants.CAMP_SCR_NO_OF_CHALS; tile++) {
+                int index = first + tile;
+                if (index >= campaignChallenges.size()) {
+                    indices[tile] = -1;
+                    borders[tile].setVisible(false);
+                    continue;
+                }
+                ChallengeData challengeData = campaignChallenges.get(index);
+                boolean locked = CampaignChallengesData.campaignChallengesProgress.get(index)
+                        .equals("0") && index != 0;
+                indices[tile] = locked ? -1 : index;
+                names[tile].setText(challengeData.getName());
+                imageViews[tile].setImage(locked ? lock : getThumbnails().getThumbnail(challengeData));
+                borders[tile].setVisible(true);
+            }
+            setGraphic(hBox);
         }
-        return previewCanvas;
     }
 }
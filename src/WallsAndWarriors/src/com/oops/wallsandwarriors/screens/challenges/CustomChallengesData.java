@@ -2,39 +2,95 @@ package com.oops.wallsandwarriors.screens.challenges;
 
 import com.oops.wallsandwarriors.Game;
 import com.oops.wallsandwarriors.StorageManager;
+import com.oops.wallsandwarriors.model.Canonicalizer;
 import com.oops.wallsandwarriors.model.ChallengeData;
+import com.oops.wallsandwarriors.util.ChallengeJournal;
 import com.oops.wallsandwarriors.util.EncodeUtils;
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStreamReader;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
 
 /**
  * A class to store the data to be represented in the Custom ChallengesScreen.
+ * The challenges are kept in a ChallengeJournal, which is read only once and
+ * shared by the screens, so adding or removing a challenge only appends a
+ * record to the file. The journal is read and its challenges are decoded on
+ * the thread of the StorageManager when the game starts, and the screens use
+ * the challenges once they are ready. The id of the record of each challenge
+ * is kept to remove it from the journal.
+ * The canonical hashes of the challenges are counted, so that a challenge
+ * which is already in the list, even rotated or mirrored, is not added again.
+ * The list has a version which changes with every change of the list, so a
+ * screen showing it can tell whether it should show it again.
  * @author Tunar Mahmudov
  * @author Ali Babayev
  */
 public class CustomChallengesData {
 
+    private static CompletableFuture<CustomChallengesData> instance;
 
+    private final ChallengeJournal journal;
     private final List<ChallengeData> customChallenges;
+    private final Map<ChallengeData, Long> recordIds;
+    private final Map<Long, Integer> canonicalCounts;
+    private int version;
 
     /**
-     * A default constructor that initializes a CustomChallengesData with no given parameters
-     * with a storageManager and an empty ArrayList of ChallengeData. If there was a saved version
-     * initializes the data as such.
+     * A method to start reading the custom challenges in the background, when
+     * the game starts.
      */
-    public CustomChallengesData()
+    public static void preload()
     {
+        getInstance();
+    }
+
+    /**
+     * A method to get the shared CustomChallengesData. It is created on the
+     * thread of the StorageManager after the file is read, so the future
+     * should be continued on the JavaFX application thread.
+     * @return the creation of the instance of the CustomChallengesData
+     */
+    public static CompletableFuture<CustomChallengesData> getInstance()
+    {
+        if (instance == null) {
+            final StorageManager storageManager = Game.getInstance().storageManager;
+            instance = storageManager.readCustomChallenges().thenCompose(
+                    new Function<String, CompletionStage<CustomChallengesData>>() {
+                @Override
+                public CompletionStage<CustomChallengesData> apply(final String content) {
+                    return storageManager.submit(new Callable<CustomChallengesData>() {
+                        @Override
+                        public CustomChallengesData call() {
+                            return new CustomChallengesData(storageManager, content);
+                        }
+                    });
+                }
+            });
+        }
+        return instance;
+    }
+
+    /**
+     * A constructor that initializes a CustomChallengesData with the journal
+     * of the custom challenges file, and decodes its live records.
+     * @param storageManager the StorageManager to write the journal with
+     * @param content the content of the custom challenges file
+     */
+    private CustomChallengesData(StorageManager storageManager, String content)
+    {
+        journal = new ChallengeJournal(storageManager.customChallengeData,
+                content, storageManager);
         customChallenges = new ArrayList<>();
+        recordIds = new IdentityHashMap<>();
+        canonicalCounts = new HashMap<>();
         readCustomChallenges();
     }
 
@@ -44,20 +100,15 @@ public class CustomChallengesData {
      */
     private void readCustomChallenges()
     {
-        try {
-            StorageManager storageManager = Game.getInstance().storageManager;
-            FileInputStream fileInputStream = new FileInputStream(
-                    storageManager.customChallengeData);
-            BufferedReader bufferedReader = new BufferedReader(
-                    new InputStreamReader(fileInputStream));
-            String code;
-            while ((code = bufferedReader.readLine()) != null) {
-                customChallenges.add(EncodeUtils.decode(code));
+        for (Map.Entry<Long, String> record : journal.getRecords().entrySet()) {
+            try {
+                ChallengeData challenge = EncodeUtils.decode(record.getValue());
+                customChallenges.add(challenge);
+                recordIds.put(challenge, record.getKey());
+                count(challenge, 1);
+            } catch (IOException | ClassNotFoundException | IllegalArgumentException e) {
+                e.printStackTrace();
             }
-
-            bufferedReader.close();
-        } catch (IOException | ClassNotFoundException e) {
-            e.printStackTrace();
         }
     }
 
@@ -70,21 +121,48 @@ public class CustomChallengesData {
         return customChallenges;
     }
 
+    /**
+     * A get method to return the version of the customChallenges.
+     * @return the number of changes made to the customChallenges.
+     */
+    public int getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * A method to check whether a challenge or a rotated or mirrored copy of
+     * it is in the customChallenges.
+     * @param challengeData challenge to look for.
+     * @return true if the challenge is in the customChallenges.
+     */
+    public boolean contains(ChallengeData challengeData)
+    {
+        return canonicalCounts.containsKey(
+                Canonicalizer.canonicalize(challengeData).getHash());
+    }
+
     /**
      * A  method to update the customChallenges to get newly added challenge.
+     * The challenge is not added if it is already in the customChallenges.
      * @param challengeData challenge to be added.
+     * @return true if the challenge is added, false if it is a duplicate.
      */
-    public void update(ChallengeData challengeData)
+    public boolean update(ChallengeData challengeData)
     {
+        if (contains(challengeData)) {
+            return false;
+        }
         try {
-            StorageManager storageManager = Game.getInstance().storageManager;
-            FileWriter fileWriter = new FileWriter(storageManager.customChallengeData, true);
-            fileWriter.write(EncodeUtils.encode(challengeData) + "\n");
-            fileWriter.close();
-
+            recordIds.put(challengeData, journal.add(EncodeUtils.encode(challengeData)));
         } catch (IOException e) {
             e.printStackTrace();
+            return false;
         }
+        customChallenges.add(challengeData);
+        count(challengeData, 1);
+        version++;
+        return true;
     }
 
     /**
@@ -92,41 +170,30 @@ public class CustomChallengesData {
      * @param challengeData challenge to be removed.
      */
     public void remove(ChallengeData challengeData) {
-        try {
-            StorageManager storageManager = Game.getInstance().storageManager;
-            File inputFile = storageManager.customChallengeData;
-            File tempFile = new File(storageManager.wnwData, "temp.dat");
-
-            BufferedReader bufferedReader = new BufferedReader(new FileReader(inputFile));
-            BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(tempFile));
-
-            String removeCode = EncodeUtils.encode(challengeData);
-            boolean deleted = false;
-            for (String lineCode; (lineCode = bufferedReader.readLine()) != null;) {
-                String trimmedLineCode = lineCode.trim();
-                if ((trimmedLineCode.equals(removeCode)) && !(deleted)) {
-                    deleted = true;
-                }
-                else {
-                    bufferedWriter.write(lineCode + System.getProperty("line.separator"));
-                }
-            }
-            bufferedReader.close();
-            bufferedWriter.close();
-            if (!inputFile.delete()) {
-                System.out.println("Could not delete file");
-                return;
-            }
-
-            //Rename the new file to the filename the original file had.
-            if (!tempFile.renameTo(inputFile)) {
-                System.out.println("Could not rename file");
-            }
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
+        Long recordId = recordIds.remove(challengeData);
+        if (recordId == null) {
+            return;
         }
-        catch (IOException e) {
-            e.printStackTrace();
+        customChallenges.remove(challengeData);
+        count(challengeData, -1);
+        version++;
+        journal.remove(recordId);
+    }
+
+    /**
+     * A method to change the number of challenges with the canonical form of a challenge.
+     * @param challengeData the challenge to count.
+     * @param change the number to add to the count.
+     */
+    private void count(ChallengeData challengeData, int change)
+    {
+        long hash = Canonicalizer.canonicalize(challengeData).getHash();
+        Integer count = canonicalCounts.get(hash);
+        int newCount = (count == null ? 0 : count) + change;
+        if (newCount > 0) {
+            canonicalCounts.put(hash, newCount);
+        } else {
+            canonicalCounts.remove(hash);
         }
     }
 }
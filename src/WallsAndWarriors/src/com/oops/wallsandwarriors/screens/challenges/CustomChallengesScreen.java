@@ -1,11 +1,12 @@
 package com.oops.wallsandwarriors.screens.challenges;
 
 import com.oops.wallsandwarriors.GameConstants;
+import com.oops.wallsandwarriors.util.AssetCache;
 import com.oops.wallsandwarriors.util.CopyUtils;
 import com.oops.wallsandwarriors.util.DebugUtils;
 import com.oops.wallsandwarriors.Game;
+import com.oops.wallsandwarriors.StorageManager;
 import com.oops.wallsandwarriors.model.ChallengeData;
-import com.oops.wallsandwarriors.screens.Screen;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.EventHandler;
@@ -20,8 +21,10 @@ import javafx.scene.text.Text;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import com.oops.wallsandwarriors.util.EncodeUtils;
 import javafx.event.ActionEvent;
@@ -51,22 +54,22 @@ public class CustomChallengesScreen extends BaseChallengesScreen {
 
     ObservableList<String> challengeNames;
     List<ChallengeData> customChallenges;
+    private int shownVersion = -1;
+    private Button importButton;
 
     /** 
-     * An overriden getScene method to return the current screen content.
-     * @return the current screen as a Screen object.
+     * An overriden method to create the content of the screen.
+     * @return the content of the screen as a Scene object.
      */
     @Override
-    public Scene getScene(){
+    protected Scene createScene(){
         Group root = new Group();
         Scene scene = new Scene(root);
 
         challengeNames = FXCollections.observableArrayList ();
-        customChallengesData = new CustomChallengesData();
-        customChallenges = customChallengesData.getCustomChallenges();
 
         DebugUtils.initClickDebugger(scene);
-        addBackgroundCanvas(root, "/com/oops/wallsandwarriors/resources/images/background2.png",
+        addBackgroundCanvas(root, AssetCache.GAME_BACKGROUND,
                 "Custom Challenges");
         super.renderButtons(root);
 
@@ -78,7 +81,7 @@ public class CustomChallengesScreen extends BaseChallengesScreen {
 
         showChallenges(root);
 
-        Button importButton = addButton(root, "Import", 0, 0, new EventHandler<ActionEvent>() {
+        importButton = addButton(root, "Import", 0, 0, new EventHandler<ActionEvent>() {
             @Override
             public void handle(ActionEvent event) {
                 importChallenge();
@@ -86,6 +89,7 @@ public class CustomChallengesScreen extends BaseChallengesScreen {
         });
         importButton.setLayoutX(GameConstants.CUST_SCR_IMP_X);
         importButton.setLayoutY(GameConstants.CUST_SCR_IMP_Y);
+        importButton.setDisable(true);
 
         constructGrid(root,grid);
 
@@ -93,15 +97,48 @@ public class CustomChallengesScreen extends BaseChallengesScreen {
     }
 
     /**
-     * A method to display CustomChallenges on the Screen.
-     * @param root root as a Group object.
+     * An overriden method to show the challenges again each time the screen
+     * is displayed, if they have changed since they were last shown, and to
+     * prepare the game screen. The challenges are shown and can be imported
+     * once they are read.
      */
-    private void showChallenges(Group root)
+    @Override
+    public void onShow() {
+        CustomChallengesData.getInstance().thenAcceptAsync(new Consumer<CustomChallengesData>() {
+            @Override
+            public void accept(CustomChallengesData data) {
+                customChallengesData = data;
+                customChallenges = data.getCustomChallenges();
+                if (shownVersion != data.getVersion()) {
+                    refreshChallenges();
+                }
+                importButton.setDisable(false);
+            }
+        }, StorageManager.FX_THREAD);
+        Game.getInstance().screenManager.prepare(Game.getInstance().screenManager.getGameScreen());
+    }
+
+    /**
+     * A method to show the names of the CustomChallenges in the list again and
+     * to clear the information of the challenge shown.
+     */
+    private void refreshChallenges()
     {
+        List<String> names = new ArrayList<>(customChallenges.size());
         for (int i = 0; i < customChallenges.size(); i++) {
-            challengeNames.add(customChallenges.get(i).getName());
+            names.add(customChallenges.get(i).getName());
         }
+        challengeNames.setAll(names);
+        grid.getChildren().clear();
+        shownVersion = customChallengesData.getVersion();
+    }
 
+    /**
+     * A method to display CustomChallenges on the Screen.
+     * @param root root as a Group object.
+     */
+    private void showChallenges(Group root)
+    {
         ListView<String> list = new ListView<>();
         list.setLayoutX(GameConstants.CUST_SCR_LAY_X);
         list.setLayoutY(GameConstants.CUST_SCR_LAY_Y);
@@ -260,15 +297,20 @@ public class CustomChallengesScreen extends BaseChallengesScreen {
         try {
             if (code != null) {
                 ChallengeData toImp = EncodeUtils.decode(code);
-                customChallenges.add(toImp);
-                customChallengesData.update(toImp);
+                if (!customChallengesData.update(toImp)) {
+                    Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                    alert.setTitle("Duplicate Challenge");
+                    alert.setHeaderText(null);
+                    alert.setContentText("This challenge, or a rotated or mirrored copy of it, "
+                            + "is already in your \"Custom Challenges\" list.");
+                    alert.showAndWait();
+                }
             }
         } catch (IOException | ClassNotFoundException e ) {
             e.printStackTrace();
         }
 
-        Screen refresh = Game.getInstance().screenManager.customChallenges;
-        Game.getInstance().setScreen(refresh);
+        refreshChallenges();
     }
 
     /**
@@ -277,10 +319,8 @@ public class CustomChallengesScreen extends BaseChallengesScreen {
      */
     public void removeChallenge(ChallengeData challengeToRemove) {
             ChallengeData toRemove = challengeToRemove;
-            customChallenges.remove(toRemove);
             customChallengesData.remove(toRemove);
-            Screen refresh = Game.getInstance().screenManager.customChallenges;
-            Game.getInstance().setScreen(refresh);
+            refreshChallenges();
     }
 
     /**
@@ -1,6 +1,7 @@
 package com.oops.wallsandwarriors.screens.game;
 
 import com.oops.wallsandwarriors.Game;
+import com.oops.wallsandwarriors.StorageManager;
 import com.oops.wallsandwarriors.model.Coordinate;
 import com.oops.wallsandwarriors.model.GridPiece;
 import com.oops.wallsandwarriors.screens.GeneralScreen;
@@ -13,14 +14,22 @@ import com.oops.wallsandwarriors.view.HighTowerView;
 import com.oops.wallsandwarriors.view.KnightView;
 import com.oops.wallsandwarriors.view.WallView;
 import com.oops.wallsandwarriors.util.Rectangle;
+import java.io.File;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
 import javafx.animation.AnimationTimer;
 import javafx.event.EventHandler;
 import javafx.scene.Group;
 import javafx.scene.Scene;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Alert;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 
@@ -29,6 +38,15 @@ import javafx.scene.input.MouseEvent;
  * screen will provide a generic definition of standard structure for playing and creating
  * challenges using the mutual components. But the distinguishing methods will be
  * implemented separately in the sub-classes.
+ * The screen is drawn on three stacked canvases: a static layer with the background,
+ * the grid and the pieces that do not move, a layer with the walls and an overlay with
+ * the piece being dragged and the fps display. A layer is drawn again only when it
+ * is marked as dirty, and the timer stops until a layer is marked as dirty again.
+ * The canvases and the controls are created once with the Scene, and the view
+ * objects of the challenge are created each time the screen is displayed.
+ * The phases of drawing and the input handlers are timed by the fps display,
+ * whose profiler overlay is toggled with F3 and exported to the storage
+ * directory with F4.
  * Extends GeneralScreen
  * @author Emin Bahadir Tuluce
  */
@@ -36,7 +54,13 @@ public abstract class BaseGameScreen extends GeneralScreen {
     
     private double lastRenderTime;
     private final AnimationTimer stepTimer;
+    private boolean timerRunning;
+    private boolean staticDirty;
+    private boolean piecesDirty;
+    private boolean overlayDirty;
     
+    protected GraphicsContext staticGraphics;
+    protected GraphicsContext pieceGraphics;
     protected GraphicsContext graphics;
     protected Coordinate hoveredBlock;
     protected GridPiece selectedPiece;
@@ -65,32 +89,83 @@ public abstract class BaseGameScreen extends GeneralScreen {
                 double deltaTime = (currentTime - lastRenderTime) / 1000000000.0;
                 lastRenderTime = currentTime;
                 step(deltaTime);
+                if (!staticDirty && !piecesDirty && !overlayDirty) {
+                    stepTimer.stop();
+                    timerRunning = false;
+                }
             }
         };
     }
 
     /**
-     * An overriden get method to return current Scene.
-     * @return the current Scene.
+     * An overriden method to create the content of the screen.
+     * @return the content of the screen as a Scene object.
      */
     @Override
-    public Scene getScene() {
+    protected Scene createScene() {
         Group root = new Group();
         Scene scene = new Scene(root);
+        staticGraphics = addBackgroundCanvas(root);
+        pieceGraphics = addBackgroundCanvas(root);
         graphics = addBackgroundCanvas(root);
+        fpsDisplayView = new FpsDisplayView();
         initClickController(scene);
         initHoverController(scene);
+        initKeyController(scene);
         addComponents(root);
+        return scene;
+    }
+
+    /**
+     * An overriden method to create the view objects of the current challenge
+     * and to start drawing them each time the screen is displayed.
+     */
+    @Override
+    public void onShow() {
+        hoveredBlock = null;
+        selectedPiece = null;
+        previewView = null;
         initViewObjects();
+        staticDirty = true;
+        piecesDirty = true;
+        overlayDirty = true;
         restartTimer();
-        return scene;
+    }
+
+    /**
+     * An overriden method to stop drawing the screen when another screen is displayed.
+     */
+    @Override
+    public void onHide() {
+        stepTimer.stop();
+        timerRunning = false;
+    }
+
+    /**
+     * A method to mark every layer as dirty after the state of the challenge
+     * has changed, so that the whole screen is drawn again in the next frame.
+     */
+    protected void invalidate() {
+        staticDirty = true;
+        piecesDirty = true;
+        invalidateOverlay();
+    }
+
+    /**
+     * A method to mark the overlay as dirty after the piece being dragged
+     * has moved, so that only the overlay is drawn again in the next frame.
+     */
+    protected void invalidateOverlay() {
+        overlayDirty = true;
+        if (!timerRunning) {
+            restartTimer();
+        }
     }
 
     /**
      * A method to initialize objects in the current view.
      */
     protected void initViewObjects() {
-        fpsDisplayView = new FpsDisplayView();
         wallViews = new ArrayList<WallView>();
         knightViews = new ArrayList<KnightView>();
         highTowerViews = new ArrayList<HighTowerView>();
@@ -102,10 +177,15 @@ public abstract class BaseGameScreen extends GeneralScreen {
             new EventHandler<MouseEvent>() {
                 @Override
                 public void handle(MouseEvent e) {
+                    long startTime = System.nanoTime();
                     lastMouseX = e.getX();
                     lastMouseY = e.getY();
                     calculateHoveredBlock(e.getX(), e.getY());
                     checkPlacement();
+                    if (selectedPiece != null || previewView != null) {
+                        invalidateOverlay();
+                    }
+                    fpsDisplayView.recordEvent(FpsDisplayView.INPUT, startTime);
                 }
             }
         );
@@ -116,21 +196,78 @@ public abstract class BaseGameScreen extends GeneralScreen {
             new EventHandler<MouseEvent>() {
                 @Override
                 public void handle(MouseEvent e) {
-                    if (e.getButton() == MouseButton.PRIMARY) {
-                        attemptPlacement();
+                    long startTime = System.nanoTime();
+                    try {
+                        if (e.getButton() == MouseButton.PRIMARY) {
+                            attemptPlacement();
+                        }
+                        else if (e.getButton() == MouseButton.SECONDARY && selectedPiece != null) {
+                            Game.getInstance().soundManager.playRotate();
+                            selectedPiece.rotate();
+                            checkPlacement();
+                            invalidateOverlay();
+                            return;
+                        }
+                        checkObjectClick(e.getX(), e.getY(), e.getButton());
+                        invalidate();
+                    } finally {
+                        fpsDisplayView.recordEvent(FpsDisplayView.INPUT, startTime);
                     }
-                    else if (e.getButton() == MouseButton.SECONDARY && selectedPiece != null) {
-                        Game.getInstance().soundManager.playRotate();
-                        selectedPiece.rotate();
-                        checkPlacement();
-                        return;
+                }
+            }
+        );
+    }
+
+    private void initKeyController(Scene scene) {
+        scene.setOnKeyPressed(
+            new EventHandler<KeyEvent>() {
+                @Override
+                public void handle(KeyEvent e) {
+                    if (e.getCode() == KeyCode.F3) {
+                        fpsDisplayView.toggleOverlay();
+                        invalidateOverlay();
+                    } else if (e.getCode() == KeyCode.F4) {
+                        exportProfile();
                     }
-                    checkObjectClick(e.getX(), e.getY(), e.getButton());
                 }
             }
         );
     }
 
+    /**
+     * A method to write the profile of the frames to a CSV and a JSON file in
+     * the storage directory, in the background, and to tell the player where
+     * they are written once they are.
+     */
+    private void exportProfile() {
+        StorageManager storageManager = Game.getInstance().storageManager;
+        String name = "profile-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        final File csvFile = new File(storageManager.wnwData, name + ".csv");
+        final File jsonFile = new File(storageManager.wnwData, name + ".json");
+        CompletableFuture.allOf(
+                storageManager.writeLines(csvFile, fpsDisplayView.toCsv()),
+                storageManager.writeLines(jsonFile, fpsDisplayView.toJson()))
+                .whenCompleteAsync(new BiConsumer<Void, Throwable>() {
+            @Override
+            public void accept(Void result, Throwable error) {
+                Alert alert;
+                if (error == null) {
+                    alert = new Alert(Alert.AlertType.INFORMATION);
+                    alert.setTitle("Profile Exported");
+                    alert.setContentText("The profile is written to\n" + csvFile.getPath()
+                            + "\n" + jsonFile.getPath());
+                } else {
+                    alert = new Alert(Alert.AlertType.ERROR);
+                    alert.setTitle("Profile Not Exported");
+                    alert.setContentText("The profile could not be written to "
+                            + csvFile.getParent());
+                }
+                alert.setHeaderText(null);
+                alert.show();
+            }
+        }, StorageManager.FX_THREAD);
+    }
+
     /**
      * A method to restart the timer for the game
      */
@@ -138,6 +275,7 @@ public abstract class BaseGameScreen extends GeneralScreen {
         stepTimer.stop();
         lastRenderTime = System.nanoTime();
         stepTimer.start();
+        timerRunning = true;
     }
     
     private void calculateHoveredBlock(double mouseX, double mouseY) {
@@ -186,22 +324,63 @@ public abstract class BaseGameScreen extends GeneralScreen {
     }
 
     /**
-     * A method to draw all knights on the Screen
+     * A method to draw the dirty layers of the screen and to end the frame of
+     * the profiler. While the profiler overlay is shown, the overlay is drawn
+     * in every frame.
+     * @param deltaTime the time difference until last render
+     */
+    private void step(double deltaTime) {
+        if (staticDirty) {
+            staticDirty = false;
+            clearLayer(staticGraphics);
+            drawStaticLayer(deltaTime);
+        }
+        if (piecesDirty) {
+            piecesDirty = false;
+            clearLayer(pieceGraphics);
+            long startTime = System.nanoTime();
+            drawWalls(deltaTime);
+            fpsDisplayView.record(FpsDisplayView.WALLS, startTime);
+        }
+        if (overlayDirty) {
+            overlayDirty = false;
+            clearLayer(graphics);
+            long startTime = System.nanoTime();
+            drawOverlay(deltaTime);
+            fpsDisplayView.record(FpsDisplayView.OVERLAY, startTime);
+            fpsDisplayView.draw(graphics, deltaTime);
+        }
+        fpsDisplayView.endFrame(deltaTime);
+        if (fpsDisplayView.isOverlayShown()) {
+            overlayDirty = true;
+        }
+    }
+
+    /**
+     * A method to clear a layer of the screen
+     * @param layer the graphics object of the layer
+     */
+    private void clearLayer(GraphicsContext layer) {
+        layer.clearRect(0, 0, layer.getCanvas().getWidth(), layer.getCanvas().getHeight());
+    }
+
+    /**
+     * A method to draw all knights on the static layer
      * @param deltaTime the time difference until last render
      */
     protected void drawKnights(double deltaTime) {
         for (KnightView knightView : knightViews) {
-            knightView.draw(graphics, deltaTime);
+            knightView.draw(staticGraphics, deltaTime);
         }
     }
 
     /**
-     * A method to draw all high towers on the screen
+     * A method to draw all high towers on the static layer
      * @param deltaTime the time difference until last render
      */
     protected void drawHighTowers(double deltaTime) {
         for (HighTowerView highTowerView : highTowerViews) {
-            highTowerView.draw(graphics, deltaTime);
+            highTowerView.draw(staticGraphics, deltaTime);
         }
     }
     
@@ -213,12 +392,24 @@ public abstract class BaseGameScreen extends GeneralScreen {
     
     protected abstract void resetState();
     
-    protected abstract void step(double deltaTime);
+    /**
+     * An abstract method to draw the background, the palette, the grid and the
+     * pieces that move only when the challenge changes on the static layer
+     * @param deltaTime the time difference until last render
+     */
+    protected abstract void drawStaticLayer(double deltaTime);
 
     /**
-     * An abstract method  to draw all wals on the screen to their correct places
+     * An abstract method  to draw all wals except the one being dragged
+     * on the wall layer to their correct places
      * @param deltaTime the time difference until last render
      */
     protected abstract void drawWalls(double deltaTime);
+
+    /**
+     * An abstract method to draw the piece being dragged on the overlay
+     * @param deltaTime the time difference until last render
+     */
+    protected abstract void drawOverlay(double deltaTime);
     
 }
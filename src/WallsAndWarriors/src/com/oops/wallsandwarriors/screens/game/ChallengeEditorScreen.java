@@ -4,6 +4,8 @@ import com.oops.wallsandwarriors.ChallengeManager;
 import com.oops.wallsandwarriors.Game;
 import com.oops.wallsandwarriors.GameConstants;
 import com.oops.wallsandwarriors.SolutionManager;
+import com.oops.wallsandwarriors.SolverManager;
+import com.oops.wallsandwarriors.StorageManager;
 import com.oops.wallsandwarriors.definitions.WallDefinitions;
 import com.oops.wallsandwarriors.model.ChallengeData;
 import com.oops.wallsandwarriors.model.GridPiece;
@@ -17,6 +19,7 @@ import com.oops.wallsandwarriors.view.BackgroundView;
 import com.oops.wallsandwarriors.view.BoundedViewObject;
 import com.oops.wallsandwarriors.view.EditorPaletteElementView;
 import com.oops.wallsandwarriors.view.EditorPaletteView;
+import com.oops.wallsandwarriors.view.FpsDisplayView;
 import com.oops.wallsandwarriors.view.GridPieceView;
 import com.oops.wallsandwarriors.view.GridView;
 import com.oops.wallsandwarriors.view.HighTowerView;
@@ -28,6 +31,9 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
@@ -45,6 +51,10 @@ import javafx.scene.text.Font;
 
 /**
  * This class defines the structure of the editor screen for Challenge Editor.
+ * After every edit, the solutions of the challenge are counted up to two in
+ * the background by the SolverManager, so the screen shows whether the
+ * challenge is unique, ambiguous or unsolvable without blocking the JavaFX
+ * application thread.
  * Extends BaseGameScreen
  * @author Emin Bahadir Tuluce
  * @author Cagla Sozen
@@ -52,13 +62,19 @@ import javafx.scene.text.Font;
  */
 public class ChallengeEditorScreen extends BaseGameScreen {
     
+    private static final int SOLUTION_LIMIT = 2;
+    private static final long VERIFICATION_TIME_LIMIT = 10000;
+    
+    private SolverManager.Job<Integer> verification;
+    private int solutionCount = -1;
+    private boolean countFailed;
+    private Label uniquenessLabel;
+    
     private EditorPaletteView paletteView;
     private List<EditorPaletteElementView> paletteElementViews;
     private TextField nameField;
     private TextField descriptionField;
     private TextField creatorField;
-    
-    List<ChallengeData> customChallenges;
 
     @Override
     protected void initViewObjects() {
@@ -69,6 +85,19 @@ public class ChallengeEditorScreen extends BaseGameScreen {
         backgroundView = new BackgroundView(true);
         paletteView = new EditorPaletteView();
         initPaletteElements();
+        verifyUniqueness();
+    }
+
+    /**
+     * An overriden method to start editing a new challenge with empty
+     * information each time the screen is displayed.
+     */
+    @Override
+    public void onShow() {
+        super.onShow();
+        nameField.clear();
+        descriptionField.clear();
+        creatorField.clear();
     }
 
     private void initPaletteElements() {
@@ -90,7 +119,7 @@ public class ChallengeEditorScreen extends BaseGameScreen {
     @Override
     protected void addComponents(Group root) {
         addTransitionButton(root, "Back", GameConstants.EDITOR_BACK_X,
-                GameConstants.EDITOR_BACK_Y, Game.getInstance().screenManager.mainMenu);
+                GameConstants.EDITOR_BACK_Y, Game.getInstance().screenManager.getMainMenu());
         addButton(root, "Export", GameConstants.EDITOR_EXP_X,
                 GameConstants.EDITOR_EXP_Y, new EventHandler<ActionEvent>() {
             @Override
@@ -153,6 +182,68 @@ public class ChallengeEditorScreen extends BaseGameScreen {
         root.getChildren().add(descriptionField);
         root.getChildren().add(creatorField);
         
+        uniquenessLabel = new Label();
+        uniquenessLabel.setFont(labelFont);
+        uniquenessLabel.setTextFill(Color.WHITE);
+        setLayoutPos(uniquenessLabel, GameConstants.EDITOR_LABEL_X,
+                GameConstants.EDITOR_LABEL_Y + (GameConstants.EDITOR_LABEL_SP*3));
+        root.getChildren().add(uniquenessLabel);
+    }
+    
+    /**
+     * A method to count the solutions of the edited challenge up to two in the
+     * background. The previous count is cancelled, so its result is never
+     * shown after a newer edit.
+     */
+    private void verifyUniqueness() {
+        if (verification != null) {
+            verification.cancel();
+            verification = null;
+        }
+        solutionCount = -1;
+        countFailed = false;
+        ChallengeData challenge = Game.getInstance().challengeManager.getChallengeData();
+        if (!challenge.hasBlueKnights()) {
+            uniquenessLabel.setText("Solutions: -");
+            return;
+        }
+        uniquenessLabel.setText("Solutions: checking...");
+        final SolverManager.Job<Integer> count = Game.getInstance().solverManager.
+                countSolutions(challenge, SOLUTION_LIMIT, VERIFICATION_TIME_LIMIT);
+        verification = count;
+        count.getResult().whenComplete(new BiConsumer<Integer, Throwable>() {
+            @Override
+            public void accept(Integer solutionNo, Throwable error) {
+                if (verification != count) {
+                    return;
+                }
+                verification = null;
+                if (error == null) {
+                    showSolutionCount(solutionNo);
+                } else if (error instanceof TimeoutException) {
+                    uniquenessLabel.setText("Solutions: not counted in time");
+                } else {
+                    error.printStackTrace();
+                    countFailed = true;
+                    uniquenessLabel.setText("Solutions: unknown");
+                }
+            }
+        });
+    }
+    
+    /**
+     * A method to show the result of counting the solutions.
+     * @param count number of solutions, at most two
+     */
+    private void showSolutionCount(int count) {
+        solutionCount = count;
+        if (count == 0) {
+            uniquenessLabel.setText("Solutions: unsolvable");
+        } else if (count == 1) {
+            uniquenessLabel.setText("Solutions: unique");
+        } else {
+            uniquenessLabel.setText("Solutions: ambiguous");
+        }
     }
     
     @Override
@@ -166,6 +257,7 @@ public class ChallengeEditorScreen extends BaseGameScreen {
             if (placed) {
                 Game.getInstance().challengeManager.getChallengeData().addPiece(selectedPiece);
                 updateViewList();
+                verifyUniqueness();
                 return true;
             }
         }
@@ -220,6 +312,7 @@ public class ChallengeEditorScreen extends BaseGameScreen {
                 }
                 if (button == MouseButton.PRIMARY || button == MouseButton.SECONDARY) {
                     updateViewList();
+                    verifyUniqueness();
                     return true;
                 }
             }
@@ -249,25 +342,31 @@ public class ChallengeEditorScreen extends BaseGameScreen {
         previewView = null;
         Game.getInstance().challengeManager.getChallengeData().resetAll();
         updateViewList();
+        verifyUniqueness();
+        invalidate();
     }
     
     @Override
-    protected void step(double deltaTime) {
-        backgroundView.draw(graphics, deltaTime);
-        fpsDisplayView.draw(graphics, deltaTime);
-        paletteView.draw(graphics, deltaTime);
-        gridView.draw(graphics, deltaTime);
+    protected void drawStaticLayer(double deltaTime) {
+        long time = System.nanoTime();
+        backgroundView.draw(staticGraphics, deltaTime);
+        time = fpsDisplayView.record(FpsDisplayView.BACKGROUND, time);
+        paletteView.draw(staticGraphics, deltaTime);
+        time = fpsDisplayView.record(FpsDisplayView.PALETTE, time);
+        gridView.draw(staticGraphics, deltaTime);
+        time = fpsDisplayView.record(FpsDisplayView.GRID, time);
         
         drawPaletteElements(deltaTime);
+        time = fpsDisplayView.record(FpsDisplayView.PALETTE, time);
         drawKnights(deltaTime);
+        time = fpsDisplayView.record(FpsDisplayView.KNIGHTS, time);
         drawHighTowers(deltaTime);
-        drawWalls(deltaTime);
-        drawPreview(deltaTime);
+        fpsDisplayView.record(FpsDisplayView.TOWERS, time);
     }
     
     private void drawPaletteElements(double deltaTime) {
         for (EditorPaletteElementView paletteElement : paletteElementViews) {
-            paletteElement.draw(graphics, deltaTime);
+            paletteElement.draw(staticGraphics, deltaTime);
         }
     }
     
@@ -275,11 +374,12 @@ public class ChallengeEditorScreen extends BaseGameScreen {
     protected void drawWalls(double deltaTime) {
         for (WallView wallView : wallViews) {
             wallView.update(false, false, -1, -1);
-            wallView.draw(graphics, deltaTime);
+            wallView.draw(pieceGraphics, deltaTime);
         }
     }
     
-    private void drawPreview(double deltaTime) {
+    @Override
+    protected void drawOverlay(double deltaTime) {
         if (previewView != null) {
             double dragX;
             double dragY;
@@ -356,6 +456,35 @@ public class ChallengeEditorScreen extends BaseGameScreen {
         else
             isValid = true;
 
+        if (isValid && (solutionCount >= SOLUTION_LIMIT || solutionCount < 0)) {
+            Alert ambiguousAlert = new Alert(Alert.AlertType.CONFIRMATION);
+            ambiguousAlert.setHeaderText(null);
+            if (solutionCount >= SOLUTION_LIMIT) {
+                ambiguousAlert.setTitle("Ambiguous Challenge");
+                ambiguousAlert.setContentText("The challenge has more than one solution. "
+                        + "Export it anyway?");
+            } else if (verification != null) {
+                ambiguousAlert.setTitle("Uniqueness Not Checked");
+                ambiguousAlert.setContentText("The solutions of the challenge are still "
+                        + "being counted, so it may have more than one solution. "
+                        + "Export it anyway?");
+            } else if (countFailed) {
+                ambiguousAlert.setTitle("Uniqueness Not Checked");
+                ambiguousAlert.setContentText("The solutions of the challenge could not be "
+                        + "counted, so it may have more than one solution. "
+                        + "Export it anyway?");
+            } else {
+                ambiguousAlert.setTitle("Uniqueness Not Checked");
+                ambiguousAlert.setContentText("The solutions of the challenge could not be "
+                        + "counted in time, so it may have more than one solution. "
+                        + "Export it anyway?");
+            }
+            Optional<ButtonType> answer = ambiguousAlert.showAndWait();
+            if (!answer.isPresent() || answer.get() != ButtonType.OK) {
+                return;
+            }
+        }
+
         if (isValid) {
             exportedChallenge.setDescription(descriptionField.getText());
             exportedChallenge.setName(nameField.getText());
@@ -395,24 +524,30 @@ public class ChallengeEditorScreen extends BaseGameScreen {
     }
     
     private void addToCustomChallenges(String challengeData) throws IOException {
-        CustomChallengesData customChallengesData = new CustomChallengesData();
-        customChallenges = customChallengesData.getCustomChallenges();
-
-        ChallengeData toImp = null;
+        ChallengeData decoded = null;
         try {
-            toImp = EncodeUtils.decode(challengeData);
+            decoded = EncodeUtils.decode(challengeData);
         } catch (ClassNotFoundException e) {
             e.printStackTrace();
         }
+        final ChallengeData toImp = decoded;
 
-        if (customChallenges.add(toImp)) {
-            customChallengesData.update(toImp);
-            Alert alert = new Alert(Alert.AlertType.INFORMATION);
-            alert.setTitle("Successful");
-            alert.setContentText("The new challenge added to your \"Custom Challenges\" list successfully!");
-            alert.setHeaderText(null);
-            alert.showAndWait();
-        }
+        CustomChallengesData.getInstance().thenAcceptAsync(new Consumer<CustomChallengesData>() {
+            @Override
+            public void accept(CustomChallengesData customChallengesData) {
+                Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                alert.setHeaderText(null);
+                if (customChallengesData.update(toImp)) {
+                    alert.setTitle("Successful");
+                    alert.setContentText("The new challenge added to your \"Custom Challenges\" list successfully!");
+                } else {
+                    alert.setTitle("Duplicate Challenge");
+                    alert.setContentText("This challenge, or a rotated or mirrored copy of it, "
+                            + "is already in your \"Custom Challenges\" list.");
+                }
+                alert.showAndWait();
+            }
+        }, StorageManager.FX_THREAD);
     }
     
 }
@@ -2,31 +2,29 @@ package com.oops.wallsandwarriors.screens.game;
 
 import com.oops.wallsandwarriors.Game;
 import com.oops.wallsandwarriors.GameConstants;
+import com.oops.wallsandwarriors.HintManager;
 import com.oops.wallsandwarriors.SolutionManager;
-import com.oops.wallsandwarriors.StorageManager;
+import com.oops.wallsandwarriors.SolverManager;
 import com.oops.wallsandwarriors.model.ChallengeData;
 import com.oops.wallsandwarriors.model.HighTowerData;
 import com.oops.wallsandwarriors.model.KnightData;
 import com.oops.wallsandwarriors.model.WallData;
 import com.oops.wallsandwarriors.screens.Screen;
 import com.oops.wallsandwarriors.screens.challenges.CampaignChallengesData;
-import com.oops.wallsandwarriors.util.EncodeUtils;
 import com.oops.wallsandwarriors.view.BackgroundView;
 import com.oops.wallsandwarriors.view.BoundedViewObject;
+import com.oops.wallsandwarriors.view.FpsDisplayView;
 import com.oops.wallsandwarriors.view.GridView;
 import com.oops.wallsandwarriors.view.HighTowerView;
 import com.oops.wallsandwarriors.view.KnightView;
 import com.oops.wallsandwarriors.view.GamePaletteView;
 import com.oops.wallsandwarriors.view.WallView;
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
-import java.io.IOException;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
 
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
@@ -52,9 +50,14 @@ import javafx.scene.text.Text;
  */
 public class GameScreen extends BaseGameScreen {
 
+    private static final long HINT_TIME_LIMIT = 10000;
+
     private GamePaletteView wallPaletteView;
     private Screen previousScreen;
     private Button muteButton;
+    private Button hintButton;
+    private SolverManager.Job<List<ChallengeData>> hintSearch;
+    private int campaignIndex = -1;
 
     /**
      * A method to set the previous screen of the current screen.
@@ -64,6 +67,14 @@ public class GameScreen extends BaseGameScreen {
         this.previousScreen = previousScreen;
     }
 
+    /**
+     * A method to set the index of the campaign challenge to be played.
+     * @param campaignIndex index of the challenge in the campaign challenges list.
+     */
+    public void setCampaignIndex(int campaignIndex) {
+        this.campaignIndex = campaignIndex;
+    }
+
     /**
      * A method to initialize objects in the current view.
      */
@@ -87,6 +98,18 @@ public class GameScreen extends BaseGameScreen {
         clickables.addAll(wallViews);
     }
 
+    /**
+     * An overriden method to show the state of the hint and the sound each
+     * time the screen is displayed.
+     */
+    @Override
+    public void onShow() {
+        super.onShow();
+        hintSearch = null;
+        hintButton.setDisable(false);
+        muteButton.setText(Game.getInstance().soundManager.soundCheck() ? "Mute" : "Unmute");
+    }
+
     @Override
     protected void addComponents(Group root) {
         addButton(root, "Back", GameConstants.GAME_SCR_BACK_X,
@@ -96,7 +119,7 @@ public class GameScreen extends BaseGameScreen {
                 changeScreen(previousScreen);
             }
         });
-        addButton(root, "Hint", GameConstants.GAME_SCR_HINT_X,
+        hintButton = addButton(root, "Hint", GameConstants.GAME_SCR_HINT_X,
                 GameConstants.GAME_SCR_HINT_Y, new EventHandler<ActionEvent>() {
             @Override
             public void handle(ActionEvent event) {
@@ -171,50 +194,73 @@ public class GameScreen extends BaseGameScreen {
         Game.getInstance().soundManager.playSecondary();
         selectedPiece = null;
         Game.getInstance().challengeManager.getChallengeData().resetWalls();
+        invalidate();
+        saveSession();
     }
 
     @Override
-    protected void step(double deltaTime) {
-        backgroundView.draw(graphics, deltaTime);
-        fpsDisplayView.draw(graphics, deltaTime);
-        wallPaletteView.draw(graphics, deltaTime);
-        gridView.draw(graphics, deltaTime);
+    protected void drawStaticLayer(double deltaTime) {
+        long time = System.nanoTime();
+        backgroundView.draw(staticGraphics, deltaTime);
+        time = fpsDisplayView.record(FpsDisplayView.BACKGROUND, time);
+        wallPaletteView.draw(staticGraphics, deltaTime);
+        time = fpsDisplayView.record(FpsDisplayView.PALETTE, time);
+        gridView.draw(staticGraphics, deltaTime);
+        time = fpsDisplayView.record(FpsDisplayView.GRID, time);
 
         drawKnights(deltaTime);
+        time = fpsDisplayView.record(FpsDisplayView.KNIGHTS, time);
         drawHighTowers(deltaTime);
-        drawWalls(deltaTime);
+        fpsDisplayView.record(FpsDisplayView.TOWERS, time);
     }
 
     /**
-     * An abstract method  to draw all wals on the screen to their correct places
+     * A method to draw all walls except the selected one on the wall layer
+     * to their correct places
      * @param deltaTime the time difference until last render
      */
     @Override
     protected void drawWalls(double deltaTime) {
-        WallView selectedWallView = null;
         for (WallView wallView : wallViews) {
-            double dragX;
-            double dragY;
-            boolean previewSuitable;
-            if (hoveredBlock == null) {
-                dragX = lastMouseX;
-                dragY = lastMouseY;
-                previewSuitable = false;
-            } else {
-                dragX = gridView.translateToScreenX(hoveredBlock.x + 0.5);
-                dragY = gridView.translateToScreenY(hoveredBlock.y + 0.5);
-                previewSuitable = placementIsSuitable;
+            if (selectedPiece != wallView.getModel()) {
+                updateWallView(wallView);
+                wallView.draw(pieceGraphics, deltaTime);
             }
-            wallView.update(selectedPiece == wallView.getModel(), previewSuitable, dragX, dragY);
+        }
+    }
+
+    /**
+     * A method to draw the selected wall on the overlay at the mouse position
+     * @param deltaTime the time difference until last render
+     */
+    @Override
+    protected void drawOverlay(double deltaTime) {
+        for (WallView wallView : wallViews) {
             if (selectedPiece == wallView.getModel()) {
-                selectedWallView = wallView;
-            } else {
+                updateWallView(wallView);
                 wallView.draw(graphics, deltaTime);
             }
         }
-        if (selectedWallView != null) {
-            selectedWallView.draw(graphics, deltaTime);
+    }
+
+    /**
+     * A method to update the drawing parameters of a wall view from the mouse position
+     * @param wallView the wall view to update
+     */
+    private void updateWallView(WallView wallView) {
+        double dragX;
+        double dragY;
+        boolean previewSuitable;
+        if (hoveredBlock == null) {
+            dragX = lastMouseX;
+            dragY = lastMouseY;
+            previewSuitable = false;
+        } else {
+            dragX = gridView.translateToScreenX(hoveredBlock.x + 0.5);
+            dragY = gridView.translateToScreenY(hoveredBlock.y + 0.5);
+            previewSuitable = placementIsSuitable;
         }
+        wallView.update(selectedPiece == wallView.getModel(), previewSuitable, dragX, dragY);
     }
 
     /**
@@ -234,33 +280,88 @@ public class GameScreen extends BaseGameScreen {
         } else {
             Game.getInstance().soundManager.playCongrats();
             handleAlert("WIN", "\n Congratulations!\n You solved the challenge. ", true);
-            if (previousScreen == Game.getInstance().screenManager.campaignChallenges) {
+            if (previousScreen == Game.getInstance().screenManager.getCampaignChallenges()) {
                 editProgressInfo(challenge, true);
             }
         }
     }
 
     /**
-     * A method to give by placing one wall to the correct place on the grid hint to
-     * the user for the challenge player.
+     * A method to give a hint to the user for the challenge played. If the
+     * solutions of the challenge are not known yet, they are found in the
+     * background and the hint is given when the search finishes. The hint
+     * button is disabled while the solutions are being searched.
      */
-    private void showHint(){
-            ChallengeData challengeData = Game.getInstance().challengeManager.getChallengeData();
-            ChallengeData solutionData = Game.getInstance().hintManager.getChallengeData();
-
-            challengeData.walls.get(1).setWallDefinition(solutionData.walls.
-                    get(1).getWallDefinition());
-
-            boolean placable =  Game.getInstance().gridManager.isPiecePlacable(solutionData.walls.
-                    get(1).getPosition(), challengeData.walls.get(1));
-            if (!placable) {
-                resetState();
+    private void showHint() {
+        final HintManager hintManager = Game.getInstance().hintManager;
+        if (hintManager.isSolved()) {
+            applyHint();
+            return;
+        }
+        if (hintSearch != null) {
+            return;
+        }
+        final ChallengeData solved = hintManager.getChallengeData();
+        final SolverManager.Job<List<ChallengeData>> search =
+                Game.getInstance().solverManager.solve(solved, HINT_TIME_LIMIT);
+        hintSearch = search;
+        hintButton.setDisable(true);
+        search.getResult().whenComplete(new BiConsumer<List<ChallengeData>, Throwable>() {
+            @Override
+            public void accept(List<ChallengeData> solutions, Throwable error) {
+                if (hintSearch != search) {
+                    return;
+                }
+                hintSearch = null;
+                hintButton.setDisable(false);
+                if (error == null) {
+                    hintManager.setSolutions(solved, solutions);
+                    applyHint();
+                } else if (error instanceof TimeoutException) {
+                    showHintAlert("The solutions of this challenge could not be found in time.");
+                }
             }
+        });
+    }
 
-            Game.getInstance().gridManager.attemptPlacement(solutionData.walls.
-                    get(1).getPosition(),challengeData.walls.get(1));
-            saveSession();
-            checkSolution(false);
+    /**
+     * A method to apply the hint for the current placement of the walls. The
+     * walls which are not placed as in the nearest solution are taken back to
+     * the palette and the next wall of that solution is placed on the grid.
+     */
+    private void applyHint() {
+        ChallengeData challengeData = Game.getInstance().challengeManager.getChallengeData();
+        HintManager.Hint hint = Game.getInstance().hintManager.getHint(challengeData);
+        if (hint == null) {
+            showHintAlert("This challenge has no solution.");
+            return;
+        }
+        Game.getInstance().soundManager.playSecondary();
+        selectedPiece = null;
+        for (int index : hint.getMisplacedWalls()) {
+            challengeData.walls.get(index).setPosition(null);
+        }
+        if (hint.getWallIndex() >= 0) {
+            WallData wall = challengeData.walls.get(hint.getWallIndex());
+            wall.setPosition(null);
+            wall.setWallDefinition(hint.getDefinition());
+            Game.getInstance().gridManager.attemptPlacement(hint.getPosition(), wall);
+        }
+        invalidate();
+        saveSession();
+        checkSolution(false);
+    }
+
+    /**
+     * A method to show a message about a hint.
+     * @param content the message to show
+     */
+    private void showHintAlert(String content) {
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Hint");
+        alert.setHeaderText(null);
+        alert.setContentText(content);
+        alert.showAndWait();
     }
 
     /**
@@ -280,7 +381,7 @@ public class GameScreen extends BaseGameScreen {
             alert.setHeaderText(null);
             alert.getButtonTypes().add(backType);
             alert.getButtonTypes().add(stayType);
-            if (previousScreen == Game.getInstance().screenManager.campaignChallenges) {
+            if (previousScreen == Game.getInstance().screenManager.getCampaignChallenges()) {
                 alert.getButtonTypes().add(nextType);
                 ((Button) alert.getDialogPane().lookupButton(nextType)).setMinHeight(60);
             }
@@ -317,40 +418,19 @@ public class GameScreen extends BaseGameScreen {
      * @param screen new screen to pass/move
      */
     private void changeScreen(Screen screen) {
-        Game.getInstance().storageManager.clearSessionFile();
+        Game.getInstance().sessionWriter.clear();
         Game.getInstance().setScreen(screen);
     }
 
     /**
      * A method to save the session of the player after having sudden system
-     * crash while playing the challenge
+     * crash while playing the challenge. The moves are written in the
+     * background by the SessionWriter.
      */
     private void saveSession() {
-        try {
-            ChallengeData challengeData = Game.getInstance().challengeManager.getChallengeData();
-            ChallengeData hintData = Game.getInstance().hintManager.getChallengeData();
-            StorageManager storageManager = Game.getInstance().storageManager;
-            File inputFile = storageManager.sessionData;
-            File tempFile = new File(storageManager.wnwData, "tempSession.dat");
-            BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(tempFile));
-            String challengeCode = EncodeUtils.encode(challengeData);
-            String hintCode = EncodeUtils.encode(hintData);
-            bufferedWriter.write(challengeCode + "\n" + hintCode + "\n");
-            bufferedWriter.close();
-            if (!inputFile.delete()) {
-                System.out.println("Could not delete file");
-                return;
-            }
-            // Rename the new file to the filename the original file had.
-            if (!tempFile.renameTo(inputFile)) {
-                System.out.println("Could not rename file");
-            }
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-        }
-        catch (IOException e) {
-            e.printStackTrace();
-        }
+        ChallengeData challengeData = Game.getInstance().challengeManager.getChallengeData();
+        ChallengeData hintData = Game.getInstance().hintManager.getChallengeData();
+        Game.getInstance().sessionWriter.record(challengeData, hintData);
     }
 
     /**
@@ -360,50 +440,29 @@ public class GameScreen extends BaseGameScreen {
      */
     private void editProgressInfo(ChallengeData challengeData, boolean isSolved)
     {
-        FileWriter fileWriter;
-        StorageManager storageManager = Game.getInstance().storageManager;
-        try {
-            fileWriter = new FileWriter(storageManager.progressData);
-            int index = getIndex(challengeData);
-            if (isSolved) {
-                if (index < CampaignChallengesData.campaignChallengesProgress.size() - 1) {
-                    CampaignChallengesData.campaignChallengesProgress.set(index + 1, "1");
-                }
-            } else {
-                CampaignChallengesData.campaignChallengesProgress.set(index + 1, "0");
-            }
-            fileWriter.write(CampaignChallengesData.campaignChallengesProgress.toString() + "\n");
-            fileWriter.close();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * A method to indicate the index(sequence number) of a challenge in campaign challenges list
-     * @param challengeData challenge to get its index
-     * @return sequence number of the challenge
-     */
-    private int getIndex(ChallengeData challengeData) {
-        for (int i = 0; i < CampaignChallengesData.campaignChallenges.size(); i++) {
-            if (challengeData.getName().equals(CampaignChallengesData.campaignChallenges.get(i).getName())) {
-                return i;
+        int index = campaignIndex;
+        if (isSolved) {
+            if (index < CampaignChallengesData.campaignChallengesProgress.size() - 1) {
+                CampaignChallengesData.campaignChallengesProgress.set(index + 1, "1");
             }
+        } else {
+            CampaignChallengesData.campaignChallengesProgress.set(index + 1, "0");
         }
-        return -1;
+        Game.getInstance().storageManager.writeProgress(
+                CampaignChallengesData.campaignChallengesProgress);
     }
 
     /**
      * A method to pass/go to next challenge after solving the current/recent campaign challenge
      */
     private void goNextChallenge() {
-        ChallengeData current = Game.getInstance().challengeManager.getChallengeData();
         List<String> progress = CampaignChallengesData.campaignChallengesProgress;
-        int nextIndex = getIndex(current) + 1;
+        int nextIndex = campaignIndex + 1;
         if (nextIndex == 0 || nextIndex >= progress.size()) {
             changeScreen(previousScreen);
         } else {
             ChallengeData next = CampaignChallengesData.campaignChallenges.get(nextIndex);
+            campaignIndex = nextIndex;
             Game.getInstance().challengeManager.setChallengeData(next.createCopy(true));
             Game.getInstance().hintManager.setChallengeData(next.createCopy(false));
             Game.getInstance().setScreen(this);
@@ -0,0 +1,439 @@
+package com.oops.wallsandwarriors.solver;
+
+import com.oops.wallsandwarriors.model.ChallengeData;
+import com.oops.wallsandwarriors.model.Coordinate;
+import com.oops.wallsandwarriors.model.WallData;
+import com.oops.wallsandwarriors.model.WallDefinition;
+import com.oops.wallsandwarriors.model.WallPortion;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A class to represent the grid of a challenge as bit masks. Every block is
+ * packed into a single bit of a long with a row stride of 8, so that a grid
+ * spanning at most 7 columns and 7 rows fits into one long together with the
+ * edges on its right and bottom border. Walls are packed into two edge masks:
+ * a horizontal wall on the top edge of a cell and a vertical wall on the left
+ * edge of a cell are stored on the bit of that cell.
+ * Reachability is computed with an iterative shift-and-mask flood fill, so
+ * none of the operations allocate. The minimum number of edges separating
+ * two sets of cells is computed as a unit capacity maximum flow.
+ */
+public class BitBoard {
+
+    public static final int STRIDE = 8;
+    public static final int MAX_SPAN = STRIDE - 1;
+
+    private int originX;
+    private int originY;
+    private boolean fits;
+
+    // The grid is only packed again when a different block list is loaded
+    private List<Coordinate> loadedBlocks;
+    private int loadedSize;
+
+    private long blocks;
+    private long horizontalWalls;
+    private long verticalWalls;
+
+    // The flow of the minimum cut search: a cell bit in rightFlow means one
+    // unit flows from the cell to the cell on its right, in leftFlow one unit
+    // flows back, and the outer masks hold the used edges to the outside
+    private long rightFlow;
+    private long leftFlow;
+    private long downFlow;
+    private long upFlow;
+    private long outerRightFlow;
+    private long outerLeftFlow;
+    private long outerDownFlow;
+    private long outerUpFlow;
+    private final long[] layers = new long[STRIDE * STRIDE + 1];
+    private long pathHorizontal;
+    private long pathVertical;
+
+    /**
+     * A method to load the blocks and the placed walls of a challenge.
+     * @param challenge the challenge to load
+     * @return true if the grid of the challenge fits into the board
+     */
+    public boolean load(ChallengeData challenge) {
+        if (!loadBlocks(challenge.blocks)) {
+            return false;
+        }
+        List<WallData> walls = challenge.walls;
+        for (int i = 0; i < walls.size(); i++) {
+            addWall(walls.get(i));
+        }
+        return true;
+    }
+
+    /**
+     * A method to load the blocks of a grid and to clear all walls.
+     * @param gridBlocks the blocks of the grid
+     * @return true if the grid fits into the board
+     */
+    public boolean loadBlocks(List<Coordinate> gridBlocks) {
+        clearWalls();
+        if (gridBlocks == loadedBlocks && gridBlocks.size() == loadedSize) {
+            return fits;
+        }
+        loadedBlocks = gridBlocks;
+        loadedSize = gridBlocks.size();
+
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < gridBlocks.size(); i++) {
+            Coordinate block = gridBlocks.get(i);
+            minX = Math.min(minX, block.x);
+            minY = Math.min(minY, block.y);
+            maxX = Math.max(maxX, block.x);
+            maxY = Math.max(maxY, block.y);
+        }
+        blocks = 0;
+        if (gridBlocks.isEmpty()) {
+            originX = 0;
+            originY = 0;
+            fits = true;
+            return true;
+        }
+        originX = minX;
+        originY = minY;
+        fits = maxX - minX < MAX_SPAN && maxY - minY < MAX_SPAN;
+        if (fits) {
+            for (int i = 0; i < gridBlocks.size(); i++) {
+                Coordinate block = gridBlocks.get(i);
+                blocks |= cellBit(block.x, block.y);
+            }
+        }
+        return fits;
+    }
+
+    /**
+     * A method to remove all walls from the board.
+     */
+    public void clearWalls() {
+        horizontalWalls = 0;
+        verticalWalls = 0;
+    }
+
+    /**
+     * A method to add the portions of a placed wall to the edge masks.
+     * Walls without a position are ignored.
+     * @param wall the wall to add
+     */
+    public void addWall(WallData wall) {
+        Coordinate position = wall.getPosition();
+        if (position != null) {
+            addWall(wall.getWallDefinition(), position.x, position.y);
+        }
+    }
+
+    /**
+     * A method to add the portions of a wall definition at the given position
+     * to the edge masks.
+     * @param definition the definition of the wall
+     * @param x x coordinate of the wall position
+     * @param y y coordinate of the wall position
+     */
+    public void addWall(WallDefinition definition, int x, int y) {
+        List<WallPortion> portions = definition.portions;
+        for (int i = 0; i < portions.size(); i++) {
+            WallPortion portion = portions.get(i);
+            Coordinate first = portion.firstRelativePos;
+            Coordinate second = portion.secondRelativePos;
+            if (first.y == second.y && Math.abs(first.x - second.x) == 1) {
+                verticalWalls |= cellBit(x + Math.max(first.x, second.x), y + first.y);
+            } else if (first.x == second.x && Math.abs(first.y - second.y) == 1) {
+                horizontalWalls |= cellBit(x + first.x, y + Math.max(first.y, second.y));
+            }
+        }
+    }
+
+    /**
+     * A method to add precomputed edge masks to the board.
+     * @param horizontal the horizontal walls to add
+     * @param vertical the vertical walls to add
+     */
+    public void addEdges(long horizontal, long vertical) {
+        horizontalWalls |= horizontal;
+        verticalWalls |= vertical;
+    }
+
+    /**
+     * A method to replace the edge masks of the board.
+     * @param horizontal the new horizontal walls
+     * @param vertical the new vertical walls
+     */
+    public void setEdges(long horizontal, long vertical) {
+        horizontalWalls = horizontal;
+        verticalWalls = vertical;
+    }
+
+    /**
+     * A method to get the bit of a grid coordinate.
+     * @param x x coordinate on the grid
+     * @param y y coordinate on the grid
+     * @return the bit of the coordinate, or 0 if it is out of the board
+     */
+    public long cellBit(int x, int y) {
+        int column = x - originX;
+        int row = y - originY;
+        if (column < 0 || column >= STRIDE || row < 0 || row >= STRIDE) {
+            return 0;
+        }
+        return 1L << (row * STRIDE + column);
+    }
+
+    /**
+     * A method to get the bit of a grid coordinate.
+     * @param coordinate coordinate on the grid, may be null
+     * @return the bit of the coordinate, or 0 if it is null or out of the board
+     */
+    public long cellBit(Coordinate coordinate) {
+        if (coordinate == null) {
+            return 0;
+        }
+        return cellBit(coordinate.x, coordinate.y);
+    }
+
+    /**
+     * A method to get the blocks that can be reached from the given seeds
+     * without crossing a wall or leaving the grid.
+     * @param seeds the cells to start from
+     * @return the reachable blocks
+     */
+    public long flood(long seeds) {
+        long openRight = ~(verticalWalls >>> 1);
+        long openBottom = ~(horizontalWalls >>> STRIDE);
+        long region = seeds & blocks;
+        while (true) {
+            long grown = region
+                    | ((region & openRight) << 1)
+                    | ((region & ~verticalWalls) >>> 1)
+                    | ((region & openBottom) << STRIDE)
+                    | ((region & ~horizontalWalls) >>> STRIDE);
+            grown &= blocks;
+            if (grown == region) {
+                return region;
+            }
+            region = grown;
+        }
+    }
+
+    /**
+     * A method to get the cells of a region which have an edge to the outside
+     * of the grid that is not covered by a wall.
+     * @param region the region to check
+     * @return the leaking cells, or 0 if the region is enclosed
+     */
+    public long leaks(long region) {
+        long right = ~(blocks >>> 1) & ~(verticalWalls >>> 1);
+        long left = ~(blocks << 1) & ~verticalWalls;
+        long bottom = ~(blocks >>> STRIDE) & ~(horizontalWalls >>> STRIDE);
+        long top = ~(blocks << STRIDE) & ~horizontalWalls;
+        return region & (right | left | bottom | top);
+    }
+
+    /**
+     * A method to get the minimum number of open edges which must be closed to
+     * separate the sources from the sinks and from the outside of the grid.
+     * Every open edge is a unit capacity in both directions, so the cut is
+     * found as a maximum flow with one breadth first search per unit. The
+     * searches expand whole layers of cells with shifts like the flood fill.
+     * The edges of the first path found are kept, which is a shortest open
+     * path from the sources to a sink or to the outside.
+     * @param sources the cells to separate
+     * @param sinks the cells to separate the sources from
+     * @param limit the size after which the search stops
+     * @return the size of the minimum cut, or limit + 1 if it is larger than limit
+     */
+    public int cutSize(long sources, long sinks, int limit) {
+        pathHorizontal = 0;
+        pathVertical = 0;
+        sources &= blocks;
+        sinks &= blocks;
+        if (sources == 0) {
+            return 0;
+        }
+        if ((sources & sinks) != 0) {
+            return limit + 1;
+        }
+        rightFlow = 0;
+        leftFlow = 0;
+        downFlow = 0;
+        upFlow = 0;
+        outerRightFlow = 0;
+        outerLeftFlow = 0;
+        outerDownFlow = 0;
+        outerUpFlow = 0;
+
+        long openRight = blocks & (blocks >>> 1) & ~(verticalWalls >>> 1);
+        long openDown = blocks & (blocks >>> STRIDE) & ~(horizontalWalls >>> STRIDE);
+        long outerRight = blocks & ~(blocks >>> 1) & ~(verticalWalls >>> 1);
+        long outerLeft = blocks & ~(blocks << 1) & ~verticalWalls;
+        long outerDown = blocks & ~(blocks >>> STRIDE) & ~(horizontalWalls >>> STRIDE);
+        long outerUp = blocks & ~(blocks << STRIDE) & ~horizontalWalls;
+
+        int flow = 0;
+        while (flow <= limit) {
+            long canRight = openRight & ~rightFlow;
+            long canLeft = (openRight & ~leftFlow) << 1;
+            long canDown = openDown & ~downFlow;
+            long canUp = (openDown & ~upFlow) << STRIDE;
+            long freeRight = outerRight & ~outerRightFlow;
+            long freeLeft = outerLeft & ~outerLeftFlow;
+            long freeDown = outerDown & ~outerDownFlow;
+            long freeUp = outerUp & ~outerUpFlow;
+            long targets = sinks | freeRight | freeLeft | freeDown | freeUp;
+
+            int depth = 0;
+            long visited = sources;
+            layers[0] = sources;
+            while ((layers[depth] & targets) == 0) {
+                long frontier = layers[depth];
+                long next = ((frontier & canRight) << 1)
+                        | ((frontier & canLeft) >>> 1)
+                        | ((frontier & canDown) << STRIDE)
+                        | ((frontier & canUp) >>> STRIDE);
+                next &= ~visited;
+                if (next == 0) {
+                    return flow;
+                }
+                visited |= next;
+                layers[++depth] = next;
+            }
+
+            long stepsHorizontal = 0;
+            long stepsVertical = 0;
+            long cell = Long.lowestOneBit(layers[depth] & targets);
+            if ((sinks & cell) == 0) {
+                if ((freeRight & cell) != 0) {
+                    outerRightFlow |= cell;
+                    stepsVertical |= cell << 1;
+                } else if ((freeLeft & cell) != 0) {
+                    outerLeftFlow |= cell;
+                    stepsVertical |= cell;
+                } else if ((freeDown & cell) != 0) {
+                    outerDownFlow |= cell;
+                    stepsHorizontal |= cell << STRIDE;
+                } else {
+                    outerUpFlow |= cell;
+                    stepsHorizontal |= cell;
+                }
+            }
+            for (int d = depth; d > 0; d--) {
+                long previous = layers[d - 1];
+                if ((previous & canRight & (cell >>> 1)) != 0) {
+                    cell >>>= 1;
+                    if ((leftFlow & cell) != 0) {
+                        leftFlow &= ~cell;
+                    } else {
+                        rightFlow |= cell;
+                    }
+                    stepsVertical |= cell << 1;
+                } else if ((previous & canLeft & (cell << 1)) != 0) {
+                    if ((rightFlow & cell) != 0) {
+                        rightFlow &= ~cell;
+                    } else {
+                        leftFlow |= cell;
+                    }
+                    stepsVertical |= cell << 1;
+                    cell <<= 1;
+                } else if ((previous & canDown & (cell >>> STRIDE)) != 0) {
+                    cell >>>= STRIDE;
+                    if ((upFlow & cell) != 0) {
+                        upFlow &= ~cell;
+                    } else {
+                        downFlow |= cell;
+                    }
+                    stepsHorizontal |= cell << STRIDE;
+                } else {
+                    if ((downFlow & cell) != 0) {
+                        downFlow &= ~cell;
+                    } else {
+                        upFlow |= cell;
+                    }
+                    stepsHorizontal |= cell << STRIDE;
+                    cell <<= STRIDE;
+                }
+            }
+            // Only the first path is a path of open edges, later ones may
+            // cancel the flow of the earlier paths
+            if (flow == 0) {
+                pathHorizontal = stepsHorizontal;
+                pathVertical = stepsVertical;
+            }
+            flow++;
+        }
+        return flow;
+    }
+
+    /**
+     * A get method to return the horizontal edges of the first path found by
+     * the last minimum cut search.
+     * @return the horizontal edges of the path, or 0 if there was no path
+     */
+    public long getPathHorizontal() {
+        return pathHorizontal;
+    }
+
+    /**
+     * A get method to return the vertical edges of the first path found by
+     * the last minimum cut search.
+     * @return the vertical edges of the path, or 0 if there was no path
+     */
+    public long getPathVertical() {
+        return pathVertical;
+    }
+
+    /**
+     * A method to check whether the loaded grid fits into the board.
+     * @return true if the grid fits
+     */
+    public boolean fits() {
+        return fits;
+    }
+
+    /**
+     * A get method to return the block mask of the board.
+     * @return the blocks of the board
+     */
+    public long getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * A get method to return the horizontal walls of the board.
+     * @return the horizontal edge mask
+     */
+    public long getHorizontalWalls() {
+        return horizontalWalls;
+    }
+
+    /**
+     * A get method to return the vertical walls of the board.
+     * @return the vertical edge mask
+     */
+    public long getVerticalWalls() {
+        return verticalWalls;
+    }
+
+    /**
+     * A get method to return the grid x coordinate of the first column.
+     * @return x coordinate of the board origin
+     */
+    public int getOriginX() {
+        return originX;
+    }
+
+    /**
+     * A get method to return the grid y coordinate of the first row.
+     * @return y coordinate of the board origin
+     */
+    public int getOriginY() {
+        return originY;
+    }
+
+}
@@ -0,0 +1,383 @@
+package com.oops.wallsandwarriors.solver;
+
+import com.oops.wallsandwarriors.GridManager;
+import com.oops.wallsandwarriors.definitions.GridDefinitions;
+import com.oops.wallsandwarriors.definitions.WallDefinitions;
+import com.oops.wallsandwarriors.model.ChallengeData;
+import com.oops.wallsandwarriors.model.Coordinate;
+import com.oops.wallsandwarriors.model.HighTowerData;
+import com.oops.wallsandwarriors.model.KnightData;
+import com.oops.wallsandwarriors.model.WallData;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A class to generate random challenges which have exactly one solution.
+ * A grid, a set of distinct standard walls and the place of the high tower
+ * are sampled first. The ChallengeSolver then finds some enclosures of the
+ * high tower which use every wall, and one of them is picked as the intended
+ * solution. An enclosure is only picked if every wall is needed to close it
+ * and no other enclosure found closes the same region, since knights can not
+ * tell such enclosures apart. Then a blue knight is placed inside, and
+ * while the challenge has other solutions, the knight which rules out most of
+ * them is placed: an enemy knight outside the intended region and inside the
+ * others, or a blue knight inside the intended region and outside the others.
+ * The difficulty of a challenge is rated from the number of nodes the solver
+ * visits to prove that its solution is unique.
+ * The generator does not keep any state between challenges, so one instance
+ * can be used by many threads.
+ */
+public class ChallengeGenerator {
+
+    public static final int DIFFICULTY_NO = 5;
+
+    private static final int MIN_WALL_NO = 3;
+    private static final int MAX_WALL_NO = 4;
+    private static final int MAX_BLUE_KNIGHTS = 3;
+    private static final int MAX_RED_KNIGHTS = 4;
+    private static final int ENCLOSURE_LIMIT = 256;
+    private static final int CANDIDATE_NO = 4;
+    private static final int SAMPLE_LIMIT = 64;
+    private static final int REFINEMENT_NO = 8;
+    // The minimum node counts of the difficulties after the first one
+    private static final long[] DIFFICULTY_NODES = {120, 400, 1700, 5000};
+
+    private static final List<List<Coordinate>> GRIDS;
+
+    static {
+        GRIDS = new ArrayList<List<Coordinate>>();
+        GRIDS.add(GridDefinitions.SMALL);
+        GRIDS.add(GridDefinitions.MEDIUM);
+        GRIDS.add(GridDefinitions.LARGE);
+    }
+
+    private final ChallengeSolver solver;
+    private final GridManager gridManager;
+
+    /**
+     * A constructor that initializes a ChallengeGenerator using the given solver.
+     * @param solver the solver to find the enclosures and to check the uniqueness with
+     */
+    public ChallengeGenerator(ChallengeSolver solver) {
+        this.solver = solver;
+        this.gridManager = new GridManager();
+    }
+
+    /**
+     * A method to generate a challenge on a random grid.
+     * @param random the source of the random choices
+     * @return the generated challenge, or null if the random choices led to a
+     * challenge which could not be made unique
+     */
+    public GeneratedChallenge generate(Random random) {
+        return generate(GRIDS.get(random.nextInt(GRIDS.size())), random);
+    }
+
+    /**
+     * A method to generate a challenge on the given grid.
+     * @param grid the blocks of the grid
+     * @param random the source of the random choices
+     * @return the generated challenge, or null if the random choices led to a
+     * challenge which could not be made unique
+     */
+    public GeneratedChallenge generate(List<Coordinate> grid, Random random) {
+        List<WallData> walls = new ArrayList<WallData>(WallDefinitions.STANDARD);
+        Collections.shuffle(walls, random);
+        int wallNo = MIN_WALL_NO + random.nextInt(MAX_WALL_NO - MIN_WALL_NO + 1);
+        ChallengeData puzzle = new ChallengeData(grid, walls.subList(0, wallNo));
+
+        BitBoard board = new BitBoard();
+        if (!board.loadBlocks(grid) || !placeHighTower(puzzle, board, board.getBlocks(), random)) {
+            return null;
+        }
+        long seeds = getSeeds(puzzle, board);
+        List<ChallengeData> enclosures = solver.solve(puzzle, ENCLOSURE_LIMIT, new AtomicBoolean());
+        long[] regions = new long[enclosures.size()];
+        Map<Long, Integer> regionCounts = new HashMap<Long, Integer>();
+        for (int i = 0; i < regions.length; i++) {
+            board.load(enclosures.get(i));
+            regions[i] = board.flood(seeds);
+            Integer count = regionCounts.get(regions[i]);
+            regionCounts.put(regions[i], count == null ? 1 : count + 1);
+        }
+        // Knights can only rule out the enclosures of other regions
+        List<ChallengeData> candidates = new ArrayList<ChallengeData>();
+        for (int i = 0; i < regions.length; i++) {
+            if (regionCounts.get(regions[i]) == 1 && isTight(enclosures.get(i), board, seeds)) {
+                candidates.add(enclosures.get(i));
+            }
+        }
+        Collections.shuffle(candidates, random);
+        for (int i = 0; i < candidates.size() && i < CANDIDATE_NO; i++) {
+            ChallengeData challenge = candidates.get(i);
+            board.load(challenge);
+            placeKnight(challenge, board, board.flood(seeds), false, random);
+            GeneratedChallenge generated = makeUnique(challenge, board, random);
+            if (generated != null) {
+                return generated;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A method to place knights on a challenge until its walls are its only
+     * solution. Each round samples some solutions of the challenge and places
+     * the knight which rules out most of the other enclosures: an enemy knight
+     * outside the intended enclosure and inside the others, or a blue knight
+     * inside the intended enclosure and outside the others.
+     * @param challenge the challenge with its walls placed in the intended solution
+     * @param board a board loaded with the blocks and the walls of the challenge
+     * @param random the source of the random choices
+     * @return the unique challenge, or null if it could not be made unique
+     */
+    private GeneratedChallenge makeUnique(ChallengeData challenge, BitBoard board, Random random) {
+        for (int refinement = 0; refinement <= REFINEMENT_NO; refinement++) {
+            SearchStatistics statistics = new SearchStatistics();
+            List<ChallengeData> solutions = solver.solve(challenge, SAMPLE_LIMIT,
+                    new AtomicBoolean(), statistics);
+            if (solutions.size() == 1) {
+                return new GeneratedChallenge(solutions.get(0), statistics.getNodeCount());
+            }
+            if (solutions.isEmpty() || refinement == REFINEMENT_NO) {
+                return null;
+            }
+
+            board.load(challenge);
+            long seeds = getSeeds(challenge, board);
+            long intended = board.flood(seeds);
+            long[] regions = new long[solutions.size()];
+            for (int i = 0; i < regions.length; i++) {
+                board.load(solutions.get(i));
+                regions[i] = board.flood(seeds);
+            }
+            board.load(challenge);
+            boolean canAddRed = challenge.knights.size() - challenge.noOfBlueKnights()
+                    < MAX_RED_KNIGHTS;
+            boolean canAddBlue = challenge.noOfBlueKnights() < MAX_BLUE_KNIGHTS;
+            if (!placeBestKnight(challenge, board, intended, regions,
+                    canAddRed, canAddBlue, random)) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A method to check whether every wall of an enclosure is needed to close
+     * it. A wall which is not needed could be moved to many other places, and
+     * knights can not rule those places out, so such an enclosure can never be
+     * the only solution.
+     * @param enclosure the challenge with its walls placed
+     * @param board the board to load the challenge on
+     * @param seeds the cells the walls enclose
+     * @return true if removing any wall opens the enclosure
+     */
+    private static boolean isTight(ChallengeData enclosure, BitBoard board, long seeds) {
+        List<WallData> walls = enclosure.walls;
+        if (!board.loadBlocks(enclosure.blocks)) {
+            return false;
+        }
+        for (int skipped = 0; skipped < walls.size(); skipped++) {
+            board.clearWalls();
+            for (int i = 0; i < walls.size(); i++) {
+                if (i != skipped) {
+                    board.addWall(walls.get(i));
+                }
+            }
+            if (board.leaks(board.flood(seeds)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A method to place the knight which rules out the most enclosures.
+     * @param challenge the challenge to place the knight on
+     * @param board a board loaded with the blocks and the walls of the challenge
+     * @param intended the enclosure of the intended solution
+     * @param regions the enclosures of the sampled solutions
+     * @param canAddRed true if an enemy knight can be placed
+     * @param canAddBlue true if a blue knight can be placed
+     * @param random the source of the random choices
+     * @return true if a knight ruling out at least one enclosure is placed
+     */
+    private boolean placeBestKnight(ChallengeData challenge, BitBoard board, long intended,
+            long[] regions, boolean canAddRed, boolean canAddBlue, Random random) {
+        List<Coordinate> blocks = challenge.blocks;
+        int start = random.nextInt(blocks.size());
+        while (true) {
+            Coordinate best = null;
+            int bestScore = 0;
+            for (int i = 0; i < blocks.size(); i++) {
+                Coordinate block = blocks.get((start + i) % blocks.size());
+                long cell = board.cellBit(block);
+                boolean inside = (intended & cell) != 0;
+                if ((inside && !canAddBlue) || (!inside && !canAddRed)) {
+                    continue;
+                }
+                int score = 0;
+                for (long region : regions) {
+                    if (((region & cell) != 0) != inside) {
+                        score++;
+                    }
+                }
+                if (score > bestScore) {
+                    best = block;
+                    bestScore = score;
+                }
+            }
+            if (best == null) {
+                return false;
+            }
+            long cell = board.cellBit(best);
+            KnightData knight = new KnightData(null, (intended & cell) == 0);
+            if (gridManager.attemptPlacement(challenge, best, knight)) {
+                challenge.addPiece(knight);
+                return true;
+            }
+            // The block is taken, so it can not rule out any enclosure
+            for (int i = 0; i < regions.length; i++) {
+                regions[i] = (regions[i] & ~cell) | (intended & cell);
+            }
+        }
+    }
+
+    /**
+     * A method to get the cells of the blue knights and the high towers.
+     * @param challenge the challenge to get the cells of
+     * @param board a board loaded with the blocks of the challenge
+     * @return the cells to enclose
+     */
+    private static long getSeeds(ChallengeData challenge, BitBoard board) {
+        long seeds = 0;
+        for (KnightData knight : challenge.knights) {
+            if (!knight.isEnemy) {
+                seeds |= board.cellBit(knight.getPosition());
+            }
+        }
+        for (HighTowerData highTower : challenge.highTowers) {
+            seeds |= board.cellBit(highTower.getFirstPosition());
+            seeds |= board.cellBit(highTower.getSecondPosition());
+        }
+        return seeds;
+    }
+
+    /**
+     * A method to place a knight on a random free cell among the given cells.
+     * @param challenge the challenge to place the knight on
+     * @param board a board loaded with the blocks of the challenge
+     * @param cells the cells the knight can be placed on
+     * @param isEnemy true to place an enemy knight
+     * @param random the source of the random choices
+     * @return true if the knight is placed
+     */
+    private boolean placeKnight(ChallengeData challenge, BitBoard board, long cells,
+            boolean isEnemy, Random random) {
+        List<Coordinate> blocks = challenge.blocks;
+        int start = random.nextInt(blocks.size());
+        for (int i = 0; i < blocks.size(); i++) {
+            Coordinate block = blocks.get((start + i) % blocks.size());
+            KnightData knight = new KnightData(null, isEnemy);
+            if ((cells & board.cellBit(block)) != 0
+                    && gridManager.attemptPlacement(challenge, block, knight)) {
+                challenge.addPiece(knight);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A method to place a high tower on two random free cells among the given cells.
+     * @param challenge the challenge to place the high tower on
+     * @param board a board loaded with the blocks of the challenge
+     * @param cells the cells the high tower can be placed on
+     * @param random the source of the random choices
+     * @return true if the high tower is placed
+     */
+    private boolean placeHighTower(ChallengeData challenge, BitBoard board, long cells,
+            Random random) {
+        List<Coordinate> blocks = challenge.blocks;
+        int start = random.nextInt(blocks.size());
+        for (int i = 0; i < 2 * blocks.size(); i++) {
+            Coordinate block = blocks.get((start + i / 2) % blocks.size());
+            HighTowerData highTower = new HighTowerData(null, null);
+            highTower.isVertical = i % 2 == 1;
+            if ((cells & board.cellBit(block)) != 0
+                    && gridManager.attemptPlacement(challenge, block, highTower)
+                    && (cells & board.cellBit(highTower.getSecondPosition())) != 0) {
+                challenge.addPiece(highTower);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A method to rate the difficulty of a challenge from the number of nodes
+     * the solver visits to prove that its solution is unique.
+     * @param nodeCount number of the visited nodes
+     * @return the difficulty from 1 to DIFFICULTY_NO
+     */
+    public static int getDifficulty(long nodeCount) {
+        int difficulty = 1;
+        while (difficulty < DIFFICULTY_NO && nodeCount >= DIFFICULTY_NODES[difficulty - 1]) {
+            difficulty++;
+        }
+        return difficulty;
+    }
+
+    /**
+     * A class to store a generated challenge with its unique solution placed
+     * and the statistics it is rated with.
+     */
+    public static class GeneratedChallenge {
+
+        private final ChallengeData challenge;
+        private final long nodeCount;
+
+        /**
+         * A constructor that initializes a GeneratedChallenge.
+         * @param challenge the challenge with its solution placed
+         * @param nodeCount number of nodes visited to prove that the solution is unique
+         */
+        private GeneratedChallenge(ChallengeData challenge, long nodeCount) {
+            this.challenge = challenge;
+            this.nodeCount = nodeCount;
+        }
+
+        /**
+         * A get method to return the challenge with its solution placed.
+         * @return the generated challenge
+         */
+        public ChallengeData getChallenge() {
+            return challenge;
+        }
+
+        /**
+         * A get method to return the number of nodes the solver visited to
+         * prove that the solution is unique.
+         * @return number of the visited nodes
+         */
+        public long getNodeCount() {
+            return nodeCount;
+        }
+
+        /**
+         * A get method to return the difficulty of the challenge.
+         * @return the difficulty from 1 to DIFFICULTY_NO
+         */
+        public int getDifficulty() {
+            return ChallengeGenerator.getDifficulty(nodeCount);
+        }
+
+    }
+
+}
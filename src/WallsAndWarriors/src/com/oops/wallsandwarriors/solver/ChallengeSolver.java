@@ -0,0 +1,508 @@
+package com.oops.wallsandwarriors.solver;
+
+import com.oops.wallsandwarriors.SolutionManager;
+import com.oops.wallsandwarriors.model.Canonicalizer;
+import com.oops.wallsandwarriors.model.ChallengeData;
+import com.oops.wallsandwarriors.model.KnightData;
+import com.oops.wallsandwarriors.model.WallData;
+import com.oops.wallsandwarriors.solver.PlacementDomain.Placement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A class to find every solution of a challenge. The legal placements of the
+ * walls and the conflicts between them are computed once by a PlacementDomain,
+ * and the SolutionManager decides which complete placements solve the
+ * challenge, so the solver agrees with the game on what a solution is.
+ * The search starts from the placements left after the propagation of the
+ * domain and only keeps the placements of the remaining walls which are
+ * compatible with the placed ones. Each placement keeps its walls as BitBoard
+ * edge masks, so a complete placement is checked without loading its walls
+ * one by one. A branch is cut as soon as the remaining walls have fewer
+ * portions than the edges needed to separate the blue knights and the high
+ * towers from the enemy knights and the outside, or the region which stays
+ * reachable even with every remaining allowed placement contains an enemy
+ * knight or an uncovered outer edge.
+ * The last wall only tries the placements which close an edge of a shortest
+ * open path from a blue knight or a high tower to an enemy or the outside.
+ * The search runs as a fork-join task which splits the branches of the first
+ * walls into subtasks, every subtask working on its own copy of the challenge.
+ * A search can be limited to a number of solutions, for example to tell a
+ * unique challenge from an ambiguous one, and can be cancelled with a flag;
+ * every task stops as soon as the limit is reached or the flag is set.
+ * The solution counts are cached in a TranspositionTable by the canonical
+ * hash of the challenge, so a challenge which is counted again, for example
+ * after an edit is undone in the editor, or a rotated or mirrored copy of it
+ * is not searched again. Partial states are not cached, since two branches of
+ * one search almost never reach the same walls.
+ */
+public class ChallengeSolver {
+
+    private static final int SPLIT_DEPTH = 2;
+    private static final int COUNT_CAPACITY = 1024;
+
+    private final ForkJoinPool pool;
+    private final TranspositionTable counts;
+
+    /**
+     * A default constructor that initializes a ChallengeSolver running on the
+     * common fork-join pool.
+     */
+    public ChallengeSolver() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * A constructor that initializes a ChallengeSolver running on the given pool.
+     * @param pool the fork-join pool to run the search on
+     */
+    public ChallengeSolver(ForkJoinPool pool) {
+        this.pool = pool;
+        this.counts = new TranspositionTable(COUNT_CAPACITY);
+    }
+
+    /**
+     * A method to find all solutions of a challenge. The walls of the given
+     * challenge are ignored except for their shapes, and the challenge itself
+     * is not modified.
+     * @param challenge the challenge to solve
+     * @return the solutions as copies of the challenge with all walls placed,
+     * in a deterministic order
+     */
+    public List<ChallengeData> solve(ChallengeData challenge) {
+        return solve(challenge, Integer.MAX_VALUE, new AtomicBoolean());
+    }
+
+    /**
+     * A method to find at most the given number of solutions of a challenge.
+     * The search stops as soon as the limit is reached or the cancel flag is
+     * set. The challenge itself is not modified.
+     * @param challenge the challenge to solve
+     * @param limit maximum number of solutions to find
+     * @param cancelled a flag which stops the search when it is set
+     * @return the solutions found as copies of the challenge with all walls
+     * placed, which are not necessarily the first ones in the order of the
+     * complete search when the limit is reached
+     */
+    public List<ChallengeData> solve(ChallengeData challenge, int limit,
+            AtomicBoolean cancelled) {
+        return solve(challenge, limit, cancelled, new SearchStatistics());
+    }
+
+    /**
+     * A method to find at most the given number of solutions of a challenge
+     * and to collect the statistics of the search.
+     * @param challenge the challenge to solve
+     * @param limit maximum number of solutions to find
+     * @param cancelled a flag which stops the search when it is set
+     * @param statistics the statistics to add the counts of the search to
+     * @return the solutions found as copies of the challenge with all walls placed
+     */
+    public List<ChallengeData> solve(ChallengeData challenge, int limit,
+            AtomicBoolean cancelled, SearchStatistics statistics) {
+        if (limit <= 0 || cancelled.get()) {
+            return new ArrayList<ChallengeData>();
+        }
+        ChallengeData puzzle = challenge.createCopy(true);
+        PlacementDomain domain = new PlacementDomain(puzzle);
+        if (domain.isEmpty()) {
+            return new ArrayList<ChallengeData>();
+        }
+        Search search = new Search(domain, limit, cancelled, statistics);
+        int wallCount = puzzle.walls.size();
+        long[][] allowed = new long[wallCount][];
+        for (int i = 0; i < wallCount; i++) {
+            allowed[i] = domain.getDomain(i);
+        }
+        return pool.invoke(new SearchTask(search, puzzle, 0, new int[wallCount], allowed, 0, 0));
+    }
+
+    /**
+     * A method to count the solutions of a challenge.
+     * @param challenge the challenge to solve
+     * @return number of solutions
+     */
+    public int countSolutions(ChallengeData challenge) {
+        return countSolutions(challenge, Integer.MAX_VALUE, new AtomicBoolean());
+    }
+
+    /**
+     * A method to count the solutions of a challenge up to a limit, stopping
+     * as soon as the limit is reached. Counting up to two is enough to tell
+     * an unsolvable, a unique and an ambiguous challenge apart.
+     * @param challenge the challenge to solve
+     * @param limit maximum number of solutions to count
+     * @param cancelled a flag which stops the search when it is set
+     * @return number of solutions, at most the limit
+     */
+    public int countSolutions(ChallengeData challenge, int limit, AtomicBoolean cancelled) {
+        long key = Canonicalizer.canonicalize(challenge).getHash();
+        long cached = counts.get(key);
+        // A count is cached with its lowest bit set if it is the exact count
+        if (cached != TranspositionTable.MISSING
+                && ((cached & 1) != 0 || (cached >>> 1) >= limit)) {
+            return (int) Math.min(cached >>> 1, limit);
+        }
+        int count = solve(challenge, limit, cancelled).size();
+        if (!cancelled.get()) {
+            counts.put(key, (long) count << 1 | (count < limit ? 1 : 0));
+        }
+        return count;
+    }
+
+    /**
+     * A get method to return the table the solution counts are cached in.
+     * @return the table of the counts
+     */
+    public TranspositionTable getCounts() {
+        return counts;
+    }
+
+    /**
+     * A class to store the data shared by all tasks of one search.
+     */
+    private static class Search {
+
+        private final PlacementDomain domain;
+        private final int limit;
+        private final AtomicInteger found;
+        private final AtomicBoolean cancelled;
+        private final SearchStatistics statistics;
+
+        /**
+         * A constructor that initializes a Search on the placements of a challenge.
+         * All indices of the walls are indices in the order of the domain.
+         * @param domain the placements of the walls
+         * @param limit maximum number of solutions to find
+         * @param cancelled a flag which stops the search when it is set
+         * @param statistics the statistics to add the counts of the search to
+         */
+        Search(PlacementDomain domain, int limit, AtomicBoolean cancelled,
+                SearchStatistics statistics) {
+            this.domain = domain;
+            this.limit = limit;
+            this.found = new AtomicInteger();
+            this.cancelled = cancelled;
+            this.statistics = statistics;
+        }
+
+        /**
+         * A method to check whether the search should stop.
+         * @return true if enough solutions are found or the search is cancelled
+         */
+        private boolean isStopped() {
+            return found.get() >= limit || cancelled.get();
+        }
+
+        /**
+         * A method to claim a place for a new solution within the limit.
+         * @return true if the solution should be kept
+         */
+        private boolean claimSolution() {
+            return found.incrementAndGet() <= limit;
+        }
+    }
+
+    /**
+     * A class to search the placements of the walls starting from a given depth.
+     * Tasks above the split depth fork a subtask for each allowed placement of
+     * their wall, deeper tasks search sequentially.
+     */
+    private class SearchTask extends RecursiveTask<List<ChallengeData>> {
+
+        private static final long serialVersionUID = -5189072687024719858L;
+
+        private final Search search;
+        private final ChallengeData working;
+        private final int depth;
+        private final int[] chosen;
+        private final long[][] allowed;
+        private final long[] horizontalWalls;
+        private final long[] verticalWalls;
+        private final List<ChallengeData> solutions;
+        private SolutionManager solutionManager;
+        private long[][][] levels;
+        private long[] lastAllowed;
+        private BitBoard board;
+        private long nodes;
+        private long cuts;
+
+        /**
+         * A constructor that initializes a SearchTask.
+         * @param search the shared data of the search
+         * @param working the challenge owned by this task, with the walls
+         * before the depth placed
+         * @param depth index of the first wall to place
+         * @param chosen indices of the placements chosen for the placed walls
+         * @param allowed the placements of each wall which are compatible with
+         * the placed walls
+         * @param horizontal horizontal edge mask of the placed walls
+         * @param vertical vertical edge mask of the placed walls
+         */
+        SearchTask(Search search, ChallengeData working, int depth, int[] chosen,
+                long[][] allowed, long horizontal, long vertical) {
+            this.search = search;
+            this.working = working;
+            this.depth = depth;
+            this.chosen = chosen;
+            this.allowed = allowed;
+            this.horizontalWalls = new long[working.walls.size() + 1];
+            this.verticalWalls = new long[working.walls.size() + 1];
+            this.horizontalWalls[depth] = horizontal;
+            this.verticalWalls[depth] = vertical;
+            this.solutions = new ArrayList<ChallengeData>();
+        }
+
+        @Override
+        protected List<ChallengeData> compute() {
+            int wallCount = working.walls.size();
+            if (search.isStopped()) {
+                return solutions;
+            }
+            if (depth >= SPLIT_DEPTH || depth == wallCount) {
+                solutionManager = new SolutionManager();
+                board = new BitBoard();
+                board.loadBlocks(working.blocks);
+                levels = new long[wallCount + 1][][];
+                levels[depth] = allowed;
+                for (int d = depth + 1; d <= wallCount; d++) {
+                    levels[d] = new long[wallCount][];
+                    for (int j = d; j < wallCount; j++) {
+                        levels[d][j] = new long[allowed[j].length];
+                    }
+                }
+                searchFrom(depth);
+                search.statistics.add(nodes, cuts);
+                return solutions;
+            }
+
+            List<SearchTask> subtasks = new ArrayList<SearchTask>();
+            List<Placement> placements = search.domain.candidates.get(depth);
+            long[] current = allowed[depth];
+            for (int a = PlacementDomain.nextPlacement(current, getFirstCandidate(depth)); a >= 0;
+                    a = PlacementDomain.nextPlacement(current, a + 1)) {
+                long[][] next = new long[wallCount][];
+                for (int j = depth + 1; j < wallCount; j++) {
+                    next[j] = new long[allowed[j].length];
+                }
+                if (restrict(a, next)) {
+                    Placement placement = placements.get(a);
+                    ChallengeData branch = working.createCopy(false);
+                    WallData wall = branch.walls.get(search.domain.order[depth]);
+                    wall.setWallDefinition(placement.definition);
+                    wall.setPosition(placement.anchor);
+                    int[] branchChosen = chosen.clone();
+                    branchChosen[depth] = a;
+                    subtasks.add(new SearchTask(search, branch, depth + 1, branchChosen, next,
+                            horizontalWalls[depth] | placement.horizontalWalls,
+                            verticalWalls[depth] | placement.verticalWalls));
+                }
+            }
+            search.statistics.add(1, 0);
+            invokeAll(subtasks);
+            for (SearchTask subtask : subtasks) {
+                solutions.addAll(subtask.join());
+            }
+            return solutions;
+        }
+
+        /**
+         * A method to search the placements of the walls from the given depth
+         * on the working challenge.
+         * @param wallIndex index of the wall to place
+         */
+        private void searchFrom(int wallIndex) {
+            if (search.isStopped()) {
+                return;
+            }
+            nodes++;
+            if (wallIndex == working.walls.size()) {
+                List<KnightData> incorrectRedKnights;
+                if (search.domain.board.fits()) {
+                    incorrectRedKnights = solutionManager.checkSolution(working,
+                            horizontalWalls[wallIndex], verticalWalls[wallIndex]);
+                } else {
+                    incorrectRedKnights = solutionManager.checkSolution(working);
+                }
+                if (incorrectRedKnights != null && incorrectRedKnights.isEmpty()
+                        && search.claimSolution()) {
+                    solutions.add(working.createCopy(false));
+                }
+                return;
+            }
+
+            long[] current = levels[wallIndex][wallIndex];
+            if (board.fits()) {
+                if (!isSeparable(wallIndex)) {
+                    cuts++;
+                    return;
+                }
+                if (wallIndex == working.walls.size() - 1) {
+                    current = getPathCovers(current);
+                }
+                if (!isEnclosable(wallIndex, current)) {
+                    cuts++;
+                    return;
+                }
+            }
+
+            WallData wall = working.walls.get(search.domain.order[wallIndex]);
+            List<Placement> placements = search.domain.candidates.get(wallIndex);
+            long[][] next = levels[wallIndex + 1];
+            for (int a = PlacementDomain.nextPlacement(current, getFirstCandidate(wallIndex));
+                    a >= 0; a = PlacementDomain.nextPlacement(current, a + 1)) {
+                if (restrict(wallIndex, a, levels[wallIndex], next)) {
+                    Placement placement = placements.get(a);
+                    wall.setWallDefinition(placement.definition);
+                    wall.setPosition(placement.anchor);
+                    chosen[wallIndex] = a;
+                    horizontalWalls[wallIndex + 1] =
+                            horizontalWalls[wallIndex] | placement.horizontalWalls;
+                    verticalWalls[wallIndex + 1] =
+                            verticalWalls[wallIndex] | placement.verticalWalls;
+                    searchFrom(wallIndex + 1);
+                    wall.setPosition(null);
+                }
+            }
+        }
+
+        /**
+         * A method to restrict the placements of the last wall to the ones
+         * closing an edge of the path found by the last separability check,
+         * since every completion must close an edge of that path.
+         * @param allowed the allowed placements of the last wall
+         * @return the allowed placements closing an edge of the path
+         */
+        private long[] getPathCovers(long[] allowed) {
+            long pathHorizontal = board.getPathHorizontal();
+            long pathVertical = board.getPathVertical();
+            if ((pathHorizontal | pathVertical) == 0) {
+                return allowed;
+            }
+            if (lastAllowed == null) {
+                lastAllowed = new long[allowed.length];
+            }
+            Arrays.fill(lastAllowed, 0);
+            addCovers(search.domain.lastCoverHorizontal, pathHorizontal);
+            addCovers(search.domain.lastCoverVertical, pathVertical);
+            for (int w = 0; w < lastAllowed.length; w++) {
+                lastAllowed[w] &= allowed[w];
+            }
+            return lastAllowed;
+        }
+
+        /**
+         * A method to add the placements of the last wall closing any of the
+         * given edges to the allowed placements of the last wall.
+         * @param cover the placements closing each edge
+         * @param edges the edges to close
+         */
+        private void addCovers(long[][] cover, long edges) {
+            for (long remaining = edges; remaining != 0; remaining &= remaining - 1) {
+                long[] covering = cover[Long.numberOfTrailingZeros(remaining)];
+                if (covering != null) {
+                    for (int w = 0; w < lastAllowed.length; w++) {
+                        lastAllowed[w] |= covering[w];
+                    }
+                }
+            }
+        }
+
+        /**
+         * A method to check whether the remaining walls have enough portions to
+         * close the minimum cut between the blue knights and the high towers
+         * and the enemy knights and the outside, since each portion closes
+         * exactly one edge.
+         * @param wallIndex index of the next wall to place
+         * @return false if no completion of the placed walls can be a solution
+         */
+        private boolean isSeparable(int wallIndex) {
+            int budget = search.domain.remainingPortions[wallIndex];
+            board.setEdges(horizontalWalls[wallIndex], verticalWalls[wallIndex]);
+            return board.cutSize(search.domain.seeds, search.domain.enemies, budget) <= budget;
+        }
+
+        /**
+         * A method to check whether the placed walls can still be completed to
+         * a solution. The region reachable from the blue knights and the high
+         * towers while every remaining allowed placement is on the board is
+         * reachable in any completion, so it must not contain an enemy knight
+         * and all of its outer edges must already be covered.
+         * @param wallIndex index of the next wall to place
+         * @param allowed the allowed placements of the next wall
+         * @return false if no completion of the placed walls can be a solution
+         */
+        private boolean isEnclosable(int wallIndex, long[] allowed) {
+            long horizontal = horizontalWalls[wallIndex];
+            long vertical = verticalWalls[wallIndex];
+            for (int j = wallIndex; j < working.walls.size(); j++) {
+                List<Placement> placements = search.domain.candidates.get(j);
+                long[] current = j == wallIndex ? allowed : levels[wallIndex][j];
+                for (int a = PlacementDomain.nextPlacement(current, 0); a >= 0;
+                        a = PlacementDomain.nextPlacement(current, a + 1)) {
+                    Placement placement = placements.get(a);
+                    horizontal |= placement.horizontalWalls;
+                    vertical |= placement.verticalWalls;
+                }
+            }
+            board.setEdges(horizontal, vertical);
+            long region = board.flood(search.domain.seeds);
+            return (region & search.domain.enemies) == 0 && board.leaks(region) == 0;
+        }
+
+        /**
+         * A method to restrict the allowed placements of the walls after the
+         * depth of this task to the ones compatible with a placement.
+         * @param placement index of the placement of the wall at the depth
+         * @param next the bit sets to fill
+         * @return false if a remaining wall has no allowed placement left
+         */
+        private boolean restrict(int placement, long[][] next) {
+            return restrict(depth, placement, allowed, next);
+        }
+
+        /**
+         * A method to restrict the allowed placements of the walls after a
+         * wall to the ones compatible with a placement of that wall.
+         * @param wallIndex index of the placed wall
+         * @param placement index of the placement of the wall
+         * @param current the allowed placements before placing the wall
+         * @param next the bit sets to fill
+         * @return false if a remaining wall has no allowed placement left
+         */
+        private boolean restrict(int wallIndex, int placement, long[][] current, long[][] next) {
+            for (int j = wallIndex + 1; j < next.length; j++) {
+                long[] compatible = search.domain.compatible[wallIndex][j][placement];
+                long[] before = current[j];
+                long[] after = next[j];
+                long any = 0;
+                for (int w = 0; w < after.length; w++) {
+                    after[w] = before[w] & compatible[w];
+                    any |= after[w];
+                }
+                if (any == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * A method to get the first candidate to try for a wall. A wall with
+         * the same shape as a previous wall only tries the placements after
+         * the one of that wall.
+         * @param wallIndex index of the wall to place
+         * @return index of the first candidate placement
+         */
+        private int getFirstCandidate(int wallIndex) {
+            int previous = search.domain.sameShapeAs[wallIndex];
+            return previous < 0 ? 0 : chosen[previous] + 1;
+        }
+    }
+
+}
@@ -0,0 +1,219 @@
+package com.oops.wallsandwarriors.solver;
+
+import com.oops.wallsandwarriors.model.ChallengeData;
+import com.oops.wallsandwarriors.model.Coordinate;
+import com.oops.wallsandwarriors.model.HighTowerData;
+import com.oops.wallsandwarriors.model.KnightData;
+import com.oops.wallsandwarriors.model.WallData;
+import com.oops.wallsandwarriors.model.WallDefinition;
+import java.util.List;
+
+/**
+ * A class to keep the region reachable from the blue knights and the high
+ * towers of a challenge between the checks of its solution. The tracker
+ * remembers the position, the definition and the edges of every wall it has
+ * seen, so an update only packs the edges of the walls which have moved or
+ * rotated since the last update. Adding edges can only split regions, so the
+ * region is flooded again from the blue knights and the high towers only if
+ * a new edge touches it, and then it can only shrink. Removing edges can only
+ * merge regions, so if a removed edge touches the region, the region is grown
+ * from itself into the regions it is merged with. In any other case the region
+ * is kept as it is. Both floods stop as soon as the region does not change,
+ * so the work of an update depends on the size of the change instead of the
+ * size of the grid. The tracker starts over when another challenge or another
+ * list of walls is given, or when a blue knight or a high tower has moved.
+ */
+public class EnclosureTracker {
+
+    private final BitBoard board;
+    private final BitBoard wallBoard;
+
+    private ChallengeData challenge;
+    private WallData[] walls;
+    private Coordinate[] positions;
+    private WallDefinition[] definitions;
+    private long[] wallHorizontals;
+    private long[] wallVerticals;
+    private long horizontalWalls;
+    private long verticalWalls;
+    private long seeds;
+    private long enemies;
+    private long region;
+
+    /**
+     * A default constructor that initializes an EnclosureTracker with no challenge.
+     */
+    public EnclosureTracker() {
+        board = new BitBoard();
+        wallBoard = new BitBoard();
+        walls = new WallData[0];
+    }
+
+    /**
+     * A method to bring the region up to date with the pieces of a challenge.
+     * @param newChallenge the challenge to track
+     * @return true if the grid of the challenge fits into a BitBoard, false
+     * if it can not be tracked
+     */
+    public boolean update(ChallengeData newChallenge) {
+        if (!board.loadBlocks(newChallenge.blocks)) {
+            challenge = null;
+            return false;
+        }
+        wallBoard.loadBlocks(newChallenge.blocks);
+        if (newChallenge != challenge || !hasSameWalls(newChallenge.walls)) {
+            load(newChallenge);
+            return true;
+        }
+
+        long horizontal = 0;
+        long vertical = 0;
+        for (int i = 0; i < walls.length; i++) {
+            WallData wall = walls[i];
+            if (wall.getPosition() != positions[i] || wall.getWallDefinition() != definitions[i]) {
+                packWall(i);
+            }
+            horizontal |= wallHorizontals[i];
+            vertical |= wallVerticals[i];
+        }
+        long addedHorizontal = horizontal & ~horizontalWalls;
+        long addedVertical = vertical & ~verticalWalls;
+        long removedHorizontal = horizontalWalls & ~horizontal;
+        long removedVertical = verticalWalls & ~vertical;
+        horizontalWalls = horizontal;
+        verticalWalls = vertical;
+        board.setEdges(horizontalWalls, verticalWalls);
+
+        long oldSeeds = seeds;
+        loadKnights();
+        if (seeds != oldSeeds || touches(addedHorizontal, addedVertical)) {
+            region = board.flood(seeds);
+        } else if (touches(removedHorizontal, removedVertical)) {
+            region = board.flood(region);
+        }
+        return true;
+    }
+
+    /**
+     * A method to start tracking a challenge from scratch.
+     * @param newChallenge the challenge to track
+     */
+    private void load(ChallengeData newChallenge) {
+        challenge = newChallenge;
+        int wallCount = newChallenge.walls.size();
+        walls = newChallenge.walls.toArray(new WallData[wallCount]);
+        positions = new Coordinate[wallCount];
+        definitions = new WallDefinition[wallCount];
+        wallHorizontals = new long[wallCount];
+        wallVerticals = new long[wallCount];
+        horizontalWalls = 0;
+        verticalWalls = 0;
+        for (int i = 0; i < wallCount; i++) {
+            packWall(i);
+            horizontalWalls |= wallHorizontals[i];
+            verticalWalls |= wallVerticals[i];
+        }
+        board.setEdges(horizontalWalls, verticalWalls);
+        loadKnights();
+        region = board.flood(seeds);
+    }
+
+    /**
+     * A method to check whether the walls of the challenge are still the
+     * walls the tracker has seen, in the same order.
+     * @param challengeWalls the walls of the challenge
+     * @return true if the walls are the same
+     */
+    private boolean hasSameWalls(List<WallData> challengeWalls) {
+        if (challengeWalls.size() != walls.length) {
+            return false;
+        }
+        for (int i = 0; i < walls.length; i++) {
+            if (challengeWalls.get(i) != walls[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A method to remember the current position, definition and edges of a wall.
+     * @param index index of the wall
+     */
+    private void packWall(int index) {
+        WallData wall = walls[index];
+        positions[index] = wall.getPosition();
+        definitions[index] = wall.getWallDefinition();
+        wallBoard.clearWalls();
+        wallBoard.addWall(wall);
+        wallHorizontals[index] = wallBoard.getHorizontalWalls();
+        wallVerticals[index] = wallBoard.getVerticalWalls();
+    }
+
+    /**
+     * A method to pack the cells of the blue knights, the high towers and the
+     * enemy knights of the challenge.
+     */
+    private void loadKnights() {
+        long seedBits = 0;
+        long enemyBits = 0;
+        List<KnightData> knights = challenge.knights;
+        for (int i = 0; i < knights.size(); i++) {
+            KnightData knight = knights.get(i);
+            if (knight.isEnemy) {
+                enemyBits |= board.cellBit(knight.getPosition());
+            } else {
+                seedBits |= board.cellBit(knight.getPosition());
+            }
+        }
+        List<HighTowerData> highTowers = challenge.highTowers;
+        for (int i = 0; i < highTowers.size(); i++) {
+            HighTowerData highTower = highTowers.get(i);
+            seedBits |= board.cellBit(highTower.getFirstPosition());
+            seedBits |= board.cellBit(highTower.getSecondPosition());
+        }
+        seeds = seedBits;
+        enemies = enemyBits;
+    }
+
+    /**
+     * A method to check whether any of the given edges lies on a cell of the
+     * region. A horizontal edge is on the top of its cell and a vertical edge
+     * on the left of its cell, so an edge also touches the region if the cell
+     * above or on the left of its cell is in the region.
+     * @param horizontal the horizontal edges
+     * @param vertical the vertical edges
+     * @return true if an edge touches the region
+     */
+    private boolean touches(long horizontal, long vertical) {
+        return (horizontal & (region | (region << BitBoard.STRIDE))) != 0
+                || (vertical & (region | (region << 1))) != 0;
+    }
+
+    /**
+     * A get method to return the cells reachable from the blue knights and
+     * the high towers after the last update.
+     * @return the region as a cell mask of the BitBoard
+     */
+    public long getRegion() {
+        return region;
+    }
+
+    /**
+     * A get method to return the cells of the enemy knights in the region.
+     * @return the cells of the enemy knights reachable from the blue knights
+     */
+    public long getReachedEnemies() {
+        return region & enemies;
+    }
+
+    /**
+     * A method to check whether the region is enclosed, that is, whether all
+     * of its edges to the outside of the grid are covered by walls.
+     * @return true if the region does not leak to the outside
+     */
+    public boolean isClosed() {
+        return board.leaks(region) == 0;
+    }
+
+}
@@ -0,0 +1,653 @@
+package com.oops.wallsandwarriors.solver;
+
+import com.oops.wallsandwarriors.GridManager;
+import com.oops.wallsandwarriors.model.ChallengeData;
+import com.oops.wallsandwarriors.model.Coordinate;
+import com.oops.wallsandwarriors.model.HighTowerData;
+import com.oops.wallsandwarriors.model.KnightData;
+import com.oops.wallsandwarriors.model.OccupancyGrid;
+import com.oops.wallsandwarriors.model.WallData;
+import com.oops.wallsandwarriors.model.WallDefinition;
+import com.oops.wallsandwarriors.model.WallShape;
+import com.oops.wallsandwarriors.util.Point;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A class to keep every legal placement of every wall of a challenge, which is
+ * computed once before a search. Every wall is tried in each of its distinct
+ * rotations on each anchor inside the bounding box of the grid, and the
+ * placement rules of the GridManager decide which placements are legal on the
+ * empty grid. Each placement keeps the lattice points it occupies and its
+ * walls as BitBoard edge masks, and since two walls can only conflict with
+ * each other, the placements of every pair of walls which can be placed
+ * together are kept as bit sets.
+ * The domain of each wall is the bit set of its placements which can still be
+ * part of a solution. Propagation removes the placements which overlap a high
+ * tower, the placements which have no compatible placement left for another
+ * wall, and the placements which can not separate the blue knights and the
+ * high towers from the enemy knights and the outside even with every
+ * compatible placement of the other walls on the board, until no more
+ * placements can be removed.
+ * The walls are indexed in the order of decreasing portion counts, which is
+ * the order the ChallengeSolver places them in. A domain is not modified
+ * after it is created, so it can be shared by many threads.
+ */
+public class PlacementDomain {
+
+    private static final int STAMP_RANGE = 3;
+
+    private static final List<Coordinate> CONFLICT_OFFSETS =
+            getConflictOffsets(new GridManager());
+
+    // The walls are placed in the order of decreasing portion counts, so
+    // that the portions left for the remaining walls shrink quickly
+    final int[] order;
+    final List<List<Placement>> candidates;
+    final int[] sameShapeAs;
+    final BitBoard board;
+    final long seeds;
+    final long enemies;
+    final int[] remainingPortions;
+    // The placements of the last wall closing each horizontal and vertical edge
+    final long[][] lastCoverHorizontal;
+    final long[][] lastCoverVertical;
+    // compatible[i][j][a] has the placements of wall j which can be placed
+    // together with the placement a of wall i, for every i != j
+    final long[][][][] compatible;
+    private final long[][] domains;
+    private final int latticeMinX;
+    private final int latticeMinY;
+    private final int latticeWidth;
+    private final int latticeSize;
+    private final int[] offsets;
+    private final GridManager gridManager;
+
+    /**
+     * A constructor that computes the placements of every wall of a challenge
+     * and propagates the constraints of its knights and high towers.
+     * Walls with the same shape share the same candidate list, so that
+     * each of them can be placed after the previous one with that shape
+     * to avoid permuted duplicates.
+     * @param challenge the challenge to compute the placements of, whose
+     * walls are ignored except for their shapes
+     */
+    public PlacementDomain(ChallengeData challenge) {
+        gridManager = new GridManager();
+        int wallCount = challenge.walls.size();
+        order = getOrder(challenge.walls);
+        candidates = new ArrayList<List<Placement>>();
+        sameShapeAs = new int[wallCount];
+        board = new BitBoard();
+        board.loadBlocks(challenge.blocks);
+        long seedBits = 0;
+        long enemyBits = 0;
+        for (KnightData knight : challenge.knights) {
+            if (knight.isEnemy) {
+                enemyBits |= board.cellBit(knight.getPosition());
+            } else {
+                seedBits |= board.cellBit(knight.getPosition());
+            }
+        }
+        for (HighTowerData highTower : challenge.highTowers) {
+            seedBits |= board.cellBit(highTower.getFirstPosition());
+            seedBits |= board.cellBit(highTower.getSecondPosition());
+        }
+        seeds = seedBits;
+        enemies = enemyBits;
+        remainingPortions = new int[wallCount + 1];
+        for (int i = wallCount - 1; i >= 0; i--) {
+            remainingPortions[i] = remainingPortions[i + 1]
+                    + challenge.walls.get(order[i]).getWallDefinition().portions.size();
+        }
+        List<Coordinate> anchors = getAnchors(challenge.blocks);
+        int columns = 0;
+        int rows = 0;
+        if (!anchors.isEmpty()) {
+            Coordinate first = anchors.get(0);
+            Coordinate last = anchors.get(anchors.size() - 1);
+            columns = last.x - first.x + 1;
+            rows = last.y - first.y + 1;
+            int half = OccupancyGrid.LATTICE / 2;
+            latticeMinX = first.x * OccupancyGrid.LATTICE - half - STAMP_RANGE;
+            latticeMinY = first.y * OccupancyGrid.LATTICE - half - STAMP_RANGE;
+        } else {
+            latticeMinX = 0;
+            latticeMinY = 0;
+        }
+        latticeWidth = columns * OccupancyGrid.LATTICE + 1 + 2 * STAMP_RANGE;
+        latticeSize = latticeWidth * (rows * OccupancyGrid.LATTICE + 1 + 2 * STAMP_RANGE);
+
+        ChallengeData grid = new ChallengeData(challenge.blocks,
+                Collections.<WallData>emptyList());
+        for (int i = 0; i < wallCount; i++) {
+            WallData wall = challenge.walls.get(order[i]);
+            sameShapeAs[i] = -1;
+            for (int j = i - 1; j >= 0 && sameShapeAs[i] < 0; j--) {
+                if (wall.isPieceEqual(challenge.walls.get(order[j]))) {
+                    sameShapeAs[i] = j;
+                }
+            }
+            if (sameShapeAs[i] >= 0) {
+                candidates.add(candidates.get(sameShapeAs[i]));
+            } else {
+                candidates.add(getCandidates(grid, wall, anchors));
+            }
+        }
+
+        lastCoverHorizontal = new long[BitBoard.STRIDE * BitBoard.STRIDE][];
+        lastCoverVertical = new long[BitBoard.STRIDE * BitBoard.STRIDE][];
+        if (wallCount > 0) {
+            List<Placement> placements = candidates.get(wallCount - 1);
+            for (int b = 0; b < placements.size(); b++) {
+                addCover(lastCoverHorizontal, placements.get(b).horizontalWalls,
+                        b, placements.size());
+                addCover(lastCoverVertical, placements.get(b).verticalWalls,
+                        b, placements.size());
+            }
+        }
+
+        offsets = new int[CONFLICT_OFFSETS.size()];
+        for (int k = 0; k < offsets.length; k++) {
+            Coordinate offset = CONFLICT_OFFSETS.get(k);
+            offsets[k] = offset.y * latticeWidth + offset.x;
+        }
+        compatible = new long[wallCount][wallCount][][];
+        domains = new long[wallCount][];
+        for (int j = 0; j < wallCount; j++) {
+            long[][] occupants = getOccupants(candidates.get(j));
+            for (int i = 0; i < j; i++) {
+                compatible[i][j] = getCompatible(candidates.get(i), occupants,
+                        candidates.get(j).size());
+                compatible[j][i] = transpose(compatible[i][j], candidates.get(j).size());
+            }
+            domains[j] = getAllPlacements(candidates.get(j).size());
+            for (HighTowerData highTower : challenge.highTowers) {
+                removeConflicts(domains[j], occupants, highTower);
+            }
+        }
+        if (board.fits()) {
+            propagate();
+        }
+    }
+
+    /**
+     * A class to store a placement of a wall in one of its rotations.
+     */
+    public static class Placement {
+
+        final WallDefinition definition;
+        final Coordinate anchor;
+        final int[] points;
+        final long horizontalWalls;
+        final long verticalWalls;
+
+        /**
+         * A constructor that initializes a Placement with the given rotation and anchor.
+         * @param definition the rotated definition of the wall
+         * @param anchor the position of the wall
+         * @param points indices of the occupied points on the lattice
+         * @param board the board to pack the edges of the wall with
+         */
+        Placement(WallDefinition definition, Coordinate anchor, int[] points, BitBoard board) {
+            this.definition = definition;
+            this.anchor = anchor;
+            this.points = points;
+            board.clearWalls();
+            board.addWall(definition, anchor.x, anchor.y);
+            this.horizontalWalls = board.getHorizontalWalls();
+            this.verticalWalls = board.getVerticalWalls();
+        }
+
+        /**
+         * A get method to return the rotated definition of the wall.
+         * @return the definition to place the wall with
+         */
+        public WallDefinition getDefinition() {
+            return definition;
+        }
+
+        /**
+         * A get method to return the position of the wall.
+         * @return the anchor of the placement
+         */
+        public Coordinate getAnchor() {
+            return anchor;
+        }
+
+        /**
+         * A get method to return the horizontal walls of the placement.
+         * @return the horizontal edge mask on a BitBoard loaded with the blocks
+         */
+        public long getHorizontalWalls() {
+            return horizontalWalls;
+        }
+
+        /**
+         * A get method to return the vertical walls of the placement.
+         * @return the vertical edge mask on a BitBoard loaded with the blocks
+         */
+        public long getVerticalWalls() {
+            return verticalWalls;
+        }
+    }
+
+    /**
+     * A get method to return the number of walls.
+     * @return number of the walls
+     */
+    public int getWallCount() {
+        return order.length;
+    }
+
+    /**
+     * A method to get the index of a wall in the walls of the challenge.
+     * @param wallIndex index of the wall in the domain
+     * @return index of the wall in the challenge
+     */
+    public int getChallengeIndex(int wallIndex) {
+        return order[wallIndex];
+    }
+
+    /**
+     * A method to get the legal placements of a wall on the empty grid.
+     * @param wallIndex index of the wall in the domain
+     * @return the placements of the wall
+     */
+    public List<Placement> getPlacements(int wallIndex) {
+        return Collections.unmodifiableList(candidates.get(wallIndex));
+    }
+
+    /**
+     * A method to get the placements of a wall which are left after the propagation.
+     * @param wallIndex index of the wall in the domain
+     * @return a copy of the bit set of the placements
+     */
+    public long[] getDomain(int wallIndex) {
+        return domains[wallIndex].clone();
+    }
+
+    /**
+     * A method to count the placements of a wall which are left after the propagation.
+     * @param wallIndex index of the wall in the domain
+     * @return number of the placements
+     */
+    public int getDomainSize(int wallIndex) {
+        int size = 0;
+        for (long word : domains[wallIndex]) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    /**
+     * A method to check whether some wall has no placement left, in which
+     * case the challenge has no solution.
+     * @return true if the domain of a wall is empty
+     */
+    public boolean isEmpty() {
+        for (int i = 0; i < domains.length; i++) {
+            if (nextPlacement(domains[i], 0) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A method to check whether two placements of two different walls can be
+     * placed together.
+     * @param first index of the first wall in the domain
+     * @param firstPlacement index of the placement of the first wall
+     * @param second index of the second wall in the domain
+     * @param secondPlacement index of the placement of the second wall
+     * @return true if the placements do not conflict
+     */
+    public boolean isCompatible(int first, int firstPlacement, int second, int secondPlacement) {
+        long[] bits = compatible[first][second][firstPlacement];
+        return (bits[secondPlacement >>> 6] & (1L << secondPlacement)) != 0;
+    }
+
+    /**
+     * A method to remove the placements which have no compatible placement
+     * left for another wall or which can not enclose the blue knights and
+     * the high towers without an enemy knight, until no more placements can
+     * be removed.
+     */
+    private void propagate() {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < domains.length; i++) {
+                long[] domain = domains[i];
+                for (int a = nextPlacement(domain, 0); a >= 0; a = nextPlacement(domain, a + 1)) {
+                    if (!isSupported(i, a)) {
+                        domain[a >>> 6] &= ~(1L << a);
+                        changed = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A method to check whether a placement can still be part of a solution.
+     * Every other wall must have a placement compatible with it, and the
+     * region reachable from the blue knights and the high towers while it and
+     * every compatible placement of the other walls are on the board must not
+     * contain an enemy knight or an uncovered outer edge, since that region is
+     * reachable in any solution with the placement.
+     * @param wallIndex index of the wall in the domain
+     * @param placement index of the placement
+     * @return false if no solution can contain the placement
+     */
+    private boolean isSupported(int wallIndex, int placement) {
+        Placement placed = candidates.get(wallIndex).get(placement);
+        long horizontal = placed.horizontalWalls;
+        long vertical = placed.verticalWalls;
+        for (int j = 0; j < domains.length; j++) {
+            if (j == wallIndex) {
+                continue;
+            }
+            List<Placement> placements = candidates.get(j);
+            long[] domain = domains[j];
+            long[] supports = compatible[wallIndex][j][placement];
+            long any = 0;
+            for (int w = 0; w < domain.length; w++) {
+                long remaining = domain[w] & supports[w];
+                any |= remaining;
+                for (; remaining != 0; remaining &= remaining - 1) {
+                    Placement other =
+                            placements.get((w << 6) + Long.numberOfTrailingZeros(remaining));
+                    horizontal |= other.horizontalWalls;
+                    vertical |= other.verticalWalls;
+                }
+            }
+            if (any == 0) {
+                return false;
+            }
+        }
+        board.setEdges(horizontal, vertical);
+        long region = board.flood(seeds);
+        return (region & enemies) == 0 && board.leaks(region) == 0;
+    }
+
+    /**
+     * A method to remove the placements of a wall which conflict with the
+     * border point of a high tower.
+     * @param domain the placements of the wall
+     * @param occupants the placements of the wall occupying each point
+     * @param highTower the high tower
+     */
+    private void removeConflicts(long[] domain, long[][] occupants, HighTowerData highTower) {
+        Coordinate first = highTower.getFirstPosition();
+        Coordinate second = highTower.getSecondPosition();
+        int x = (first.x + second.x) * OccupancyGrid.LATTICE / 2 - latticeMinX;
+        int y = (first.y + second.y) * OccupancyGrid.LATTICE / 2 - latticeMinY;
+        int point = y * latticeWidth + x;
+        for (int offset : offsets) {
+            int other = point + offset;
+            if (other >= 0 && other < latticeSize && occupants[other] != null) {
+                for (int w = 0; w < domain.length; w++) {
+                    domain[w] &= ~occupants[other][w];
+                }
+            }
+        }
+    }
+
+    /**
+     * A method to get the distinct placements of a wall which are legal on
+     * the grid without any other piece.
+     * @param grid the challenge with only the blocks of the grid
+     * @param wall the wall to place
+     * @param anchors the anchors to try
+     * @return the legal placements of the wall
+     */
+    private List<Placement> getCandidates(ChallengeData grid, WallData wall,
+            List<Coordinate> anchors) {
+        List<Placement> placements = new ArrayList<Placement>();
+        Set<BitSet> footprints = new HashSet<BitSet>();
+        WallData rotating = wall.createCopy();
+        rotating.setPosition(null);
+        for (int r = 0; r < WallShape.ORIENTATION_NO; r++) {
+            for (Coordinate anchor : anchors) {
+                if (gridManager.isPiecePlacable(grid, anchor, rotating)) {
+                    BitSet footprint = getFootprint(rotating.occupies(anchor));
+                    if (footprints.add(footprint)) {
+                        placements.add(new Placement(rotating.getWallDefinition(),
+                                anchor, footprint.stream().toArray(), board));
+                    }
+                }
+            }
+            rotating.rotate();
+        }
+        return placements;
+    }
+
+    /**
+     * A method to add a placement to the placements closing each of its edges.
+     * @param cover the placements closing each edge
+     * @param edges the edges of the placement
+     * @param placement index of the placement
+     * @param count number of placements
+     */
+    private static void addCover(long[][] cover, long edges, int placement, int count) {
+        for (long remaining = edges; remaining != 0; remaining &= remaining - 1) {
+            int edge = Long.numberOfTrailingZeros(remaining);
+            if (cover[edge] == null) {
+                cover[edge] = new long[getWordCount(count)];
+            }
+            cover[edge][placement >>> 6] |= 1L << placement;
+        }
+    }
+
+    /**
+     * A method to get the points occupied by a placement on a lattice with
+     * a sixth of a block as unit, on which all border points lie.
+     * @param points the points occupied by the placement
+     * @return the occupied lattice points
+     */
+    private BitSet getFootprint(List<Point> points) {
+        BitSet footprint = new BitSet(latticeSize);
+        for (Point point : points) {
+            int x = (int) Math.round(point.x * OccupancyGrid.LATTICE) - latticeMinX;
+            int y = (int) Math.round(point.y * OccupancyGrid.LATTICE) - latticeMinY;
+            footprint.set(y * latticeWidth + x);
+        }
+        return footprint;
+    }
+
+    /**
+     * A method to map every lattice point to the placements occupying it.
+     * @param placements the placements of a wall
+     * @return the placements occupying each point as bit sets
+     */
+    private long[][] getOccupants(List<Placement> placements) {
+        long[][] occupants = new long[latticeSize][];
+        for (int b = 0; b < placements.size(); b++) {
+            for (int point : placements.get(b).points) {
+                if (occupants[point] == null) {
+                    occupants[point] = new long[getWordCount(placements.size())];
+                }
+                occupants[point][b >>> 6] |= 1L << b;
+            }
+        }
+        return occupants;
+    }
+
+    /**
+     * A method to get the placements of a wall compatible with each
+     * placement of another wall.
+     * @param placements the placements of the other wall
+     * @param occupants the placements of the wall occupying each point
+     * @param count number of placements of the wall
+     * @return the compatible placements for each placement of the other wall
+     */
+    private long[][] getCompatible(List<Placement> placements, long[][] occupants, int count) {
+        long[][] result = new long[placements.size()][];
+        for (int a = 0; a < placements.size(); a++) {
+            long[] bits = getAllPlacements(count);
+            for (int point : placements.get(a).points) {
+                for (int offset : offsets) {
+                    long[] conflicting = occupants[point + offset];
+                    if (conflicting != null) {
+                        for (int w = 0; w < bits.length; w++) {
+                            bits[w] &= ~conflicting[w];
+                        }
+                    }
+                }
+            }
+            result[a] = bits;
+        }
+        return result;
+    }
+
+    /**
+     * A method to get the compatible placements of a wall for each placement
+     * of another wall from the compatible placements of the other wall for
+     * each placement of the wall.
+     * @param compatible the compatible placements of the other wall for each
+     * placement of the wall
+     * @param count number of placements of the other wall
+     * @return the compatible placements of the wall for each placement of the other wall
+     */
+    private static long[][] transpose(long[][] compatible, int count) {
+        long[][] result = new long[count][];
+        for (int b = 0; b < count; b++) {
+            result[b] = new long[getWordCount(compatible.length)];
+        }
+        for (int a = 0; a < compatible.length; a++) {
+            long[] bits = compatible[a];
+            for (int b = nextPlacement(bits, 0); b >= 0; b = nextPlacement(bits, b + 1)) {
+                result[b][a >>> 6] |= 1L << a;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A method to get a bit set with all of the given number of placements.
+     * @param count number of the placements
+     * @return the bit set of all placements
+     */
+    private static long[] getAllPlacements(int count) {
+        long[] bits = new long[getWordCount(count)];
+        for (int b = 0; b < count; b++) {
+            bits[b >>> 6] |= 1L << b;
+        }
+        return bits;
+    }
+
+    /**
+     * A method to get the order to place the walls in, which is the order of
+     * decreasing portion counts.
+     * @param walls the walls to place
+     * @return indices of the walls in the order to place them
+     */
+    private static int[] getOrder(final List<WallData> walls) {
+        List<Integer> indices = new ArrayList<Integer>();
+        for (int i = 0; i < walls.size(); i++) {
+            indices.add(i);
+        }
+        indices.sort(new Comparator<Integer>() {
+            @Override
+            public int compare(Integer first, Integer second) {
+                return walls.get(second).getWallDefinition().portions.size()
+                        - walls.get(first).getWallDefinition().portions.size();
+            }
+        });
+        int[] order = new int[walls.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = indices.get(i);
+        }
+        return order;
+    }
+
+    /**
+     * A method to get the next placement in a bit set.
+     * @param bits the bit set of placements
+     * @param from index to start from
+     * @return index of the next placement, or -1 if there is none
+     */
+    static int nextPlacement(long[] bits, int from) {
+        int word = from >>> 6;
+        if (word >= bits.length) {
+            return -1;
+        }
+        long remaining = bits[word] & (-1L << from);
+        while (true) {
+            if (remaining != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(remaining);
+            }
+            if (++word == bits.length) {
+                return -1;
+            }
+            remaining = bits[word];
+        }
+    }
+
+    /**
+     * A method to get the number of words of a bit set.
+     * @param count number of bits
+     * @return number of longs needed
+     */
+    private static int getWordCount(int count) {
+        return Math.max(1, (count + 63) >>> 6);
+    }
+
+    /**
+     * A method to get the lattice offsets between two conflicting points,
+     * as decided by the GridManager.
+     * @param gridManager the grid manager to ask
+     * @return the conflicting offsets on the lattice
+     */
+    private static List<Coordinate> getConflictOffsets(GridManager gridManager) {
+        List<Coordinate> offsets = new ArrayList<Coordinate>();
+        Point origin = new Point(0, 0);
+        for (int dy = -STAMP_RANGE; dy <= STAMP_RANGE; dy++) {
+            for (int dx = -STAMP_RANGE; dx <= STAMP_RANGE; dx++) {
+                Point other = new Point((double) dx / OccupancyGrid.LATTICE,
+                        (double) dy / OccupancyGrid.LATTICE);
+                if (gridManager.pointsConflict(origin, other)) {
+                    offsets.add(new Coordinate(dx, dy));
+                }
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * A method to get the anchors to try for the walls, which are the
+     * coordinates in the bounding box of the blocks.
+     * @param blocks the blocks of the grid
+     * @return the anchors in row order
+     */
+    private static List<Coordinate> getAnchors(List<Coordinate> blocks) {
+        List<Coordinate> anchors = new ArrayList<Coordinate>();
+        if (blocks.isEmpty()) {
+            return anchors;
+        }
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (Coordinate block : blocks) {
+            minX = Math.min(minX, block.x);
+            minY = Math.min(minY, block.y);
+            maxX = Math.max(maxX, block.x);
+            maxY = Math.max(maxY, block.y);
+        }
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                anchors.add(new Coordinate(x, y));
+            }
+        }
+        return anchors;
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.oops.wallsandwarriors.solver;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A class to collect the statistics of a search of the ChallengeSolver. The
+ * tasks of a search count their nodes and cuts locally and add them here once
+ * they are done, so the counters are not contended during the search.
+ */
+public class SearchStatistics {
+
+    private final AtomicLong nodes;
+    private final AtomicLong cuts;
+
+    /**
+     * A default constructor that initializes a SearchStatistics with no counts.
+     */
+    public SearchStatistics() {
+        nodes = new AtomicLong();
+        cuts = new AtomicLong();
+    }
+
+    /**
+     * A method to add the counts of a finished task.
+     * @param taskNodes number of partial placements visited by the task
+     * @param taskCuts number of partial placements cut by the bounds of the task
+     */
+    void add(long taskNodes, long taskCuts) {
+        nodes.addAndGet(taskNodes);
+        cuts.addAndGet(taskCuts);
+    }
+
+    /**
+     * A get method to return the number of partial placements visited.
+     * @return number of the visited nodes of the search tree
+     */
+    public long getNodeCount() {
+        return nodes.get();
+    }
+
+    /**
+     * A get method to return the number of partial placements which are cut
+     * because no completion of them can be a solution.
+     * @return number of the cut nodes of the search tree
+     */
+    public long getCutCount() {
+        return cuts.get();
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.oops.wallsandwarriors.solver;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded cache of 64-bit results keyed by 64-bit Zobrist hashes, which can
+ * be shared by many threads without locks. Every key is mapped to a bucket of
+ * two entries. The first entry keeps the result of the first key stored in it,
+ * and the results of the other keys of the bucket always replace the second
+ * entry, so the memory of the table never grows and a key which is looked up
+ * again and again is not pushed out by the others. An entry is stored as two
+ * words, the result and the exclusive or of the key and the result. Two
+ * threads storing the same entry at the same time can mix up the words, but
+ * then the stored key does not match any more and the entry is a miss instead
+ * of a wrong result.
+ * The hits and the misses are counted, so that the capacity can be chosen
+ * from the hit rate of a real workload.
+ */
+public class TranspositionTable {
+
+    public static final long MISSING = Long.MIN_VALUE;
+
+    private static final int WAYS = 2;
+
+    private final AtomicLongArray entries;
+    private final int mask;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    /**
+     * A constructor that initializes an empty TranspositionTable.
+     * @param capacity the minimum number of entries, rounded up to a power of two
+     */
+    public TranspositionTable(int capacity) {
+        int size = WAYS;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        entries = new AtomicLongArray(2 * size);
+        mask = size / WAYS - 1;
+        hits = new AtomicLong();
+        misses = new AtomicLong();
+    }
+
+    /**
+     * A method to get the result stored for a key.
+     * @param key the Zobrist hash to look up
+     * @return the stored result, or MISSING if there is none
+     */
+    public long get(long key) {
+        int bucket = getBucket(key);
+        for (int index = bucket; index < bucket + 2 * WAYS; index += 2) {
+            long value = entries.get(index + 1);
+            long check = entries.get(index);
+            if ((check | value) != 0 && (check ^ value) == key) {
+                hits.incrementAndGet();
+                return value;
+            }
+        }
+        misses.incrementAndGet();
+        return MISSING;
+    }
+
+    /**
+     * A method to store a result for a key, replacing the entry of any other
+     * key mapped to the same place.
+     * @param key the Zobrist hash to store the result for
+     * @param value the result, which must not be MISSING
+     */
+    public void put(long key, long value) {
+        int index = getBucket(key);
+        long check = entries.get(index);
+        long stored = entries.get(index + 1);
+        if ((check | stored) != 0 && (check ^ stored) != key) {
+            index += 2;
+        }
+        entries.set(index, key ^ value);
+        entries.set(index + 1, value);
+    }
+
+    /**
+     * A method to remove every entry. The counters are kept.
+     */
+    public void clear() {
+        for (int i = 0; i < entries.length(); i++) {
+            entries.set(i, 0);
+        }
+    }
+
+    /**
+     * A method to get the index of the first word of the bucket of a key.
+     * @param key the Zobrist hash
+     * @return the index of the bucket in the words
+     */
+    private int getBucket(long key) {
+        return 2 * WAYS * ((int) (key ^ (key >>> 32)) & mask);
+    }
+
+    /**
+     * A get method to return the number of entries of the table.
+     * @return the capacity of the table
+     */
+    public int getCapacity() {
+        return WAYS * (mask + 1);
+    }
+
+    /**
+     * A get method to return the number of lookups which found a result.
+     * @return number of the hits
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * A get method to return the number of lookups which found no result.
+     * @return number of the misses
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+}
@@ -0,0 +1,123 @@
+package com.oops.wallsandwarriors.util;
+
+import static com.oops.wallsandwarriors.GameConstants.CAMP_SCR_CH_HEIGHT;
+import static com.oops.wallsandwarriors.GameConstants.CAMP_SCR_CH_WIDTH;
+import static com.oops.wallsandwarriors.GameConstants.SCREEN_HEIGHT;
+import static com.oops.wallsandwarriors.GameConstants.SCREEN_WIDTH;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javafx.scene.image.Image;
+
+/**
+ * A class to keep the decoded images of the game, keyed by their resource
+ * path and the size they are decoded at. Every image is decoded only once,
+ * and the images of the screens are decoded on background threads when the
+ * game starts, so changing the screen does not decode an image again. An
+ * image can be decoded at the size it is drawn at, so that a large picture
+ * is scaled only once instead of on every draw, and does not keep its full
+ * size in memory.
+ */
+public final class AssetCache {
+
+    private static final String IMAGE_PATH = "/com/oops/wallsandwarriors/resources/images/";
+    public static final String BACKGROUND = IMAGE_PATH + "background.jpg";
+    public static final String GAME_BACKGROUND = IMAGE_PATH + "background2.png";
+    public static final String LOCK = IMAGE_PATH + "lock.png";
+    public static final String HOW_TO_PLAY = IMAGE_PATH + "HowToPlay.png";
+    public static final String CREDITS = IMAGE_PATH + "credits.png";
+
+    public static final double HOW_TO_PLAY_WIDTH = 784;
+    public static final double HOW_TO_PLAY_HEIGHT = 450.6;
+    public static final double CREDITS_WIDTH = 780;
+    public static final double CREDITS_HEIGHT = 430;
+
+    private static final ExecutorService LOADER = Executors.newFixedThreadPool(2,
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "asset-loader");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+    private static final Map<String, CompletableFuture<Image>> IMAGES = new ConcurrentHashMap<>();
+
+    private AssetCache() {
+    }
+
+    /**
+     * A method to start decoding the images of the screens in the background,
+     * at the sizes they are drawn at.
+     */
+    public static void preload() {
+        request(BACKGROUND, SCREEN_WIDTH, SCREEN_HEIGHT);
+        request(GAME_BACKGROUND, SCREEN_WIDTH, SCREEN_HEIGHT);
+        request(LOCK, CAMP_SCR_CH_WIDTH, CAMP_SCR_CH_HEIGHT);
+        request(HOW_TO_PLAY, HOW_TO_PLAY_WIDTH, HOW_TO_PLAY_HEIGHT);
+        request(CREDITS, CREDITS_WIDTH, CREDITS_HEIGHT);
+    }
+
+    /**
+     * A method to get an image scaled to a size. If the image is still being
+     * decoded in the background, the decoding is waited for.
+     * @param path the resource path of the image
+     * @param width the width to scale the image to, or 0 for its own width
+     * @param height the height to scale the image to, or 0 for its own height
+     * @return the decoded image
+     */
+    public static Image getImage(String path, double width, double height) {
+        return request(path, width, height).join();
+    }
+
+    /**
+     * A method to start decoding an image if it is not decoded or being decoded yet.
+     * @param path the resource path of the image
+     * @param width the width to scale the image to, or 0 for its own width
+     * @param height the height to scale the image to, or 0 for its own height
+     * @return the decoding of the image
+     */
+    private static CompletableFuture<Image> request(final String path,
+            final double width, final double height) {
+        String key = path + "@" + width + "x" + height;
+        return IMAGES.computeIfAbsent(key, new Function<String, CompletableFuture<Image>>() {
+            @Override
+            public CompletableFuture<Image> apply(String key) {
+                return CompletableFuture.supplyAsync(new Supplier<Image>() {
+                    @Override
+                    public Image get() {
+                        return decode(path, width, height);
+                    }
+                }, LOADER);
+            }
+        });
+    }
+
+    /**
+     * A method to decode an image from the resources.
+     * @param path the resource path of the image
+     * @param width the width to scale the image to, or 0 for its own width
+     * @param height the height to scale the image to, or 0 for its own height
+     * @return the decoded image
+     */
+    private static Image decode(String path, double width, double height) {
+        InputStream inputStream = FileUtils.getInputStream(path);
+        try {
+            return new Image(inputStream, width, height, false, true);
+        } finally {
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+}
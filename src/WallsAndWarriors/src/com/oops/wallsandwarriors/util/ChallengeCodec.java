@@ -0,0 +1,368 @@
+package com.oops.wallsandwarriors.util;
+
+import com.oops.wallsandwarriors.definitions.WallDefinitions;
+import com.oops.wallsandwarriors.model.ChallengeData;
+import com.oops.wallsandwarriors.model.Coordinate;
+import com.oops.wallsandwarriors.model.HighTowerData;
+import com.oops.wallsandwarriors.model.KnightData;
+import com.oops.wallsandwarriors.model.WallBastion;
+import com.oops.wallsandwarriors.model.WallData;
+import com.oops.wallsandwarriors.model.WallDefinition;
+import com.oops.wallsandwarriors.model.WallPortion;
+import com.oops.wallsandwarriors.model.WallShape;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A class to convert ChallengeData into a compact binary form and vice-versa.
+ * The form starts with a format tag and a version, followed by the texts of the
+ * challenge, the bounding box and the bit mask of the blocks, the knights, the
+ * high towers and the walls. Positions are stored relative to the bounding box
+ * and standard walls are stored as the index of their shape in
+ * WallDefinitions.STANDARD and the number of rotations from the standard
+ * definition, so the codes do not depend on the order in which the shapes
+ * are registered. All numbers are varints.
+ */
+public class ChallengeCodec {
+
+    public static final byte FORMAT_TAG = 0x57;
+    public static final int VERSION = 1;
+
+    private static final int IS_ENEMY = 1;
+    private static final int IS_PLACED = 2;
+    private static final int HAS_FIRST = 1;
+    private static final int HAS_SECOND = 2;
+
+    /**
+     * Method to encode a challenge into the compact binary form.
+     * @param challenge the challenge to encode
+     * @return the bytes of the encoded challenge
+     */
+    public static byte[] encode(ChallengeData challenge) {
+        Output out = new Output();
+        out.writeByte(FORMAT_TAG);
+        out.writeVarint(VERSION);
+        out.writeString(challenge.getName());
+        out.writeString(challenge.getDescription());
+        out.writeString(challenge.getCreator());
+
+        List<Coordinate> blocks = challenge.blocks;
+        int minX = 0;
+        int minY = 0;
+        int maxX = -1;
+        int maxY = -1;
+        for (int i = 0; i < blocks.size(); i++) {
+            Coordinate block = blocks.get(i);
+            minX = i == 0 ? block.x : Math.min(minX, block.x);
+            minY = i == 0 ? block.y : Math.min(minY, block.y);
+            maxX = i == 0 ? block.x : Math.max(maxX, block.x);
+            maxY = i == 0 ? block.y : Math.max(maxY, block.y);
+        }
+        int columns = maxX - minX + 1;
+        int rows = maxY - minY + 1;
+        out.writeSignedVarint(minX);
+        out.writeSignedVarint(minY);
+        out.writeVarint(columns);
+        out.writeVarint(rows);
+        // Blocks are numbered column by column, as GridDefinitions lists them
+        byte[] mask = new byte[(columns * rows + 7) / 8];
+        for (Coordinate block : blocks) {
+            int bit = (block.x - minX) * rows + (block.y - minY);
+            mask[bit >>> 3] |= 1 << (bit & 7);
+        }
+        out.writeBytes(mask);
+
+        out.writeVarint(challenge.knights.size());
+        for (KnightData knight : challenge.knights) {
+            Coordinate position = knight.getPosition();
+            out.writeVarint((knight.isEnemy ? IS_ENEMY : 0) | (position != null ? IS_PLACED : 0));
+            out.writeCoordinate(position, minX, minY);
+        }
+
+        out.writeVarint(challenge.highTowers.size());
+        for (HighTowerData highTower : challenge.highTowers) {
+            Coordinate first = highTower.getFirstPosition();
+            Coordinate second = highTower.getSecondPosition();
+            out.writeVarint((first != null ? HAS_FIRST : 0) | (second != null ? HAS_SECOND : 0));
+            out.writeCoordinate(first, minX, minY);
+            out.writeCoordinate(second, minX, minY);
+        }
+
+        out.writeVarint(challenge.walls.size());
+        for (WallData wall : challenge.walls) {
+            Coordinate position = wall.getPosition();
+            int shapeId = getStandardIndex(wall.getShape());
+            int orientation = shapeId < WallDefinitions.STANDARD.size() ?
+                    getRotationNo(shapeId, wall.getWallDefinition()) : 0;
+            out.writeVarint((shapeId * WallShape.ORIENTATION_NO + orientation) << 1 |
+                    (position != null ? 1 : 0));
+            if (shapeId == WallDefinitions.STANDARD.size()) {
+                out.writeDefinition(wall.getWallDefinition());
+            }
+            out.writeCoordinate(position, minX, minY);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Method to decode a challenge from the compact binary form.
+     * @param bytes the bytes of the encoded challenge
+     * @return the decoded challenge
+     * @throws IOException if the bytes are not a challenge in a supported version
+     */
+    public static ChallengeData decode(byte[] bytes) throws IOException {
+        Input in = new Input(bytes);
+        if (in.readByte() != FORMAT_TAG) {
+            throw new IOException("Not a compact challenge code");
+        }
+        int version = in.readVarint();
+        if (version != VERSION) {
+            throw new IOException("Unsupported challenge code version " + version);
+        }
+        String name = in.readString();
+        String description = in.readString();
+        String creator = in.readString();
+
+        int minX = in.readSignedVarint();
+        int minY = in.readSignedVarint();
+        int columns = in.readVarint();
+        int rows = in.readVarint();
+        if ((long) columns * rows > 8L * bytes.length) {
+            throw new IOException("Challenge code is truncated");
+        }
+        List<Coordinate> blocks = new ArrayList<Coordinate>();
+        int maskStart = in.skip((columns * rows + 7) / 8);
+        for (int bit = 0; bit < columns * rows; bit++) {
+            if ((bytes[maskStart + (bit >>> 3)] & (1 << (bit & 7))) != 0) {
+                blocks.add(new Coordinate(minX + bit / rows, minY + bit % rows));
+            }
+        }
+
+        ChallengeData challenge = new ChallengeData(blocks,
+                Collections.<WallData>emptyList());
+        challenge.setName(name);
+        challenge.setDescription(description);
+        challenge.setCreator(creator);
+
+        int knightCount = in.readVarint();
+        for (int i = 0; i < knightCount; i++) {
+            int flags = in.readVarint();
+            Coordinate position = in.readCoordinate((flags & IS_PLACED) != 0, minX, minY);
+            challenge.addPiece(new KnightData(position, (flags & IS_ENEMY) != 0));
+        }
+
+        int highTowerCount = in.readVarint();
+        for (int i = 0; i < highTowerCount; i++) {
+            int flags = in.readVarint();
+            Coordinate first = in.readCoordinate((flags & HAS_FIRST) != 0, minX, minY);
+            Coordinate second = in.readCoordinate((flags & HAS_SECOND) != 0, minX, minY);
+            challenge.addPiece(new HighTowerData(first, second));
+        }
+
+        int wallCount = in.readVarint();
+        for (int i = 0; i < wallCount; i++) {
+            int header = in.readVarint();
+            int shapeId = (header >>> 1) / WallShape.ORIENTATION_NO;
+            int orientation = (header >>> 1) % WallShape.ORIENTATION_NO;
+            WallDefinition definition;
+            if (shapeId < WallDefinitions.STANDARD.size()) {
+                WallData standard = WallDefinitions.STANDARD.get(shapeId);
+                int base = standard.getShape().indexOf(standard.getWallDefinition());
+                definition = standard.getShape().getOrientation(
+                        (base + orientation) % WallShape.ORIENTATION_NO);
+            } else if (shapeId == WallDefinitions.STANDARD.size()) {
+                definition = in.readDefinition();
+            } else {
+                throw new IOException("Unknown wall shape " + shapeId);
+            }
+            Coordinate position = in.readCoordinate((header & 1) != 0, minX, minY);
+            challenge.addPiece(new WallData(definition, position));
+        }
+        return challenge;
+    }
+
+    /**
+     * Method to find the number of clockwise rotations from a standard wall to a definition.
+     * @param shapeId index of the standard wall
+     * @param definition a definition of the shape of the standard wall
+     * @return the number of rotations
+     */
+    private static int getRotationNo(int shapeId, WallDefinition definition) {
+        WallData standard = WallDefinitions.STANDARD.get(shapeId);
+        WallShape shape = standard.getShape();
+        int base = shape.indexOf(standard.getWallDefinition());
+        return (shape.indexOf(definition) - base + WallShape.ORIENTATION_NO) %
+                WallShape.ORIENTATION_NO;
+    }
+
+    /**
+     * Method to find the index of a shape among the standard walls.
+     * @param shape the shape to find
+     * @return the index of the shape, or the number of standard walls if it is not standard
+     */
+    private static int getStandardIndex(WallShape shape) {
+        List<WallData> standard = WallDefinitions.STANDARD;
+        for (int i = 0; i < standard.size(); i++) {
+            if (standard.get(i).getShape() == shape) {
+                return i;
+            }
+        }
+        return standard.size();
+    }
+
+    /**
+     * A class to write varints into a growing byte array.
+     */
+    private static class Output {
+
+        private byte[] buffer = new byte[64];
+        private int size;
+
+        private void writeByte(int value) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        private void writeBytes(byte[] bytes) {
+            for (byte value : bytes) {
+                writeByte(value);
+            }
+        }
+
+        private void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        private void writeSignedVarint(int value) {
+            writeVarint((value << 1) ^ (value >> 31));
+        }
+
+        private void writeString(String text) {
+            if (text == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1);
+            writeBytes(bytes);
+        }
+
+        private void writeCoordinate(Coordinate coordinate, int minX, int minY) {
+            if (coordinate != null) {
+                writeSignedVarint(coordinate.x - minX);
+                writeSignedVarint(coordinate.y - minY);
+            }
+        }
+
+        private void writeDefinition(WallDefinition definition) {
+            writeVarint(definition.portions.size());
+            for (WallPortion portion : definition.portions) {
+                writeCoordinate(portion.firstRelativePos, 0, 0);
+                writeCoordinate(portion.secondRelativePos, 0, 0);
+            }
+            writeVarint(definition.bastions.size());
+            for (WallBastion bastion : definition.bastions) {
+                writeCoordinate(bastion.relativePos, 0, 0);
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+    }
+
+    /**
+     * A class to read varints from a byte array.
+     */
+    private static class Input {
+
+        private final byte[] bytes;
+        private int position;
+
+        private Input(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private int readByte() throws IOException {
+            if (position >= bytes.length) {
+                throw new IOException("Challenge code is truncated");
+            }
+            return bytes[position++];
+        }
+
+        private int skip(int count) throws IOException {
+            if (count < 0 || bytes.length - position < count) {
+                throw new IOException("Challenge code is truncated");
+            }
+            int start = position;
+            position += count;
+            return start;
+        }
+
+        private int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int next = readByte();
+                value |= (next & 0x7F) << shift;
+                if ((next & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint in challenge code");
+        }
+
+        private int readSignedVarint() throws IOException {
+            int value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private String readString() throws IOException {
+            int length = readVarint();
+            if (length == 0) {
+                return null;
+            }
+            int start = skip(length - 1);
+            return new String(bytes, start, length - 1, StandardCharsets.UTF_8);
+        }
+
+        private Coordinate readCoordinate(boolean present, int minX, int minY)
+                throws IOException {
+            if (!present) {
+                return null;
+            }
+            int x = readSignedVarint() + minX;
+            int y = readSignedVarint() + minY;
+            return new Coordinate(x, y);
+        }
+
+        private WallDefinition readDefinition() throws IOException {
+            int portionCount = readVarint();
+            List<WallPortion> portions = new ArrayList<WallPortion>();
+            for (int i = 0; i < portionCount; i++) {
+                Coordinate first = readCoordinate(true, 0, 0);
+                Coordinate second = readCoordinate(true, 0, 0);
+                portions.add(new WallPortion(first, second));
+            }
+            int bastionCount = readVarint();
+            List<WallBastion> bastions = new ArrayList<WallBastion>();
+            for (int i = 0; i < bastionCount; i++) {
+                bastions.add(new WallBastion(readCoordinate(true, 0, 0)));
+            }
+            return new WallDefinition(portions, bastions);
+        }
+
+    }
+
+}
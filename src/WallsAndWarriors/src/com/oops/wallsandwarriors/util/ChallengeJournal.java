@@ -0,0 +1,177 @@
+package com.oops.wallsandwarriors.util;
+
+import com.oops.wallsandwarriors.StorageManager;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A class to keep the codes of challenges in an append-only file of records.
+ * Every challenge gets an id which does not change while it is in the file.
+ * Adding a challenge appends a "+ id code" record and removing it appends a
+ * "- id" tombstone, so neither of them reads or rewrites the rest of the file.
+ * When the file is read, the records are applied in the order they were
+ * written and only the codes of the live records are kept, so the dead
+ * records are never decoded. Every record is written with a line break, so a
+ * last line without one was cut off while it was written and is dropped.
+ * A line without a space is a code written by the older versions of the game,
+ * which wrote one code per line, and it gets the next free id.
+ * When the dead records become more than the live ones, or when the file has
+ * lines in the older format or a broken last line, the file is compacted by
+ * writing the live records into a temporary file and moving it over the
+ * journal. All writes are done in order on the thread of the StorageManager,
+ * so the records appended after a compaction is started are written after it.
+ * A ChallengeJournal must only be used on one thread, such as the JavaFX
+ * application thread.
+ */
+public class ChallengeJournal {
+
+    private static final char ADDED = '+';
+    private static final char REMOVED = '-';
+    // The journal is not compacted while it has fewer dead records than this
+    private static final int MIN_DEAD_RECORDS = 16;
+
+    private final File file;
+    private final StorageManager storage;
+    private final Map<Long, String> records;
+    private long nextId;
+    private int recordCount;
+
+    /**
+     * A constructor that initializes a ChallengeJournal with the records of a file.
+     * @param file the file of the journal
+     * @param content the content of the file
+     * @param storage the StorageManager to write the file with
+     */
+    public ChallengeJournal(File file, String content, StorageManager storage) {
+        this.file = file;
+        this.storage = storage;
+        this.records = new LinkedHashMap<>();
+        boolean needsCompaction = read(content);
+        if (needsCompaction || isWasteful()) {
+            compact();
+        }
+    }
+
+    /**
+     * A method to read the live records of the file, except a broken last line.
+     * @param content the content of the file
+     * @return true if the file should be rewritten in the current format
+     */
+    private boolean read(String content) {
+        if (content.isEmpty()) {
+            return false;
+        }
+        boolean oldFormat = false;
+        int end = content.lastIndexOf('\n') + 1;
+        for (String line : content.substring(0, end).split("\n")) {
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            int space = line.indexOf(' ');
+            if (space < 0) {
+                records.put(nextId++, line);
+                oldFormat = true;
+            } else if (!readRecord(line, space)) {
+                oldFormat = true;
+            }
+            recordCount++;
+        }
+        return oldFormat || end < content.length();
+    }
+
+    /**
+     * A method to apply a record of the current format.
+     * @param line the record
+     * @param space index of the first space in the record
+     * @return false if the record is broken and skipped
+     */
+    private boolean readRecord(String line, int space) {
+        int codeStart = line.indexOf(' ', space + 1);
+        try {
+            if (line.charAt(0) == ADDED && codeStart > 0) {
+                long id = Long.parseLong(line.substring(space + 1, codeStart));
+                records.put(id, line.substring(codeStart + 1));
+                nextId = Math.max(nextId, id + 1);
+                return true;
+            } else if (line.charAt(0) == REMOVED && codeStart < 0) {
+                records.remove(Long.parseLong(line.substring(space + 1)));
+                return true;
+            }
+        } catch (NumberFormatException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    /**
+     * A get method to return the codes of the live records by their ids, in
+     * the order they were added.
+     * @return the live records
+     */
+    public Map<Long, String> getRecords() {
+        return Collections.unmodifiableMap(records);
+    }
+
+    /**
+     * A method to add a code to the journal.
+     * @param code the code of the challenge
+     * @return the id of the new record
+     */
+    public long add(String code) {
+        long id = nextId++;
+        records.put(id, code);
+        append(ADDED + " " + id + " " + code);
+        return id;
+    }
+
+    /**
+     * A method to remove a record from the journal. The journal is compacted
+     * if too many of its records are dead.
+     * @param id the id of the record
+     */
+    public void remove(long id) {
+        if (records.remove(id) == null) {
+            return;
+        }
+        append(REMOVED + " " + id);
+        if (isWasteful()) {
+            compact();
+        }
+    }
+
+    /**
+     * A method to check whether the dead records are more than the live ones.
+     * @return true if the journal should be compacted
+     */
+    private boolean isWasteful() {
+        int deadCount = recordCount - records.size();
+        return deadCount >= MIN_DEAD_RECORDS && deadCount > records.size();
+    }
+
+    /**
+     * A method to append a record to the end of the file in the background.
+     * @param record the record to append
+     */
+    private void append(String record) {
+        recordCount++;
+        storage.appendLines(file, Collections.singletonList(record));
+    }
+
+    /**
+     * A method to rewrite the file with only the live records in the background.
+     */
+    private void compact() {
+        List<String> lines = new ArrayList<>(records.size());
+        for (Map.Entry<Long, String> record : records.entrySet()) {
+            lines.add(ADDED + " " + record.getKey() + " " + record.getValue());
+        }
+        recordCount = lines.size();
+        storage.writeLines(file, lines);
+    }
+
+}
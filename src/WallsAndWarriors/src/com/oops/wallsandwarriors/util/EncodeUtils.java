@@ -3,25 +3,25 @@ package com.oops.wallsandwarriors.util;
 import com.oops.wallsandwarriors.model.ChallengeData;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutput;
-import java.io.ObjectOutputStream;
 
 import java.util.Base64;
 
 /**
  * A class to convert ChallengeData into Base64 code and vice-versa to provide mobility 
- * and easy storage for challenges of all types.
+ * and easy storage for challenges of all types. Challenges are encoded in the
+ * compact form of ChallengeCodec, codes of serialized challenges written by the
+ * older versions of the game are still decoded.
  * @author Cagla Sozen
  */
 public class EncodeUtils {
 
-    private static String base64;
-    private static ChallengeData data;
+    // Every serialized object stream starts with these bytes, encoded as "rO0"
+    private static final byte SERIALIZED_TAG_FIRST = (byte) 0xAC;
+    private static final byte SERIALIZED_TAG_SECOND = (byte) 0xED;
 
     /**
      * Method to encode Challenge game object into Base64 String.
@@ -31,38 +31,8 @@ public class EncodeUtils {
      */
     public static String encode(ChallengeData toEncode) throws IOException
     {
-        data = toEncode;
-        byte[] inBytes = getByteStream(data);
-        base64 = Base64.getEncoder().encodeToString(inBytes);
-        
-        return base64;
-    }
-
-    /**
-     * Method to get byte stream of a ChallengeData object
-     * @param toByte, Challenge data object
-     * @return objInBytes, bytes of ChallengeData object
-     * @throws IOException if an input or output exception occurs
-     */
-    private static byte[] getByteStream(ChallengeData toByte) throws IOException
-    {
-        ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        ObjectOutput out = null;
-        try {
-            out = new ObjectOutputStream(bos);
-            out.writeObject(toByte);
-            out.flush();
-            byte[] objInBytes = bos.toByteArray();
-            return objInBytes;
-        } finally {
-            try {
-                bos.close();
-            } catch (IOException ex) {
-                {
-                    ex.printStackTrace();
-                }
-            }
-        }
+        byte[] inBytes = ChallengeCodec.encode(toEncode);
+        return Base64.getEncoder().withoutPadding().encodeToString(inBytes);
     }
 
     /**
@@ -76,11 +46,22 @@ public class EncodeUtils {
     public static ChallengeData decode(String toDecode)
             throws FileNotFoundException, IOException, ClassNotFoundException
     {
-        byte[] byteArray = Base64.getDecoder().decode(toDecode);
-        data = fromByteStream(byteArray);
-
-        return data;
+        byte[] byteArray = Base64.getDecoder().decode(toDecode.trim());
+        if (isSerialized(byteArray)) {
+            return fromByteStream(byteArray);
+        }
+        return ChallengeCodec.decode(byteArray);
+    }
 
+    /**
+     * Method to check whether the given bytes are a serialized object stream.
+     * @param bytes the decoded bytes of a code
+     * @return true if the code was written by Java serialization
+     */
+    private static boolean isSerialized(byte[] bytes) {
+        return bytes.length >= 2 &&
+                bytes[0] == SERIALIZED_TAG_FIRST &&
+                bytes[1] == SERIALIZED_TAG_SECOND;
     }
 
     private static ChallengeData fromByteStream(byte[] toObj)
@@ -0,0 +1,91 @@
+package com.oops.wallsandwarriors.util;
+
+import com.oops.wallsandwarriors.model.ChallengeData;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/**
+ * A class to list the challenges of a file of challenge codes, one code per line.
+ * The byte range of each line is indexed once when the list is created, and
+ * a challenge is decoded only the first time it is requested.
+ */
+public class LazyChallengeList extends AbstractList<ChallengeData> {
+
+    private final byte[] content;
+    private final int[] starts;
+    private final int[] ends;
+    private final ChallengeData[] decoded;
+
+    /**
+     * A constructor that indexes the non-empty lines of the given file content.
+     * @param content the content of a file of challenge codes
+     */
+    public LazyChallengeList(byte[] content) {
+        this.content = content;
+        int[] lineStarts = new int[16];
+        int[] lineEnds = new int[16];
+        int count = 0;
+        int start = 0;
+        for (int i = 0; i <= content.length; i++) {
+            if (i == content.length || content[i] == '\n') {
+                int end = i;
+                while (end > start && Character.isWhitespace(content[end - 1])) {
+                    end--;
+                }
+                if (end > start) {
+                    if (count == lineStarts.length) {
+                        lineStarts = Arrays.copyOf(lineStarts, count * 2);
+                        lineEnds = Arrays.copyOf(lineEnds, count * 2);
+                    }
+                    lineStarts[count] = start;
+                    lineEnds[count] = end;
+                    count++;
+                }
+                start = i + 1;
+            }
+        }
+        starts = Arrays.copyOf(lineStarts, count);
+        ends = Arrays.copyOf(lineEnds, count);
+        decoded = new ChallengeData[count];
+    }
+
+    /**
+     * An overriden method to get a challenge, decoding it on the first request.
+     * @param index index of the challenge
+     * @return the decoded challenge
+     */
+    @Override
+    public synchronized ChallengeData get(int index) {
+        if (decoded[index] == null) {
+            try {
+                decoded[index] = EncodeUtils.decode(getCode(index));
+            } catch (IOException | ClassNotFoundException e) {
+                throw new IllegalStateException("Challenge " + index + " can not be decoded", e);
+            }
+        }
+        return decoded[index];
+    }
+
+    /**
+     * A method to get the code of a challenge without decoding it.
+     * @param index index of the challenge
+     * @return the code of the challenge
+     */
+    public String getCode(int index) {
+        return new String(content, starts[index], ends[index] - starts[index],
+                StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * An overriden method to get the number of challenges.
+     * @return number of the challenges
+     */
+    @Override
+    public int size() {
+        return starts.length;
+    }
+
+}
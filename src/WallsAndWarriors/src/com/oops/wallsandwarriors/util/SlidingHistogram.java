@@ -0,0 +1,155 @@
+package com.oops.wallsandwarriors.util;
+
+/**
+ * A class to keep a histogram of the last durations recorded. The durations
+ * are counted in log-linear buckets of microseconds: the first sixteen
+ * buckets are one microsecond wide, and every power of two above them is
+ * split into sixteen buckets, so a bucket is at most one sixteenth of its
+ * durations wide from a microsecond to hours. The durations are also kept in
+ * a ring, so that the oldest one is taken out of its bucket when a new one is
+ * recorded and the histogram always shows the last window of durations.
+ */
+public class SlidingHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_NO = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_NO = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKET_NO;
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private final long[] window;
+    private final int[] counts;
+    private int next;
+    private int size;
+    private long total;
+
+    /**
+     * A constructor that initializes an empty SlidingHistogram.
+     * @param capacity the number of last durations to keep
+     */
+    public SlidingHistogram(int capacity) {
+        window = new long[capacity];
+        counts = new int[BUCKET_NO];
+    }
+
+    /**
+     * A method to record a duration, taking out the oldest one if the window is full.
+     * @param nanos the duration in nanoseconds
+     */
+    public void add(long nanos) {
+        nanos = Math.max(nanos, 0);
+        if (size == window.length) {
+            counts[getBucket(window[next])]--;
+            total -= window[next];
+        } else {
+            size++;
+        }
+        window[next] = nanos;
+        counts[getBucket(nanos)]++;
+        total += nanos;
+        next = (next + 1) % window.length;
+    }
+
+    /**
+     * A get method to return the number of durations in the window.
+     * @return the number of durations
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * A get method to return the mean of the durations in the window.
+     * @return the mean in milliseconds, or 0 if there are no durations
+     */
+    public double getMean() {
+        return size == 0 ? 0 : total / (size * NANOS_PER_MILLI);
+    }
+
+    /**
+     * A get method to return the longest duration in the window.
+     * @return the longest duration in milliseconds
+     */
+    public double getMax() {
+        long max = 0;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, window[i]);
+        }
+        return max / NANOS_PER_MILLI;
+    }
+
+    /**
+     * A get method to return a percentile of the durations in the window. The
+     * upper bound of the bucket of the percentile is returned, so the value is
+     * at most a sixteenth more than the exact one but never less.
+     * @param percentile the percentile between 0 and 1
+     * @return the percentile in milliseconds, or 0 if there are no durations
+     */
+    public double getPercentile(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        int rank = Math.max(1, (int) Math.ceil(percentile * size));
+        int seen = 0;
+        for (int bucket = 0; bucket < BUCKET_NO; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(getUpperBound(bucket), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * A get method to return the number of buckets of the histogram.
+     * @return the number of buckets
+     */
+    public int getBucketNo() {
+        return BUCKET_NO;
+    }
+
+    /**
+     * A get method to return the number of durations in a bucket.
+     * @param bucket the index of the bucket
+     * @return the number of durations in the bucket
+     */
+    public int getCount(int bucket) {
+        return counts[bucket];
+    }
+
+    /**
+     * A get method to return the upper bound of the durations in a bucket.
+     * @param bucket the index of the bucket
+     * @return the upper bound of the bucket in milliseconds
+     */
+    public double getUpperBound(int bucket) {
+        return getLowerMicros(bucket + 1) / 1000.0;
+    }
+
+    /**
+     * A method to find the bucket of a duration.
+     * @param nanos the duration in nanoseconds
+     * @return the index of the bucket
+     */
+    private static int getBucket(long nanos) {
+        long micros = nanos / 1000;
+        if (micros < SUB_BUCKET_NO) {
+            return (int) micros;
+        }
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(micros)) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKET_NO + (int) (micros >>> shift) - SUB_BUCKET_NO;
+    }
+
+    /**
+     * A method to find the lowest duration of a bucket.
+     * @param bucket the index of the bucket
+     * @return the lowest duration of the bucket in microseconds
+     */
+    private static double getLowerMicros(int bucket) {
+        if (bucket < SUB_BUCKET_NO) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKET_NO - 1;
+        return (double) (bucket % SUB_BUCKET_NO + SUB_BUCKET_NO) * (1L << Math.min(shift, 62));
+    }
+
+}
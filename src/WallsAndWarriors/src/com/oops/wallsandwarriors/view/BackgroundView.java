@@ -3,8 +3,8 @@ package com.oops.wallsandwarriors.view;
 import com.oops.wallsandwarriors.Game;
 import com.oops.wallsandwarriors.GameConstants;
 import com.oops.wallsandwarriors.model.ChallengeData;
+import com.oops.wallsandwarriors.util.AssetCache;
 import com.oops.wallsandwarriors.util.DrawUtils;
-import com.oops.wallsandwarriors.util.FileUtils;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
@@ -26,8 +26,8 @@ public class BackgroundView implements ViewObject {
      * @param inEditMode boolean value to indicate edit mode
      */
     public BackgroundView(boolean inEditMode) {
-        backgroundImage = new Image(FileUtils.getInputStream(
-                "/com/oops/wallsandwarriors/resources/images/background2.png"));
+        backgroundImage = AssetCache.getImage(AssetCache.GAME_BACKGROUND,
+                GameConstants.SCREEN_WIDTH, GameConstants.SCREEN_HEIGHT);
         titleFont = Font.font("Arial", FontWeight.BOLD, 48);
         this.inEditMode = inEditMode;
     }
@@ -2,24 +2,61 @@ package com.oops.wallsandwarriors.view;
 
 import com.oops.wallsandwarriors.GameConstants;
 import com.oops.wallsandwarriors.util.DrawUtils;
+import com.oops.wallsandwarriors.util.SlidingHistogram;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 
 /**
- * A class to implement Fps display view
+ * A class to implement Fps display view, which also profiles the frames of a
+ * game screen. The time between frames and the time of each drawing phase in
+ * a frame are kept in histograms of the last WINDOW samples, and the time of
+ * each input event in another. A phase may be recorded more than once in a
+ * frame, and its times are added up until the frame ends. The fps are always
+ * shown, and the overlay with the frame time histogram, its p50, p99 and max
+ * and the times of the phases can be toggled. The numbers shown are refreshed
+ * once every REFRESH_PERIOD.
  * @author Emin Bahadir Tuluce
  */
 public class FpsDisplayView implements ViewObject {
 
+    public static final int BACKGROUND = 0;
+    public static final int PALETTE = 1;
+    public static final int GRID = 2;
+    public static final int KNIGHTS = 3;
+    public static final int TOWERS = 4;
+    public static final int WALLS = 5;
+    public static final int OVERLAY = 6;
+    public static final int INPUT = 7;
+
+    private static final String[] PHASE_NAMES = {
+            "background", "palette", "grid", "knights",
+            "towers", "walls", "overlay", "input"};
+
     private static final double REFRESH_PERIOD = 1;
-    
+    private static final int WINDOW = 300;
+    private static final int CHART_BARS = 110;
+    private static final double CHART_HEIGHT = 50;
+    private static final double LINE_HEIGHT = 11;
+    private static final double PANEL_WIDTH = 250;
+
     private final Font fpsFont;
-    
+    private final SlidingHistogram frameTimes;
+    private final SlidingHistogram[] phaseTimes;
+    private final long[] framePhaseTimes;
+    private final boolean[] framePhases;
+
     private double time;
     private int frames;
     private int fps;
+    private boolean overlayShown;
+    private List<String> overlayLines;
+    private int[] chartCounts;
+    private String chartRange;
 
     /**
      * A default constructor of FpsDisplayView
@@ -27,27 +64,245 @@ public class FpsDisplayView implements ViewObject {
     public FpsDisplayView() {
         fpsFont = Font.font("Monospace", FontWeight.BOLD, 10);
         time = 0;
+        frameTimes = new SlidingHistogram(WINDOW);
+        phaseTimes = new SlidingHistogram[PHASE_NAMES.length];
+        for (int phase = 0; phase < PHASE_NAMES.length; phase++) {
+            phaseTimes[phase] = new SlidingHistogram(WINDOW);
+        }
+        framePhaseTimes = new long[PHASE_NAMES.length];
+        framePhases = new boolean[PHASE_NAMES.length];
+        overlayLines = new ArrayList<>();
+        chartCounts = new int[0];
+        chartRange = "";
     }
-    
+
     /**
-     * Draws the fps display view object on the screen
-     * @param graphics the graphics object for rendering
+     * A method to add the time since a moment to a phase of the current frame.
+     * @param phase the phase which has ended
+     * @param start the value of System.nanoTime when the phase has started
+     * @return the value of System.nanoTime when the phase has ended, to start the next phase
+     */
+    public long record(int phase, long start) {
+        long end = System.nanoTime();
+        framePhaseTimes[phase] += end - start;
+        framePhases[phase] = true;
+        return end;
+    }
+
+    /**
+     * A method to record the time since a moment as a sample of a phase which
+     * is not a part of a frame, such as handling an input event.
+     * @param phase the phase which has ended
+     * @param start the value of System.nanoTime when the phase has started
+     */
+    public void recordEvent(int phase, long start) {
+        phaseTimes[phase].add(System.nanoTime() - start);
+    }
+
+    /**
+     * A method to end the current frame, recording the time since the last
+     * frame and the times of the phases of this frame.
      * @param deltaTime the time difference until last render
      */
-    @Override
-    public void draw(GraphicsContext graphics, double deltaTime) {
+    public void endFrame(double deltaTime) {
+        frameTimes.add((long) (deltaTime * 1000000000));
+        for (int phase = 0; phase < PHASE_NAMES.length; phase++) {
+            if (framePhases[phase]) {
+                phaseTimes[phase].add(framePhaseTimes[phase]);
+                framePhaseTimes[phase] = 0;
+                framePhases[phase] = false;
+            }
+        }
         time += deltaTime;
         frames++;
         if (time > REFRESH_PERIOD) {
             fps = (int) (frames / time) + 1;
             time = 0;
             frames = 0;
+            refreshOverlay();
         }
+    }
+
+    /**
+     * A method to show the overlay if it is hidden and to hide it otherwise.
+     */
+    public void toggleOverlay() {
+        overlayShown = !overlayShown;
+        refreshOverlay();
+    }
+
+    /**
+     * A method to check whether the overlay is shown. The screen should be
+     * drawn in every frame while it is, so that the frames keep being measured.
+     * @return true if the overlay is shown
+     */
+    public boolean isOverlayShown() {
+        return overlayShown;
+    }
+
+    /**
+     * Draws the fps display view object on the screen
+     * @param graphics the graphics object for rendering
+     * @param deltaTime the time difference until last render
+     */
+    @Override
+    public void draw(GraphicsContext graphics, double deltaTime) {
         DrawUtils.setAttributes(graphics, Color.BLACK, Color.WHITE, 1);
         graphics.setFont(fpsFont);
         if (fps > 0) {
             graphics.fillText(fps + " fps", 5, GameConstants.SCREEN_HEIGHT - 5);
         }
+        if (overlayShown) {
+            drawOverlay(graphics);
+        }
+    }
+
+    /**
+     * A method to draw the overlay above the fps.
+     * @param graphics the graphics object for rendering
+     */
+    private void drawOverlay(GraphicsContext graphics) {
+        double height = CHART_HEIGHT + (overlayLines.size() + 2) * LINE_HEIGHT + 10;
+        double top = GameConstants.SCREEN_HEIGHT - 20 - height;
+        graphics.setFill(Color.color(0, 0, 0, 0.7));
+        graphics.fillRect(5, top, PANEL_WIDTH, height);
+
+        graphics.setFill(Color.WHITE);
+        double y = top + LINE_HEIGHT;
+        graphics.fillText(overlayLines.isEmpty() ? "" : overlayLines.get(0), 10, y);
+
+        double chartBottom = y + 5 + CHART_HEIGHT;
+        int highest = 1;
+        for (int count : chartCounts) {
+            highest = Math.max(highest, count);
+        }
+        graphics.setFill(Color.LIGHTGREEN);
+        for (int bar = 0; bar < chartCounts.length; bar++) {
+            double barHeight = CHART_HEIGHT * chartCounts[bar] / highest;
+            graphics.fillRect(10 + bar * 2, chartBottom - barHeight, 2, barHeight);
+        }
+        graphics.setFill(Color.WHITE);
+        y = chartBottom + LINE_HEIGHT;
+        graphics.fillText(chartRange, 10, y);
+        for (int line = 1; line < overlayLines.size(); line++) {
+            y += LINE_HEIGHT;
+            graphics.fillText(overlayLines.get(line), 10, y);
+        }
+    }
+
+    /**
+     * A method to compute the numbers and the bars shown on the overlay.
+     */
+    private void refreshOverlay() {
+        if (!overlayShown) {
+            return;
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(Locale.ROOT, "frame p50 %.1f p99 %.1f max %.1f ms",
+                frameTimes.getPercentile(0.5), frameTimes.getPercentile(0.99),
+                frameTimes.getMax()));
+        lines.add(String.format(Locale.ROOT, "%-10s %6s %6s %6s", "phase ms", "mean", "p99", "max"));
+        for (int phase = 0; phase < PHASE_NAMES.length; phase++) {
+            SlidingHistogram phaseTime = phaseTimes[phase];
+            lines.add(String.format(Locale.ROOT, "%-10s %6.2f %6.2f %6.2f", PHASE_NAMES[phase],
+                    phaseTime.getMean(), phaseTime.getPercentile(0.99), phaseTime.getMax()));
+        }
+        overlayLines = lines;
+
+        int first = -1;
+        int last = -1;
+        for (int bucket = 0; bucket < frameTimes.getBucketNo(); bucket++) {
+            if (frameTimes.getCount(bucket) > 0) {
+                if (first < 0) {
+                    first = bucket;
+                }
+                last = bucket;
+            }
+        }
+        if (first < 0) {
+            chartCounts = new int[0];
+            chartRange = "";
+            return;
+        }
+        last = Math.min(last, first + CHART_BARS - 1);
+        chartCounts = new int[last - first + 1];
+        for (int bucket = first; bucket <= last; bucket++) {
+            chartCounts[bucket - first] = frameTimes.getCount(bucket);
+        }
+        double lowest = first == 0 ? 0 : frameTimes.getUpperBound(first - 1);
+        chartRange = String.format(Locale.ROOT, "%.1f ms .. %.1f ms",
+                lowest, frameTimes.getUpperBound(last));
+    }
+
+    /**
+     * A method to create the lines of a CSV file with the statistics of the
+     * frame times and of the phases in the current window.
+     * @return the lines of the CSV file
+     */
+    public List<String> toCsv() {
+        List<String> lines = new ArrayList<>();
+        lines.add("metric,samples,mean_ms,p50_ms,p99_ms,max_ms");
+        lines.add(toCsvLine("frame", frameTimes));
+        for (int phase = 0; phase < PHASE_NAMES.length; phase++) {
+            lines.add(toCsvLine(PHASE_NAMES[phase], phaseTimes[phase]));
+        }
+        return lines;
+    }
+
+    /**
+     * A method to create a line of the CSV file for a histogram.
+     * @param name the name of the metric
+     * @param histogram the histogram of the metric
+     * @return the line of the metric
+     */
+    private static String toCsvLine(String name, SlidingHistogram histogram) {
+        return String.format(Locale.ROOT, "%s,%d,%.3f,%.3f,%.3f,%.3f", name,
+                histogram.getSize(), histogram.getMean(), histogram.getPercentile(0.5),
+                histogram.getPercentile(0.99), histogram.getMax());
+    }
+
+    /**
+     * A method to create the lines of a JSON file with the statistics and the
+     * histograms of the frame times and of the phases in the current window.
+     * Only the buckets which are not empty are written, with their upper bounds.
+     * @return the lines of the JSON file
+     */
+    public List<String> toJson() {
+        List<String> lines = new ArrayList<>();
+        lines.add("{");
+        lines.add("  \"window\": " + WINDOW + ",");
+        lines.add("  \"metrics\": {");
+        lines.add(toJsonLine("frame", frameTimes) + ",");
+        for (int phase = 0; phase < PHASE_NAMES.length; phase++) {
+            lines.add(toJsonLine(PHASE_NAMES[phase], phaseTimes[phase]) +
+                    (phase < PHASE_NAMES.length - 1 ? "," : ""));
+        }
+        lines.add("  }");
+        lines.add("}");
+        return lines;
+    }
+
+    /**
+     * A method to create a line of the JSON file for a histogram.
+     * @param name the name of the metric
+     * @param histogram the histogram of the metric
+     * @return the line of the metric
+     */
+    private static String toJsonLine(String name, SlidingHistogram histogram) {
+        StringBuilder buckets = new StringBuilder();
+        for (int bucket = 0; bucket < histogram.getBucketNo(); bucket++) {
+            if (histogram.getCount(bucket) > 0) {
+                if (buckets.length() > 0) {
+                    buckets.append(", ");
+                }
+                buckets.append(String.format(Locale.ROOT, "[%.3f, %d]",
+                        histogram.getUpperBound(bucket), histogram.getCount(bucket)));
+            }
+        }
+        return String.format(Locale.ROOT, "    \"%s\": {\"samples\": %d, \"mean_ms\": %.3f, "
+                + "\"p50_ms\": %.3f, \"p99_ms\": %.3f, \"max_ms\": %.3f, \"histogram\": [%s]}",
+                name, histogram.getSize(), histogram.getMean(), histogram.getPercentile(0.5),
+                histogram.getPercentile(0.99), histogram.getMax(), buckets);
     }
 
 }
@@ -1,6 +1,7 @@
 package com.oops.wallsandwarriors.view;
 
 import com.oops.wallsandwarriors.Game;
+import com.oops.wallsandwarriors.model.ChallengeData;
 import com.oops.wallsandwarriors.model.Coordinate;
 import com.oops.wallsandwarriors.util.DrawUtils;
 import com.oops.wallsandwarriors.util.Rectangle;
@@ -19,20 +20,36 @@ public class GridView implements ViewObject {
     private final double screenY;
     private final double margin;
     private final double blockLength;
+    private final ChallengeData challenge;
     private List<Rectangle> blockBounds;
 
     /**
-     * A constructor of the grid view class
+     * A constructor of the grid view class, which draws the grid of the
+     * current challenge of the game
      * @param x coordinate value
      * @param y coordinate value
      * @param margin  margin coordinate value
      * @param blockLength length of the block
      */
     public GridView(double x, double y, double margin, double blockLength) {
+        this(x, y, margin, blockLength, null);
+    }
+
+    /**
+     * A constructor of the grid view class, which draws the grid of a given challenge
+     * @param x coordinate value
+     * @param y coordinate value
+     * @param margin  margin coordinate value
+     * @param blockLength length of the block
+     * @param challenge the challenge to draw the grid of, or null for the current challenge of the game
+     */
+    public GridView(double x, double y, double margin, double blockLength,
+            ChallengeData challenge) {
         this.screenX = x;
         this.screenY = y;
         this.margin = margin;
         this.blockLength = blockLength;
+        this.challenge = challenge;
         calculateBlockBounds();
     }
 
@@ -59,8 +76,7 @@ public class GridView implements ViewObject {
                 screenY - margin,
                 5 * blockLength + 2 * margin,
                 4 * blockLength + 2 * margin, 50, 50);
-        List<Coordinate> blocks = Game.getInstance().
-                challengeManager.getChallengeData().blocks;
+        List<Coordinate> blocks = getBlocks();
         DrawUtils.setAttributes(graphics, Color.GRAY, Color.LIGHTGRAY, 6);
         for (Coordinate block : blocks) {
             DrawUtils.drawRect(graphics, 
@@ -70,6 +86,17 @@ public class GridView implements ViewObject {
         }
     }
 
+    /**
+     * A method to get the blocks of the challenge drawn
+     * @return list of block coordinates
+     */
+    private List<Coordinate> getBlocks() {
+        if (challenge != null) {
+            return challenge.blocks;
+        }
+        return Game.getInstance().challengeManager.getChallengeData().blocks;
+    }
+
     /**
      * A method to calculate  block bounds
      */
@@ -89,8 +116,7 @@ public class GridView implements ViewObject {
      * @return list of extended bound coordinates
      */
     private List<Coordinate> getExtendedBlocks() {
-        List<Coordinate> blocks = Game.getInstance().
-                challengeManager.getChallengeData().blocks;
+        List<Coordinate> blocks = getBlocks();
         List<Coordinate> extendedBlocks = new ArrayList<Coordinate>();
         int minX = Integer.MAX_VALUE;
         int minY = Integer.MAX_VALUE;
@@ -0,0 +1,318 @@
+package com.oops.wallsandwarriors.view;
+
+import com.oops.wallsandwarriors.model.Canonicalizer;
+import com.oops.wallsandwarriors.model.ChallengeData;
+import com.oops.wallsandwarriors.model.Coordinate;
+import com.oops.wallsandwarriors.model.HighTowerData;
+import com.oops.wallsandwarriors.model.KnightData;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javax.imageio.ImageIO;
+
+/**
+ * A class to keep rasterized previews of challenges. Each challenge is drawn
+ * once with a GridView, KnightViews and HighTowerViews and kept as an image,
+ * keyed by a hash of the parts of the challenge that appear in the preview.
+ * The hash is built from the canonical form of the challenge without its walls,
+ * so challenges which only differ in the order of their pieces or in their
+ * walls share one preview.
+ * The images are kept in memory up to a capacity, dropping the least recently
+ * used one first, and are optionally written as PNG files to a directory so
+ * that they are not drawn again when the game is restarted. The files are
+ * loaded in the background, and a file which can not be loaded is deleted so
+ * that the preview is drawn again when it is next requested. The directory
+ * is also kept up to a number of files: the time a file was last used is kept
+ * as its modification time, and the least recently used files are deleted
+ * after a new one is written. The files are written, touched and deleted on
+ * a background thread.
+ * All methods must be called on the JavaFX application thread.
+ */
+public class ThumbnailCache {
+
+    private static final String FILE_VERSION = "v2";
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "thumbnail-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private final double width;
+    private final double height;
+    private final double gridX;
+    private final double gridY;
+    private final double margin;
+    private final double blockLength;
+    private final File directory;
+    private final int diskCapacity;
+    private final Map<Long, Image> images;
+
+    /**
+     * A constructor that initializes an empty ThumbnailCache.
+     * @param width width of the previews
+     * @param height height of the previews
+     * @param gridX x value of the grid in the previews
+     * @param gridY y value of the grid in the previews
+     * @param margin margin around the grid
+     * @param blockLength length of a grid block in the previews
+     * @param capacity maximum number of previews to keep in memory
+     * @param directory directory to keep the preview files in, or null to keep them only in memory
+     * @param diskCapacity maximum number of preview files to keep in the directory
+     */
+    public ThumbnailCache(double width, double height, double gridX, double gridY,
+            double margin, double blockLength, final int capacity, File directory,
+            int diskCapacity) {
+        this.width = width;
+        this.height = height;
+        this.gridX = gridX;
+        this.gridY = gridY;
+        this.margin = margin;
+        this.blockLength = blockLength;
+        this.directory = directory;
+        this.diskCapacity = diskCapacity;
+        images = new LinkedHashMap<Long, Image>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Image> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * A method to get the preview of a challenge, drawing it only if it is
+     * neither in memory nor on the disk. A preview on the disk is returned
+     * while it is still loading, and it is shown by an ImageView once it is loaded.
+     * @param challenge the challenge to get the preview of
+     * @return the preview image
+     */
+    public Image getThumbnail(ChallengeData challenge) {
+        long key = getContentHash(challenge);
+        Image image = images.get(key);
+        if (image == null) {
+            File file = getFile(key);
+            if (file != null && file.isFile()) {
+                image = load(key, file);
+            } else {
+                image = render(challenge);
+                if (file != null) {
+                    write(image, file);
+                }
+            }
+            images.put(key, image);
+        }
+        return image;
+    }
+
+    /**
+     * A method to start loading a preview from its file in the background.
+     * If the file can not be loaded, the preview is dropped from the memory
+     * and the file is deleted.
+     * @param key the content hash of the preview
+     * @param file the file of the preview
+     * @return the loading image
+     */
+    private Image load(final long key, final File file) {
+        final Image image = new Image(file.toURI().toString(), true);
+        image.errorProperty().addListener(new ChangeListener<Boolean>() {
+            @Override
+            public void changed(ObservableValue<? extends Boolean> observable,
+                    Boolean wasError, Boolean isError) {
+                if (isError) {
+                    if (images.get(key) == image) {
+                        images.remove(key);
+                    }
+                    delete(file);
+                }
+            }
+        });
+        touch(file);
+        return image;
+    }
+
+    /**
+     * A method to compute a 64-bit FNV-1a hash of the blocks, the knights and
+     * the high towers of a challenge together with the drawing parameters.
+     * Walls are not drawn in the previews, so they are not hashed. The blocks,
+     * the knights and the high towers are hashed by their canonical form, the
+     * symmetry which maps them to it and the corner of the grid, which together
+     * tell where each piece is drawn.
+     * @param challenge the challenge to hash
+     * @return the hash of the preview content
+     */
+    public long getContentHash(ChallengeData challenge) {
+        long hash = FNV_OFFSET;
+        hash = mix(hash, Double.doubleToLongBits(width));
+        hash = mix(hash, Double.doubleToLongBits(height));
+        hash = mix(hash, Double.doubleToLongBits(gridX));
+        hash = mix(hash, Double.doubleToLongBits(gridY));
+        hash = mix(hash, Double.doubleToLongBits(margin));
+        hash = mix(hash, Double.doubleToLongBits(blockLength));
+        Canonicalizer.CanonicalForm form = Canonicalizer.canonicalize(challenge, false);
+        hash = mix(hash, form.getHash());
+        hash = mix(hash, form.getSymmetry());
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        for (Coordinate block : challenge.blocks) {
+            minX = Math.min(minX, block.x);
+            minY = Math.min(minY, block.y);
+        }
+        hash = mix(hash, minX);
+        return mix(hash, minY);
+    }
+
+    /**
+     * A method to draw the preview of a challenge into an image.
+     * @param challenge the challenge to draw
+     * @return the drawn image
+     */
+    private Image render(ChallengeData challenge) {
+        Canvas canvas = new Canvas(width, height);
+        GraphicsContext graphics = canvas.getGraphicsContext2D();
+        new GridView(gridX, gridY, margin, blockLength, challenge).draw(graphics, 1);
+        for (KnightData knight : challenge.knights) {
+            new KnightView(knight, gridX, gridY, blockLength).draw(graphics, 1);
+        }
+        for (HighTowerData highTower : challenge.highTowers) {
+            new HighTowerView(highTower, gridX, gridY, blockLength).draw(graphics, 1);
+        }
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        return canvas.snapshot(parameters, new WritableImage((int) Math.ceil(width),
+                (int) Math.ceil(height)));
+    }
+
+    /**
+     * A method to write a preview to its file in the background, and to
+     * delete the least recently used files if there are too many of them.
+     * @param image the preview to write
+     * @param file the file to write the preview to
+     */
+    private void write(Image image, final File file) {
+        final BufferedImage buffered = SwingFXUtils.fromFXImage(image, null);
+        WRITER.execute(new Runnable() {
+            @Override
+            public void run() {
+                File temp = new File(file.getPath() + ".tmp");
+                try {
+                    file.getParentFile().mkdirs();
+                    if (ImageIO.write(buffered, "png", temp) && !temp.renameTo(file)) {
+                        temp.delete();
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    temp.delete();
+                }
+                evict();
+            }
+        });
+    }
+
+    /**
+     * A method to mark a preview file as used now in the background.
+     * @param file the file of the preview
+     */
+    private static void touch(final File file) {
+        WRITER.execute(new Runnable() {
+            @Override
+            public void run() {
+                file.setLastModified(System.currentTimeMillis());
+            }
+        });
+    }
+
+    /**
+     * A method to delete a preview file in the background.
+     * @param file the file of the preview
+     */
+    private static void delete(final File file) {
+        WRITER.execute(new Runnable() {
+            @Override
+            public void run() {
+                file.delete();
+            }
+        });
+    }
+
+    /**
+     * A method to delete the least recently used preview files while the
+     * directory has more than diskCapacity of them. It is only called on the
+     * background thread.
+     */
+    private void evict() {
+        File[] files = directory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.isFile() && file.getName().endsWith(".png");
+            }
+        });
+        if (files == null || files.length <= diskCapacity) {
+            return;
+        }
+        final long[] lastUses = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < files.length; i++) {
+            lastUses[i] = files[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer first, Integer second) {
+                return Long.compare(lastUses[first], lastUses[second]);
+            }
+        });
+        for (int i = 0; i < files.length - diskCapacity; i++) {
+            files[order[i]].delete();
+        }
+    }
+
+    /**
+     * A method to get the file of a preview.
+     * @param key the content hash of the preview
+     * @return the file of the preview, or null if previews are kept only in memory
+     */
+    private File getFile(long key) {
+        if (directory == null) {
+            return null;
+        }
+        return new File(directory, FILE_VERSION + "-" + Long.toHexString(key) + ".png");
+    }
+
+    /**
+     * A method to mix the bytes of a value into a FNV-1a hash.
+     * @param hash the hash so far
+     * @param value the value to mix
+     * @return the new hash
+     */
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= (value >>> (8 * i)) & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.oops.wallsandwarriors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.oops.wallsandwarriors.model.ChallengeData;
+import com.oops.wallsandwarriors.model.Coordinate;
+import com.oops.wallsandwarriors.model.HighTowerData;
+import com.oops.wallsandwarriors.model.KnightData;
+import com.oops.wallsandwarriors.model.WallData;
+import com.oops.wallsandwarriors.solver.BitBoard;
+import com.oops.wallsandwarriors.solver.EnclosureTracker;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests of the EnclosureTracker. The walls of the campaign challenges are
+ * placed, moved, rotated and lifted at random on the same challenge, so the
+ * tracker updates its region instead of starting over, and after every step
+ * the region is compared with a flood of a board loaded from scratch and the
+ * verdict of the SolutionManager with its check on that board.
+ */
+public class EnclosureTrackerTest {
+
+    private static final int STEPS = 500;
+
+    @Test
+    public void incrementalRegionAgreesWithFullFlood() {
+        List<ChallengeData> challenges = TestChallenges.getCampaignChallenges();
+        Random random = new Random(4);
+        for (int i = 0; i < challenges.size(); i++) {
+            ChallengeData solved = challenges.get(i);
+            ChallengeData challenge = solved.createCopy(true);
+            EnclosureTracker tracker = new EnclosureTracker();
+            SolutionManager incrementalCheck = new SolutionManager();
+            SolutionManager fullCheck = new SolutionManager();
+            for (int step = 0; step < STEPS; step++) {
+                if (random.nextInt(50) == 0) {
+                    // A copy of the same board makes the tracker start over
+                    challenge = challenge.createCopy(false);
+                } else {
+                    move(challenge, solved, random);
+                }
+                String message = "Challenge " + i + " step " + step;
+                BitBoard board = new BitBoard();
+                assertTrue(message, board.load(challenge));
+                assertTrue(message, tracker.update(challenge));
+                long region = board.flood(getSeeds(board, challenge));
+                assertEquals(message, region, tracker.getRegion());
+                assertEquals(message, board.leaks(region) == 0, tracker.isClosed());
+
+                List<Coordinate> expected = TestChallenges.getPositions(fullCheck.checkSolution(
+                        challenge, board.getHorizontalWalls(), board.getVerticalWalls()));
+                assertEquals(message, expected, TestChallenges.getPositions(
+                        incrementalCheck.checkSolution(challenge)));
+            }
+        }
+    }
+
+    /**
+     * A method to change one wall of a challenge at random: the wall is
+     * lifted, rotated where it is, moved to where it is in the stored
+     * solution, or rotated and moved to a random block where the GridManager
+     * allows it.
+     * @param challenge the challenge to change
+     * @param solved the stored solution of the challenge
+     * @param random the source of the random choices
+     */
+    private static void move(ChallengeData challenge, ChallengeData solved, Random random) {
+        int index = random.nextInt(challenge.walls.size());
+        WallData wall = challenge.walls.get(index);
+        switch (random.nextInt(4)) {
+            case 0:
+                wall.setPosition(null);
+                break;
+            case 1:
+                wall.rotate();
+                break;
+            case 2:
+                WallData solvedWall = solved.walls.get(index);
+                wall.setWallDefinition(solvedWall.getWallDefinition());
+                wall.setPosition(solvedWall.getPosition());
+                break;
+            default:
+                wall.setPosition(null);
+                wall.rotate();
+                Coordinate block = challenge.blocks.get(random.nextInt(challenge.blocks.size()));
+                new GridManager().attemptPlacement(challenge, block, wall);
+                break;
+        }
+    }
+
+    /**
+     * A method to pack the cells of the blue knights and the high towers.
+     * @param board the board loaded with the challenge
+     * @param challenge the challenge
+     * @return the cells the region is flooded from
+     */
+    private static long getSeeds(BitBoard board, ChallengeData challenge) {
+        long seeds = 0;
+        for (KnightData knight : challenge.knights) {
+            if (!knight.isEnemy) {
+                seeds |= board.cellBit(knight.getPosition());
+            }
+        }
+        for (HighTowerData highTower : challenge.highTowers) {
+            seeds |= board.cellBit(highTower.getFirstPosition());
+            seeds |= board.cellBit(highTower.getSecondPosition());
+        }
+        return seeds;
+    }
+
+}
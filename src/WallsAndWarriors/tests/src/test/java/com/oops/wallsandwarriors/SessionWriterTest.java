@@ -0,0 +1,147 @@
+package com.oops.wallsandwarriors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.oops.wallsandwarriors.model.ChallengeData;
+import com.oops.wallsandwarriors.model.Coordinate;
+import com.oops.wallsandwarriors.model.WallData;
+import com.oops.wallsandwarriors.model.WallShape;
+import com.oops.wallsandwarriors.util.EncodeUtils;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the SessionWriter. A session is read after the pending changes are
+ * written, so reading it also writes the moves recorded before.
+ */
+public class SessionWriterTest {
+
+    private StorageManager storage;
+    private SessionWriter sessionWriter;
+    private ChallengeData solved;
+    private ChallengeData challenge;
+
+    @Before
+    public void setUp() {
+        storage = new StorageManager();
+        sessionWriter = new SessionWriter(storage);
+        solved = TestChallenges.getCampaignChallenges().get(0);
+        challenge = solved.createCopy(true);
+    }
+
+    @After
+    public void tearDown() {
+        sessionWriter.close();
+        storage.close();
+    }
+
+    @Test
+    public void movesAreReplayedOnSnapshot() throws Exception {
+        sessionWriter.record(challenge, solved);
+        for (int i = 0; i < challenge.walls.size(); i++) {
+            place(i);
+            sessionWriter.record(challenge, solved);
+        }
+        assertSession(sessionWriter.readSession().get());
+        // The moves made before the first write are written with the snapshot
+        assertEquals(2 + challenge.walls.size(), readLines().size());
+
+        // A wall moved after the snapshot is written is appended
+        challenge.walls.get(0).setPosition(null);
+        sessionWriter.record(challenge, solved);
+        place(0);
+        sessionWriter.record(challenge, solved);
+        sessionWriter.readSession().get();
+        assertEquals(3 + challenge.walls.size(), readLines().size());
+        assertSession(sessionWriter.readSession().get());
+    }
+
+    @Test
+    public void snapshotIsWrittenAfterManyMoves() throws Exception {
+        sessionWriter.record(challenge, solved);
+        for (int i = 0; i < 70; i++) {
+            challenge.walls.get(0).setPosition(new Coordinate(i % 2, 0));
+            sessionWriter.record(challenge, solved);
+            sessionWriter.readSession().get();
+        }
+        // The 65th move starts the file over, so 5 moves are written after it
+        assertEquals(2 + 5, readLines().size());
+        for (int i = 0; i < challenge.walls.size(); i++) {
+            place(i);
+            sessionWriter.record(challenge, solved);
+        }
+        assertSession(sessionWriter.readSession().get());
+    }
+
+    @Test
+    public void clearedSessionIsNotRead() throws Exception {
+        sessionWriter.record(challenge, solved);
+        place(0);
+        sessionWriter.record(challenge, solved);
+        sessionWriter.clear();
+        assertNull(sessionWriter.readSession().get());
+        assertEquals(0, readLines().size());
+    }
+
+    @Test
+    public void brokenLinesAreSkipped() throws Exception {
+        for (int i = 0; i < challenge.walls.size(); i++) {
+            place(i);
+        }
+        sessionWriter.record(challenge, solved);
+        sessionWriter.readSession().get();
+        storage.appendLines(storage.sessionData, Arrays.asList(
+                "1 -", "2 " + WallShape.ORIENTATION_NO + " 0 0", "3 0 1", "x 0 0 0", "9 -"));
+        SessionWriter.Session session = sessionWriter.readSession().get();
+        challenge.walls.get(1).setPosition(null);
+        assertSession(session);
+    }
+
+    /**
+     * A method to place a wall of the challenge as in the stored solution.
+     * @param index index of the wall
+     */
+    private void place(int index) {
+        WallData wall = challenge.walls.get(index);
+        WallData solvedWall = solved.walls.get(index);
+        wall.setWallDefinition(solvedWall.getWallDefinition());
+        wall.setPosition(solvedWall.getPosition());
+    }
+
+    /**
+     * A method to check that a session has the walls of the challenge and the
+     * stored solution as the hint challenge.
+     * @param session the session to check
+     * @throws IOException if a challenge can not be encoded
+     */
+    private void assertSession(SessionWriter.Session session) throws IOException {
+        assertNotNull(session);
+        List<WallData> walls = session.getChallengeData().walls;
+        assertEquals(challenge.walls.size(), walls.size());
+        for (int i = 0; i < walls.size(); i++) {
+            WallData expected = challenge.walls.get(i);
+            WallData actual = walls.get(i);
+            assertEquals("Wall " + i, expected.getPosition(), actual.getPosition());
+            if (expected.getPosition() != null) {
+                assertEquals("Wall " + i, expected.getOrientation(), actual.getOrientation());
+            }
+        }
+        assertEquals(EncodeUtils.encode(solved), EncodeUtils.encode(session.getHintData()));
+    }
+
+    /**
+     * A method to read the lines of the session file after the writes requested before.
+     * @return the lines of the file
+     * @throws Exception if the file can not be read
+     */
+    private List<String> readLines() throws Exception {
+        return storage.readLines(storage.sessionData).get();
+    }
+
+}
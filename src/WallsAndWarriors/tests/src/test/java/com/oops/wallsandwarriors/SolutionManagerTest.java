@@ -0,0 +1,110 @@
+package com.oops.wallsandwarriors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.oops.wallsandwarriors.model.ChallengeData;
+import com.oops.wallsandwarriors.model.Coordinate;
+import com.oops.wallsandwarriors.model.KnightData;
+import com.oops.wallsandwarriors.solver.BitBoard;
+import com.oops.wallsandwarriors.solver.TranspositionTable;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests of the SolutionManager. A grid which fits into a BitBoard is checked
+ * with bit masks, so its verdicts are compared with the check by marking the
+ * coordinates one by one, which is used for the same challenge once a block
+ * far from its grid is added.
+ */
+public class SolutionManagerTest {
+
+    private static final Coordinate FAR_BLOCK = new Coordinate(4 * BitBoard.STRIDE, 0);
+    private static final int RANDOM_PLACEMENTS = 200;
+
+    @Test
+    public void campaignChallengesAreSolved() {
+        List<ChallengeData> challenges = TestChallenges.getCampaignChallenges();
+        SolutionManager solutionManager = new SolutionManager();
+        for (int i = 0; i < challenges.size(); i++) {
+            List<KnightData> incorrectKnights = solutionManager.checkSolution(challenges.get(i));
+            assertNotNull("Challenge " + i + " is not closed", incorrectKnights);
+            assertTrue("Challenge " + i + " has enemies inside", incorrectKnights.isEmpty());
+        }
+    }
+
+    @Test
+    public void bitBoardCheckAgreesWithMarkingOnSolutions() {
+        List<ChallengeData> challenges = TestChallenges.getCampaignChallenges();
+        SolutionManager bitBoardCheck = new SolutionManager();
+        SolutionManager markingCheck = new SolutionManager();
+        for (int i = 0; i < challenges.size(); i++) {
+            ChallengeData solution = challenges.get(i);
+            // Every subset of the walls is taken off the grid
+            for (int removed = 0; removed < 1 << solution.walls.size(); removed++) {
+                ChallengeData challenge = solution.createCopy(false);
+                for (int wall = 0; wall < challenge.walls.size(); wall++) {
+                    if ((removed & 1 << wall) != 0) {
+                        challenge.walls.get(wall).setPosition(null);
+                    }
+                }
+                assertSameVerdict("Challenge " + i + " without walls " + removed,
+                        bitBoardCheck, markingCheck, challenge);
+            }
+        }
+    }
+
+    @Test
+    public void bitBoardCheckAgreesWithMarkingOnRandomPlacements() {
+        List<ChallengeData> challenges = TestChallenges.getCampaignChallenges();
+        SolutionManager bitBoardCheck = new SolutionManager();
+        SolutionManager markingCheck = new SolutionManager();
+        Random random = new Random(1);
+        for (int i = 0; i < challenges.size(); i++) {
+            for (int placement = 0; placement < RANDOM_PLACEMENTS; placement++) {
+                ChallengeData challenge = TestChallenges.placeRandomly(challenges.get(i), random);
+                assertSameVerdict("Challenge " + i + " placement " + placement,
+                        bitBoardCheck, markingCheck, challenge);
+            }
+        }
+    }
+
+    @Test
+    public void cachedVerdictsAgreeWithChecks() {
+        List<ChallengeData> challenges = TestChallenges.getCampaignChallenges();
+        SolutionManager check = new SolutionManager();
+        SolutionManager cachingCheck = new SolutionManager(new TranspositionTable(1024));
+        Random random = new Random(2);
+        for (int i = 0; i < challenges.size(); i++) {
+            for (int placement = 0; placement < RANDOM_PLACEMENTS; placement++) {
+                ChallengeData challenge = TestChallenges.placeRandomly(challenges.get(i), random);
+                List<Coordinate> expected = TestChallenges.getPositions(
+                        check.checkSolution(challenge));
+                // The second check of the same board is answered from the cache
+                for (int repeat = 0; repeat < 2; repeat++) {
+                    assertEquals("Challenge " + i + " placement " + placement, expected,
+                            TestChallenges.getPositions(cachingCheck.checkSolution(challenge)));
+                }
+            }
+        }
+    }
+
+    /**
+     * A method to check that a challenge gets the same verdict with bit masks
+     * and by marking.
+     * @param message the message of the failure
+     * @param bitBoardCheck the SolutionManager to check the challenge with bit masks
+     * @param markingCheck the SolutionManager to check the challenge by marking
+     * @param challenge the challenge to check
+     */
+    private static void assertSameVerdict(String message, SolutionManager bitBoardCheck,
+            SolutionManager markingCheck, ChallengeData challenge) {
+        List<Coordinate> expected = TestChallenges.getPositions(markingCheck.checkSolution(
+                TestChallenges.withBlock(challenge, FAR_BLOCK)));
+        assertEquals(message, expected,
+                TestChallenges.getPositions(bitBoardCheck.checkSolution(challenge)));
+    }
+
+}
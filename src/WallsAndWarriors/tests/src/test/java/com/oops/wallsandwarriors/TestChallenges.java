@@ -0,0 +1,162 @@
+package com.oops.wallsandwarriors;
+
+import com.oops.wallsandwarriors.model.ChallengeData;
+import com.oops.wallsandwarriors.model.Coordinate;
+import com.oops.wallsandwarriors.model.HighTowerData;
+import com.oops.wallsandwarriors.model.KnightData;
+import com.oops.wallsandwarriors.model.WallData;
+import com.oops.wallsandwarriors.util.EncodeUtils;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A class to provide the challenges used by the tests: the campaign
+ * challenges, whose walls are stored in their solved positions, and random
+ * legal placements of their walls.
+ */
+public class TestChallenges {
+
+    private static final String CAMPAIGN_CHALLENGES_PATH =
+            "/com/oops/wallsandwarriors/resources/challenges/campaign_challenges.dat";
+
+    private static List<String> campaignCodes;
+
+    /**
+     * A method to get the codes of the campaign challenges, one code per
+     * line of the file of the campaign challenges.
+     * @return the codes of the campaign challenges
+     */
+    public static synchronized List<String> getCampaignCodes() {
+        if (campaignCodes == null) {
+            campaignCodes = Collections.unmodifiableList(readCampaignCodes());
+        }
+        return campaignCodes;
+    }
+
+    /**
+     * A method to decode the campaign challenges. Every call decodes them
+     * again, so a test can change the challenges it gets.
+     * @return the campaign challenges with their solutions
+     */
+    public static List<ChallengeData> getCampaignChallenges() {
+        List<String> codes = getCampaignCodes();
+        List<ChallengeData> challenges = new ArrayList<ChallengeData>(codes.size());
+        for (String code : codes) {
+            try {
+                challenges.add(EncodeUtils.decode(code));
+            } catch (IOException | ClassNotFoundException e) {
+                throw new IllegalStateException("A campaign challenge can not be decoded", e);
+            }
+        }
+        return challenges;
+    }
+
+    /**
+     * A method to read the codes in the file of the campaign challenges from
+     * the classpath.
+     * @return the codes in the file
+     */
+    private static List<String> readCampaignCodes() {
+        InputStream inputStream = TestChallenges.class.getResourceAsStream(
+                CAMPAIGN_CHALLENGES_PATH);
+        if (inputStream == null) {
+            throw new IllegalStateException("Campaign challenges are not on the classpath");
+        }
+        List<String> codes = new ArrayList<String>();
+        try {
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+            for (String line; (line = reader.readLine()) != null;) {
+                if (!line.trim().isEmpty()) {
+                    codes.add(line.trim());
+                }
+            }
+            reader.close();
+        } catch (IOException e) {
+            throw new IllegalStateException("Campaign challenges can not be read", e);
+        }
+        return codes;
+    }
+
+    /**
+     * A method to place the walls of a challenge randomly. Every wall is
+     * rotated randomly and placed on a random block where the GridManager
+     * allows it, or left off the grid.
+     * @param challenge the challenge to place the walls of
+     * @param random the source of the random choices
+     * @return a copy of the challenge with the walls placed
+     */
+    public static ChallengeData placeRandomly(ChallengeData challenge, Random random) {
+        ChallengeData placed = challenge.createCopy(true);
+        GridManager gridManager = new GridManager();
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (Coordinate block : placed.blocks) {
+            minX = Math.min(minX, block.x);
+            minY = Math.min(minY, block.y);
+            maxX = Math.max(maxX, block.x);
+            maxY = Math.max(maxY, block.y);
+        }
+        for (WallData wall : placed.walls) {
+            for (int rotation = random.nextInt(4); rotation > 0; rotation--) {
+                wall.rotate();
+            }
+            for (int attempt = 0; attempt < 16; attempt++) {
+                Coordinate block = new Coordinate(
+                        minX - 1 + random.nextInt(maxX - minX + 3),
+                        minY - 1 + random.nextInt(maxY - minY + 3));
+                if (gridManager.attemptPlacement(placed, block, wall)) {
+                    break;
+                }
+            }
+        }
+        return placed;
+    }
+
+    /**
+     * A method to copy a challenge with one more block far from its grid, so
+     * that its grid does not fit into a BitBoard. The far block can not be
+     * reached from the other blocks, so it does not change the solution.
+     * @param challenge the challenge to copy
+     * @param farBlock the block to add
+     * @return the copy of the challenge
+     */
+    public static ChallengeData withBlock(ChallengeData challenge, Coordinate farBlock) {
+        List<Coordinate> blocks = new ArrayList<Coordinate>(challenge.blocks);
+        blocks.add(farBlock);
+        ChallengeData copy = new ChallengeData(blocks, challenge.walls);
+        for (KnightData knight : challenge.knights) {
+            copy.addPiece(knight.createCopy());
+        }
+        for (HighTowerData highTower : challenge.highTowers) {
+            copy.addPiece(highTower.createCopy());
+        }
+        return copy;
+    }
+
+    /**
+     * A method to get the positions of some knights.
+     * @param knights the knights, or null
+     * @return the positions of the knights in the same order, or null
+     */
+    public static List<Coordinate> getPositions(List<KnightData> knights) {
+        if (knights == null) {
+            return null;
+        }
+        List<Coordinate> positions = new ArrayList<Coordinate>(knights.size());
+        for (KnightData knight : knights) {
+            positions.add(knight.getPosition());
+        }
+        return positions;
+    }
+
+}
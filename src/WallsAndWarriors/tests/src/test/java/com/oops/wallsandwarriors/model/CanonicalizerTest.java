@@ -0,0 +1,197 @@
+package com.oops.wallsandwarriors.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.oops.wallsandwarriors.SolutionManager;
+import com.oops.wallsandwarriors.TestChallenges;
+import com.oops.wallsandwarriors.solver.ChallengeSolver;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests of the Canonicalizer on the campaign challenges. The rotated and
+ * mirrored copies of the challenges are made here with Coordinate.rotate and
+ * a mirror of the x values, so they do not depend on how the Canonicalizer
+ * maps the challenges.
+ */
+public class CanonicalizerTest {
+
+    private static final int ROTATION_NO = 4;
+    // The challenges whose copies are also solved, since solving is slow
+    private static final int SOLVED_CHALLENGE_NO = 8;
+
+    @Test
+    public void hashIsSameForAllSymmetries() {
+        List<ChallengeData> challenges = TestChallenges.getCampaignChallenges();
+        Random random = new Random(5);
+        for (int i = 0; i < challenges.size(); i++) {
+            ChallengeData challenge = challenges.get(i);
+            long hash = Canonicalizer.canonicalize(challenge).getHash();
+            long hashWithoutWalls = Canonicalizer.canonicalize(challenge, false).getHash();
+            for (int rotations = 0; rotations < ROTATION_NO; rotations++) {
+                for (int mirrors = 0; mirrors < 2; mirrors++) {
+                    ChallengeData copy = transform(challenge, rotations, mirrors == 1, random);
+                    String symmetry = "Challenge " + i + ", " + rotations + " rotations, "
+                            + mirrors + " mirrors";
+                    assertEquals(symmetry, hash, Canonicalizer.canonicalize(copy).getHash());
+                    assertEquals(symmetry, hashWithoutWalls,
+                            Canonicalizer.canonicalize(copy, false).getHash());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void hashIgnoresWallPositions() {
+        List<ChallengeData> challenges = TestChallenges.getCampaignChallenges();
+        for (int i = 0; i < challenges.size(); i++) {
+            ChallengeData solved = challenges.get(i);
+            assertEquals("Challenge " + i, Canonicalizer.canonicalize(solved).getHash(),
+                    Canonicalizer.canonicalize(solved.createCopy(true)).getHash());
+        }
+    }
+
+    @Test
+    public void hashChangesWithChallenge() {
+        List<ChallengeData> challenges = TestChallenges.getCampaignChallenges();
+        for (int i = 0; i < challenges.size(); i++) {
+            ChallengeData challenge = challenges.get(i);
+            long hash = Canonicalizer.canonicalize(challenge).getHash();
+            for (int k = 0; k < challenge.knights.size(); k++) {
+                ChallengeData flipped = challenge.createCopy(true);
+                KnightData knight = flipped.knights.get(k);
+                flipped.knights.set(k, new KnightData(knight.getPosition(), !knight.isEnemy));
+                assertNotEquals("Challenge " + i + ", knight " + k, hash,
+                        Canonicalizer.canonicalize(flipped).getHash());
+            }
+            ChallengeData withoutWall = challenge.createCopy(true);
+            withoutWall.walls.remove(0);
+            assertNotEquals("Challenge " + i, hash,
+                    Canonicalizer.canonicalize(withoutWall).getHash());
+            assertEquals("Challenge " + i, Canonicalizer.canonicalize(challenge, false).getHash(),
+                    Canonicalizer.canonicalize(withoutWall, false).getHash());
+        }
+    }
+
+    @Test
+    public void canonicalSolutionsMapBackToSolutions() {
+        List<ChallengeData> challenges = TestChallenges.getCampaignChallenges();
+        ChallengeSolver solver = new ChallengeSolver();
+        SolutionManager solutionManager = new SolutionManager();
+        Random random = new Random(7);
+        for (int i = 0; i < SOLVED_CHALLENGE_NO; i++) {
+            ChallengeData challenge = challenges.get(i);
+            int solutionNo = solver.countSolutions(challenge);
+            for (int rotations = 0; rotations < ROTATION_NO; rotations++) {
+                for (int mirrors = 0; mirrors < 2; mirrors++) {
+                    ChallengeData copy = transform(challenge, rotations, mirrors == 1, random);
+                    String symmetry = "Challenge " + i + ", " + rotations + " rotations, "
+                            + mirrors + " mirrors";
+                    Canonicalizer.CanonicalForm form = Canonicalizer.canonicalize(copy);
+                    List<ChallengeData> canonicalSolutions = solver.solve(form.toCanonical(copy));
+                    assertEquals(symmetry, solutionNo, canonicalSolutions.size());
+                    for (ChallengeData canonicalSolution : canonicalSolutions) {
+                        ChallengeData solution = form.fromCanonical(copy, canonicalSolution);
+                        List<KnightData> incorrectKnights =
+                                solutionManager.checkSolution(solution);
+                        assertNotNull(symmetry + " is not closed", incorrectKnights);
+                        assertTrue(symmetry + " has enemies inside", incorrectKnights.isEmpty());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A method to rotate and mirror a challenge, move it and shuffle its
+     * blocks, knights and walls. The walls are taken off the grid.
+     * @param challenge the challenge to transform
+     * @param rotations the number of times to rotate the challenge
+     * @param mirrored true to mirror the x values after the rotations
+     * @param random the source of the move and of the order of the pieces
+     * @return the transformed copy of the challenge
+     */
+    private static ChallengeData transform(ChallengeData challenge, int rotations,
+            boolean mirrored, Random random) {
+        Coordinate move = new Coordinate(random.nextInt(21) - 10, random.nextInt(21) - 10);
+        List<Coordinate> blocks = new ArrayList<Coordinate>();
+        for (Coordinate block : challenge.blocks) {
+            blocks.add(transform(block, rotations, mirrored).plus(move));
+        }
+        List<WallData> walls = new ArrayList<WallData>();
+        for (WallData wall : challenge.walls) {
+            walls.add(new WallData(transform(wall.getWallDefinition(), rotations, mirrored)));
+        }
+        Collections.shuffle(blocks, random);
+        Collections.shuffle(walls, random);
+        ChallengeData transformed = new ChallengeData(blocks, walls);
+        List<KnightData> knights = new ArrayList<KnightData>();
+        for (KnightData knight : challenge.knights) {
+            knights.add(new KnightData(
+                    transform(knight.getPosition(), rotations, mirrored).plus(move),
+                    knight.isEnemy));
+        }
+        Collections.shuffle(knights, random);
+        for (KnightData knight : knights) {
+            transformed.addPiece(knight);
+        }
+        for (HighTowerData highTower : challenge.highTowers) {
+            transformed.addPiece(new HighTowerData(
+                    transform(highTower.getFirstPosition(), rotations, mirrored).plus(move),
+                    transform(highTower.getSecondPosition(), rotations, mirrored).plus(move)));
+        }
+        return transformed;
+    }
+
+    /**
+     * A method to rotate and mirror a wall definition. A bastion is given by
+     * the block below and on the right of its corner, so a rotation maps it
+     * from (x, y) to (y, 1 - x) and a mirror maps it to (1 - x, y).
+     * @param definition the definition to transform
+     * @param rotations the number of times to rotate the definition
+     * @param mirrored true to mirror the definition after the rotations
+     * @return the transformed definition
+     */
+    private static WallDefinition transform(WallDefinition definition, int rotations,
+            boolean mirrored) {
+        List<WallPortion> portions = new ArrayList<WallPortion>();
+        for (WallPortion portion : definition.portions) {
+            portions.add(new WallPortion(
+                    transform(portion.firstRelativePos, rotations, mirrored),
+                    transform(portion.secondRelativePos, rotations, mirrored)));
+        }
+        List<WallBastion> bastions = new ArrayList<WallBastion>();
+        for (WallBastion bastion : definition.bastions) {
+            Coordinate position = bastion.relativePos;
+            for (int r = 0; r < rotations; r++) {
+                position = new Coordinate(position.y, 1 - position.x);
+            }
+            if (mirrored) {
+                position = new Coordinate(1 - position.x, position.y);
+            }
+            bastions.add(new WallBastion(position));
+        }
+        return new WallDefinition(portions, bastions);
+    }
+
+    /**
+     * A method to rotate and mirror a coordinate.
+     * @param coordinate the coordinate to transform
+     * @param rotations the number of times to rotate the coordinate
+     * @param mirrored true to mirror the coordinate after the rotations
+     * @return the transformed coordinate
+     */
+    private static Coordinate transform(Coordinate coordinate, int rotations, boolean mirrored) {
+        for (int r = 0; r < rotations; r++) {
+            coordinate = coordinate.rotate();
+        }
+        return mirrored ? new Coordinate(-coordinate.x, coordinate.y) : coordinate;
+    }
+
+}
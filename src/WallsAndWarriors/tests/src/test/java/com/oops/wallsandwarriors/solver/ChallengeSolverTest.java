@@ -0,0 +1,124 @@
+package com.oops.wallsandwarriors.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.oops.wallsandwarriors.SolutionManager;
+import com.oops.wallsandwarriors.TestChallenges;
+import com.oops.wallsandwarriors.model.ChallengeData;
+import com.oops.wallsandwarriors.model.KnightData;
+import com.oops.wallsandwarriors.model.WallData;
+import com.oops.wallsandwarriors.util.Point;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+
+/**
+ * Tests of the ChallengeSolver on the campaign challenges, whose walls are
+ * stored in the positions of a solution. The solutions are compared by the
+ * border points their walls occupy, since a wall may be placed with another
+ * definition of the same shape.
+ */
+public class ChallengeSolverTest {
+
+    @Test
+    public void solutionsContainStoredSolution() {
+        List<ChallengeData> challenges = TestChallenges.getCampaignChallenges();
+        ChallengeSolver solver = new ChallengeSolver();
+        for (int i = 0; i < challenges.size(); i++) {
+            ChallengeData stored = challenges.get(i);
+            Set<String> found = new HashSet<String>();
+            for (ChallengeData solution : solver.solve(stored)) {
+                found.add(getPlacement(solution));
+            }
+            assertTrue("Challenge " + i, found.contains(getPlacement(stored)));
+        }
+    }
+
+    @Test
+    public void solutionsAreDistinctAndSolved() {
+        List<ChallengeData> challenges = TestChallenges.getCampaignChallenges();
+        ChallengeSolver solver = new ChallengeSolver();
+        SolutionManager solutionManager = new SolutionManager();
+        for (int i = 0; i < challenges.size(); i++) {
+            ChallengeData challenge = challenges.get(i);
+            List<ChallengeData> solutions = solver.solve(challenge);
+            Set<String> placements = new HashSet<String>();
+            for (ChallengeData solution : solutions) {
+                for (WallData wall : solution.walls) {
+                    assertNotNull("Challenge " + i + " has a wall off the grid",
+                            wall.getPosition());
+                }
+                List<KnightData> incorrectKnights = solutionManager.checkSolution(solution);
+                assertNotNull("Challenge " + i + " is not closed", incorrectKnights);
+                assertTrue("Challenge " + i + " has enemies inside", incorrectKnights.isEmpty());
+                assertTrue("Challenge " + i + " has a repeated solution",
+                        placements.add(getPlacement(solution)));
+            }
+        }
+    }
+
+    @Test
+    public void countsAgreeWithSolutions() {
+        List<ChallengeData> challenges = TestChallenges.getCampaignChallenges();
+        ChallengeSolver solver = new ChallengeSolver();
+        for (int i = 0; i < challenges.size(); i++) {
+            ChallengeData challenge = challenges.get(i);
+            int solutionNo = solver.solve(challenge).size();
+            assertEquals("Challenge " + i, solutionNo, solver.countSolutions(challenge));
+            // The second count is taken from the cache
+            assertEquals("Challenge " + i, solutionNo, solver.countSolutions(challenge));
+            assertEquals("Challenge " + i, Math.min(solutionNo, 2),
+                    solver.countSolutions(challenge, 2, new AtomicBoolean()));
+        }
+    }
+
+    @Test
+    public void searchStopsAtLimitAndWhenCancelled() {
+        List<ChallengeData> challenges = TestChallenges.getCampaignChallenges();
+        ChallengeSolver solver = new ChallengeSolver();
+        for (int i = 0; i < challenges.size(); i++) {
+            ChallengeData challenge = challenges.get(i);
+            assertEquals("Challenge " + i, 1,
+                    solver.solve(challenge, 1, new AtomicBoolean()).size());
+            assertTrue("Challenge " + i,
+                    solver.solve(challenge, 10, new AtomicBoolean(true)).isEmpty());
+        }
+    }
+
+    @Test
+    public void solvingDoesNotModifyChallenge() {
+        ChallengeData challenge = TestChallenges.getCampaignChallenges().get(0);
+        String placement = getPlacement(challenge);
+        new ChallengeSolver().solve(challenge);
+        assertEquals(placement, getPlacement(challenge));
+    }
+
+    /**
+     * A method to describe where the walls of a challenge are, regardless of
+     * the order of the walls and of their definitions.
+     * @param challenge the challenge to describe
+     * @return the sorted border points of every wall, with the walls sorted
+     */
+    private static String getPlacement(ChallengeData challenge) {
+        List<String> walls = new ArrayList<String>();
+        for (WallData wall : challenge.walls) {
+            List<String> points = new ArrayList<String>();
+            if (wall.getPosition() != null) {
+                for (Point point : wall.occupiesBorder()) {
+                    points.add(point.getX() + "," + point.getY());
+                }
+            }
+            Collections.sort(points);
+            walls.add(points.toString());
+        }
+        Collections.sort(walls);
+        return walls.toString();
+    }
+
+}
@@ -0,0 +1,204 @@
+package com.oops.wallsandwarriors.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.oops.wallsandwarriors.TestChallenges;
+import com.oops.wallsandwarriors.model.ChallengeData;
+import com.oops.wallsandwarriors.model.Coordinate;
+import com.oops.wallsandwarriors.model.HighTowerData;
+import com.oops.wallsandwarriors.model.KnightData;
+import com.oops.wallsandwarriors.model.WallBastion;
+import com.oops.wallsandwarriors.model.WallData;
+import com.oops.wallsandwarriors.model.WallDefinition;
+import com.oops.wallsandwarriors.model.WallPortion;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests of the ChallengeCodec and of the codes of EncodeUtils. The campaign
+ * challenges are stored in the serialized codes of the older versions of the
+ * game, so they are used to check that the legacy codes are still decoded.
+ */
+public class ChallengeCodecTest {
+
+    private static final String LEGACY_PREFIX = "rO0";
+
+    @Test
+    public void legacyCodesDecodeToSameChallengeAsCompactCodes() throws Exception {
+        List<String> codes = TestChallenges.getCampaignCodes();
+        for (int i = 0; i < codes.size(); i++) {
+            String legacyCode = codes.get(i);
+            assertTrue("Challenge " + i, legacyCode.startsWith(LEGACY_PREFIX));
+            ChallengeData legacy = EncodeUtils.decode(legacyCode);
+            String compactCode = EncodeUtils.encode(legacy);
+            assertFalse("Challenge " + i, compactCode.startsWith(LEGACY_PREFIX));
+            assertTrue("Challenge " + i, compactCode.length() < legacyCode.length());
+            ChallengeData compact = EncodeUtils.decode(compactCode);
+            assertEquals("Challenge " + i, describe(legacy), describe(compact));
+            assertEquals("Challenge " + i, compactCode, EncodeUtils.encode(compact));
+        }
+    }
+
+    @Test
+    public void randomPlacementsRoundTrip() throws Exception {
+        List<ChallengeData> challenges = TestChallenges.getCampaignChallenges();
+        Random random = new Random(3);
+        for (int i = 0; i < challenges.size(); i++) {
+            for (int placement = 0; placement < 20; placement++) {
+                ChallengeData challenge = TestChallenges.placeRandomly(challenges.get(i), random);
+                byte[] bytes = ChallengeCodec.encode(challenge);
+                assertEquals("Challenge " + i, describe(challenge),
+                        describe(ChallengeCodec.decode(bytes)));
+            }
+        }
+    }
+
+    @Test
+    public void unusualChallengeRoundTrips() throws Exception {
+        ChallengeData challenge = createUnusualChallenge();
+        String code = EncodeUtils.encode(challenge);
+        assertEquals(describe(challenge), describe(EncodeUtils.decode(code)));
+    }
+
+    @Test
+    public void emptyChallengeRoundTrips() throws Exception {
+        ChallengeData challenge = new ChallengeData(Collections.<Coordinate>emptyList(),
+                Collections.<WallData>emptyList());
+        challenge.setName("");
+        challenge.setDescription("");
+        challenge.setCreator("");
+        assertEquals(describe(challenge),
+                describe(ChallengeCodec.decode(ChallengeCodec.encode(challenge))));
+    }
+
+    @Test
+    public void truncatedCodesAreRejected() {
+        byte[] bytes = ChallengeCodec.encode(createUnusualChallenge());
+        for (int length = 0; length < bytes.length; length++) {
+            assertRejected(Arrays.copyOf(bytes, length));
+        }
+    }
+
+    @Test
+    public void unknownFormatsAreRejected() {
+        byte[] bytes = ChallengeCodec.encode(createUnusualChallenge());
+        byte[] otherTag = bytes.clone();
+        otherTag[0] = (byte) (ChallengeCodec.FORMAT_TAG + 1);
+        assertRejected(otherTag);
+        byte[] otherVersion = bytes.clone();
+        otherVersion[1] = (byte) (ChallengeCodec.VERSION + 1);
+        assertRejected(otherVersion);
+    }
+
+    @Test
+    public void encodingIsDeterministic() {
+        ChallengeData challenge = createUnusualChallenge();
+        assertArrayEquals(ChallengeCodec.encode(challenge),
+                ChallengeCodec.encode(challenge.createCopy(false)));
+    }
+
+    /**
+     * A method to create a challenge with the parts which the campaign
+     * challenges do not have: texts out of ASCII, blocks at negative
+     * coordinates, a knight and a wall off the grid, a high tower with one
+     * position and a wall which is not one of the standard walls.
+     * @return the challenge
+     */
+    private static ChallengeData createUnusualChallenge() {
+        List<Coordinate> blocks = new ArrayList<Coordinate>();
+        for (int x = -2; x < 3; x++) {
+            for (int y = -1; y < 2; y++) {
+                if (x != 0 || y != 0) {
+                    blocks.add(new Coordinate(x, y));
+                }
+            }
+        }
+        WallDefinition custom = new WallDefinition(
+                Arrays.asList(new WallPortion(new Coordinate(0, 0), new Coordinate(0, 1)),
+                        new WallPortion(new Coordinate(1, 0), new Coordinate(1, 1))),
+                Arrays.asList(new WallBastion(new Coordinate(1, 1))));
+        List<WallData> walls = new ArrayList<WallData>();
+        walls.add(new WallData(custom, new Coordinate(-2, -1)));
+        walls.add(new WallData(custom));
+        ChallengeData challenge = new ChallengeData(blocks, walls);
+        challenge.setName("Kale Çıkışı");
+        challenge.setDescription("Duvarlar → şövalyeler");
+        challenge.setCreator("Öğrenci");
+        challenge.addPiece(new KnightData(new Coordinate(-2, 1), true));
+        challenge.addPiece(new KnightData(new Coordinate(2, -1), false));
+        challenge.addPiece(new KnightData(null, true));
+        challenge.addPiece(new HighTowerData(new Coordinate(1, 1), null));
+        return challenge;
+    }
+
+    /**
+     * A method to check that some bytes are rejected with an IOException.
+     * @param bytes the bytes to decode
+     */
+    private static void assertRejected(byte[] bytes) {
+        try {
+            ChallengeCodec.decode(bytes);
+            fail("Decoded " + Arrays.toString(bytes));
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * A method to describe everything a code keeps of a challenge. The blocks
+     * are sorted, since the codec stores them as a bit mask.
+     * @param challenge the challenge to describe
+     * @return the description of the challenge
+     */
+    private static String describe(ChallengeData challenge) {
+        List<String> blocks = new ArrayList<String>();
+        for (Coordinate block : challenge.blocks) {
+            blocks.add(block.x + "," + block.y);
+        }
+        Collections.sort(blocks);
+        StringBuilder description = new StringBuilder();
+        description.append(challenge.getName()).append('|')
+                .append(challenge.getDescription()).append('|')
+                .append(challenge.getCreator()).append('|')
+                .append(blocks);
+        for (KnightData knight : challenge.knights) {
+            description.append("|knight ").append(describe(knight.getPosition()))
+                    .append(knight.isEnemy ? " enemy" : " ally");
+        }
+        for (HighTowerData highTower : challenge.highTowers) {
+            description.append("|tower ").append(describe(highTower.getFirstPosition()))
+                    .append(' ').append(describe(highTower.getSecondPosition()));
+        }
+        for (WallData wall : challenge.walls) {
+            WallDefinition definition = wall.getWallDefinition();
+            description.append("|wall ").append(describe(wall.getPosition()));
+            for (WallPortion portion : definition.portions) {
+                description.append(" portion ").append(describe(portion.firstRelativePos))
+                        .append('-').append(describe(portion.secondRelativePos));
+            }
+            for (WallBastion bastion : definition.bastions) {
+                description.append(" bastion ").append(describe(bastion.relativePos));
+            }
+        }
+        return description.toString();
+    }
+
+    /**
+     * A method to describe a position.
+     * @param coordinate the position, or null
+     * @return the description of the position
+     */
+    private static String describe(Coordinate coordinate) {
+        return coordinate == null ? "-" : coordinate.x + "," + coordinate.y;
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.oops.wallsandwarriors.util;
+
+import static org.junit.Assert.assertEquals;
+
+import com.oops.wallsandwarriors.StorageManager;
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of the ChallengeJournal. The journal writes in the background, so the
+ * file is read with the StorageManager, after the writes requested before.
+ */
+public class ChallengeJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private StorageManager storage;
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        storage = new StorageManager();
+        file = folder.newFile("journal.dat");
+    }
+
+    @After
+    public void tearDown() {
+        storage.close();
+    }
+
+    @Test
+    public void recordsAreReplayedInOrder() throws Exception {
+        ChallengeJournal journal = new ChallengeJournal(file, "", storage);
+        long first = journal.add("first");
+        long second = journal.add("second");
+        long third = journal.add("third");
+        journal.remove(second);
+        long fourth = journal.add("fourth");
+        journal.remove(first);
+        journal.add("first");
+        String content = readFile();
+        assertEquals("+ 0 first\n+ 1 second\n+ 2 third\n- 1\n+ 3 fourth\n- 0\n+ 4 first\n",
+                content);
+
+        ChallengeJournal replayed = new ChallengeJournal(file, content, storage);
+        Map<Long, String> expected = new LinkedHashMap<Long, String>();
+        expected.put(third, "third");
+        expected.put(fourth, "fourth");
+        expected.put(4L, "first");
+        assertEquals(expected, replayed.getRecords());
+        assertEquals(5, replayed.add("fifth"));
+        // Removing a dead record writes nothing
+        replayed.remove(second);
+        assertEquals(content + "+ 5 fifth\n", readFile());
+    }
+
+    @Test
+    public void oldFormatIsRewritten() throws Exception {
+        ChallengeJournal journal = new ChallengeJournal(file, "first\r\nsecond\r\n\r\n", storage);
+        assertEquals(Arrays.asList("first", "second"),
+                Arrays.asList(journal.getRecords().values().toArray()));
+        assertEquals("+ 0 first\n+ 1 second\n", readFile());
+    }
+
+    @Test
+    public void brokenLastLineIsDropped() throws Exception {
+        ChallengeJournal journal = new ChallengeJournal(file,
+                "+ 0 first\n+ 1 second\n- 0\n+ 2 thi", storage);
+        Map<Long, String> expected = new LinkedHashMap<Long, String>();
+        expected.put(1L, "second");
+        assertEquals(expected, journal.getRecords());
+        assertEquals("+ 1 second\n", readFile());
+        assertEquals(2, journal.add("third"));
+        assertEquals("+ 1 second\n+ 2 third\n", readFile());
+    }
+
+    @Test
+    public void journalIsCompactedAfterManyRemovals() throws Exception {
+        ChallengeJournal journal = new ChallengeJournal(file, "", storage);
+        for (int i = 0; i < 20; i++) {
+            journal.add("code" + i);
+        }
+        // After 7 removals there are 14 dead records, which are kept
+        for (long id = 0; id < 7; id++) {
+            journal.remove(id);
+        }
+        assertEquals(27, countLines(readFile()));
+        // After the 8th removal the 16 dead records are more than the 12 live ones
+        journal.remove(7);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 8; i < 20; i++) {
+            expected.append("+ ").append(i).append(" code").append(i).append('\n');
+        }
+        String content = readFile();
+        assertEquals(expected.toString(), content);
+        assertEquals(journal.getRecords(),
+                new ChallengeJournal(file, content, storage).getRecords());
+
+        journal.remove(8);
+        assertEquals(expected.toString() + "- 8\n", readFile());
+    }
+
+    /**
+     * A method to read the journal file after the writes requested before.
+     * @return the content of the file
+     * @throws Exception if the file can not be read
+     */
+    private String readFile() throws Exception {
+        return storage.readText(file).get();
+    }
+
+    /**
+     * A method to count the lines of a text.
+     * @param text the text to count the lines of
+     * @return the number of line breaks in the text
+     */
+    private static int countLines(String text) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+}